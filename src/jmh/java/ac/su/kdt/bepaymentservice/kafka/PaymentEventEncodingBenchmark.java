@@ -0,0 +1,94 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentEvent 의 JSON / 바이너리 인코딩 처리량 비교
+ * 페이로드 크기는 setup 에서 한 번 출력한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PaymentEventEncodingBenchmark {
+
+    private static final String JSON_TOPIC = "json-events";
+    private static final String BINARY_TOPIC = "binary-events";
+
+    @Param({"TICKETS_USED", "SUBSCRIPTION_CREATED"})
+    public String eventType;
+
+    private PaymentEventSerializer serializer;
+    private PaymentEventDeserializer deserializer;
+    private PaymentEvent event;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+    private RecordHeaders jsonHeaders;
+    private RecordHeaders binaryHeaders;
+
+    @Setup
+    public void setUp() {
+        serializer = new PaymentEventSerializer();
+        serializer.configure(Map.of(PaymentEventSerializer.BINARY_TOPICS_CONFIG, BINARY_TOPIC), false);
+        deserializer = new PaymentEventDeserializer();
+
+        Map<String, Object> data = "TICKETS_USED".equals(eventType)
+                ? Map.of("ticketsUsed", 1, "remainingBalance", 4)
+                : Map.of("subscriptionId", 3001L, "planId", 2L, "planType", "PRO", "billingCycle", "MONTHLY",
+                        "amount", new BigDecimal("29900.00"), "currency", "KRW", "status", "ACTIVE");
+        event = PaymentEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(eventType)
+                .timestamp(LocalDateTime.now())
+                .userId(1001L)
+                .teamId(2001L)
+                .data(data)
+                .build();
+
+        jsonHeaders = new RecordHeaders();
+        jsonBytes = serializer.serialize(JSON_TOPIC, jsonHeaders, event);
+        binaryHeaders = new RecordHeaders();
+        binaryBytes = serializer.serialize(BINARY_TOPIC, binaryHeaders, event);
+        System.out.printf("%n%s payload: json=%d bytes, binary=%d bytes%n", eventType, jsonBytes.length, binaryBytes.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return serializer.serialize(JSON_TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return serializer.serialize(BINARY_TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public PaymentEvent deserializeJson() {
+        return deserializer.deserialize(JSON_TOPIC, jsonHeaders, jsonBytes);
+    }
+
+    @Benchmark
+    public PaymentEvent deserializeBinary() {
+        return deserializer.deserialize(BINARY_TOPIC, binaryHeaders, binaryBytes);
+    }
+}
@@ -1,22 +1,127 @@
 package ac.su.kdt.bepaymentservice.config;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebClientConfig {
-    
+
+    @Value("${toss.payments.api.url}")
+    private String tossApiUrl;
+
+    @Value("${toss.payments.secret.key}")
+    private String tossSecretKey;
+
+    // Toss 전용 커넥션 풀
+    @Value("${toss.http.pool.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${toss.http.pool.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${toss.http.pool.pending-acquire-timeout-ms:3000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${toss.http.pool.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Value("${toss.http.pool.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+
+    @Value("${toss.http.pool.evict-interval-ms:30000}")
+    private long evictIntervalMs;
+
+    // Toss 호출 타임아웃
+    @Value("${toss.http.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${toss.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${toss.http.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    @Value("${toss.http.response-timeout-ms:30000}")
+    private long responseTimeoutMs;
+
+    @Value("${toss.http.http2-enabled:false}")
+    private boolean http2Enabled;
+
     @Bean
     public WebClient.Builder webClientBuilder() {
         HttpClient httpClient = HttpClient.create()
                 .responseTimeout(Duration.ofSeconds(30));
-        
+
         return WebClient.builder()
                 .clientConnector(new ReactorClientHttpConnector(httpClient));
     }
-}
\ No newline at end of file
+
+    /**
+     * Toss API 전용 커넥션 풀
+     * 다른 외부 호출과 풀을 공유하지 않으며, 풀 지표(reactor.netty.connection.provider.*)를 name=toss 태그로 Micrometer 에 게시한다
+     * (active/idle/pending 커넥션 수, 커넥션 획득 대기 시간)
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider tossConnectionProvider() {
+        return ConnectionProvider.builder("toss")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictIntervalMs))
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * 미리 만들어 둔 Toss API 클라이언트
+     * 기본 URL 과 인증 헤더를 한 번만 설정하고, 풀의 커넥션(TLS 세션)을 요청 간에 재사용한다
+     */
+    @Bean
+    public WebClient tossWebClient(WebClient.Builder webClientBuilder, ConnectionProvider tossConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(tossConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                // 요청마다 추가한 핸들러는 커넥션이 풀로 반납될 때 제거되므로, 유휴 커넥션은 maxIdleTime 으로만 정리된다
+                .doOnRequest((request, connection) -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeoutMs, TimeUnit.MILLISECONDS)));
+
+        if (http2Enabled) {
+            // HTTP/2 는 TLS(ALPN) 협상이 필요하며, 서버가 지원하지 않으면 HTTP/1.1 로 내려간다
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(tossApiUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, basicAuthHeader(tossSecretKey))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    /**
+     * Toss API 인증 헤더 (시크릿 키 + ":" 를 Base64 인코딩)
+     */
+    public static String basicAuthHeader(String secretKey) {
+        String credentials = secretKey + ":";
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}
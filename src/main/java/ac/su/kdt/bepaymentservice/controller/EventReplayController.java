@@ -0,0 +1,91 @@
+package ac.su.kdt.bepaymentservice.controller;
+
+import ac.su.kdt.bepaymentservice.kafka.ExternalEventDeadLetterReplayer;
+import ac.su.kdt.bepaymentservice.util.GatewayAuthUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * DLT 재처리 운영 API
+ * kafka.dlt.replay.api-enabled 가 켜져 있을 때만 열리고(기본 꺼짐, 꺼져 있으면 404),
+ * Gateway 인증을 거친 kafka.dlt.replay.admin-user-ids 의 사용자만 호출할 수 있다
+ */
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+@Slf4j
+public class EventReplayController {
+    
+    private final ExternalEventDeadLetterReplayer deadLetterReplayer;
+    
+    @Value("${kafka.dlt.replay.api-enabled:false}")
+    private boolean apiEnabled;
+    
+    @Value("${kafka.dlt.replay.admin-user-ids:}")
+    private String[] adminUserIds;
+    
+    /**
+     * 외부 이벤트 토픽의 DLT 에 쌓인 레코드를 원래 토픽으로 다시 보낸다
+     */
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(
+            @RequestParam String topic,
+            @RequestParam(defaultValue = "500") int maxRecords) {
+        if (!apiEnabled) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        // Gateway 인증 확인
+        if (!GatewayAuthUtils.isAuthenticated()) {
+            log.warn("Unauthorized attempt to replay dead-lettered events for topic: {}", topic);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "success", false,
+                "message", "Authentication required"
+            ));
+        }
+        
+        // 운영자로 등록된 사용자만 재처리할 수 있다
+        if (!isAdmin(GatewayAuthUtils.getCurrentUserId())) {
+            log.warn("User {} attempted to replay dead-lettered events for topic: {}",
+                    GatewayAuthUtils.getCurrentUserId(), topic);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+                "success", false,
+                "message", "Access denied"
+            ));
+        }
+        
+        try {
+            log.info("Replaying dead-lettered events for topic: {} by {}", topic, GatewayAuthUtils.getCurrentUserInfo());
+            int replayed = deadLetterReplayer.replay(topic, maxRecords);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "topic", topic,
+                "replayed", replayed
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        } catch (Exception e) {
+            log.error("Error replaying dead-lettered events for topic: {}", topic, e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                "success", false,
+                "message", "Internal server error"
+            ));
+        }
+    }
+    
+    private boolean isAdmin(String userId) {
+        return Arrays.stream(adminUserIds)
+            .map(String::trim)
+            .anyMatch(adminUserId -> !adminUserId.isEmpty() && adminUserId.equals(userId));
+    }
+}
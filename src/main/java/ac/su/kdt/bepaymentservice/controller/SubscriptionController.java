@@ -2,6 +2,7 @@ package ac.su.kdt.bepaymentservice.controller;
 
 import ac.su.kdt.bepaymentservice.dto.CreateSubscriptionRequest;
 import ac.su.kdt.bepaymentservice.dto.SubscriptionDto;
+import ac.su.kdt.bepaymentservice.dto.SubscriptionHistoryPage;
 import ac.su.kdt.bepaymentservice.service.SubscriptionService;
 import ac.su.kdt.bepaymentservice.util.GatewayAuthUtils;
 import jakarta.validation.Valid;
@@ -20,6 +21,9 @@ import java.util.Map;
 @Slf4j
 public class SubscriptionController {
     
+    // 다음 페이지가 있으면 그 요청에 after 로 넘길 값을 담는다
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     private final SubscriptionService subscriptionService;
     
     @PostMapping
@@ -53,8 +57,15 @@ public class SubscriptionController {
         }
     }
     
+    /**
+     * 구독 이력을 최신순으로 limit 건씩 돌려준다 (최대 100건)
+     * 다음 페이지가 있으면 X-Next-Cursor 헤더의 값을 after 로 넘겨 이어서 조회한다
+     */
     @GetMapping("/users/{userId}")
-    public ResponseEntity<List<SubscriptionDto>> getUserSubscriptions(@PathVariable String userId) {
+    public ResponseEntity<List<SubscriptionDto>> getUserSubscriptions(
+            @PathVariable String userId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int limit) {
         try {
             // Gateway 인증 확인
             if (!GatewayAuthUtils.isAuthenticated()) {
@@ -74,8 +85,12 @@ public class SubscriptionController {
             
             // String userId를 Long으로 변환하여 서비스 호출
             Long userIdLong = convertUserIdToLong(userId);
-            List<SubscriptionDto> subscriptions = subscriptionService.getUserSubscriptions(userIdLong);
-            return ResponseEntity.ok(subscriptions);
+            SubscriptionHistoryPage page = subscriptionService.getUserSubscriptions(userIdLong, after, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+            }
+            return response.body(page.subscriptions());
         } catch (Exception e) {
             log.error("Error fetching user subscriptions for user: {}", userId, e);
             return ResponseEntity.internalServerError().build();
@@ -2,14 +2,14 @@ package ac.su.kdt.bepaymentservice.controller;
 
 import ac.su.kdt.bepaymentservice.dto.SubscriptionPlanDto;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
-import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import ac.su.kdt.bepaymentservice.service.SubscriptionPlanCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/subscription-plans")
@@ -17,17 +17,19 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SubscriptionPlanController {
     
-    private final SubscriptionPlanRepository subscriptionPlanRepository;
+    // 플랜 조회는 DB 대신 캐시를 사용한다
+    private final SubscriptionPlanCache subscriptionPlanCache;
     
+    /**
+     * If-None-Match 가 현재 ETag 와 같으면 본문 없이 304 로 응답한다
+     */
     @GetMapping
     public ResponseEntity<List<SubscriptionPlanDto>> getAllActivePlans() {
         try {
-            List<SubscriptionPlan> plans = subscriptionPlanRepository.findByIsActiveTrue();
-            List<SubscriptionPlanDto> planDtos = plans.stream()
-                .map(SubscriptionPlanDto::fromEntity)
-                .collect(Collectors.toList());
-            
-            return ResponseEntity.ok(planDtos);
+            return ResponseEntity.ok()
+                .eTag(subscriptionPlanCache.getActivePlansETag())
+                .cacheControl(CacheControl.noCache())
+                .body(subscriptionPlanCache.getActivePlans());
         } catch (Exception e) {
             log.error("Error fetching subscription plans", e);
             return ResponseEntity.internalServerError().build();
@@ -37,9 +39,7 @@ public class SubscriptionPlanController {
     @GetMapping("/{planId}")
     public ResponseEntity<SubscriptionPlanDto> getPlan(@PathVariable Long planId) {
         try {
-            return subscriptionPlanRepository.findById(planId)
-                .filter(SubscriptionPlan::getIsActive)
-                .map(SubscriptionPlanDto::fromEntity)
+            return subscriptionPlanCache.findActivePlan(planId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
@@ -51,8 +51,7 @@ public class SubscriptionPlanController {
     @GetMapping("/types/{planType}")
     public ResponseEntity<SubscriptionPlanDto> getPlanByType(@PathVariable SubscriptionPlan.PlanType planType) {
         try {
-            return subscriptionPlanRepository.findByPlanTypeAndIsActiveTrue(planType)
-                .map(SubscriptionPlanDto::fromEntity)
+            return subscriptionPlanCache.findActivePlanByType(planType)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
@@ -1,14 +1,22 @@
 package ac.su.kdt.bepaymentservice.controller;
 
 import ac.su.kdt.bepaymentservice.dto.TicketDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionPage;
+import ac.su.kdt.bepaymentservice.service.TicketHistoryService;
 import ac.su.kdt.bepaymentservice.service.TicketService;
 import ac.su.kdt.bepaymentservice.util.GatewayAuthUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -17,7 +25,11 @@ import java.util.Map;
 @Slf4j
 public class TicketController {
     
+    // 다음 페이지가 있으면 그 요청에 after 로 넘길 값을 담는다
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     private final TicketService ticketService;
+    private final TicketHistoryService ticketHistoryService;
     
     @GetMapping("/users/{userId}")
     public ResponseEntity<TicketDto> getUserTickets(@PathVariable String userId) {
@@ -48,6 +60,80 @@ public class TicketController {
         }
     }
     
+    /**
+     * 티켓 거래 내역을 최신순으로 limit 건씩 돌려준다 (최대 100건)
+     * 다음 페이지가 있으면 X-Next-Cursor 헤더의 값을 after 로 넘겨 이어서 조회한다
+     */
+    @GetMapping("/users/{userId}/transactions")
+    public ResponseEntity<List<TicketTransactionDto>> getTicketTransactions(
+            @PathVariable String userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            if (!GatewayAuthUtils.isAuthenticated()) {
+                log.warn("Unauthorized access attempt to ticket transactions for user: {}", userId);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            
+            if (!GatewayAuthUtils.isCurrentUser(userId)) {
+                log.warn("User {} attempted to access ticket transactions of user {}", 
+                        GatewayAuthUtils.getCurrentUserId(), userId);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            
+            TicketTransactionPage page = ticketHistoryService.getTransactions(convertUserIdToLong(userId), after, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+            }
+            return response.body(page.transactions());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid ticket transaction request for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error fetching ticket transactions for user: {}", userId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * 전체 티켓 거래 내역을 NDJSON(기본) 또는 CSV 로 내려받는다
+     * DB 에서 읽는 대로 응답에 쓰므로 내역이 많아도 한 번에 메모리에 올리지 않는다
+     * (비동기 요청 타임아웃에 걸리지 않도록 요청 스레드에서 직접 쓴다)
+     */
+    @GetMapping("/users/{userId}/transactions/export")
+    public void exportTicketTransactions(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        if (!GatewayAuthUtils.isAuthenticated()) {
+            log.warn("Unauthorized access attempt to ticket transaction export for user: {}", userId);
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        
+        if (!GatewayAuthUtils.isCurrentUser(userId)) {
+            log.warn("User {} attempted to export ticket transactions of user {}", 
+                    GatewayAuthUtils.getCurrentUserId(), userId);
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        
+        TicketHistoryService.ExportFormat exportFormat;
+        try {
+            exportFormat = TicketHistoryService.ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unsupported export format: " + format);
+            return;
+        }
+        
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"ticket-transactions." + exportFormat.getExtension() + "\"");
+        ticketHistoryService.export(convertUserIdToLong(userId), exportFormat, response.getOutputStream());
+    }
+    
     @PostMapping("/users/{userId}/use")
     public ResponseEntity<Map<String, Object>> useTickets(
             @PathVariable String userId,
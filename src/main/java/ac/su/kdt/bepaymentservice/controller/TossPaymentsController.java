@@ -1,77 +1,111 @@
 package ac.su.kdt.bepaymentservice.controller;
 
+import ac.su.kdt.bepaymentservice.service.IdempotencyConflictException;
+import ac.su.kdt.bepaymentservice.service.PaymentIdempotencyService;
+import ac.su.kdt.bepaymentservice.service.PaymentRecordingService;
 import ac.su.kdt.bepaymentservice.service.TossPaymentsService;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
 import ac.su.kdt.bepaymentservice.toss.dto.*;
+import ac.su.kdt.bepaymentservice.util.GatewayAuthUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.function.Supplier;
+
+/**
+ * TossPayments 연동 API
+ * 서비스가 반환한 Mono 를 그대로 반환하여 Toss 응답을 기다리는 동안 요청 스레드를 점유하지 않는다 (MVC 비동기 처리)
+ * 서비스 호출 자체에서 발생한 예외도 같은 오류 응답으로 처리되도록 Mono.defer 로 감싼다
+ * 서킷 브레이커/벌크헤드가 호출을 거절하면 Toss 를 기다리지 않고 503 으로 바로 응답한다
+ * 결제 승인/자동결제는 Idempotency-Key 헤더(없으면 orderId) 기준으로 중복 요청을 한 번만 처리한다
+ * 같은 키를 다른 요청 본문이나 다른 사용자가 쓰면 409 로 거절한다
+ * 결제 승인/자동결제 결과는 subscriptionId 파라미터의 구독에 연결한 PaymentTransaction 으로 기록한다
+ */
 @RestController
 @RequestMapping("/api/toss")
 @RequiredArgsConstructor
 @Slf4j
 public class TossPaymentsController {
     
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
     private final TossPaymentsService tossPaymentsService;
+    private final PaymentIdempotencyService paymentIdempotencyService;
+    private final PaymentRecordingService paymentRecordingService;
     
     @PostMapping("/billing/issue")
-    public ResponseEntity<BillingResponse> issueBillingKey(@RequestBody BillingKeyRequest request) {
+    public Mono<ResponseEntity<BillingResponse>> issueBillingKey(@RequestBody BillingKeyRequest request) {
         log.info("Billing key issue request received for customerKey: {}", request.getCustomerKey());
         
-        try {
-            BillingResponse response = tossPaymentsService.issueBillingKey(request).block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error issuing billing key: ", e);
-            return ResponseEntity.badRequest().build();
-        }
+        return respond(() -> tossPaymentsService.issueBillingKey(request), "Error issuing billing key: ");
     }
     
     @PostMapping("/billing/{billingKey}/payment")
-    public ResponseEntity<PaymentResponse> processAutoPayment(
+    public Mono<ResponseEntity<PaymentResponse>> processAutoPayment(
             @PathVariable String billingKey,
-            @RequestBody AutoPaymentRequest request) {
+            @RequestBody AutoPaymentRequest request,
+            @RequestParam(required = false) Long subscriptionId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         
         log.info("Auto payment request received for billingKey: {}, orderId: {}", 
                 billingKey, request.getOrderId());
         
-        try {
-            PaymentResponse response = tossPaymentsService.processAutoPayment(billingKey, request).block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error processing auto payment: ", e);
-            return ResponseEntity.badRequest().build();
-        }
+        String fingerprint = paymentIdempotencyService.fingerprint(GatewayAuthUtils.getCurrentUserId(),
+                billingKey, subscriptionId, request);
+        return respond(() -> paymentIdempotencyService.execute(TossOperation.AUTO_PAYMENT,
+                idempotencyKey(idempotencyKey, request.getOrderId()), fingerprint, PaymentResponse.class,
+                () -> paymentRecordingService.recordPayment(subscriptionId, request.getAmount(),
+                        tossPaymentsService.processAutoPayment(billingKey, request))), "Error processing auto payment: ");
     }
     
     @PostMapping("/payments/checkout")
-    public ResponseEntity<CheckoutResponse> createCheckout(@RequestBody CheckoutRequest request) {
+    public Mono<ResponseEntity<CheckoutResponse>> createCheckout(@RequestBody CheckoutRequest request) {
         log.info("Checkout request received for amount: {}, orderId: {}", 
                 request.getAmount(), request.getOrderId());
         
-        try {
-            CheckoutResponse response = tossPaymentsService.createCheckout(request).block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error creating checkout: ", e);
-            return ResponseEntity.badRequest().build();
-        }
+        return respond(() -> tossPaymentsService.createCheckout(request), "Error creating checkout: ");
     }
     
     @PostMapping("/payments/confirm")
-    public ResponseEntity<PaymentResponse> confirmPayment(@RequestBody ConfirmRequest request) {
+    public Mono<ResponseEntity<PaymentResponse>> confirmPayment(
+            @RequestBody ConfirmRequest request,
+            @RequestParam(required = false) Long subscriptionId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Payment confirmation request received for paymentKey: {}", request.getPaymentKey());
         
-        try {
-            PaymentResponse response = tossPaymentsService.confirmPayment(request).block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error confirming payment: ", e);
-            return ResponseEntity.badRequest().build();
-        }
+        String fingerprint = paymentIdempotencyService.fingerprint(GatewayAuthUtils.getCurrentUserId(),
+                subscriptionId, request);
+        return respond(() -> paymentIdempotencyService.execute(TossOperation.CONFIRM,
+                idempotencyKey(idempotencyKey, request.getOrderId()), fingerprint, PaymentResponse.class,
+                () -> paymentRecordingService.recordPayment(subscriptionId, request.getAmount(),
+                        tossPaymentsService.confirmPayment(request))), "Error confirming payment: ");
+    }
+    
+    private <T> Mono<ResponseEntity<T>> respond(Supplier<Mono<T>> call, String errorMessage) {
+        return Mono.defer(call)
+            .map(ResponseEntity::ok)
+            .onErrorResume(IdempotencyConflictException.class, e -> {
+                log.warn("{}{}", errorMessage, e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+            })
+            .onErrorResume(TossUnavailableException.class, e -> {
+                log.warn("{}{}", errorMessage, e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+            })
+            .onErrorResume(e -> {
+                log.error(errorMessage, e);
+                return Mono.just(ResponseEntity.badRequest().build());
+            });
+    }
+    
+    private String idempotencyKey(String headerValue, String orderId) {
+        return headerValue != null && !headerValue.isBlank() ? headerValue : orderId;
     }
-}
\ No newline at end of file
+}
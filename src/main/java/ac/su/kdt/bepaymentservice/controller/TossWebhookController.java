@@ -0,0 +1,55 @@
+package ac.su.kdt.bepaymentservice.controller;
+
+import ac.su.kdt.bepaymentservice.service.TossWebhookService;
+import ac.su.kdt.bepaymentservice.service.WebhookVerificationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/toss/webhooks")
+@RequiredArgsConstructor
+@Slf4j
+public class TossWebhookController {
+
+    private final TossWebhookService tossWebhookService;
+
+    /**
+     * Toss 결제 상태 변경 웹훅 수신
+     * 저장 후 바로 200 을 응답하고 결제/구독 반영은 비동기로 처리한다 (이미 받은 웹훅도 200 으로 응답해 Toss 재전송을 멈춘다)
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> receive(
+            @RequestBody String payload,
+            @RequestHeader(value = TossWebhookService.SIGNATURE_HEADER, required = false) String signature,
+            @RequestHeader(value = TossWebhookService.TRANSMISSION_TIME_HEADER, required = false) String transmissionTime) {
+        try {
+            TossWebhookService.Receipt receipt = tossWebhookService.receive(payload, signature, transmissionTime);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "duplicate", receipt == TossWebhookService.Receipt.DUPLICATE
+            ));
+        } catch (WebhookVerificationException e) {
+            log.warn("Rejected Toss webhook: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        } catch (Exception e) {
+            log.error("Error receiving Toss webhook", e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                "success", false,
+                "message", "Internal server error"
+            ));
+        }
+    }
+}
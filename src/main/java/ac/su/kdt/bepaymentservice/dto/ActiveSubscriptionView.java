@@ -0,0 +1,16 @@
+package ac.su.kdt.bepaymentservice.dto;
+
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+
+import java.time.LocalDateTime;
+
+/**
+ * 사용자의 최신 활성 구독 요약 (SubscriptionRepository.findLatestActiveViews 프로젝션)
+ * 엔티티와 결제 거래를 읽지 않고 활성 여부 확인과 플랜 조회에 필요한 컬럼만 담는다
+ */
+public record ActiveSubscriptionView(Long id,
+                                     Long planId,
+                                     Subscription.SubscriptionStatus status,
+                                     LocalDateTime currentPeriodStart,
+                                     LocalDateTime currentPeriodEnd) {
+}
@@ -29,6 +29,9 @@ public class CreateSubscriptionRequest {
     
     private String stripePaymentMethodId;
     
+    // 빌링키 발급에 사용한 Toss customerKey (자동 갱신 결제용)
+    private String billingCustomerKey;
+    
     private String successUrl;
     
     private String cancelUrl;
@@ -0,0 +1,25 @@
+package ac.su.kdt.bepaymentservice.dto;
+
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketTransactionDto {
+    private Long id;
+    private Long userId;
+    private TicketTransaction.TicketTransactionType transactionType;
+    private Integer ticketAmount;
+    private Integer balanceBefore;
+    private Integer balanceAfter;
+    private Long relatedAttemptId;
+    private String reason;
+    private LocalDateTime createdAt;
+}
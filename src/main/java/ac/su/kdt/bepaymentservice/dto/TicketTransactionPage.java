@@ -0,0 +1,10 @@
+package ac.su.kdt.bepaymentservice.dto;
+
+import java.util.List;
+
+/**
+ * 티켓 거래 내역의 한 페이지 (최신순)
+ * nextCursor 는 다음 페이지 요청의 after 값이며, 마지막 페이지이면 null 이다
+ */
+public record TicketTransactionPage(List<TicketTransactionDto> transactions, String nextCursor) {
+}
@@ -0,0 +1,54 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 비즈니스 변경과 같은 트랜잭션에서 기록되는 Kafka 발행 대기 이벤트
+ * 릴레이가 id 순으로 읽어 전송한 뒤 sent_at 을 채운다
+ */
+@Entity
+@Table(name = "payment_event_outbox",
+       indexes = @Index(name = "idx_payment_event_outbox_unsent", columnList = "sent_at, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentEventOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "topic", nullable = false, length = 100)
+    private String topic;
+    
+    @Column(name = "event_id", nullable = false, length = 36)
+    private String eventId;
+    
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+    
+    @Column(name = "user_id")
+    private Long userId;
+    
+    // 파티션 키 (같은 키의 이벤트는 같은 파티션에서 순서가 유지된다)
+    @Column(name = "message_key", length = 100)
+    private String messageKey;
+    
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
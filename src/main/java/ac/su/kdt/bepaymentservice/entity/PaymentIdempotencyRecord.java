@@ -0,0 +1,57 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 결제 승인/자동결제 요청의 멱등성 기록
+ * 첫 요청이 IN_PROGRESS 로 키를 선점하고, Toss 응답을 받으면 COMPLETED 와 함께 응답 본문을 저장한다
+ * 선점한 인스턴스가 응답 없이 죽으면 locked_until 이 지난 뒤 다른 요청이 이어받는다
+ */
+@Entity
+@Table(name = "payment_idempotency",
+       indexes = @Index(name = "idx_payment_idempotency_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentIdempotencyRecord {
+    
+    // "{작업}:{Idempotency-Key 또는 orderId}"
+    @Id
+    @Column(name = "idempotency_key", length = 200)
+    private String idempotencyKey;
+    
+    @Column(name = "operation", nullable = false, length = 50)
+    private String operation;
+    
+    // 요청 본문과 사용자 id 의 SHA-256 (같은 키를 다른 요청에 다시 쓰면 충돌로 거절한다)
+    @Column(name = "request_fingerprint", length = 64)
+    private String requestFingerprint;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+    
+    @Column(name = "response_payload", columnDefinition = "TEXT")
+    private String responsePayload;
+    
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
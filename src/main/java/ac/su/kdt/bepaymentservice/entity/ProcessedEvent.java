@@ -0,0 +1,33 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 처리를 마친 외부 이벤트 기록 (소비자 중복 처리 방지)
+ * 티켓 지급과 같은 트랜잭션에서 기록되며, 보관 기간이 지나면 정리된다
+ */
+@Entity
+@Table(name = "processed_event",
+       indexes = @Index(name = "idx_processed_event_processed_at", columnList = "processed_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedEvent {
+    
+    @Id
+    @Column(name = "event_id", length = 100)
+    private String eventId;
+    
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+    
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "subscription")
+@Table(name = "subscription",
+       indexes = @Index(name = "idx_subscription_user_status_created", columnList = "user_id, status, created_at DESC"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -80,6 +81,20 @@ public class Subscription {
     @Builder.Default
     private Boolean autoRenewal = true;
     
+    // 자동 갱신 결제에 사용할 Toss customerKey (billing_keys.customer_key)
+    @Column(name = "billing_customer_key", length = 100)
+    private String billingCustomerKey;
+    
+    // 현재 기간에 대해 연속으로 실패한 갱신 결제 횟수 (성공 시 0으로 초기화)
+    // 기존 행이 있는 테이블에 ddl-auto=update 로 컬럼을 추가할 수 있도록 DB 기본값을 둔다
+    @Column(name = "renewal_attempts", nullable = false, columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer renewalAttempts = 0;
+    
+    // 다음 갱신 결제 재시도 시각 (null 이면 기간 종료 즉시 시도)
+    @Column(name = "next_renewal_attempt_at")
+    private LocalDateTime nextRenewalAttemptAt;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -111,6 +126,11 @@ public class Subscription {
         return status == SubscriptionStatus.ACTIVE || status == SubscriptionStatus.TRIAL;
     }
     
+    // 자동결제에 쓸 빌링 고객 키가 있어야 갱신 결제 대상이 된다
+    public boolean isRenewable() {
+        return Boolean.TRUE.equals(autoRenewal) && !Boolean.TRUE.equals(cancelAtPeriodEnd) && billingCustomerKey != null;
+    }
+    
     public boolean isExpired() {
         return currentPeriodEnd != null && currentPeriodEnd.isBefore(LocalDateTime.now());
     }
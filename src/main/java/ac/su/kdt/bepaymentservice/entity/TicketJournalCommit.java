@@ -0,0 +1,23 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 트랜잭션 안에서 커밋 전에 저널에 기록된(prepared) 티켓 변경의 커밋 표시
+ * 호출자 트랜잭션과 함께 커밋되므로 replay 는 이 행이 있는 prepared 기록만 적용한다
+ * flush 가 ticket_transaction 에 반영한 sequence 의 행은 같은 flush 트랜잭션에서 지운다
+ */
+@Entity
+@Table(name = "ticket_journal_commit")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketJournalCommit {
+
+    @Id
+    @Column(name = "journal_seq")
+    private Long journalSeq;
+}
@@ -0,0 +1,69 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 티켓 충전 실행의 user_id 구간 샤드와 진행 체크포인트
+ * 처리 중인 파드가 lease_owner/lease_expires_at 으로 샤드를 점유하며, 리스가 만료되면 다른 파드가 커서부터 이어서 처리한다
+ */
+@Entity
+@Table(name = "ticket_refill_shard")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketRefillShard {
+    
+    @Id
+    @Column(name = "shard_id")
+    private Integer shardId;
+    
+    // (rangeStart, rangeEnd] 구간의 user_id 를 담당
+    @Column(name = "range_start", nullable = false)
+    private Long rangeStart;
+    
+    @Column(name = "range_end", nullable = false)
+    private Long rangeEnd;
+    
+    // 마지막으로 커밋된 청크의 user_id
+    @Column(name = "cursor_user_id", nullable = false)
+    private Long cursorUserId;
+    
+    // 이 실행의 충전 기준 시각 (재시작 후에도 같은 기준으로 이어서 처리)
+    @Column(name = "run_started_at", nullable = false)
+    private LocalDateTime runStartedAt;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private ShardStatus status = ShardStatus.PENDING;
+    
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+    
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+    
+    @Column(name = "processed_count", nullable = false)
+    @Builder.Default
+    private Long processedCount = 0L;
+    
+    @Column(name = "refilled_count", nullable = false)
+    @Builder.Default
+    private Long refilledCount = 0L;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public enum ShardStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED
+    }
+}
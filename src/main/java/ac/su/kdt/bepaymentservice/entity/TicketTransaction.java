@@ -10,7 +10,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ticket_transaction")
+@Table(name = "ticket_transaction",
+       indexes = {
+           @Index(name = "idx_ticket_transaction_user_created", columnList = "user_id, created_at DESC, id DESC"),
+           @Index(name = "idx_ticket_transaction_journal_seq", columnList = "journal_seq")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,6 +47,10 @@ public class TicketTransaction {
     @Column(name = "reason", length = 500)
     private String reason;
     
+    // 인메모리 잔액 엔진의 저널 sequence (재기동 replay 가 이미 반영된 기록을 건너뛰는 데 쓴다, JPA 경로는 null)
+    @Column(name = "journal_seq")
+    private Long journalSeq;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,31 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 여러 인스턴스가 함께 쓰는 Toss 작업별 초당 호출 예산 (toss.rate-limit.shared.enabled=true 일 때만 사용)
+ * 현재 1초 구간(window_start, epoch 초)에 사용한 호출 수를 기록하며, 구간이 바뀌면 첫 호출이 0부터 다시 센다
+ */
+@Entity
+@Table(name = "toss_rate_budget")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TossRateBudget {
+    
+    // TossOperation.instanceName
+    @Id
+    @Column(name = "operation", length = 50)
+    private String operation;
+    
+    @Column(name = "window_start", nullable = false)
+    private Long windowStart;
+    
+    @Column(name = "used", nullable = false)
+    private Integer used;
+}
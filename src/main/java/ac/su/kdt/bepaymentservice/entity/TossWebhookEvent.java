@@ -0,0 +1,71 @@
+package ac.su.kdt.bepaymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 수신한 Toss 웹훅 원문과 처리 상태
+ * 수신 즉시 RECEIVED 로 저장하고 응답한 뒤, 내부 처리 대기열에서 결제/구독 상태에 반영하고 PROCESSED 로 바꾼다
+ * 재전송된 같은 웹훅은 dedup_key 의 유니크 제약으로 걸러진다
+ */
+@Entity
+@Table(name = "toss_webhook_event",
+       uniqueConstraints = @UniqueConstraint(name = "uk_toss_webhook_event_dedup_key", columnNames = "dedup_key"),
+       indexes = @Index(name = "idx_toss_webhook_event_status_received", columnList = "processing_status, received_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TossWebhookEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // "{eventType}:{paymentKey}:{status}:{createdAt}"
+    @Column(name = "dedup_key", nullable = false, length = 330)
+    private String dedupKey;
+    
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+    
+    @Column(name = "payment_key", nullable = false, length = 200)
+    private String paymentKey;
+    
+    @Column(name = "order_id", length = 64)
+    private String orderId;
+    
+    // Toss 결제 상태 (DONE, CANCELED, ABORTED ...)
+    @Column(name = "payment_status", nullable = false, length = 30)
+    private String paymentStatus;
+    
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "processing_status", nullable = false, length = 20)
+    private ProcessingStatus processingStatus;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    public enum ProcessingStatus {
+        RECEIVED,
+        PROCESSED,
+        FAILED
+    }
+}
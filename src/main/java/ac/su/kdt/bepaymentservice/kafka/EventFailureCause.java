@@ -0,0 +1,41 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.springframework.kafka.support.serializer.DeserializationException;
+
+/**
+ * 외부 이벤트 처리 실패 원인
+ * 재시도해도 결과가 같은 원인(잘못된 메시지)은 바로 DLT 로, 일시적인 원인은 재시도 토픽으로 보낸다
+ */
+public enum EventFailureCause {
+    DESERIALIZATION(false),
+    UNKNOWN_EVENT_TYPE(false),
+    INVALID_EVENT(false),
+    PROCESSING(true);
+    
+    private final boolean retryable;
+    
+    EventFailureCause(boolean retryable) {
+        this.retryable = retryable;
+    }
+    
+    public boolean isRetryable() {
+        return retryable;
+    }
+    
+    public static EventFailureCause classify(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof DeserializationException) {
+                return DESERIALIZATION;
+            }
+            if (current instanceof UnknownEventTypeException) {
+                return UNKNOWN_EVENT_TYPE;
+            }
+            if (current instanceof IllegalArgumentException
+                    || current instanceof NullPointerException
+                    || current instanceof ClassCastException) {
+                return INVALID_EVENT;
+            }
+        }
+        return PROCESSING;
+    }
+}
@@ -55,7 +55,7 @@ public class ExternalEvent {
                     return type;
                 }
             }
-            throw new IllegalArgumentException("Unknown event type: " + value);
+            throw new UnknownEventTypeException(value);
         }
     }
 }
\ No newline at end of file
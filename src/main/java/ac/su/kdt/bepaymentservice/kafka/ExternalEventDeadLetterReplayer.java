@@ -0,0 +1,131 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * DLT 에 쌓인 외부 이벤트를 원래 토픽으로 다시 보낸다
+ * 전용 컨슈머 그룹으로 DLT 를 읽어 배치 단위로 재발행하고, 재발행이 확인된 레코드까지만 오프셋을 커밋한다
+ * 재처리된 이벤트 중 이미 지급된 것은 ProcessedEventStore 가 걸러낸다
+ */
+@Component
+@Slf4j
+public class ExternalEventDeadLetterReplayer {
+    
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> externalEventKafkaTemplate;
+    
+    @Value("${kafka.topic.user-events}")
+    private String userEventsTopic;
+    
+    @Value("${kafka.topic.mission-events}")
+    private String missionEventsTopic;
+    
+    @Value("${kafka.dlt.replay.group-id:payment-service-dlt-replay}")
+    private String replayGroupId;
+    
+    @Value("${kafka.dlt.replay.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${kafka.dlt.replay.poll-timeout-ms:5000}")
+    private long pollTimeoutMs;
+    
+    @Value("${kafka.retry.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    
+    public ExternalEventDeadLetterReplayer(ConsumerFactory<Object, Object> consumerFactory,
+                                           @Qualifier("externalEventKafkaTemplate") KafkaTemplate<String, Object> externalEventKafkaTemplate) {
+        this.consumerFactory = consumerFactory;
+        this.externalEventKafkaTemplate = externalEventKafkaTemplate;
+    }
+    
+    /**
+     * sourceTopic 의 DLT 에서 최대 maxRecords 건을 sourceTopic 으로 재발행하고 재발행한 건수를 반환한다
+     */
+    public synchronized int replay(String sourceTopic, int maxRecords) {
+        if (!Set.of(userEventsTopic, missionEventsTopic).contains(sourceTopic)) {
+            throw new IllegalArgumentException("Not a replayable topic: " + sourceTopic);
+        }
+        if (maxRecords <= 0) {
+            throw new IllegalArgumentException("maxRecords must be positive");
+        }
+        
+        String deadLetterTopic = ExternalEventFailureRouter.deadLetterTopic(sourceTopic);
+        int replayed = 0;
+        try (Consumer<String, byte[]> consumer = createConsumer()) {
+            consumer.subscribe(List.of(deadLetterTopic));
+            while (replayed < maxRecords) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(pollTimeoutMs));
+                if (records.isEmpty()) {
+                    break;
+                }
+                
+                List<CompletableFuture<?>> sends = new ArrayList<>(records.count());
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    sends.add(externalEventKafkaTemplate.send(
+                        new ProducerRecord<>(sourceTopic, null, record.key(), record.value())));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                        new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                
+                awaitSends(sends, deadLetterTopic);
+                consumer.commitSync(offsets);
+            }
+        }
+        
+        log.info("Replayed {} dead-lettered events from {} to {}", replayed, deadLetterTopic, sourceTopic);
+        return replayed;
+    }
+    
+    private Consumer<String, byte[]> createConsumer() {
+        Map<String, Object> props = new HashMap<>(consumerFactory.getConfigurationProperties());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, replayGroupId);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer())
+            .createConsumer();
+    }
+    
+    private void awaitSends(List<CompletableFuture<?>> sends, String deadLetterTopic) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying " + deadLetterTopic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            // 커밋하지 않았으므로 다음 재처리 요청에서 이 배치부터 다시 시도된다
+            throw new IllegalStateException("Failed to replay events from " + deadLetterTopic, e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 처리에 실패한 외부 이벤트를 재시도 토픽 또는 DLT 로 보낸다
+ *
+ * - 재시도 가능한 실패: {topic}.retry 로 보내면 TicketEventListener 의 @RetryableTopic 리스너가
+ *   지수 백오프로 재시도하고, 모두 실패하면 {topic}.retry-dlt 로 옮긴다
+ * - 재시도해도 의미 없는 실패(역직렬화/알 수 없는 타입/잘못된 값): 바로 {topic}.retry-dlt 로 보낸다
+ *
+ * 전송이 확인될 때까지 기다리므로, 전송에 실패하면 예외가 리스너로 전파되어 배치가 커밋되지 않는다
+ */
+@Component
+@Slf4j
+public class ExternalEventFailureRouter {
+    
+    public static final String RETRY_TOPIC_SUFFIX = ".retry";
+    public static final String DEAD_LETTER_TOPIC_SUFFIX = RETRY_TOPIC_SUFFIX + "-dlt";
+    public static final String FAILURE_CAUSE_HEADER = "x-failure-cause";
+    
+    private final KafkaTemplate<String, Object> externalEventKafkaTemplate;
+    private final PaymentMetrics paymentMetrics;
+    
+    @Value("${kafka.retry.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    
+    public ExternalEventFailureRouter(@Qualifier("externalEventKafkaTemplate") KafkaTemplate<String, Object> externalEventKafkaTemplate,
+                                      PaymentMetrics paymentMetrics) {
+        this.externalEventKafkaTemplate = externalEventKafkaTemplate;
+        this.paymentMetrics = paymentMetrics;
+    }
+    
+    public static String retryTopic(String sourceTopic) {
+        return sourceTopic + RETRY_TOPIC_SUFFIX;
+    }
+    
+    public static String deadLetterTopic(String sourceTopic) {
+        return sourceTopic + DEAD_LETTER_TOPIC_SUFFIX;
+    }
+    
+    public void route(ConsumerRecord<String, ExternalEvent> record, Throwable error) {
+        EventFailureCause cause = EventFailureCause.classify(error);
+        String eventType = record.value() != null ? record.value().getEventType() : "unknown";
+        paymentMetrics.incrementKafkaEventFailure(eventType, cause.name());
+        
+        String targetTopic = cause.isRetryable() ? retryTopic(record.topic()) : deadLetterTopic(record.topic());
+        ProducerRecord<String, Object> failed = new ProducerRecord<>(targetTopic, null, record.key(), record.value());
+        addFailureHeaders(failed.headers(), record, cause, error);
+        
+        log.warn("Routing {} event {} from {}-{}@{} to {} ({})", eventType,
+                record.value() != null ? record.value().getEventId() : null,
+                record.topic(), record.partition(), record.offset(), targetTopic, cause);
+        send(failed);
+    }
+    
+    /**
+     * 역직렬화에 실패한 레코드는 원본 바이트 그대로 DLT 에 보관한다
+     */
+    public void routeUndeserializable(ConsumerRecord<String, ?> record, DeserializationException error) {
+        paymentMetrics.incrementKafkaEventFailure("unknown", EventFailureCause.DESERIALIZATION.name());
+        
+        String targetTopic = deadLetterTopic(record.topic());
+        ProducerRecord<String, Object> failed = new ProducerRecord<>(targetTopic, null, record.key(), error.getData());
+        addFailureHeaders(failed.headers(), record, EventFailureCause.DESERIALIZATION, error);
+        
+        log.warn("Routing undeserializable record from {}-{}@{} to {}", 
+                record.topic(), record.partition(), record.offset(), targetTopic);
+        send(failed);
+    }
+    
+    private void addFailureHeaders(Headers headers, ConsumerRecord<String, ?> record, EventFailureCause cause, Throwable error) {
+        headers.add(FAILURE_CAUSE_HEADER, cause.name().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, error.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        if (error.getMessage() != null) {
+            headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, error.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    private void send(ProducerRecord<String, Object> record) {
+        try {
+            externalEventKafkaTemplate.send(record).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while routing failed event to " + record.topic(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to route failed event to " + record.topic(), e);
+        }
+    }
+}
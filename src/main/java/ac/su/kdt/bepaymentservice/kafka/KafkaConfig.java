@@ -1,13 +1,22 @@
 package ac.su.kdt.bepaymentservice.kafka;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
@@ -19,15 +28,47 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
     
+    // 바이너리 인코딩으로 보낼 토픽 목록 (비어 있으면 모든 토픽을 JSON 으로 전송)
+    @Value("${kafka.encoding.binary-topics:}")
+    private String binaryTopics;
+    
+    @Value("${kafka.topic.payment-events}")
+    private String paymentEventsTopic;
+    
+    @Value("${kafka.topic.subscription-events}")
+    private String subscriptionEventsTopic;
+    
+    // 토픽별 프로듀서 배치 설정 (티켓 이벤트가 몰리는 payment-events 는 더 크게 묶는다)
+    @Value("${kafka.producer.payment-events.linger-ms:10}")
+    private int paymentEventsLingerMs;
+    
+    @Value("${kafka.producer.payment-events.batch-size:65536}")
+    private int paymentEventsBatchSize;
+    
+    @Value("${kafka.producer.payment-events.compression-type:lz4}")
+    private String paymentEventsCompressionType;
+    
+    @Value("${kafka.producer.subscription-events.linger-ms:5}")
+    private int subscriptionEventsLingerMs;
+    
+    @Value("${kafka.producer.subscription-events.batch-size:16384}")
+    private int subscriptionEventsBatchSize;
+    
+    @Value("${kafka.producer.subscription-events.compression-type:lz4}")
+    private String subscriptionEventsCompressionType;
+    
     @Bean
     public ProducerFactory<String, PaymentEvent> paymentEventProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PaymentEventSerializer.class);
+        configProps.put(PaymentEventSerializer.BINARY_TOPICS_CONFIG, binaryTopics);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // 멱등 프로듀서는 in-flight 5 이하에서 재시도가 일어나도 파티션 내 순서를 보장한다
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
         
         return new DefaultKafkaProducerFactory<>(configProps);
     }
@@ -36,4 +77,82 @@ public class KafkaConfig {
     public KafkaTemplate<String, PaymentEvent> paymentEventKafkaTemplate() {
         return new KafkaTemplate<>(paymentEventProducerFactory());
     }
-}
\ No newline at end of file
+    
+    @Bean
+    public PaymentEventKafkaTemplates paymentEventKafkaTemplates() {
+        ProducerFactory<String, PaymentEvent> producerFactory = paymentEventProducerFactory();
+        Map<String, KafkaTemplate<String, PaymentEvent>> topicTemplates = new HashMap<>();
+        topicTemplates.put(paymentEventsTopic, new KafkaTemplate<>(producerFactory, producerOverrides(
+                paymentEventsLingerMs, paymentEventsBatchSize, paymentEventsCompressionType)));
+        topicTemplates.put(subscriptionEventsTopic, new KafkaTemplate<>(producerFactory, producerOverrides(
+                subscriptionEventsLingerMs, subscriptionEventsBatchSize, subscriptionEventsCompressionType)));
+        return new PaymentEventKafkaTemplates(paymentEventKafkaTemplate(), topicTemplates);
+    }
+    
+    private Map<String, Object> producerOverrides(int lingerMs, int batchSize, String compressionType) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        return overrides;
+    }
+    
+    /**
+     * 티켓 보너스 이벤트용 배치 리스너 컨테이너
+     * poll 한 레코드 목록을 한 번에 넘기고, 리스너가 배치 처리를 마친 뒤 acknowledge 하면 오프셋을 커밋한다
+     * 동시성(파티션을 나눠 받는 컨슈머 수)과 max.poll.records 는 @KafkaListener 에서 토픽별로 지정한다
+     * 값은 타입 헤더와 무관하게 ExternalEvent 로 읽으며 (설정이 끝난 역직렬화기이므로 configure 는 생략),
+     * 역직렬화에 실패한 레코드는 null 값과 예외 헤더로 전달되어 리스너가 DLT 로 보낸다 (배치 전체가 막히지 않음)
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ExternalEvent> ticketEventBatchListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConsumerFactory<String, ExternalEvent> externalEventConsumerFactory = new DefaultKafkaConsumerFactory<>(
+                consumerFactory.getConfigurationProperties(),
+                StringDeserializer::new,
+                () -> new ErrorHandlingDeserializer<>(new JsonDeserializer<>(ExternalEvent.class, false)),
+                false);
+        
+        ConcurrentKafkaListenerContainerFactory<String, ExternalEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(externalEventConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+    
+    /**
+     * 구독 이벤트를 캐시 무효화 신호로 받는 리스너 컨테이너 (ActiveSubscriptionInvalidationListener)
+     * 값은 PaymentEventSerializer 가 보낸 JSON/바이너리 모두 PaymentEventDeserializer 로 읽고,
+     * 읽지 못한 레코드는 null 값으로 전달되어 건너뛴다 (무효화 신호이므로 재시도하지 않는다)
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> subscriptionEventBroadcastListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConsumerFactory<String, PaymentEvent> paymentEventConsumerFactory = new DefaultKafkaConsumerFactory<>(
+                consumerFactory.getConfigurationProperties(),
+                StringDeserializer::new,
+                () -> new ErrorHandlingDeserializer<>(new PaymentEventDeserializer()),
+                false);
+        
+        ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentEventConsumerFactory);
+        return factory;
+    }
+    
+    /**
+     * 실패한 외부 이벤트를 재시도 토픽/DLT 로 보내는 템플릿
+     * ExternalEvent 는 JSON 으로, 역직렬화에 실패한 원본이나 DLT 재처리 레코드는 바이트 그대로 전송한다
+     */
+    @Bean
+    public KafkaTemplate<String, Object> externalEventKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        
+        DelegatingByTypeSerializer valueSerializer = new DelegatingByTypeSerializer(Map.of(
+                byte[].class, new ByteArraySerializer(),
+                ExternalEvent.class, new JsonSerializer<ExternalEvent>()));
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), valueSerializer));
+    }
+}
@@ -0,0 +1,26 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+/**
+ * 이벤트를 Kafka 파티션에 배치할 메시지 키 선택 전략
+ * 같은 키의 이벤트는 같은 파티션에 순서대로 쌓이므로 소비자는 키 단위로 병렬 처리해도 순서가 유지된다
+ * 선택한 값이 없는 이벤트(예: 팀/구독 정보가 없는 티켓 이벤트)는 userId 로 대체한다
+ */
+public enum PartitionKeyStrategy {
+    USER_ID,
+    TEAM_ID,
+    SUBSCRIPTION_ID,
+    NONE;
+
+    public String keyFor(PaymentEvent event) {
+        Object key = switch (this) {
+            case USER_ID -> event.getUserId();
+            case TEAM_ID -> event.getTeamId();
+            case SUBSCRIPTION_ID -> event.getData() == null ? null : event.getData().get("subscriptionId");
+            case NONE -> null;
+        };
+        if (key == null && this != NONE) {
+            key = event.getUserId();
+        }
+        return key == null ? null : String.valueOf(key);
+    }
+}
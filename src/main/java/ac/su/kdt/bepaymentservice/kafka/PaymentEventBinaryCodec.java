@@ -0,0 +1,342 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * PaymentEvent 의 컴팩트 바이너리 인코딩
+ *
+ * [version][typeCode][flags][eventType?][eventId][timestamp?][userId?][teamId?][presence][fields...][extraCount][extras...]
+ * - 정수는 zigzag varint, 문자열은 varint 길이 + UTF-8
+ * - eventId 는 UUID 형식이면 16바이트 고정
+ * - fields 는 PaymentEventSchema 의 타입별 순서대로 값만 기록하고, presence 비트맵으로 null/누락을 표시
+ * - 아웃박스 JSON 에서 복원되어 Integer/ISO 문자열 등으로 바뀐 값은 PaymentEventSchema.FieldType.coerce 로 필드 타입에 맞춘다
+ * - 스키마에 없거나 필드 타입으로 맞출 수 없는 data 값은 extras 에 이름/타입 태그와 함께 기록하므로 손실되지 않는다
+ */
+public final class PaymentEventBinaryCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int FLAG_UUID_EVENT_ID = 0x01;
+    private static final int FLAG_TIMESTAMP = 0x02;
+    private static final int FLAG_USER_ID = 0x04;
+    private static final int FLAG_TEAM_ID = 0x08;
+    private static final int FLAG_DATA = 0x10;
+    private static final int FLAG_EVENT_ID = 0x20;
+
+    private static final int NULL_TAG = 0;
+
+    private PaymentEventBinaryCodec() {
+    }
+
+    public static byte[] encode(PaymentEvent event) {
+        Writer out = new Writer(64);
+        String eventType = event.getEventType();
+        int typeCode = PaymentEventSchema.typeCode(eventType);
+        UUID uuidEventId = parseUuid(event.getEventId());
+
+        int flags = 0;
+        if (event.getEventId() != null) {
+            flags |= uuidEventId != null ? FLAG_UUID_EVENT_ID : FLAG_EVENT_ID;
+        }
+        flags |= event.getTimestamp() != null ? FLAG_TIMESTAMP : 0;
+        flags |= event.getUserId() != null ? FLAG_USER_ID : 0;
+        flags |= event.getTeamId() != null ? FLAG_TEAM_ID : 0;
+        flags |= event.getData() != null ? FLAG_DATA : 0;
+
+        out.writeByte(VERSION);
+        out.writeByte(typeCode);
+        out.writeByte(flags);
+        if (typeCode == PaymentEventSchema.UNKNOWN_TYPE_CODE) {
+            out.writeString(eventType);
+        }
+        if (uuidEventId != null) {
+            out.writeFixedLong(uuidEventId.getMostSignificantBits());
+            out.writeFixedLong(uuidEventId.getLeastSignificantBits());
+        } else if (event.getEventId() != null) {
+            out.writeString(event.getEventId());
+        }
+        if (event.getTimestamp() != null) {
+            out.writeDateTime(event.getTimestamp());
+        }
+        if (event.getUserId() != null) {
+            out.writeVarLong(event.getUserId());
+        }
+        if (event.getTeamId() != null) {
+            out.writeVarLong(event.getTeamId());
+        }
+        if (event.getData() != null) {
+            writeData(out, PaymentEventSchema.fields(eventType), event.getData());
+        }
+        return out.toByteArray();
+    }
+
+    public static PaymentEvent decode(byte[] bytes) {
+        try {
+            Reader in = new Reader(bytes);
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported payment event binary version: " + version);
+            }
+            int typeCode = in.readByte();
+            int flags = in.readByte();
+
+            String eventType = typeCode == PaymentEventSchema.UNKNOWN_TYPE_CODE
+                ? in.readString()
+                : PaymentEventSchema.eventType(typeCode);
+
+            PaymentEvent event = new PaymentEvent();
+            event.setEventType(eventType);
+            if ((flags & FLAG_UUID_EVENT_ID) != 0) {
+                event.setEventId(new UUID(in.readFixedLong(), in.readFixedLong()).toString());
+            } else if ((flags & FLAG_EVENT_ID) != 0) {
+                event.setEventId(in.readString());
+            }
+            if ((flags & FLAG_TIMESTAMP) != 0) {
+                event.setTimestamp(in.readDateTime());
+            }
+            if ((flags & FLAG_USER_ID) != 0) {
+                event.setUserId(in.readVarLong());
+            }
+            if ((flags & FLAG_TEAM_ID) != 0) {
+                event.setTeamId(in.readVarLong());
+            }
+            if ((flags & FLAG_DATA) != 0) {
+                event.setData(readData(in, PaymentEventSchema.fields(eventType)));
+            }
+            return event;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated payment event binary payload", e);
+        }
+    }
+
+    private static void writeData(Writer out, List<PaymentEventSchema.Field> fields, Map<String, Object> data) {
+        long presence = 0;
+        Object[] values = new Object[fields.size()];
+        Set<String> written = new HashSet<>();
+        for (int i = 0; i < fields.size(); i++) {
+            PaymentEventSchema.Field field = fields.get(i);
+            values[i] = field.type().coerce(data.get(field.name()));
+            if (values[i] != null) {
+                presence |= 1L << i;
+                written.add(field.name());
+            }
+        }
+        out.writeVarLong(presence);
+        for (int i = 0; i < fields.size(); i++) {
+            if ((presence & (1L << i)) != 0) {
+                out.writeValue(fields.get(i).type(), values[i]);
+            }
+        }
+
+        int extraCount = data.size() - written.size();
+        out.writeVarLong(extraCount);
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (written.contains(entry.getKey())) {
+                continue;
+            }
+            out.writeString(entry.getKey());
+            Object value = entry.getValue();
+            PaymentEventSchema.FieldType type = value == null ? null : PaymentEventSchema.FieldType.of(value);
+            if (value == null) {
+                out.writeByte(NULL_TAG);
+            } else if (type == null) {
+                out.writeByte(PaymentEventSchema.FieldType.STRING.tag);
+                out.writeString(String.valueOf(value));
+            } else {
+                out.writeByte(type.tag);
+                out.writeValue(type, value);
+            }
+        }
+    }
+
+    private static Map<String, Object> readData(Reader in, List<PaymentEventSchema.Field> fields) {
+        Map<String, Object> data = new HashMap<>();
+        long presence = in.readVarLong();
+        if (fields.size() < Long.SIZE && (presence >>> fields.size()) != 0) {
+            throw new IllegalArgumentException("Payment event payload uses fields unknown to schema version " + VERSION);
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            if ((presence & (1L << i)) != 0) {
+                PaymentEventSchema.Field field = fields.get(i);
+                data.put(field.name(), in.readValue(field.type()));
+            }
+        }
+        long extraCount = in.readVarLong();
+        for (long i = 0; i < extraCount; i++) {
+            String name = in.readString();
+            int tag = in.readByte();
+            data.put(name, tag == NULL_TAG ? null : in.readValue(PaymentEventSchema.FieldType.ofTag(tag)));
+        }
+        return data;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            // 대소문자 등 표기가 다르면 원문을 보존하기 위해 문자열로 기록
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeFixedLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(value.getNano());
+        }
+
+        void writeValue(PaymentEventSchema.FieldType type, Object value) {
+            switch (type) {
+                case INT -> writeVarLong((Integer) value);
+                case LONG -> writeVarLong((Long) value);
+                case STRING -> writeString((String) value);
+                case DECIMAL -> {
+                    BigDecimal decimal = (BigDecimal) value;
+                    writeVarLong(decimal.scale());
+                    writeBytes(decimal.unscaledValue().toByteArray());
+                }
+                case BOOLEAN -> writeByte((Boolean) value ? 1 : 0);
+                case DATETIME -> writeDateTime((LocalDateTime) value);
+                case DOUBLE -> writeFixedLong(Double.doubleToLongBits((Double) value));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer[position++] & 0xFF;
+        }
+
+        long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed varint in payment event payload");
+                }
+                b = buffer[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        byte[] readBytes() {
+            int length = Math.toIntExact(readVarLong());
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Invalid length " + length + " in payment event payload");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        LocalDateTime readDateTime() {
+            long epochSecond = readVarLong();
+            int nano = Math.toIntExact(readVarLong());
+            return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+
+        Object readValue(PaymentEventSchema.FieldType type) {
+            return switch (type) {
+                case INT -> Math.toIntExact(readVarLong());
+                case LONG -> readVarLong();
+                case STRING -> readString();
+                case DECIMAL -> {
+                    int scale = Math.toIntExact(readVarLong());
+                    yield new BigDecimal(new BigInteger(readBytes()), scale);
+                }
+                case BOOLEAN -> readByte() != 0;
+                case DATETIME -> readDateTime();
+                case DOUBLE -> Double.longBitsToDouble(readFixedLong());
+            };
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PaymentEventSerializer 와 짝을 이루는 역직렬화기
+ * 인코딩 헤더가 binary 이면 스키마 버전을 확인한 뒤 바이너리로 읽고, 그 외에는 JSON 으로 읽는다
+ */
+public class PaymentEventDeserializer implements Deserializer<PaymentEvent> {
+
+    private final JsonDeserializer<PaymentEvent> jsonDeserializer = new JsonDeserializer<>(PaymentEvent.class, false);
+
+    @Override
+    public PaymentEvent deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public PaymentEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null || !PaymentEventSerializer.ENCODING_BINARY.equals(
+                headerValue(headers, PaymentEventSerializer.ENCODING_HEADER))) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        String version = headerValue(headers, PaymentEventSerializer.VERSION_HEADER);
+        if (version != null && !version.equals(String.valueOf(PaymentEventBinaryCodec.VERSION))) {
+            throw new SerializationException("Unsupported payment event schema version " + version + " on topic " + topic);
+        }
+        try {
+            return PaymentEventBinaryCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Failed to decode binary payment event from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+
+    private static String headerValue(Headers headers, String key) {
+        Header header = headers == null ? null : headers.lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.kafka.support.JacksonUtils;
+
+/**
+ * 아웃박스에 저장하는 PaymentEvent 직렬화
+ * Kafka JsonSerializer 와 같은 ObjectMapper 설정을 사용하여 복원 후 전송해도 메시지 형식이 바뀌지 않게 한다
+ */
+public final class PaymentEventJson {
+    
+    private static final ObjectMapper MAPPER = JacksonUtils.enhancedObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    
+    private PaymentEventJson() {
+    }
+    
+    public static String write(PaymentEvent event) {
+        try {
+            return MAPPER.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize payment event " + event.getEventId(), e);
+        }
+    }
+    
+    public static PaymentEvent read(String payload) {
+        try {
+            return MAPPER.readValue(payload, PaymentEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize payment event payload", e);
+        }
+    }
+}
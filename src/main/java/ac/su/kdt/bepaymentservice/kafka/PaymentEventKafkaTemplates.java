@@ -0,0 +1,32 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+
+/**
+ * 토픽별 프로듀서 설정(linger.ms, batch.size, compression)이 적용된 KafkaTemplate 모음
+ * 설정이 없는 토픽은 기본 템플릿으로 전송한다
+ */
+public class PaymentEventKafkaTemplates implements DisposableBean {
+
+    private final KafkaTemplate<String, PaymentEvent> defaultTemplate;
+    private final Map<String, KafkaTemplate<String, PaymentEvent>> topicTemplates;
+
+    public PaymentEventKafkaTemplates(KafkaTemplate<String, PaymentEvent> defaultTemplate,
+                                      Map<String, KafkaTemplate<String, PaymentEvent>> topicTemplates) {
+        this.defaultTemplate = defaultTemplate;
+        this.topicTemplates = Map.copyOf(topicTemplates);
+    }
+
+    public KafkaTemplate<String, PaymentEvent> forTopic(String topic) {
+        return topicTemplates.getOrDefault(topic, defaultTemplate);
+    }
+
+    @Override
+    public void destroy() {
+        // 설정을 덮어쓴 템플릿은 자체 프로듀서 팩토리를 가지므로 여기서 닫는다
+        topicTemplates.values().forEach(KafkaTemplate::destroy);
+    }
+}
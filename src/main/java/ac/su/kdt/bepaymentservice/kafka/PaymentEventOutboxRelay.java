@@ -0,0 +1,116 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentEventOutbox;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.PaymentEventOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 아웃박스에 쌓인 이벤트를 id 순서의 배치로 Kafka 에 전송한다
+ * 배치 전체를 비동기로 보낸 뒤 ack 를 한 번에 기다리고, 앞에서부터 연속으로 성공한 행만 일괄로 전송 완료 처리한다
+ * 중간에 실패하면 그 이후 행은 다음 주기에 다시 전송되므로 (at-least-once) 소비자는 eventId 로 중복을 걸러야 한다
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentEventOutboxRelay {
+
+    private final PaymentEventOutboxRepository outboxRepository;
+    private final PaymentEventKafkaTemplates kafkaTemplates;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> relayBatch());
+        } while (sent != null && sent == batchSize);
+    }
+
+    int relayBatch() {
+        List<PaymentEventOutbox> batch = outboxRepository.findBySentAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (PaymentEventOutbox row : batch) {
+            sends.add(send(row));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PaymentEventOutbox row = batch.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(row.getId());
+                paymentMetrics.incrementKafkaEventPublished(row.getEventType());
+            } catch (ExecutionException | TimeoutException e) {
+                paymentMetrics.incrementKafkaEventFailure(row.getEventType());
+                log.warn("Failed to relay outbox event {} ({}); {} of {} events sent in this batch",
+                        row.getEventId(), row.getEventType(), sentIds.size(), batch.size(), e);
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, LocalDateTime.now());
+        }
+        return sentIds.size();
+    }
+
+    private CompletableFuture<?> send(PaymentEventOutbox row) {
+        PaymentEvent event;
+        try {
+            event = PaymentEventJson.read(row.getPayload());
+        } catch (IllegalStateException e) {
+            // 복원할 수 없는 행이 뒤의 이벤트를 계속 막지 않도록 기록만 남기고 건너뛴다
+            log.error("Skipping unreadable outbox event {} ({})", row.getEventId(), row.getEventType(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return kafkaTemplates.forTopic(row.getTopic()).send(row.getTopic(), row.getMessageKey(), event);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void purgeSentEvents() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} relayed outbox events older than {} hours", deleted, retentionHours);
+        }
+    }
+}
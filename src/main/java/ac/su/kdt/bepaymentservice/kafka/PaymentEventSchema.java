@@ -0,0 +1,194 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 바이너리 인코딩에서 사용하는 이벤트 타입별 data 스키마
+ * 필드 이름은 전송하지 않고 여기 정의된 순서대로 값만 기록한다
+ * 타입 코드와 필드 순서는 한 번 배포되면 바꾸지 않으며, 필드를 추가/변경하면 PaymentEventBinaryCodec.VERSION 을 올린다
+ * (스키마에 없는 키는 extras 로 전송되므로 새 키를 보내는 것만으로는 버전을 올릴 필요가 없다)
+ * LONG/DECIMAL/DATETIME 필드는 JSON 을 거친 값(Integer, ISO 문자열 등)도 필드 타입으로 변환하여 기록한다
+ */
+final class PaymentEventSchema {
+
+    enum FieldType {
+        INT(1, Integer.class),
+        LONG(2, Long.class),
+        STRING(3, String.class),
+        DECIMAL(4, BigDecimal.class),
+        BOOLEAN(5, Boolean.class),
+        DATETIME(6, LocalDateTime.class),
+        DOUBLE(7, Double.class);
+
+        final int tag;
+        final Class<?> javaType;
+
+        FieldType(int tag, Class<?> javaType) {
+            this.tag = tag;
+            this.javaType = javaType;
+        }
+
+        boolean accepts(Object value) {
+            return javaType.isInstance(value);
+        }
+
+        /**
+         * 스키마 필드 값을 이 타입으로 맞춘다. 맞출 수 없으면 null (extras 로 기록)
+         * 아웃박스 JSON 을 Map 으로 복원하면 작은 Long 은 Integer, 소수부가 없는 BigDecimal 은 Integer/Long,
+         * LocalDateTime 은 ISO 문자열 또는 [년, 월, 일, 시, 분, 초, 나노] 배열로 돌아오므로 손실 없이 되돌릴 수 있는 경우만 변환한다
+         */
+        Object coerce(Object value) {
+            if (value == null || accepts(value)) {
+                return value;
+            }
+            return switch (this) {
+                case LONG -> toLong(value);
+                case DECIMAL -> toDecimal(value);
+                case DATETIME -> toDateTime(value);
+                default -> null;
+            };
+        }
+
+        private static Long toLong(Object value) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return ((Number) value).longValue();
+            }
+            if (value instanceof BigInteger big && big.bitLength() < Long.SIZE) {
+                return big.longValue();
+            }
+            return null;
+        }
+
+        private static BigDecimal toDecimal(Object value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return BigDecimal.valueOf(((Number) value).longValue());
+            }
+            if (value instanceof BigInteger big) {
+                return new BigDecimal(big);
+            }
+            return null;
+        }
+
+        private static LocalDateTime toDateTime(Object value) {
+            if (value instanceof CharSequence text) {
+                try {
+                    return LocalDateTime.parse(text);
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+            if (value instanceof List<?> parts && parts.size() >= 5 && parts.size() <= 7
+                    && parts.stream().allMatch(Integer.class::isInstance)) {
+                try {
+                    return LocalDateTime.of((Integer) parts.get(0), (Integer) parts.get(1), (Integer) parts.get(2),
+                            (Integer) parts.get(3), (Integer) parts.get(4),
+                            parts.size() > 5 ? (Integer) parts.get(5) : 0,
+                            parts.size() > 6 ? (Integer) parts.get(6) : 0);
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        static FieldType of(Object value) {
+            for (FieldType type : values()) {
+                if (type.accepts(value)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        static FieldType ofTag(int tag) {
+            for (FieldType type : values()) {
+                if (type.tag == tag) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown payment event field tag: " + tag);
+        }
+    }
+
+    record Field(String name, FieldType type) {
+    }
+
+    // 0 은 스키마에 없는 타입 (이벤트 타입 문자열을 그대로 기록)
+    static final int UNKNOWN_TYPE_CODE = 0;
+
+    private static final Map<String, Integer> TYPE_CODES = new HashMap<>();
+    private static final Map<Integer, String> TYPES_BY_CODE = new HashMap<>();
+    private static final Map<String, List<Field>> FIELDS = new HashMap<>();
+
+    static {
+        register(1, PaymentEvent.EventType.SUBSCRIPTION_CREATED,
+            field("subscriptionId", FieldType.LONG), field("planId", FieldType.LONG),
+            field("planType", FieldType.STRING), field("billingCycle", FieldType.STRING),
+            field("amount", FieldType.DECIMAL), field("currency", FieldType.STRING),
+            field("status", FieldType.STRING));
+        register(2, PaymentEvent.EventType.SUBSCRIPTION_ACTIVATED);
+        register(3, PaymentEvent.EventType.SUBSCRIPTION_CANCELLED,
+            field("subscriptionId", FieldType.LONG), field("cancelAtPeriodEnd", FieldType.BOOLEAN),
+            field("canceledAt", FieldType.DATETIME));
+        register(4, PaymentEvent.EventType.SUBSCRIPTION_EXPIRED,
+            field("subscriptionId", FieldType.LONG), field("expiredAt", FieldType.DATETIME));
+        register(5, PaymentEvent.EventType.SUBSCRIPTION_EXPIRING,
+            field("subscriptionId", FieldType.LONG), field("expiresAt", FieldType.DATETIME),
+            field("daysBeforeExpiry", FieldType.INT));
+        register(6, PaymentEvent.EventType.SUBSCRIPTION_STATUS_UPDATED,
+            field("subscriptionId", FieldType.LONG), field("status", FieldType.STRING),
+            field("updatedAt", FieldType.DATETIME));
+        register(7, PaymentEvent.EventType.PAYMENT_SUCCEEDED,
+            field("transactionId", FieldType.LONG), field("subscriptionId", FieldType.LONG),
+            field("amount", FieldType.DECIMAL), field("currency", FieldType.STRING),
+            field("paymentMethod", FieldType.STRING), field("stripePaymentIntentId", FieldType.STRING));
+        register(8, PaymentEvent.EventType.PAYMENT_FAILED,
+            field("transactionId", FieldType.LONG), field("subscriptionId", FieldType.LONG),
+            field("amount", FieldType.DECIMAL), field("currency", FieldType.STRING),
+            field("failureReason", FieldType.STRING), field("stripePaymentIntentId", FieldType.STRING));
+        register(9, PaymentEvent.EventType.PAYMENT_REFUNDED);
+        register(10, PaymentEvent.EventType.TICKETS_USED,
+            field("ticketsUsed", FieldType.INT), field("remainingBalance", FieldType.INT));
+        register(11, PaymentEvent.EventType.TICKETS_REFUNDED,
+            field("ticketsRefunded", FieldType.INT), field("newBalance", FieldType.INT));
+        register(12, PaymentEvent.EventType.TICKETS_REFILLED,
+            field("ticketsAdded", FieldType.INT), field("newBalance", FieldType.INT));
+        register(13, PaymentEvent.EventType.TICKET_BALANCE_LOW,
+            field("currentBalance", FieldType.INT), field("threshold", FieldType.INT));
+    }
+
+    private PaymentEventSchema() {
+    }
+
+    static int typeCode(String eventType) {
+        return eventType == null ? UNKNOWN_TYPE_CODE : TYPE_CODES.getOrDefault(eventType, UNKNOWN_TYPE_CODE);
+    }
+
+    static String eventType(int typeCode) {
+        String eventType = TYPES_BY_CODE.get(typeCode);
+        if (eventType == null) {
+            throw new IllegalArgumentException("Unknown payment event type code: " + typeCode);
+        }
+        return eventType;
+    }
+
+    static List<Field> fields(String eventType) {
+        return eventType == null ? List.of() : FIELDS.getOrDefault(eventType, List.of());
+    }
+
+    private static void register(int code, PaymentEvent.EventType type, Field... fields) {
+        TYPE_CODES.put(type.name(), code);
+        TYPES_BY_CODE.put(code, type.name());
+        FIELDS.put(type.name(), List.of(fields));
+    }
+
+    private static Field field(String name, FieldType type) {
+        return new Field(name, type);
+    }
+}
@@ -0,0 +1,72 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 토픽별로 JSON 또는 바이너리 인코딩을 선택하는 PaymentEvent 직렬화기
+ * binary-topics 에 등록된 토픽만 바이너리로 보내고 인코딩/스키마 버전을 헤더에 기록한다
+ * 헤더가 없는 레코드는 JSON 으로 간주되므로 기존 소비자는 토픽을 전환하기 전까지 영향이 없다
+ */
+public class PaymentEventSerializer implements Serializer<PaymentEvent> {
+
+    public static final String BINARY_TOPICS_CONFIG = "payment.event.binary-topics";
+    public static final String ENCODING_HEADER = "payment-event-encoding";
+    public static final String VERSION_HEADER = "payment-event-schema-version";
+    public static final String ENCODING_BINARY = "binary";
+
+    private static final byte[] ENCODING_BINARY_BYTES = ENCODING_BINARY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VERSION_BYTES =
+            String.valueOf(PaymentEventBinaryCodec.VERSION).getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<PaymentEvent> jsonSerializer = new JsonSerializer<>();
+    private Set<String> binaryTopics = Set.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        binaryTopics = parseTopics(configs.get(BINARY_TOPICS_CONFIG));
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, PaymentEvent data) {
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, PaymentEvent data) {
+        if (data == null || !binaryTopics.contains(topic)) {
+            return jsonSerializer.serialize(topic, headers, data);
+        }
+        headers.remove(ENCODING_HEADER);
+        headers.remove(VERSION_HEADER);
+        headers.add(ENCODING_HEADER, ENCODING_BINARY_BYTES);
+        headers.add(VERSION_HEADER, VERSION_BYTES);
+        return PaymentEventBinaryCodec.encode(data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+
+    private static Set<String> parseTopics(Object value) {
+        if (value instanceof Collection<?> topics) {
+            return topics.stream().map(String::valueOf).map(String::trim)
+                    .filter(topic -> !topic.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        }
+        if (value instanceof String topics) {
+            return Arrays.stream(topics.split(",")).map(String::trim)
+                    .filter(topic -> !topic.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        }
+        return Set.of();
+    }
+}
@@ -0,0 +1,11 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+/**
+ * 처리 대상이 아닌 외부 이벤트 타입 (재시도해도 성공할 수 없으므로 바로 DLT 로 보낸다)
+ */
+public class UnknownEventTypeException extends IllegalArgumentException {
+    
+    public UnknownEventTypeException(String eventType) {
+        super("Unknown event type: " + eventType);
+    }
+}
@@ -7,6 +7,8 @@ import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Component
@@ -26,6 +28,7 @@ public class PaymentMetrics {
     private final Counter ticketUsedCounter;
     private final Counter ticketRefundedCounter;
     private final Timer ticketProcessingTime;
+    private final Timer ticketRefillLag;
     
     // 결제 관련 메트릭
     private final Counter paymentSuccessCounter;
@@ -42,6 +45,8 @@ public class PaymentMetrics {
     private final Counter kafkaEventPublishedCounter;
     private final Counter kafkaEventReceivedCounter;
     private final Counter kafkaEventFailureCounter;
+    private final Counter kafkaEventDuplicateCounter;
+    private final Counter eventDedupLookupCounter;
     
     public PaymentMetrics(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
@@ -81,6 +86,10 @@ public class PaymentMetrics {
                 .description("Time taken to process ticket operations")
                 .register(meterRegistry);
         
+        this.ticketRefillLag = Timer.builder("ticket.refill.lag")
+                .description("Delay between a user's next_refill_at and the refill run picking it up")
+                .register(meterRegistry);
+        
         // 결제 메트릭 초기화
         this.paymentSuccessCounter = Counter.builder("payment.success.count")
                 .description("Number of successful payments")
@@ -123,6 +132,14 @@ public class PaymentMetrics {
         this.kafkaEventFailureCounter = Counter.builder("kafka.event.failure.count")
                 .description("Number of Kafka event processing failures")
                 .register(meterRegistry);
+        
+        this.kafkaEventDuplicateCounter = Counter.builder("kafka.event.duplicate.count")
+                .description("Number of redelivered Kafka events skipped as already processed")
+                .register(meterRegistry);
+        
+        this.eventDedupLookupCounter = Counter.builder("kafka.event.dedup.lookup.count")
+                .description("Number of processed-event table lookups made by the dedup store")
+                .register(meterRegistry);
     }
     
     // 구독 메트릭 메서드
@@ -167,6 +184,31 @@ public class PaymentMetrics {
         sample.stop(ticketProcessingTime);
     }
     
+    public void recordTicketRefillLag(Duration lag) {
+        ticketRefillLag.record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+    
+    // 충전 샤드별 처리량 (샤드 태그별 카운터)
+    public void incrementTicketRefillShardProgress(int shardId, int processed, int refilled) {
+        Counter.builder("ticket.refill.shard.processed.count")
+                .description("Number of refill candidates processed per shard")
+                .tag("shard", String.valueOf(shardId))
+                .register(meterRegistry)
+                .increment(processed);
+        Counter.builder("ticket.refill.shard.refilled.count")
+                .description("Number of users refilled per shard")
+                .tag("shard", String.valueOf(shardId))
+                .register(meterRegistry)
+                .increment(refilled);
+    }
+    
+    public void recordTicketRefillShardTime(int shardId, Timer.Sample sample) {
+        sample.stop(Timer.builder("ticket.refill.shard.time")
+                .description("Time taken to process one refill shard")
+                .tag("shard", String.valueOf(shardId))
+                .register(meterRegistry));
+    }
+    
     // 결제 메트릭 메서드
     public void incrementPaymentSuccess() {
         paymentSuccessCounter.increment();
@@ -218,6 +260,86 @@ public class PaymentMetrics {
         kafkaEventFailureCounter.increment();
     }
     
+    // 실패 원인별 카운터 (재시도 대상 여부 판단 결과 포함)
+    public void incrementKafkaEventFailure(String eventType, String cause) {
+        kafkaEventFailureCounter.increment();
+        Counter.builder("kafka.event.failure.cause.count")
+                .description("Number of Kafka event processing failures per cause")
+                .tag("cause", cause)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    public void incrementKafkaEventDuplicate(String eventType) {
+        kafkaEventDuplicateCounter.increment();
+    }
+    
+    public void incrementEventDedupLookup() {
+        eventDedupLookupCounter.increment();
+    }
+    
+    // Toss 호출 보호 메트릭 메서드 (작업별 태그)
+    public void incrementTossCircuitTransition(String operation, String fromState, String toState) {
+        Counter.builder("toss.circuitbreaker.transition.count")
+                .description("Number of Toss circuit breaker state transitions")
+                .tag("operation", operation)
+                .tag("from", fromState)
+                .tag("to", toState)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    public void incrementTossCallRejected(String operation, String reason) {
+        Counter.builder("toss.call.rejected.count")
+                .description("Number of Toss calls rejected without being sent (open circuit or full bulkhead)")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    // Toss 호출 허가 대기열 (작업별)
+    public void registerTossRateLimitQueue(String operation, AtomicInteger depth) {
+        Gauge.builder("toss.ratelimit.queue.depth", depth, AtomicInteger::doubleValue)
+                .description("Number of Toss calls waiting for a rate limit permit")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+    
+    public void recordTossRateLimitWait(String operation, String priority, Duration wait) {
+        Timer.builder("toss.ratelimit.wait.time")
+                .description("Time a Toss call waited for a rate limit permit")
+                .tag("operation", operation)
+                .tag("priority", priority)
+                .register(meterRegistry)
+                .record(wait);
+    }
+    
+    // 멱등성 키로 Toss 호출 없이 응답한 요청 (source: memory, in_flight, database)
+    public void incrementPaymentIdempotentReplay(String operation, String source) {
+        Counter.builder("payment.idempotency.replay.count")
+                .description("Number of payment requests answered from an earlier request with the same idempotency key")
+                .tag("operation", operation)
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    // 구독 갱신 결제 결과 (outcome: renewed, retry_scheduled, expired, deferred, skipped)
+    public void incrementSubscriptionRenewal(String outcome) {
+        Counter.builder("subscription.renewal.count")
+                .description("Number of subscription renewal attempts per outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    public void recordSubscriptionRenewalRunTime(Timer.Sample sample) {
+        sample.stop(Timer.builder("subscription.renewal.run.time")
+                .description("Time taken by one renewal run to charge every due subscription")
+                .register(meterRegistry));
+    }
+    
     // 결제 실패율 계산
     public double getPaymentFailureRate() {
         double totalPayments = paymentSuccessCounter.count() + paymentFailureCounter.count();
@@ -4,6 +4,8 @@ import ac.su.kdt.bepaymentservice.entity.BillingKey;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,5 @@ public interface BillingKeyRepository extends JpaRepository<BillingKey, Long> {
     Optional<BillingKey> findByBillingKey(String billingKey);
     boolean existsByCustomerKey(String customerKey);
     boolean existsByBillingKey(String billingKey);
+    List<BillingKey> findByCustomerKeyIn(Collection<String> customerKeys);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ac.su.kdt.bepaymentservice.repository;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentEventOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentEventOutboxRepository extends JpaRepository<PaymentEventOutbox, Long> {
+    
+    /**
+     * 미전송 이벤트를 기록 순서대로 잠그고 조회한다
+     * 다른 인스턴스의 릴레이는 이 배치가 커밋될 때까지 대기하므로 전송 순서가 유지된다
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<PaymentEventOutbox> findBySentAtIsNullOrderByIdAsc(Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE PaymentEventOutbox o SET o.sentAt = :sentAt WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("DELETE FROM PaymentEventOutbox o WHERE o.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,18 @@
+package ac.su.kdt.bepaymentservice.repository;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentIdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PaymentIdempotencyRecordRepository extends JpaRepository<PaymentIdempotencyRecord, String> {
+    
+    @Modifying
+    @Query("DELETE FROM PaymentIdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
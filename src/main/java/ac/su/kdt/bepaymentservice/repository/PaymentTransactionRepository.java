@@ -21,6 +21,9 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
     
     Optional<PaymentTransaction> findByStripeChargeId(String stripeChargeId);
     
+    // Toss paymentKey 로 기록된 거래 (웹훅 상태 반영)
+    List<PaymentTransaction> findByExternalTransactionId(String externalTransactionId);
+    
     List<PaymentTransaction> findByTransactionStatus(PaymentTransaction.TransactionStatus status);
     
     @Query("SELECT pt FROM PaymentTransaction pt WHERE pt.subscription.userId = :userId ORDER BY pt.createdAt DESC")
@@ -0,0 +1,23 @@
+package ac.su.kdt.bepaymentservice.repository;
+
+import ac.su.kdt.bepaymentservice.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
+    
+    @Query("SELECT p.eventId FROM ProcessedEvent p WHERE p.eventId IN :eventIds")
+    List<String> findProcessedIds(@Param("eventIds") Collection<String> eventIds);
+    
+    @Modifying
+    @Query("DELETE FROM ProcessedEvent p WHERE p.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,7 +1,11 @@
 package ac.su.kdt.bepaymentservice.repository;
 
+import ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -21,6 +25,18 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     
     Optional<Subscription> findByUserIdAndStatusIn(Long userId, List<Subscription.SubscriptionStatus> statuses);
     
+    /**
+     * 사용자의 최신 구독을 요약 프로젝션으로 조회한다 (PageRequest.of(0, 1) 로 한 건만 읽는다)
+     * 엔티티를 만들지 않고, idx_subscription_user_status_created 인덱스 탐색 한 번으로 끝난다
+     */
+    @Query("SELECT new ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView(" +
+           "s.id, s.plan.id, s.status, s.currentPeriodStart, s.currentPeriodEnd) " +
+           "FROM Subscription s WHERE s.userId = :userId AND s.status IN :statuses " +
+           "ORDER BY s.createdAt DESC")
+    List<ActiveSubscriptionView> findLatestActiveViews(@Param("userId") Long userId,
+                                                       @Param("statuses") List<Subscription.SubscriptionStatus> statuses,
+                                                       Pageable pageable);
+    
     Optional<Subscription> findByStripeSubscriptionId(String stripeSubscriptionId);
     
     List<Subscription> findByTeamIdAndStatus(Long teamId, Subscription.SubscriptionStatus status);
@@ -33,6 +49,26 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     List<Subscription> findExpiredSubscriptions(@Param("status") Subscription.SubscriptionStatus status, 
                                                @Param("now") LocalDateTime now);
     
+    /**
+     * 갱신 결제 대상: 자동 갱신이 켜져 있고 빌링 고객 키가 있으며 기간이 끝났고 재시도 시각이 지난 구독을 id 순으로 조회한다
+     * 빌링 고객 키가 없는 구독(자동결제 도입 전 구독)은 결제 시도 없이 만료 스케줄러가 기존처럼 만료시킨다
+     * afterId 커서로 페이지를 넘기므로 처리 중 상태가 바뀌어도 같은 실행에서 다시 읽지 않는다
+     */
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.plan " +
+           "WHERE s.status IN :statuses AND s.autoRenewal = true AND s.cancelAtPeriodEnd = false " +
+           "AND s.billingCustomerKey IS NOT NULL " +
+           "AND s.currentPeriodEnd <= :now " +
+           "AND (s.nextRenewalAttemptAt IS NULL OR s.nextRenewalAttemptAt <= :now) " +
+           "AND s.id > :afterId ORDER BY s.id")
+    List<Subscription> findDueForRenewal(@Param("statuses") List<Subscription.SubscriptionStatus> statuses,
+                                         @Param("now") LocalDateTime now,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subscription s WHERE s.id = :id")
+    Optional<Subscription> findByIdForUpdate(@Param("id") Long id);
+    
     List<Subscription> findByStripeCustomerId(String stripeCustomerId);
     
     @Query("SELECT COUNT(s) FROM Subscription s WHERE s.plan.id = :planId AND s.status = :status")
@@ -40,4 +76,14 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     
     @Query("SELECT s FROM Subscription s WHERE s.userId = :userId ORDER BY s.createdAt DESC")
     List<Subscription> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
+    
+    /**
+     * 사용자 구독 이력을 플랜과 함께 한 번의 조회로 최신순(id 내림차순) 페이지 단위로 읽는다
+     * beforeId 보다 작은 id 만 읽으므로 페이지를 넘기는 동안 새 구독이 생겨도 결과가 밀리지 않는다
+     */
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.plan " +
+           "WHERE s.userId = :userId AND s.id < :beforeId ORDER BY s.id DESC")
+    List<Subscription> findHistoryPage(@Param("userId") Long userId,
+                                       @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
 }
\ No newline at end of file
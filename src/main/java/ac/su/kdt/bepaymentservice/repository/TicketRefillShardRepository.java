@@ -0,0 +1,67 @@
+package ac.su.kdt.bepaymentservice.repository;
+
+import ac.su.kdt.bepaymentservice.entity.TicketRefillShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TicketRefillShardRepository extends JpaRepository<TicketRefillShard, Integer> {
+    
+    /**
+     * 새 실행 계획 시 여러 파드가 동시에 샤드 구간을 다시 나누지 않도록 모든 샤드 행을 잠근다
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TicketRefillShard s ORDER BY s.shardId")
+    List<TicketRefillShard> findAllForUpdate();
+    
+    List<TicketRefillShard> findByStatusNotOrderByShardId(TicketRefillShard.ShardStatus status);
+    
+    /**
+     * 리스가 비어 있거나, 자신이 보유 중이거나, 만료된 경우에만 샤드를 점유한다
+     * @return 1이면 점유 성공, 0이면 다른 파드가 처리 중이거나 이미 완료된 샤드
+     */
+    @Modifying
+    @Query("UPDATE TicketRefillShard s SET s.leaseOwner = :owner, s.leaseExpiresAt = :expiresAt, " +
+           "s.status = :running, s.updatedAt = :now " +
+           "WHERE s.shardId = :shardId AND s.status <> :completed " +
+           "AND (s.leaseOwner IS NULL OR s.leaseOwner = :owner OR s.leaseExpiresAt < :now)")
+    int acquireLease(@Param("shardId") Integer shardId,
+                     @Param("owner") String owner,
+                     @Param("now") LocalDateTime now,
+                     @Param("expiresAt") LocalDateTime expiresAt,
+                     @Param("running") TicketRefillShard.ShardStatus running,
+                     @Param("completed") TicketRefillShard.ShardStatus completed);
+    
+    /**
+     * 청크 커밋 후 커서를 전진시키고 리스를 연장한다
+     * @return 0이면 리스를 잃은 것이므로 처리를 중단해야 한다
+     */
+    @Modifying
+    @Query("UPDATE TicketRefillShard s SET s.cursorUserId = :cursor, " +
+           "s.processedCount = s.processedCount + :processed, s.refilledCount = s.refilledCount + :refilled, " +
+           "s.leaseExpiresAt = :expiresAt, s.updatedAt = :now " +
+           "WHERE s.shardId = :shardId AND s.leaseOwner = :owner")
+    int checkpoint(@Param("shardId") Integer shardId,
+                   @Param("owner") String owner,
+                   @Param("cursor") Long cursor,
+                   @Param("processed") long processed,
+                   @Param("refilled") long refilled,
+                   @Param("now") LocalDateTime now,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("UPDATE TicketRefillShard s SET s.status = :completed, s.leaseOwner = NULL, s.leaseExpiresAt = NULL, " +
+           "s.updatedAt = :now WHERE s.shardId = :shardId AND s.leaseOwner = :owner")
+    int complete(@Param("shardId") Integer shardId,
+                 @Param("owner") String owner,
+                 @Param("now") LocalDateTime now,
+                 @Param("completed") TicketRefillShard.ShardStatus completed);
+}
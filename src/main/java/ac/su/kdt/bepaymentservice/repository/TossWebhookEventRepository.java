@@ -0,0 +1,19 @@
+package ac.su.kdt.bepaymentservice.repository;
+
+import ac.su.kdt.bepaymentservice.entity.TossWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TossWebhookEventRepository extends JpaRepository<TossWebhookEvent, Long> {
+    
+    @Modifying
+    @Query("DELETE FROM TossWebhookEvent e WHERE e.processingStatus = :status AND e.receivedAt < :before")
+    int deleteByStatusReceivedBefore(@Param("status") TossWebhookEvent.ProcessingStatus status,
+                                     @Param("before") LocalDateTime before);
+}
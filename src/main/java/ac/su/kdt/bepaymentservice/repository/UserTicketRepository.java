@@ -2,6 +2,7 @@ package ac.su.kdt.bepaymentservice.repository;
 
 import ac.su.kdt.bepaymentservice.entity.UserTicket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +16,32 @@ public interface UserTicketRepository extends JpaRepository<UserTicket, Long> {
     
     Optional<UserTicket> findByUserId(Long userId);
     
+    /**
+     * 잔액이 충분한 경우에만 티켓을 차감하는 단일 UPDATE 문
+     * 조건부 UPDATE가 행 잠금을 잡으므로 동시 차감 시에도 잔액이 음수가 되거나 갱신이 유실되지 않는다
+     * @return 갱신된 행 수 (0이면 잔액 부족 또는 계정 없음)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserTicket ut SET ut.currentTickets = ut.currentTickets - :tickets, ut.updatedAt = :now " +
+           "WHERE ut.userId = :userId AND ut.currentTickets >= :tickets")
+    int decrementTicketsIfSufficient(@Param("userId") Long userId,
+                                     @Param("tickets") int tickets,
+                                     @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserTicket ut SET ut.currentTickets = ut.currentTickets + :tickets, ut.updatedAt = :now " +
+           "WHERE ut.userId = :userId")
+    int incrementTickets(@Param("userId") Long userId,
+                         @Param("tickets") int tickets,
+                         @Param("now") LocalDateTime now);
+    
+    /**
+     * 차감/증가 UPDATE 직후 같은 트랜잭션에서 호출하면 해당 UPDATE가 잡은 행 잠금 아래에서 읽으므로
+     * 방금 반영된 잔액이 그대로 반환된다 (엔티티 전체가 아닌 단일 컬럼만 조회)
+     */
+    @Query("SELECT ut.currentTickets FROM UserTicket ut WHERE ut.userId = :userId")
+    Optional<Integer> findCurrentTicketsByUserId(@Param("userId") Long userId);
+    
     @Query("SELECT ut FROM UserTicket ut WHERE ut.nextRefillAt <= :now")
     List<UserTicket> findUsersEligibleForRefill(@Param("now") LocalDateTime now);
     
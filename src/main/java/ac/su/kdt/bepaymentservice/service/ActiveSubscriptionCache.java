@@ -0,0 +1,136 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 사용자별 활성(ACTIVE/TRIAL) 구독 캐시
+ * 구독 생성, 티켓 계정 생성, 활성 구독 조회마다 DB 를 거치지 않도록 userId -> 최신 활성 구독 요약을 보관한다
+ * 활성 구독이 없다는 결과도 캐시하며, 캐시에 없으면 한 건짜리 프로젝션 쿼리(findLatestActiveViews)로 채운다
+ *
+ * - 구독 상태를 바꾼 쪽은 invalidate(userId) 를 호출한다 (트랜잭션이 끝난 뒤 한 번 더 비운다)
+ * - 다른 인스턴스에서 바뀐 구독은 subscription-events 브로드캐스트(ActiveSubscriptionInvalidationListener)나 TTL 로 반영된다
+ *
+ * max-entries 를 넘으면 만료된 항목부터 지우고, 그래도 넘으면 임의의 항목을 지운다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveSubscriptionCache {
+
+    static final List<Subscription.SubscriptionStatus> ACTIVE_STATUSES = List.of(
+        Subscription.SubscriptionStatus.ACTIVE,
+        Subscription.SubscriptionStatus.TRIAL
+    );
+
+    private final SubscriptionRepository subscriptionRepository;
+
+    @Value("${subscription.active-cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${subscription.active-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // 무효화마다 증가한다. 조회 중에 무효화가 있었으면 읽은 값을 캐시하지 않는다
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public Optional<ActiveSubscriptionView> findActiveSubscription(Long userId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt() - now > 0) {
+            return Optional.ofNullable(entry.view());
+        }
+        return load(userId, now);
+    }
+
+    /**
+     * 활성 구독 엔티티를 읽는다. 캐시된 구독이 그 사이 활성이 아니게 되었으면 비우고 다시 조회한다
+     */
+    public Optional<Subscription> loadActiveSubscription(Long userId) {
+        Optional<ActiveSubscriptionView> view = findActiveSubscription(userId);
+        if (view.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Subscription> subscription = subscriptionRepository.findById(view.get().id())
+            .filter(Subscription::isActive);
+        if (subscription.isPresent()) {
+            return subscription;
+        }
+        invalidate(userId);
+        return findActiveSubscription(userId).flatMap(reloaded -> subscriptionRepository.findById(reloaded.id()));
+    }
+
+    /**
+     * 바로 비우고, 트랜잭션 안에서 호출하면 트랜잭션이 끝난 뒤 한 번 더 비운다
+     * (커밋 전에 다른 스레드가 이전 상태를 다시 읽어 캐시하거나, 롤백된 상태가 캐시에 남지 않도록)
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(Long userId) {
+        invalidations.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    private Optional<ActiveSubscriptionView> load(Long userId, long now) {
+        long version = invalidations.get();
+        Optional<ActiveSubscriptionView> active = subscriptionRepository
+            .findLatestActiveViews(userId, ACTIVE_STATUSES, PageRequest.of(0, 1))
+            .stream()
+            .findFirst();
+
+        if (invalidations.get() == version) {
+            entries.put(userId, new Entry(active.orElse(null), now + ttlSeconds * 1_000_000_000L));
+            if (entries.size() > maxEntries) {
+                trim(now);
+            }
+        }
+        return active;
+    }
+
+    private void trim(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        Iterator<Long> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        log.debug("Trimmed active subscription cache to {} entries", entries.size());
+    }
+
+    private record Entry(ActiveSubscriptionView view, long expiresAt) {
+    }
+}
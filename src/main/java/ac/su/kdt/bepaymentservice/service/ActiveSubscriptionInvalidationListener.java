@@ -0,0 +1,39 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.kafka.PaymentEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * 다른 인스턴스에서 바뀐 구독을 ActiveSubscriptionCache 에 반영한다
+ * 인스턴스마다 고유한 컨슈머 그룹으로 subscription-events 를 모두 받아 이벤트의 userId 항목을 비운다
+ * (오프셋은 최신부터 읽는다. 기동 전의 변경은 캐시가 비어 있으므로 반영할 필요가 없다)
+ *
+ * 자기 인스턴스가 발행한 이벤트도 받지만, 이미 비운 항목을 한 번 더 비울 뿐이다
+ */
+@Service
+@ConditionalOnProperty(name = "subscription.active-cache.broadcast.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveSubscriptionInvalidationListener {
+
+    private final ActiveSubscriptionCache activeSubscriptionCache;
+
+    @KafkaListener(
+            topics = "${kafka.topic.subscription-events}",
+            groupId = "${subscription.active-cache.broadcast.group-id-prefix:payment-service-active-subscription-cache}-${random.uuid}",
+            containerFactory = "subscriptionEventBroadcastListenerContainerFactory",
+            properties = "auto.offset.reset=latest")
+    public void onSubscriptionEvent(ConsumerRecord<String, PaymentEvent> record) {
+        PaymentEvent event = record.value();
+        if (event == null || event.getUserId() == null) {
+            return;
+        }
+        activeSubscriptionCache.invalidate(event.getUserId());
+        log.debug("Invalidated active subscription cache for user {} on {}", event.getUserId(), event.getEventType());
+    }
+}
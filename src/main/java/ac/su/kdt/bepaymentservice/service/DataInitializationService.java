@@ -22,6 +22,7 @@ import java.util.Map;
 public class DataInitializationService implements CommandLineRunner {
     
     private final SubscriptionPlanRepository subscriptionPlanRepository;
+    private final SubscriptionPlanCache subscriptionPlanCache;
     private final ObjectMapper objectMapper;
     
     @Override
@@ -51,6 +52,7 @@ public class DataInitializationService implements CommandLineRunner {
             SubscriptionPlan firstClassPlan = createFirstClassPlan();
             subscriptionPlanRepository.save(firstClassPlan);
             
+            subscriptionPlanCache.invalidate();
             log.info("Successfully initialized {} subscription plans", 3);
             
         } catch (Exception e) {
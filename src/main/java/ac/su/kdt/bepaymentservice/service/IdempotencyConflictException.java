@@ -0,0 +1,29 @@
+package ac.su.kdt.bepaymentservice.service;
+
+/**
+ * 같은 멱등성 키의 요청이 다른 곳에서 처리 중이고 기다리는 동안 결과가 나오지 않았거나,
+ * 같은 키가 다른 요청 본문/사용자로 다시 쓰인 경우 (fingerprintMismatch)
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    
+    private final boolean fingerprintMismatch;
+    
+    public IdempotencyConflictException(String key) {
+        super("Request with idempotency key " + key + " is still in progress");
+        this.fingerprintMismatch = false;
+    }
+    
+    private IdempotencyConflictException(String message, boolean fingerprintMismatch) {
+        super(message);
+        this.fingerprintMismatch = fingerprintMismatch;
+    }
+    
+    public static IdempotencyConflictException fingerprintMismatch(String key) {
+        return new IdempotencyConflictException(
+            "Idempotency key " + key + " was already used with a different request", true);
+    }
+    
+    public boolean isFingerprintMismatch() {
+        return fingerprintMismatch;
+    }
+}
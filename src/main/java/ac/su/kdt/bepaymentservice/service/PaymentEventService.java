@@ -1,27 +1,33 @@
 package ac.su.kdt.bepaymentservice.service;
 
+import ac.su.kdt.bepaymentservice.entity.PaymentEventOutbox;
 import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.kafka.PartitionKeyStrategy;
 import ac.su.kdt.bepaymentservice.kafka.PaymentEvent;
+import ac.su.kdt.bepaymentservice.kafka.PaymentEventJson;
+import ac.su.kdt.bepaymentservice.repository.PaymentEventOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * 결제/구독/티켓 이벤트 발행
+ * Kafka 로 직접 보내지 않고 호출자의 트랜잭션 안에서 아웃박스 테이블에 기록하며,
+ * 실제 전송은 PaymentEventOutboxRelay 가 커밋된 이벤트만 배치로 처리한다
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentEventService {
     
-    private final KafkaTemplate<String, PaymentEvent> kafkaTemplate;
-    private final PaymentMetrics paymentMetrics;
+    private final PaymentEventOutboxRepository outboxRepository;
     
     @Value("${kafka.topic.payment-events}")
     private String paymentEventsTopic;
@@ -29,6 +35,13 @@ public class PaymentEventService {
     @Value("${kafka.topic.subscription-events}")
     private String subscriptionEventsTopic;
     
+    // 토픽별 파티션 키 (USER_ID, TEAM_ID, SUBSCRIPTION_ID, NONE)
+    @Value("${kafka.partition-key.payment-events:USER_ID}")
+    private PartitionKeyStrategy paymentEventsKey;
+    
+    @Value("${kafka.partition-key.subscription-events:USER_ID}")
+    private PartitionKeyStrategy subscriptionEventsKey;
+    
     public void publishSubscriptionCreated(Subscription subscription) {
         Map<String, Object> data = new HashMap<>();
         data.put("subscriptionId", subscription.getId());
@@ -48,8 +61,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(subscriptionEventsTopic, event);
-        paymentMetrics.incrementKafkaEventPublished("subscription.created");
+        enqueue(subscriptionEventsTopic, event);
         log.info("Published subscription created event for user: {}", subscription.getUserId());
     }
     
@@ -68,7 +80,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(subscriptionEventsTopic, event);
+        enqueue(subscriptionEventsTopic, event);
         log.info("Published subscription cancelled event for user: {}", subscription.getUserId());
     }
     
@@ -86,7 +98,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(subscriptionEventsTopic, event);
+        enqueue(subscriptionEventsTopic, event);
         log.info("Published subscription expired event for user: {}", subscription.getUserId());
     }
     
@@ -105,7 +117,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(subscriptionEventsTopic, event);
+        enqueue(subscriptionEventsTopic, event);
         log.info("Published subscription expiring event for user: {} (expires in {} days)", 
                 subscription.getUserId(), daysBeforeExpiry);
     }
@@ -125,7 +137,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(subscriptionEventsTopic, event);
+        enqueue(subscriptionEventsTopic, event);
         log.info("Published subscription status updated event for user: {}", subscription.getUserId());
     }
     
@@ -147,7 +159,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(paymentEventsTopic, event);
+        enqueue(paymentEventsTopic, event);
         log.info("Published payment succeeded event for transaction: {}", transaction.getId());
     }
     
@@ -169,7 +181,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(paymentEventsTopic, event);
+        enqueue(paymentEventsTopic, event);
         log.info("Published payment failed event for transaction: {}", transaction.getId());
     }
     
@@ -186,7 +198,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(paymentEventsTopic, event);
+        enqueue(paymentEventsTopic, event);
         log.info("Published tickets used event for user: {}", userId);
     }
     
@@ -203,7 +215,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(paymentEventsTopic, event);
+        enqueue(paymentEventsTopic, event);
         log.info("Published tickets refunded event for user: {}", userId);
     }
     
@@ -220,7 +232,7 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(paymentEventsTopic, event);
+        enqueue(paymentEventsTopic, event);
         log.info("Published tickets refilled event for user: {}", userId);
     }
     
@@ -237,7 +249,22 @@ public class PaymentEventService {
             .data(data)
             .build();
         
-        kafkaTemplate.send(paymentEventsTopic, event);
+        enqueue(paymentEventsTopic, event);
         log.info("Published ticket balance low event for user: {}", userId);
     }
-}
\ No newline at end of file
+    
+    private void enqueue(String topic, PaymentEvent event) {
+        outboxRepository.save(PaymentEventOutbox.builder()
+            .topic(topic)
+            .eventId(event.getEventId())
+            .eventType(event.getEventType())
+            .userId(event.getUserId())
+            .messageKey(partitionKeyStrategy(topic).keyFor(event))
+            .payload(PaymentEventJson.write(event))
+            .build());
+    }
+    
+    private PartitionKeyStrategy partitionKeyStrategy(String topic) {
+        return topic.equals(subscriptionEventsTopic) ? subscriptionEventsKey : paymentEventsKey;
+    }
+}
@@ -0,0 +1,201 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 결제 승인/자동결제 요청의 멱등성 처리
+ *
+ * - 같은 키로 동시에 들어온 요청은 첫 요청의 결과(Mono)를 함께 기다린다 (인스턴스 내)
+ * - 완료된 응답은 메모리에 보관하여 재시도 요청에 Toss 호출 없이 바로 돌려준다
+ * - 인스턴스 간에는 PaymentIdempotencyStore 가 키를 선점하고, 다른 인스턴스가 처리 중이면 완료될 때까지 폴링한다
+ * - 호출이 실패하면 선점을 풀어 같은 키로 다시 시도할 수 있게 한다
+ * - 키마다 요청 fingerprint(요청 본문 + 사용자 id 의 SHA-256)를 함께 기록하고, 같은 키를 다른 요청에 쓰면
+ *   이전 응답을 돌려주지 않고 IdempotencyConflictException 으로 거절한다
+ *
+ * DB 접근은 boundedElastic 스케줄러에서 수행하여 WebClient 이벤트 루프를 막지 않는다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 150;
+
+    private final PaymentIdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${payment.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${payment.idempotency.cache-max-entries:10000}")
+    private int cacheMaxEntries;
+
+    // 다른 인스턴스가 처리 중인 요청을 기다리는 최대 시간과 확인 간격
+    @Value("${payment.idempotency.wait-timeout-ms:35000}")
+    private long waitTimeoutMs;
+
+    @Value("${payment.idempotency.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+    /**
+     * 요청을 식별하는 fingerprint 를 만든다 (사용자 id 와 요청 값들을 JSON 으로 직렬화한 뒤 SHA-256)
+     */
+    public String fingerprint(String userId, Object... request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(userId).getBytes(StandardCharsets.UTF_8));
+            for (Object part : request) {
+                digest.update((byte) '\n');
+                digest.update(objectMapper.writeValueAsBytes(part));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize request for idempotency fingerprint", e);
+        }
+    }
+
+    /**
+     * idempotencyKey 가 없으면 멱등성 처리 없이 call 을 그대로 실행한다
+     * 같은 키로 다른 fingerprint 의 요청이 들어오면 IdempotencyConflictException 으로 실패한다
+     */
+    public <T> Mono<T> execute(TossOperation operation, String idempotencyKey, String fingerprint,
+                               Class<T> responseType, Supplier<Mono<T>> call) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return Mono.defer(call);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException("Idempotency key must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String key = operation.getInstanceName() + ":" + idempotencyKey;
+        return Mono.defer(() -> {
+            CachedResponse cached = responses.get(key);
+            if (cached != null) {
+                if (cached.expiresAt().isAfter(Instant.now())) {
+                    if (!Objects.equals(cached.fingerprint(), fingerprint)) {
+                        return Mono.error(IdempotencyConflictException.fingerprintMismatch(key));
+                    }
+                    paymentMetrics.incrementPaymentIdempotentReplay(operation.getInstanceName(), "memory");
+                    return Mono.just(responseType.cast(cached.response()));
+                }
+                responses.remove(key, cached);
+            }
+
+            InFlight shared = inFlight.get(key);
+            if (shared != null) {
+                paymentMetrics.incrementPaymentIdempotentReplay(operation.getInstanceName(), "in_flight");
+            } else {
+                shared = inFlight.computeIfAbsent(key,
+                    k -> new InFlight(fingerprint, start(k, operation, fingerprint, responseType, call)));
+            }
+            if (!Objects.equals(shared.fingerprint(), fingerprint)) {
+                return Mono.error(IdempotencyConflictException.fingerprintMismatch(key));
+            }
+            return shared.response().map(responseType::cast);
+        });
+    }
+
+    private <T> Mono<Object> start(String key, TossOperation operation, String fingerprint, Class<T> responseType,
+                                   Supplier<Mono<T>> call) {
+        return claimUntilResolved(key, operation, fingerprint)
+            .flatMap(claim -> {
+                if (claim.state() == PaymentIdempotencyStore.Claim.State.COMPLETED) {
+                    paymentMetrics.incrementPaymentIdempotentReplay(operation.getInstanceName(), "database");
+                    return Mono.fromCallable(() -> (Object) read(claim.responsePayload(), responseType));
+                }
+                return invoke(key, call);
+            })
+            .doOnNext(response -> remember(key, fingerprint, response))
+            .doFinally(signal -> inFlight.remove(key))
+            .cache();
+    }
+
+    /**
+     * 키를 선점하거나 완료된 응답을 얻을 때까지 기다린다
+     */
+    private Mono<PaymentIdempotencyStore.Claim> claimUntilResolved(String key, TossOperation operation, String fingerprint) {
+        return Mono.fromCallable(() -> idempotencyStore.claim(key, operation.getInstanceName(), fingerprint))
+            .subscribeOn(Schedulers.boundedElastic())
+            .filter(claim -> claim.state() != PaymentIdempotencyStore.Claim.State.IN_PROGRESS)
+            .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(pollIntervalMs)))
+            .timeout(Duration.ofMillis(waitTimeoutMs))
+            .onErrorMap(TimeoutException.class, e -> new IdempotencyConflictException(key));
+    }
+
+    private <T> Mono<Object> invoke(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(call)
+            .onErrorResume(e -> release(key).then(Mono.<T>error(e)))
+            .switchIfEmpty(release(key).then(Mono.empty()))
+            .publishOn(Schedulers.boundedElastic())
+            .<Object>map(response -> {
+                try {
+                    idempotencyStore.complete(key, write(response));
+                } catch (Exception e) {
+                    // 결제는 이미 처리되었으므로 응답은 돌려주고, 선점은 만료될 때까지 유지한다
+                    log.error("Failed to record idempotent response for key: {}", key, e);
+                }
+                return response;
+            });
+    }
+
+    private Mono<Void> release(String key) {
+        return Mono.<Void>fromRunnable(() -> idempotencyStore.release(key))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(e -> {
+                log.error("Failed to release idempotency key: {}", key, e);
+                return Mono.empty();
+            });
+    }
+
+    private void remember(String key, String fingerprint, Object response) {
+        Instant now = Instant.now();
+        if (responses.size() >= cacheMaxEntries) {
+            responses.entrySet().removeIf(entry -> !entry.getValue().expiresAt().isAfter(now));
+            if (responses.size() >= cacheMaxEntries) {
+                // 캐시가 가득 차면 DB 의 완료 기록으로 응답한다
+                return;
+            }
+        }
+        responses.put(key, new CachedResponse(response, fingerprint, now.plus(Duration.ofHours(ttlHours))));
+    }
+
+    private String write(Object response) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    private <T> T read(String payload, Class<T> responseType) throws JsonProcessingException {
+        return objectMapper.readValue(payload, responseType);
+    }
+
+    private record CachedResponse(Object response, String fingerprint, Instant expiresAt) {
+    }
+
+    private record InFlight(String fingerprint, Mono<Object> response) {
+    }
+}
@@ -0,0 +1,141 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentIdempotencyRecord.Status;
+import ac.su.kdt.bepaymentservice.repository.PaymentIdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * payment_idempotency 테이블 접근 (인스턴스 간 멱등성 기준)
+ *
+ * 키 선점은 INSERT 의 PK 충돌로 판정하고, 만료된 선점은 조건부 UPDATE 로 한 요청만 이어받는다
+ * 기록된 요청 fingerprint 와 다른 요청이 같은 키를 쓰면 IdempotencyConflictException 으로 거절한다
+ * 상태를 읽은 직후 JDBC 로 바꾸는 흐름이라 영속성 컨텍스트 캐시를 거치지 않도록 모두 JdbcTemplate 으로 처리한다
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentIdempotencyStore {
+    
+    private static final String SELECT_SQL =
+        "SELECT status, response_payload, locked_until, request_fingerprint FROM payment_idempotency WHERE idempotency_key = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO payment_idempotency (idempotency_key, operation, request_fingerprint, status, locked_until, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String TAKE_OVER_SQL =
+        "UPDATE payment_idempotency SET locked_until = ? WHERE idempotency_key = ? AND status = ? AND locked_until < ?";
+    private static final String COMPLETE_SQL =
+        "UPDATE payment_idempotency SET status = ?, response_payload = ?, completed_at = ? WHERE idempotency_key = ?";
+    private static final String RELEASE_SQL =
+        "DELETE FROM payment_idempotency WHERE idempotency_key = ? AND status = ?";
+    
+    private final PaymentIdempotencyRecordRepository idempotencyRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${payment.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    
+    // 선점 후 응답을 기록하지 못한 키를 다른 요청이 이어받기까지의 시간 (Toss 응답 타임아웃보다 길게)
+    @Value("${payment.idempotency.lease-seconds:60}")
+    private long leaseSeconds;
+    
+    /**
+     * 키를 선점하거나, 이미 완료된 응답 또는 다른 요청이 처리 중임을 반환한다
+     * @throws IdempotencyConflictException 같은 키가 다른 fingerprint 의 요청으로 기록되어 있는 경우
+     */
+    public Claim claim(String key, String operation, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Row> rows = find(key);
+        if (rows.isEmpty()) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, key, operation, fingerprint, Status.IN_PROGRESS.name(),
+                    Timestamp.valueOf(now.plusSeconds(leaseSeconds)), Timestamp.valueOf(now));
+                return Claim.ACQUIRED;
+            } catch (DuplicateKeyException e) {
+                // 동시에 들어온 같은 키의 요청이 먼저 선점했다
+                rows = find(key);
+                if (rows.isEmpty()) {
+                    return Claim.IN_PROGRESS;
+                }
+            }
+        }
+        
+        Row row = rows.get(0);
+        // fingerprint 가 없는 기록(컬럼 추가 전에 만들어진 기록)은 비교하지 않는다
+        if (row.fingerprint() != null && !row.fingerprint().equals(fingerprint)) {
+            throw IdempotencyConflictException.fingerprintMismatch(key);
+        }
+        if (row.status() == Status.COMPLETED) {
+            return Claim.completed(row.responsePayload());
+        }
+        if (row.lockedUntil().isBefore(now)) {
+            int updated = jdbcTemplate.update(TAKE_OVER_SQL, Timestamp.valueOf(now.plusSeconds(leaseSeconds)),
+                key, Status.IN_PROGRESS.name(), Timestamp.valueOf(now));
+            if (updated == 1) {
+                log.warn("Took over expired idempotency lease: {}", key);
+                return Claim.ACQUIRED;
+            }
+        }
+        return Claim.IN_PROGRESS;
+    }
+    
+    public void complete(String key, String responsePayload) {
+        jdbcTemplate.update(COMPLETE_SQL, Status.COMPLETED.name(), responsePayload,
+            Timestamp.valueOf(LocalDateTime.now()), key);
+    }
+    
+    /**
+     * 실패한 요청의 선점을 풀어 같은 키로 다시 시도할 수 있게 한다
+     */
+    public void release(String key) {
+        jdbcTemplate.update(RELEASE_SQL, key, Status.IN_PROGRESS.name());
+    }
+    
+    @Scheduled(fixedDelayString = "${payment.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime before = LocalDateTime.now().minusHours(ttlHours);
+        Integer deleted = transactionTemplate.execute(status ->
+            idempotencyRecordRepository.deleteCreatedBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} idempotency records older than {} hours", deleted, ttlHours);
+        }
+    }
+    
+    private List<Row> find(String key) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Row(
+            Status.valueOf(rs.getString("status")),
+            rs.getString("response_payload"),
+            rs.getTimestamp("locked_until").toLocalDateTime(),
+            rs.getString("request_fingerprint")), key);
+    }
+    
+    private record Row(Status status, String responsePayload, LocalDateTime lockedUntil, String fingerprint) {
+    }
+    
+    public record Claim(State state, String responsePayload) {
+        
+        static final Claim ACQUIRED = new Claim(State.ACQUIRED, null);
+        static final Claim IN_PROGRESS = new Claim(State.IN_PROGRESS, null);
+        
+        static Claim completed(String responsePayload) {
+            return new Claim(State.COMPLETED, responsePayload);
+        }
+        
+        public enum State {
+            ACQUIRED,
+            IN_PROGRESS,
+            COMPLETED
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.PaymentTransactionRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Toss 결제 결과를 PaymentTransaction 으로 기록하고 결제 성공/실패 이벤트를 발행한다
+ *
+ * - 사용자 결제(승인/자동결제): 응답마다 구독에 연결한 거래를 한 건 저장한다
+ * - 갱신 배치: 한 페이지의 결과를 recordAll 로 모아 batch-size 단위 JDBC 배치 INSERT 로 저장한다
+ *   (IDENTITY 키는 Hibernate 가 배치로 INSERT 하지 않으므로 JdbcTemplate 으로 직접 넣고 생성된 id 를 돌려받는다)
+ *
+ * payment.success/failure 카운터는 기록한 결과 상태로, payment.processing.time 은 Toss 호출부터 기록까지의 시간으로 집계한다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentRecordingService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO payment_transaction (subscription_id, amount, currency, payment_method, transaction_status, " +
+        "transaction_type, external_transaction_id, failure_reason, description, processed_at, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_REASON_LENGTH = 500;
+
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final PaymentEventService paymentEventService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${payment.recording.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 사용자 결제 호출을 감싸 결과를 기록한다
+     * subscriptionId 가 없으면 거래는 남기지 않고 메트릭만 집계한다
+     * Toss 호출이 거절된 경우(TossUnavailableException)는 결제를 시도하지 않았으므로 기록하지 않는다
+     */
+    public Mono<PaymentResponse> recordPayment(Long subscriptionId, Long amount, Mono<PaymentResponse> payment) {
+        return timed(payment
+            .publishOn(Schedulers.boundedElastic())
+            .map(response -> {
+                recordSafely(subscriptionId, amount, response.getPaymentKey(), toTransactionStatus(response.getStatus()),
+                    "DONE".equals(response.getStatus()) ? null : "Toss payment status: " + response.getStatus(),
+                    "Toss order " + response.getOrderId());
+                return response;
+            })
+            .onErrorResume(e -> !(e instanceof TossUnavailableException), e ->
+                Mono.<PaymentResponse>fromRunnable(() -> recordSafely(subscriptionId, amount, null,
+                        PaymentTransaction.TransactionStatus.FAILED, e.getMessage(), null))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .then(Mono.error(e))));
+    }
+
+    /**
+     * Toss 호출부터 완료(기록 포함)까지를 payment.processing.time 에 기록한다
+     */
+    public <T> Mono<T> timed(Mono<T> payment) {
+        return Mono.defer(() -> {
+            var sample = paymentMetrics.startPaymentTimer();
+            return payment.doFinally(signal -> paymentMetrics.recordPaymentProcessingTime(sample));
+        });
+    }
+
+    /**
+     * 거래 한 건을 저장하고 이벤트를 발행한다 (호출자의 트랜잭션에 참여한다)
+     */
+    @Transactional
+    public PaymentTransaction record(PaymentTransaction transaction) {
+        PaymentTransaction saved = paymentTransactionRepository.save(transaction);
+        publish(saved);
+        return saved;
+    }
+
+    /**
+     * 거래들을 batch-size 단위 배치 INSERT 로 저장하고 생성된 id 를 채운 뒤 이벤트를 발행한다 (호출자의 트랜잭션에 참여한다)
+     * 각 거래의 subscription 은 id 가 있어야 한다
+     */
+    @Transactional
+    public List<PaymentTransaction> recordAll(List<PaymentTransaction> transactions) {
+        for (int from = 0; from < transactions.size(); from += batchSize) {
+            insertBatch(transactions.subList(from, Math.min(from + batchSize, transactions.size())));
+        }
+        transactions.forEach(this::publish);
+        return transactions;
+    }
+
+    private void insertBatch(List<PaymentTransaction> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    PaymentTransaction transaction = chunk.get(i);
+                    ps.setLong(1, transaction.getSubscription().getId());
+                    ps.setBigDecimal(2, transaction.getAmount());
+                    ps.setString(3, transaction.getCurrency());
+                    ps.setString(4, transaction.getPaymentMethod().name());
+                    ps.setString(5, transaction.getTransactionStatus().name());
+                    ps.setString(6, transaction.getTransactionType().name());
+                    ps.setString(7, transaction.getExternalTransactionId());
+                    ps.setString(8, truncate(transaction.getFailureReason()));
+                    ps.setString(9, transaction.getDescription());
+                    ps.setTimestamp(10, transaction.getProcessedAt() != null ? Timestamp.valueOf(transaction.getProcessedAt()) : null);
+                    ps.setTimestamp(11, Timestamp.valueOf(now));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != chunk.size()) {
+            throw new IllegalStateException("Expected " + chunk.size() + " generated payment transaction ids but got " + keys.size());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            chunk.get(i).setCreatedAt(now);
+        }
+    }
+
+    private void publish(PaymentTransaction transaction) {
+        if (transaction.getTransactionStatus() == PaymentTransaction.TransactionStatus.SUCCEEDED) {
+            paymentEventService.publishPaymentSucceeded(transaction);
+        } else if (transaction.getTransactionStatus() == PaymentTransaction.TransactionStatus.FAILED) {
+            paymentEventService.publishPaymentFailed(transaction);
+        }
+        count(transaction.getTransactionStatus());
+    }
+
+    private void count(PaymentTransaction.TransactionStatus status) {
+        if (status == PaymentTransaction.TransactionStatus.SUCCEEDED) {
+            paymentMetrics.incrementPaymentSuccess();
+        } else if (status == PaymentTransaction.TransactionStatus.FAILED) {
+            paymentMetrics.incrementPaymentFailure();
+        }
+    }
+
+    /**
+     * 결제는 이미 처리되었으므로 기록에 실패해도 응답은 그대로 돌려준다
+     */
+    private void recordSafely(Long subscriptionId, Long amount, String paymentKey,
+                              PaymentTransaction.TransactionStatus status, String failureReason, String description) {
+        try {
+            if (subscriptionId == null) {
+                count(status);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (paymentKey != null && !paymentTransactionRepository.findByExternalTransactionId(paymentKey).isEmpty()) {
+                    // 같은 결제의 재응답은 다시 기록하지 않는다
+                    return;
+                }
+                Subscription subscription = subscriptionRepository.findById(subscriptionId).orElse(null);
+                if (subscription == null) {
+                    log.warn("Payment result not recorded: subscription {} not found", subscriptionId);
+                    count(status);
+                    return;
+                }
+                record(PaymentTransaction.builder()
+                    .subscription(subscription)
+                    .amount(amount != null ? BigDecimal.valueOf(amount) : subscription.getAmount())
+                    .currency(subscription.getCurrency())
+                    .paymentMethod(PaymentTransaction.PaymentMethod.CARD)
+                    .transactionType(PaymentTransaction.TransactionType.SUBSCRIPTION_PAYMENT)
+                    .transactionStatus(status)
+                    .externalTransactionId(paymentKey)
+                    .failureReason(truncate(failureReason))
+                    .description(description)
+                    .processedAt(LocalDateTime.now())
+                    .build());
+            });
+        } catch (Exception e) {
+            log.error("Failed to record payment result for subscription {} (paymentKey={})", subscriptionId, paymentKey, e);
+        }
+    }
+
+    /**
+     * 입금 대기/진행 중인 결제는 PROCESSING 으로 남기고 웹훅으로 최종 상태를 반영한다
+     */
+    static PaymentTransaction.TransactionStatus toTransactionStatus(String tossStatus) {
+        if ("DONE".equals(tossStatus)) {
+            return PaymentTransaction.TransactionStatus.SUCCEEDED;
+        }
+        if ("WAITING_FOR_DEPOSIT".equals(tossStatus) || "IN_PROGRESS".equals(tossStatus) || "READY".equals(tossStatus)) {
+            return PaymentTransaction.TransactionStatus.PROCESSING;
+        }
+        return PaymentTransaction.TransactionStatus.FAILED;
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+    }
+}
@@ -0,0 +1,198 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.ProcessedEventRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 외부 이벤트 중복 처리 방지 저장소
+ *
+ * processed_event 테이블이 기준이고, 그 앞에 최근 처리한 eventId 의 Bloom filter 를 둔다
+ * 필터에 없는 eventId 는 확실히 처음 보는 이벤트이므로 DB 조회 없이 통과시키고,
+ * 필터에 있을 때(중복이거나 오탐)만 DB 에서 확인한다
+ * 재시작 직후처럼 필터가 비어 있을 때 들어온 중복은 INSERT 의 PK 충돌로 걸러진다
+ *
+ * 필터는 두 세대로 나눠 보관 기간마다 교체하므로 메모리 사용량이 제한된다
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedEventStore {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO processed_event (event_id, event_type, processed_at) VALUES (?, ?, ?)";
+    
+    private final ProcessedEventRepository processedEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics paymentMetrics;
+    
+    @Value("${event.dedup.ttl-hours:72}")
+    private long ttlHours;
+    
+    // 필터 한 세대에 담을 것으로 예상하는 이벤트 수와 허용 오탐률
+    @Value("${event.dedup.expected-events:1000000}")
+    private int expectedEvents;
+    
+    @Value("${event.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    private volatile BloomFilter currentFilter;
+    private volatile BloomFilter previousFilter;
+    private volatile LocalDateTime currentFilterStartedAt;
+    
+    @PostConstruct
+    void initFilters() {
+        currentFilter = new BloomFilter(expectedEvents, falsePositiveRate);
+        previousFilter = new BloomFilter(expectedEvents, falsePositiveRate);
+        currentFilterStartedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * 이미 처리된 eventId 를 찾는다
+     * Bloom filter 가 처음 보는 이벤트라고 판단한 eventId 는 DB 를 조회하지 않는다
+     */
+    public Set<String> findProcessed(Collection<String> eventIds) {
+        List<String> candidates = new ArrayList<>();
+        for (String eventId : eventIds) {
+            if (currentFilter.mightContain(eventId) || previousFilter.mightContain(eventId)) {
+                candidates.add(eventId);
+            }
+        }
+        return candidates.isEmpty() ? Set.of() : findProcessedInDatabase(candidates);
+    }
+    
+    /**
+     * 필터를 거치지 않고 DB 에서 직접 확인한다 (INSERT 충돌 후 재확인 등)
+     */
+    public Set<String> findProcessedInDatabase(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        paymentMetrics.incrementEventDedupLookup();
+        return new HashSet<>(processedEventRepository.findProcessedIds(eventIds));
+    }
+    
+    /**
+     * 호출자의 트랜잭션 안에서 처리 완료를 기록한다 (eventId -> eventType)
+     * 이미 기록된 eventId 가 있으면 DuplicateKeyException 으로 트랜잭션 전체가 롤백된다
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markProcessed(Map<String, String> eventTypesById) {
+        if (eventTypesById.isEmpty()) {
+            return;
+        }
+        Timestamp processedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(eventTypesById.size());
+        eventTypesById.forEach((eventId, eventType) -> rows.add(new Object[]{eventId, eventType, processedAt}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        
+        // 롤백되더라도 필터에 남는 것은 오탐 한 번(DB 조회)으로 끝나므로 커밋을 기다리지 않는다
+        BloomFilter filter = currentFilter;
+        eventTypesById.keySet().forEach(filter::put);
+    }
+    
+    @Scheduled(fixedDelayString = "${event.dedup.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        if (Duration.between(currentFilterStartedAt, now).toHours() >= ttlHours) {
+            // 이전 세대를 버리고 새 세대를 시작한다 (필터에는 최소 보관 기간만큼의 eventId 가 남는다)
+            previousFilter = currentFilter;
+            currentFilter = new BloomFilter(expectedEvents, falsePositiveRate);
+            currentFilterStartedAt = now;
+        }
+        
+        Integer deleted = transactionTemplate.execute(status ->
+            processedEventRepository.deleteProcessedBefore(now.minusHours(ttlHours)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} processed event records older than {} hours", deleted, ttlHours);
+        }
+    }
+    
+    /**
+     * 스레드 안전한 고정 크기 Bloom filter (double hashing)
+     */
+    static final class BloomFilter {
+        
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+        
+        void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = index(h1 + i * h2);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+        
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = index(h1 + i * h2);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private long index(int combined) {
+            return (combined & Integer.MAX_VALUE) % bitCount;
+        }
+        
+        // FNV-1a 64bit + 최종 mix
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.SubscriptionPlanDto;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 구독 플랜 인메모리 캐시
+ * 플랜은 몇 개뿐이고 거의 바뀌지 않으므로 전체를 한 번에 읽어 불변 스냅샷으로 보관하고, 조회는 DB 를 거치지 않는다
+ *
+ * - 활성 플랜 DTO 목록과 id/타입별 DTO, 목록의 ETag 를 스냅샷을 만들 때 미리 계산한다
+ * - 플랜을 저장/수정한 쪽은 invalidate() 를 호출하고, 다음 조회가 새 스냅샷을 만든다
+ * - 다른 인스턴스에서 바뀐 플랜은 refresh-interval-ms 마다 다시 읽어 반영한다
+ *
+ * findById 가 돌려주는 엔티티는 영속성 컨텍스트에 속하지 않은 읽기 전용 사본이다 (subscriptions 컬렉션 없음)
+ * 연관관계 참조(Subscription.plan)로 저장하는 용도로는 쓸 수 있지만 수정해서는 안 된다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionPlanCache {
+
+    private final SubscriptionPlanRepository subscriptionPlanRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 비활성 플랜도 포함한다 (구독 생성 시 활성 여부를 호출자가 확인한다)
+     */
+    public Optional<SubscriptionPlan> findById(Long planId) {
+        return Optional.ofNullable(snapshot().plans().get(planId));
+    }
+
+    public List<SubscriptionPlanDto> getActivePlans() {
+        return snapshot().activePlans();
+    }
+
+    public Optional<SubscriptionPlanDto> findActivePlan(Long planId) {
+        return Optional.ofNullable(snapshot().activeById().get(planId));
+    }
+
+    public Optional<SubscriptionPlanDto> findActivePlanByType(SubscriptionPlan.PlanType planType) {
+        return Optional.ofNullable(snapshot().activeByType().get(planType));
+    }
+
+    /**
+     * 활성 플랜 목록의 ETag (목록 내용이 바뀌면 달라진다)
+     */
+    public String getActivePlansETag() {
+        return snapshot().etag();
+    }
+
+    /**
+     * 바로 비우고, 트랜잭션 안에서 호출하면 트랜잭션이 끝난 뒤 한 번 더 비운다
+     * (커밋 전에 다른 스레드가 이전 값을 다시 읽어 캐시하거나, 롤백된 값이 캐시에 남지 않도록)
+     */
+    public void invalidate() {
+        evict();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${subscription-plan.cache.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (snapshot != null) {
+            snapshot = load();
+        }
+    }
+
+    private void evict() {
+        snapshot = null;
+        log.info("Subscription plan cache invalidated");
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<SubscriptionPlan> plans = subscriptionPlanRepository.findAll().stream()
+            .map(SubscriptionPlanCache::copy)
+            .sorted(Comparator.comparing(SubscriptionPlan::getId))
+            .toList();
+
+        List<SubscriptionPlanDto> activePlans = plans.stream()
+            .filter(plan -> Boolean.TRUE.equals(plan.getIsActive()))
+            .map(SubscriptionPlanDto::fromEntity)
+            .toList();
+
+        Map<SubscriptionPlan.PlanType, SubscriptionPlanDto> activeByType = new EnumMap<>(SubscriptionPlan.PlanType.class);
+        activePlans.forEach(dto -> activeByType.putIfAbsent(dto.getPlanType(), dto));
+
+        String etag = "\"" + DigestUtils.md5DigestAsHex(activePlans.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        log.debug("Loaded {} subscription plans into cache ({} active)", plans.size(), activePlans.size());
+
+        return new Snapshot(
+            plans.stream().collect(Collectors.toUnmodifiableMap(SubscriptionPlan::getId, Function.identity())),
+            activePlans,
+            activePlans.stream().collect(Collectors.toUnmodifiableMap(SubscriptionPlanDto::getId, Function.identity())),
+            Map.copyOf(activeByType),
+            etag);
+    }
+
+    private static SubscriptionPlan copy(SubscriptionPlan plan) {
+        return SubscriptionPlan.builder()
+            .id(plan.getId())
+            .planName(plan.getPlanName())
+            .planType(plan.getPlanType())
+            .monthlyPrice(plan.getMonthlyPrice())
+            .yearlyPrice(plan.getYearlyPrice())
+            .stripePriceIdMonthly(plan.getStripePriceIdMonthly())
+            .stripePriceIdYearly(plan.getStripePriceIdYearly())
+            .stripeProductId(plan.getStripeProductId())
+            .maxTeamMembers(plan.getMaxTeamMembers())
+            .maxMonthlyAttempts(plan.getMaxMonthlyAttempts())
+            .ticketLimit(plan.getTicketLimit())
+            .ticketRefillAmount(plan.getTicketRefillAmount())
+            .ticketRefillIntervalHours(plan.getTicketRefillIntervalHours())
+            .features(plan.getFeatures())
+            .description(plan.getDescription())
+            .isActive(plan.getIsActive())
+            .createdAt(plan.getCreatedAt())
+            .updatedAt(plan.getUpdatedAt())
+            .build();
+    }
+
+    private record Snapshot(Map<Long, SubscriptionPlan> plans,
+                            List<SubscriptionPlanDto> activePlans,
+                            Map<Long, SubscriptionPlanDto> activeById,
+                            Map<SubscriptionPlan.PlanType, SubscriptionPlanDto> activeByType,
+                            String etag) {
+    }
+}
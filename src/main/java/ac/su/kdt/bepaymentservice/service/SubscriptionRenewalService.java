@@ -0,0 +1,330 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.BillingKey;
+import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.BillingKeyRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import ac.su.kdt.bepaymentservice.toss.TossCallPriority;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
+import ac.su.kdt.bepaymentservice.toss.dto.AutoPaymentRequest;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 구독 자동 갱신 결제
+ * 기간이 끝난 자동 갱신 구독을 id 순 페이지로 읽어, 저장된 빌링키로 Toss 자동결제를 요청한다
+ * 빌링 고객 키가 없는 구독은 대상에서 빠지며 결제 실패로 세지 않는다 (만료 스케줄러가 기간 종료 시 만료시킨다)
+ * 페이지 안의 결제는 정해진 병렬도로 처리하고, 페이지의 결과를 한 트랜잭션에서 반영하며 PaymentTransaction 은 배치 INSERT 로 남긴다
+ * 결제 요청은 BATCH 우선순위로 TossRateLimiter 를 거치므로 사용자 결제보다 뒤에 Toss 요청 한도 안에서 나간다
+ *
+ * - 성공: 기간을 한 주기 연장하고 재시도 상태를 초기화한다
+ * - 실패: PAST_DUE 로 바꾸고 dunning 일정(+지터)에 따라 재시도하며, 일정을 모두 소진하면 EXPIRED 로 만료한다
+ * - Toss 호출이 거절된 경우(서킷 오픈/벌크헤드 초과)는 결제 실패로 보지 않고 다음 실행에서 다시 시도한다
+ *
+ * 여러 파드가 동시에 실행해도 주문번호(구독 id + 기간 종료일 + 시도 횟수)를 멱등성 키로 사용하므로 같은 시도는 한 번만 결제되고,
+ * 결과 반영은 구독 행 잠금 후 기간/시도 횟수가 읽은 시점과 같을 때만 수행한다
+ * 반영에 실패하면 페이지 전체를 DEFERRED 로 두고, 다음 실행에서 멱등성 키로 저장된 결제 결과를 다시 받아 반영한다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "subscription.renewal.enabled", havingValue = "true")
+public class SubscriptionRenewalService {
+
+    private static final List<Subscription.SubscriptionStatus> RENEWABLE_STATUSES = List.of(
+        Subscription.SubscriptionStatus.ACTIVE,
+        Subscription.SubscriptionStatus.PAST_DUE
+    );
+
+    private static final DateTimeFormatter ORDER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private static final String PAYMENT_DONE = "DONE";
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final ActiveSubscriptionCache activeSubscriptionCache;
+    private final BillingKeyRepository billingKeyRepository;
+    private final PaymentRecordingService paymentRecordingService;
+    private final TossPaymentsService tossPaymentsService;
+    private final PaymentIdempotencyService paymentIdempotencyService;
+    private final PaymentEventService paymentEventService;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${subscription.renewal.page-size:500}")
+    private int pageSize;
+
+    @Value("${subscription.renewal.parallelism:8}")
+    private int parallelism;
+
+    // 실패 후 n 번째 재시도까지의 간격 (일정을 모두 소진하면 만료)
+    @Value("${subscription.renewal.dunning-schedule:1h,1d,3d,7d}")
+    private List<Duration> dunningSchedule;
+
+    // 같은 시각에 실패한 구독들의 재시도가 한꺼번에 몰리지 않도록 더하는 임의 지연의 상한
+    @Value("${subscription.renewal.retry-jitter:30m}")
+    private Duration retryJitter;
+
+    @Scheduled(fixedDelayString = "${subscription.renewal.interval-ms:300000}")
+    public void renewDueSubscriptions() {
+        renewDueSubscriptions(LocalDateTime.now());
+    }
+
+    /**
+     * now 기준으로 갱신 대상인 모든 구독을 처리한다
+     * @return 결과별 처리 건수
+     */
+    public Map<RenewalOutcome, Integer> renewDueSubscriptions(LocalDateTime now) {
+        var timer = paymentMetrics.startSubscriptionTimer();
+        Map<RenewalOutcome, Integer> outcomes = new EnumMap<>(RenewalOutcome.class);
+        long cursor = 0L;
+
+        while (true) {
+            List<Subscription> page = subscriptionRepository.findDueForRenewal(
+                RENEWABLE_STATUSES, now, cursor, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            Map<String, String> billingKeys = findBillingKeys(page);
+            List<Charge> charges = Flux.fromIterable(page)
+                .flatMap(subscription -> charge(subscription, billingKeys.get(subscription.getBillingCustomerKey())),
+                    parallelism)
+                .collectList()
+                .block();
+
+            if (charges != null) {
+                for (RenewalOutcome outcome : recordPage(charges, now)) {
+                    outcomes.merge(outcome, 1, Integer::sum);
+                    paymentMetrics.incrementSubscriptionRenewal(outcome.name().toLowerCase());
+                }
+            }
+
+            cursor = page.get(page.size() - 1).getId();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        paymentMetrics.recordSubscriptionRenewalRunTime(timer);
+        if (!outcomes.isEmpty()) {
+            log.info("Subscription renewal run finished: {}", outcomes);
+        }
+        return outcomes;
+    }
+
+    private Map<String, String> findBillingKeys(List<Subscription> page) {
+        List<String> customerKeys = page.stream()
+            .map(Subscription::getBillingCustomerKey)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+        if (customerKeys.isEmpty()) {
+            return Map.of();
+        }
+        return billingKeyRepository.findByCustomerKeyIn(customerKeys).stream()
+            .collect(Collectors.toMap(BillingKey::getCustomerKey, BillingKey::getBillingKey, (a, b) -> a));
+    }
+
+    private Mono<Charge> charge(Subscription subscription, String billingKey) {
+        String orderId = orderId(subscription);
+        if (billingKey == null) {
+            return Mono.just(new Charge(subscription, orderId, ChargeResult.failed("Billing key not registered for subscription")));
+        }
+
+        AutoPaymentRequest request = renewalRequest(subscription, orderId);
+        String fingerprint = paymentIdempotencyService.fingerprint(String.valueOf(subscription.getUserId()),
+            billingKey, request);
+        return paymentRecordingService.timed(paymentIdempotencyService.execute(TossOperation.AUTO_PAYMENT, orderId,
+                    fingerprint, PaymentResponse.class,
+                    () -> tossPaymentsService.processAutoPayment(billingKey, request, TossCallPriority.BATCH)))
+            .map(response -> PAYMENT_DONE.equals(response.getStatus())
+                ? ChargeResult.succeeded(response)
+                : ChargeResult.failed("Unexpected payment status: " + response.getStatus()))
+            .onErrorResume(e -> !isDeferrable(e), e -> Mono.just(ChargeResult.failed(e.getMessage())))
+            .map(result -> new Charge(subscription, orderId, result))
+            .onErrorResume(e -> {
+                log.warn("Deferred renewal of subscription {}: {}", subscription.getId(), e.getMessage());
+                return Mono.just(new Charge(subscription, orderId, null));
+            });
+    }
+
+    /**
+     * 같은 주문번호가 다른 요청으로 기록된 경우(fingerprint 불일치)는 기다려도 풀리지 않으므로 결제 실패로 본다
+     */
+    private boolean isDeferrable(Throwable e) {
+        return e instanceof TossUnavailableException
+            || (e instanceof IdempotencyConflictException conflict && !conflict.isFingerprintMismatch());
+    }
+
+    /**
+     * 한 페이지의 결제 결과를 한 트랜잭션에서 반영한다
+     * 구독은 id 순으로 잠가 여러 파드가 같은 페이지를 처리해도 교착 상태가 생기지 않게 하고,
+     * 거래는 모아서 배치로 저장한 뒤 구독 이벤트를 결제 이벤트 다음에 발행한다
+     */
+    private List<RenewalOutcome> recordPage(List<Charge> charges, LocalDateTime now) {
+        List<Charge> ordered = charges.stream()
+            .sorted(Comparator.comparing(charge -> charge.subscription().getId()))
+            .toList();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<PaymentTransaction> transactions = new ArrayList<>();
+                List<Runnable> subscriptionEvents = new ArrayList<>();
+                List<RenewalOutcome> results = new ArrayList<>(ordered.size());
+                for (Charge charge : ordered) {
+                    results.add(apply(charge, now, transactions, subscriptionEvents));
+                }
+                paymentRecordingService.recordAll(transactions);
+                subscriptionEvents.forEach(Runnable::run);
+                return results;
+            });
+        } catch (Exception e) {
+            // 결제 성공 후 기록에 실패한 경우, 다음 실행에서 멱등성 키로 저장된 결과를 다시 받아 기록한다
+            log.error("Failed to record renewal results for {} subscriptions", charges.size(), e);
+            return Collections.nCopies(charges.size(), RenewalOutcome.DEFERRED);
+        }
+    }
+
+    private RenewalOutcome apply(Charge charge, LocalDateTime now, List<PaymentTransaction> transactions,
+                                 List<Runnable> subscriptionEvents) {
+        if (charge.result() == null) {
+            return RenewalOutcome.DEFERRED;
+        }
+        Subscription read = charge.subscription();
+        ChargeResult result = charge.result();
+        Subscription subscription = subscriptionRepository.findByIdForUpdate(read.getId()).orElse(null);
+        if (subscription == null
+                || !Objects.equals(subscription.getCurrentPeriodEnd(), read.getCurrentPeriodEnd())
+                || !Objects.equals(subscription.getRenewalAttempts(), read.getRenewalAttempts())) {
+            // 다른 실행이 이미 이 기간/시도를 처리했다
+            return RenewalOutcome.SKIPPED;
+        }
+
+        transactions.add(PaymentTransaction.builder()
+            .subscription(subscription)
+            .amount(subscription.getAmount())
+            .currency(subscription.getCurrency())
+            .paymentMethod(PaymentTransaction.PaymentMethod.CARD)
+            .transactionType(PaymentTransaction.TransactionType.SUBSCRIPTION_PAYMENT)
+            .transactionStatus(result.succeeded()
+                ? PaymentTransaction.TransactionStatus.SUCCEEDED
+                : PaymentTransaction.TransactionStatus.FAILED)
+            .externalTransactionId(result.paymentKey())
+            .failureReason(truncate(result.failureReason()))
+            .description("Subscription renewal " + charge.orderId())
+            .processedAt(LocalDateTime.now())
+            .build());
+
+        if (result.succeeded()) {
+            LocalDateTime periodStart = subscription.getCurrentPeriodEnd();
+            subscription.setCurrentPeriodStart(periodStart);
+            subscription.setCurrentPeriodEnd(periodStart.plusMonths(
+                subscription.getBillingCycle() == Subscription.BillingCycle.YEARLY ? 12 : 1));
+            if (subscription.getStatus() != Subscription.SubscriptionStatus.ACTIVE) {
+                activeSubscriptionCache.invalidate(subscription.getUserId());
+            }
+            subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
+            subscription.setRenewalAttempts(0);
+            subscription.setNextRenewalAttemptAt(null);
+            log.info("Renewed subscription {} until {}", subscription.getId(), subscription.getCurrentPeriodEnd());
+            return RenewalOutcome.RENEWED;
+        }
+
+        int attempts = subscription.getRenewalAttempts() + 1;
+        subscription.setRenewalAttempts(attempts);
+        if (attempts > dunningSchedule.size()) {
+            subscription.setStatus(Subscription.SubscriptionStatus.EXPIRED);
+            subscription.setNextRenewalAttemptAt(null);
+            activeSubscriptionCache.invalidate(subscription.getUserId());
+            subscriptionEvents.add(() -> paymentEventService.publishSubscriptionExpired(subscription));
+            log.info("Expired subscription {} after {} failed renewal attempts", subscription.getId(), attempts);
+            return RenewalOutcome.EXPIRED;
+        }
+
+        boolean statusChanged = subscription.getStatus() != Subscription.SubscriptionStatus.PAST_DUE;
+        subscription.setStatus(Subscription.SubscriptionStatus.PAST_DUE);
+        subscription.setNextRenewalAttemptAt(now.plus(dunningSchedule.get(attempts - 1)).plus(jitter()));
+        if (statusChanged) {
+            activeSubscriptionCache.invalidate(subscription.getUserId());
+            subscriptionEvents.add(() -> paymentEventService.publishSubscriptionStatusUpdated(subscription));
+        }
+        log.info("Renewal of subscription {} failed (attempt {}), retrying at {}: {}",
+            subscription.getId(), attempts, subscription.getNextRenewalAttemptAt(), result.failureReason());
+        return RenewalOutcome.RETRY_SCHEDULED;
+    }
+
+    private Duration jitter() {
+        long boundMillis = retryJitter.toMillis();
+        return boundMillis > 0 ? Duration.ofMillis(ThreadLocalRandom.current().nextLong(boundMillis)) : Duration.ZERO;
+    }
+
+    private AutoPaymentRequest renewalRequest(Subscription subscription, String orderId) {
+        AutoPaymentRequest request = new AutoPaymentRequest();
+        request.setAmount(subscription.getAmount().longValue());
+        request.setCustomerKey(subscription.getBillingCustomerKey());
+        request.setOrderId(orderId);
+        request.setOrderName(subscription.getPlan().getPlanName() + " 구독 갱신");
+        return request;
+    }
+
+    /**
+     * 실패한 주문번호는 Toss 에서 재사용할 수 없으므로 재시도마다 시도 횟수를 붙인다 (Toss orderId 는 6~64자 영문/숫자/-/_)
+     */
+    static String orderId(Subscription subscription) {
+        return "renewal-" + subscription.getId() + "-" + subscription.getCurrentPeriodEnd().format(ORDER_DATE_FORMAT)
+            + "-" + subscription.getRenewalAttempts();
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > 500 ? reason.substring(0, 500) : reason;
+    }
+
+    public enum RenewalOutcome {
+        RENEWED,
+        RETRY_SCHEDULED,
+        EXPIRED,
+        DEFERRED,
+        SKIPPED
+    }
+
+    /**
+     * result 가 null 이면 Toss 호출이 거절되어 다음 실행으로 미룬 결제
+     */
+    private record Charge(Subscription subscription, String orderId, ChargeResult result) {
+    }
+
+    private record ChargeResult(boolean succeeded, String paymentKey, String failureReason) {
+
+        static ChargeResult succeeded(PaymentResponse response) {
+            return new ChargeResult(true, response.getPaymentKey(), null);
+        }
+
+        static ChargeResult failed(String reason) {
+            return new ChargeResult(false, null, reason);
+        }
+    }
+}
@@ -2,13 +2,15 @@ package ac.su.kdt.bepaymentservice.service;
 
 import ac.su.kdt.bepaymentservice.dto.CreateSubscriptionRequest;
 import ac.su.kdt.bepaymentservice.dto.SubscriptionDto;
+import ac.su.kdt.bepaymentservice.dto.SubscriptionHistoryPage;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
-import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
 import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
 import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +25,15 @@ import java.util.stream.Collectors;
 @Transactional
 public class SubscriptionService {
     
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
     private final SubscriptionRepository subscriptionRepository;
-    private final SubscriptionPlanRepository subscriptionPlanRepository;
+    private final SubscriptionPlanCache subscriptionPlanCache;
+    private final ActiveSubscriptionCache activeSubscriptionCache;
     private final PaymentEventService paymentEventService;
     private final PaymentMetrics paymentMetrics;
+    // subscription.renewal.enabled=true 일 때만 등록된다
+    private final ObjectProvider<SubscriptionRenewalService> subscriptionRenewalService;
     
     public SubscriptionDto createSubscription(CreateSubscriptionRequest request) {
         log.info("Creating subscription for user: {} with plan: {}", request.getUserId(), request.getPlanId());
@@ -34,19 +41,12 @@ public class SubscriptionService {
         var timer = paymentMetrics.startSubscriptionTimer();
         
         // Check if user already has an active subscription
-        List<Subscription.SubscriptionStatus> activeStatuses = List.of(
-            Subscription.SubscriptionStatus.ACTIVE,
-            Subscription.SubscriptionStatus.TRIAL
-        );
-        
-        List<Subscription> existingActiveSubscriptions = subscriptionRepository
-            .findByUserIdAndStatusInOrderByCreatedAtDesc(request.getUserId(), activeStatuses);
-        if (!existingActiveSubscriptions.isEmpty()) {
+        if (activeSubscriptionCache.findActiveSubscription(request.getUserId()).isPresent()) {
             throw new IllegalStateException("User already has an active subscription");
         }
         
         // Get subscription plan
-        SubscriptionPlan plan = subscriptionPlanRepository.findById(request.getPlanId())
+        SubscriptionPlan plan = subscriptionPlanCache.findById(request.getPlanId())
             .orElseThrow(() -> new IllegalArgumentException("Subscription plan not found"));
         
         if (!plan.getIsActive()) {
@@ -67,6 +67,7 @@ public class SubscriptionService {
             .amount(amount)
             .currency("KRW")
             .autoRenewal(true)
+            .billingCustomerKey(request.getBillingCustomerKey())
             .build();
         
         // Set trial dates if applicable
@@ -79,6 +80,7 @@ public class SubscriptionService {
         }
         
         subscription = subscriptionRepository.save(subscription);
+        activeSubscriptionCache.invalidate(subscription.getUserId());
         
         // Publish subscription created event
         paymentEventService.publishSubscriptionCreated(subscription);
@@ -103,6 +105,7 @@ public class SubscriptionService {
         ));
         
         subscription = subscriptionRepository.save(subscription);
+        activeSubscriptionCache.invalidate(subscription.getUserId());
         
         // Publish subscription activated event
         paymentEventService.publishSubscriptionCreated(subscription);
@@ -116,21 +119,27 @@ public class SubscriptionService {
     }
     
     public SubscriptionDto getUserActiveSubscription(Long userId) {
-        List<Subscription.SubscriptionStatus> activeStatuses = List.of(
-            Subscription.SubscriptionStatus.ACTIVE,
-            Subscription.SubscriptionStatus.TRIAL
-        );
-        
-        List<Subscription> activeSubscriptions = subscriptionRepository
-            .findByUserIdAndStatusInOrderByCreatedAtDesc(userId, activeStatuses);
-        return activeSubscriptions.isEmpty() ? null : SubscriptionDto.fromEntity(activeSubscriptions.get(0));
+        return activeSubscriptionCache.loadActiveSubscription(userId)
+            .map(SubscriptionDto::fromEntity)
+            .orElse(null);
     }
     
-    public List<SubscriptionDto> getUserSubscriptions(Long userId) {
-        return subscriptionRepository.findByUserIdOrderByCreatedAtDesc(userId)
-            .stream()
+    /**
+     * 구독 이력을 최신순으로 limit 건씩 돌려준다 (after 는 이전 페이지의 nextCursor)
+     * 플랜은 같은 쿼리에서 함께 읽으므로 구독 수와 관계없이 SELECT 한 번으로 끝난다
+     */
+    @Transactional(readOnly = true)
+    public SubscriptionHistoryPage getUserSubscriptions(Long userId, Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        List<Subscription> subscriptions = subscriptionRepository.findHistoryPage(
+            userId, after != null ? after : Long.MAX_VALUE, PageRequest.of(0, pageSize + 1));
+        
+        boolean hasNext = subscriptions.size() > pageSize;
+        List<SubscriptionDto> page = subscriptions.stream()
+            .limit(pageSize)
             .map(SubscriptionDto::fromEntity)
             .collect(Collectors.toList());
+        return new SubscriptionHistoryPage(page, hasNext ? page.get(page.size() - 1).getId() : null);
     }
     
     public SubscriptionDto cancelSubscription(Long subscriptionId, boolean cancelAtPeriodEnd) {
@@ -145,6 +154,7 @@ public class SubscriptionService {
         }
         
         subscription = subscriptionRepository.save(subscription);
+        activeSubscriptionCache.invalidate(subscription.getUserId());
         
         // Publish subscription cancelled event
         paymentEventService.publishSubscriptionCancelled(subscription);
@@ -159,6 +169,7 @@ public class SubscriptionService {
         
         subscription.setStatus(status);
         subscription = subscriptionRepository.save(subscription);
+        activeSubscriptionCache.invalidate(subscription.getUserId());
         
         // Publish subscription status updated event
         paymentEventService.publishSubscriptionStatusUpdated(subscription);
@@ -174,9 +185,17 @@ public class SubscriptionService {
             Subscription.SubscriptionStatus.ACTIVE, now
         );
         
+        // 갱신 엔진이 꺼져 있으면 자동 갱신 대상도 여기서 만료시킨다 (아무도 기간을 연장하지 않으므로)
+        boolean renewalActive = subscriptionRenewalService.getIfAvailable() != null;
         for (Subscription subscription : expiredSubscriptions) {
+            // 자동 갱신 대상은 SubscriptionRenewalService 가 결제 후 기간을 연장하거나, 재시도를 모두 실패하면 만료시킨다
+            if (renewalActive && subscription.isRenewable()) {
+                continue;
+            }
+            
             subscription.setStatus(Subscription.SubscriptionStatus.EXPIRED);
             subscriptionRepository.save(subscription);
+            activeSubscriptionCache.invalidate(subscription.getUserId());
             
             paymentEventService.publishSubscriptionExpired(subscription);
             log.info("Expired subscription: {} for user: {}", subscription.getId(), subscription.getUserId());
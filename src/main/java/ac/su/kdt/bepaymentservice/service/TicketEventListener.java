@@ -1,158 +1,287 @@
 package ac.su.kdt.bepaymentservice.service;
 
+import ac.su.kdt.bepaymentservice.kafka.EventFailureCause;
 import ac.su.kdt.bepaymentservice.kafka.ExternalEvent;
+import ac.su.kdt.bepaymentservice.kafka.ExternalEventFailureRouter;
 import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 사용자/미션 이벤트를 배치로 받아 티켓 보너스를 지급한다
+ * 한 배치 안의 지급은 사용자별로 합산하여 TicketService 를 사용자당 한 번만 호출하고,
+ * 배치 처리가 끝나면 오프셋을 한 번에 커밋한다
+ * 재전달된 이벤트는 ProcessedEventStore 로 걸러내며, 처리 완료 기록과 티켓 지급은 같은 트랜잭션에서 반영된다
+ * 처리에 실패한 이벤트는 ExternalEventFailureRouter 가 원인에 따라 재시도 토픽 또는 DLT 로 보낸다
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TicketEventListener {
     
+    // TicketTransaction.reason 컬럼 길이
+    private static final int MAX_REASON_LENGTH = 500;
+    
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(TicketEventListener.class);
+    
     private final TicketService ticketService;
     private final PaymentEventService paymentEventService;
     private final PaymentMetrics paymentMetrics;
+    private final ProcessedEventStore processedEventStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ExternalEventFailureRouter failureRouter;
+    
+    @KafkaListener(
+            topics = "${kafka.topic.user-events}",
+            containerFactory = "ticketEventBatchListenerContainerFactory",
+            concurrency = "${kafka.listener.user-events.concurrency:2}",
+            properties = "max.poll.records=${kafka.listener.user-events.max-poll-records:500}")
+    public void handleUserEvents(List<ConsumerRecord<String, ExternalEvent>> records, Acknowledgment acknowledgment) {
+        processBatch("user", records, this::resolveUserEventBonus);
+        acknowledgment.acknowledge();
+    }
+    
+    @KafkaListener(
+            topics = "${kafka.topic.mission-events}",
+            containerFactory = "ticketEventBatchListenerContainerFactory",
+            concurrency = "${kafka.listener.mission-events.concurrency:4}",
+            properties = "max.poll.records=${kafka.listener.mission-events.max-poll-records:500}")
+    public void handleMissionEvents(List<ConsumerRecord<String, ExternalEvent>> records, Acknowledgment acknowledgment) {
+        processBatch("mission", records, this::resolveMissionEventBonus);
+        acknowledgment.acknowledge();
+    }
     
-    @KafkaListener(topics = "${kafka.topic.user-events}")
-    public void handleUserEvents(
-            @Payload ExternalEvent event,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment) {
+    /**
+     * 배치 처리에서 일시적인 오류로 실패해 {topic}.retry 로 옮겨진 이벤트를 한 건씩 재처리한다
+     * 실패하면 지수 백오프로 재시도 토픽을 거치고, 모두 실패하면 {topic}.retry-dlt 로 보내진다
+     */
+    @RetryableTopic(
+            attempts = "${kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${kafka.retry.initial-delay-ms:1000}",
+                    multiplierExpression = "${kafka.retry.multiplier:2.0}",
+                    maxDelayExpression = "${kafka.retry.max-delay-ms:60000}"),
+            retryTopicSuffix = "-backoff",
+            dltTopicSuffix = "-dlt",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            exclude = {IllegalArgumentException.class, NullPointerException.class, ClassCastException.class},
+            traversingCauses = "true",
+            kafkaTemplate = "externalEventKafkaTemplate")
+    @KafkaListener(topics = {
+            "${kafka.topic.user-events}" + ExternalEventFailureRouter.RETRY_TOPIC_SUFFIX,
+            "${kafka.topic.mission-events}" + ExternalEventFailureRouter.RETRY_TOPIC_SUFFIX})
+    public void handleRetry(ExternalEvent event, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        String eventId = event.getEventId();
+        if (eventId != null && !processedEventStore.findProcessed(List.of(eventId)).isEmpty()) {
+            log.debug("Skipping already processed retried event: {}", eventId);
+            paymentMetrics.incrementKafkaEventDuplicate(event.getEventType());
+            return;
+        }
         
         try {
-            log.info("Received user event: {} from topic: {} partition: {} offset: {}", 
-                    event.getEventType(), topic, partition, offset);
-            
+            Bonus bonus = resolveBonus(event);
+            if (bonus != null) {
+                UserBonus userBonus = new UserBonus();
+                userBonus.add(event, bonus);
+                applyGrant(event.getUserId(), userBonus);
+            }
+        } catch (DuplicateKeyException e) {
+            log.debug("Retried event {} was processed concurrently", eventId);
+            paymentMetrics.incrementKafkaEventDuplicate(event.getEventType());
+        } catch (RuntimeException e) {
+            log.warn("Retry of event {} from {} failed - {}", eventId, topic, e.getMessage());
+            paymentMetrics.incrementKafkaEventFailure(event.getEventType(), EventFailureCause.classify(e).name());
+            throw e;
+        }
+    }
+    
+    private void processBatch(String source, List<ConsumerRecord<String, ExternalEvent>> records,
+                              BonusResolver resolver) {
+        List<ConsumerRecord<String, ExternalEvent>> received = new ArrayList<>(records.size());
+        Map<ExternalEvent, ConsumerRecord<String, ExternalEvent>> recordsByEvent = new IdentityHashMap<>();
+        for (ConsumerRecord<String, ExternalEvent> record : records) {
+            ExternalEvent event = record.value();
+            if (event == null) {
+                DeserializationException error = SerializationUtils.getExceptionFromHeader(
+                    record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+                if (error != null) {
+                    failureRouter.routeUndeserializable(record, error);
+                } else {
+                    log.warn("Skipping empty {} event at {}-{} offset {}", source, record.topic(), record.partition(), record.offset());
+                }
+                continue;
+            }
+            log.debug("Received {} event: {} from topic: {} partition: {} offset: {}", 
+                    source, event.getEventType(), record.topic(), record.partition(), record.offset());
             paymentMetrics.incrementKafkaEventReceived(event.getEventType());
-            processUserEvent(event);
-            acknowledgment.acknowledge();
+            received.add(record);
+            recordsByEvent.put(event, record);
+        }
+        
+        Set<String> processed = processedEventStore.findProcessed(
+            received.stream().map(record -> record.value().getEventId()).filter(Objects::nonNull).toList());
+        Set<String> seenInBatch = new HashSet<>();
+        Map<Long, UserBonus> bonuses = new LinkedHashMap<>();
+        int duplicates = 0;
+        
+        for (ConsumerRecord<String, ExternalEvent> record : received) {
+            ExternalEvent event = record.value();
+            String eventId = event.getEventId();
+            if (eventId != null && (processed.contains(eventId) || !seenInBatch.add(eventId))) {
+                log.debug("Skipping already processed {} event: {}", source, eventId);
+                paymentMetrics.incrementKafkaEventDuplicate(event.getEventType());
+                duplicates++;
+                continue;
+            }
             
-        } catch (Exception e) {
-            log.error("Error processing user event: {} - {}", event.getEventId(), e.getMessage(), e);
-            paymentMetrics.incrementKafkaEventFailure(event.getEventType());
-            // 에러 발생시에도 acknowledge하여 메시지가 재처리되지 않도록 함
-            // 실제 운영에서는 DLQ(Dead Letter Queue)로 보내거나 재처리 로직 구현 필요
-            acknowledgment.acknowledge();
+            try {
+                if (event.getUserId() == null) {
+                    throw new IllegalArgumentException("Event " + eventId + " has no user_id");
+                }
+                Bonus bonus = resolver.resolve(event);
+                if (bonus != null) {
+                    bonuses.computeIfAbsent(event.getUserId(), userId -> new UserBonus()).add(event, bonus);
+                }
+            } catch (Exception e) {
+                // 처리할 수 없는 이벤트는 재시도 토픽/DLT 로 보내고 배치의 나머지 이벤트는 계속 처리한다
+                log.error("Error processing {} event: {} - {}", source, eventId, e.getMessage(), e);
+                failureRouter.route(record, e);
+            }
         }
+        
+        bonuses.forEach((userId, bonus) -> grant(userId, bonus, recordsByEvent));
+        log.info("Processed {} {} events ({} duplicates skipped): granted bonus tickets to {} users", 
+                records.size(), source, duplicates, bonuses.size());
     }
     
-    @KafkaListener(topics = "${kafka.topic.mission-events}")
-    public void handleMissionEvents(
-            @Payload ExternalEvent event,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment) {
-        
+    private void grant(Long userId, UserBonus bonus, Map<ExternalEvent, ConsumerRecord<String, ExternalEvent>> recordsByEvent) {
         try {
-            log.info("Received mission event: {} from topic: {} partition: {} offset: {}", 
-                    event.getEventType(), topic, partition, offset);
-            
-            paymentMetrics.incrementKafkaEventReceived(event.getEventType());
-            processMissionEvent(event);
-            acknowledgment.acknowledge();
-            
+            try {
+                applyGrant(userId, bonus);
+            } catch (DuplicateKeyException e) {
+                // 필터가 놓친 중복(재시작 직후, 다른 컨슈머와 경합)이 섞여 있으면 처리된 이벤트를 빼고 다시 지급한다
+                Set<String> processed = processedEventStore.findProcessedInDatabase(bonus.eventIds());
+                log.info("Skipping {} already processed events for user: {}", processed.size(), userId);
+                bonus.eventTypesFor(processed).forEach(paymentMetrics::incrementKafkaEventDuplicate);
+                bonus = bonus.without(processed);
+                if (!bonus.isEmpty()) {
+                    applyGrant(userId, bonus);
+                }
+            }
         } catch (Exception e) {
-            log.error("Error processing mission event: {} - {}", event.getEventId(), e.getMessage(), e);
-            paymentMetrics.incrementKafkaEventFailure(event.getEventType());
-            acknowledgment.acknowledge();
+            // 지급이 롤백되었으므로 사용자의 이벤트를 각각 재시도 경로로 보낸다
+            log.error("Error granting {} bonus tickets to user: {} - {}", bonus.tickets(), userId, e.getMessage(), e);
+            for (ExternalEvent event : bonus.events) {
+                failureRouter.route(recordsByEvent.get(event), e);
+            }
         }
     }
     
-    private void processUserEvent(ExternalEvent event) {
+    private void applyGrant(Long userId, UserBonus bonus) {
+        transactionTemplate.executeWithoutResult(status -> {
+            processedEventStore.markProcessed(bonus.eventTypesById());
+            ticketService.adjustTickets(userId, bonus.tickets(), bonus.reason());
+        });
+        log.info("Granted {} bonus tickets to user: {} for {} events", bonus.tickets(), userId, bonus.size());
+    }
+    
+    private Bonus resolveBonus(ExternalEvent event) {
+        ExternalEvent.EventType eventType = ExternalEvent.EventType.fromValue(event.getEventType());
+        return eventType == ExternalEvent.EventType.MISSION_COMPLETED
+            ? resolveMissionEventBonus(event)
+            : resolveUserEventBonus(event);
+    }
+    
+    private Bonus resolveUserEventBonus(ExternalEvent event) {
         ExternalEvent.EventType eventType = ExternalEvent.EventType.fromValue(event.getEventType());
         
         switch (eventType) {
             case USER_REGISTERED:
-                handleUserRegistered(event);
-                break;
+                return userRegisteredBonus(event);
             case TEAM_CREATED:
-                handleTeamCreated(event);
-                break;
+                return teamCreatedBonus(event);
             case ACHIEVEMENT_UNLOCKED:
-                handleAchievementUnlocked(event);
-                break;
+                return achievementUnlockedBonus(event);
             default:
                 log.info("Unhandled user event type: {}", event.getEventType());
+                return null;
         }
     }
     
-    private void processMissionEvent(ExternalEvent event) {
+    private Bonus resolveMissionEventBonus(ExternalEvent event) {
         ExternalEvent.EventType eventType = ExternalEvent.EventType.fromValue(event.getEventType());
         
         switch (eventType) {
             case MISSION_COMPLETED:
-                handleMissionCompleted(event);
-                break;
+                return missionCompletedBonus(event);
             default:
                 log.info("Unhandled mission event type: {}", event.getEventType());
+                return null;
         }
     }
     
-    private void handleUserRegistered(ExternalEvent event) {
-        Long userId = event.getUserId();
-        log.info("Processing user registration for user: {}", userId);
+    private Bonus userRegisteredBonus(ExternalEvent event) {
+        log.debug("Processing user registration for user: {}", event.getUserId());
         
         // 신규 사용자 등록시 환영 티켓 지급
         int welcomeTickets = 1;
-        ticketService.adjustTickets(userId, welcomeTickets, "Welcome bonus for new user");
-        
-        log.info("Granted {} welcome tickets to new user: {}", welcomeTickets, userId);
+        return new Bonus(welcomeTickets, "Welcome bonus for new user");
     }
     
-    private void handleTeamCreated(ExternalEvent event) {
-        Long userId = event.getUserId();
-        Long teamId = event.getTeamId();
-        log.info("Processing team creation for user: {} team: {}", userId, teamId);
+    private Bonus teamCreatedBonus(ExternalEvent event) {
+        log.debug("Processing team creation for user: {} team: {}", event.getUserId(), event.getTeamId());
         
         // 팀 생성시 보너스 티켓 지급
         int teamCreationBonus = 2;
-        ticketService.adjustTickets(userId, teamCreationBonus, "Team creation bonus");
-        
-        log.info("Granted {} team creation bonus tickets to user: {}", teamCreationBonus, userId);
+        return new Bonus(teamCreationBonus, "Team creation bonus");
     }
     
-    private void handleMissionCompleted(ExternalEvent event) {
-        Long userId = event.getUserId();
+    private Bonus missionCompletedBonus(ExternalEvent event) {
         Object difficultyObj = event.getData().get("difficulty");
         String difficulty = difficultyObj != null ? difficultyObj.toString() : "EASY";
         
-        log.info("Processing mission completion for user: {} with difficulty: {}", userId, difficulty);
+        log.debug("Processing mission completion for user: {} with difficulty: {}", event.getUserId(), difficulty);
         
         // 미션 완료시 난이도에 따른 보너스 티켓 지급
         int bonusTickets = calculateMissionBonus(difficulty);
-        if (bonusTickets > 0) {
-            ticketService.adjustTickets(userId, bonusTickets, 
-                "Mission completion bonus (" + difficulty + ")");
-            
-            log.info("Granted {} mission completion bonus tickets to user: {}", bonusTickets, userId);
-        }
+        return bonusTickets > 0 ? new Bonus(bonusTickets, "Mission completion bonus (" + difficulty + ")") : null;
     }
     
-    private void handleAchievementUnlocked(ExternalEvent event) {
-        Long userId = event.getUserId();
+    private Bonus achievementUnlockedBonus(ExternalEvent event) {
         Object achievementTypeObj = event.getData().get("achievement_type");
         String achievementType = achievementTypeObj != null ? achievementTypeObj.toString() : "UNKNOWN";
         
-        log.info("Processing achievement unlock for user: {} achievement: {}", userId, achievementType);
+        log.debug("Processing achievement unlock for user: {} achievement: {}", event.getUserId(), achievementType);
         
         // 업적 해금시 보너스 티켓 지급
         int achievementBonus = calculateAchievementBonus(achievementType);
-        if (achievementBonus > 0) {
-            ticketService.adjustTickets(userId, achievementBonus, 
-                "Achievement unlock bonus (" + achievementType + ")");
-            
-            log.info("Granted {} achievement bonus tickets to user: {}", achievementBonus, userId);
-        }
+        return achievementBonus > 0
+            ? new Bonus(achievementBonus, "Achievement unlock bonus (" + achievementType + ")")
+            : null;
     }
     
     private int calculateMissionBonus(String difficulty) {
@@ -186,4 +315,76 @@ public class TicketEventListener {
                 return 1;
         }
     }
-}
\ No newline at end of file
+    
+    @FunctionalInterface
+    private interface BonusResolver {
+        Bonus resolve(ExternalEvent event);
+    }
+    
+    private record Bonus(int tickets, String reason) {
+    }
+    
+    /**
+     * 배치 안에서 한 사용자에게 지급할 보너스 합계
+     * 사유는 같은 사유끼리 묶어 "사유 xN" 형태로 합친다
+     */
+    private static class UserBonus {
+        private final List<ExternalEvent> events = new ArrayList<>();
+        private final List<Bonus> bonuses = new ArrayList<>();
+        
+        void add(ExternalEvent event, Bonus bonus) {
+            events.add(event);
+            bonuses.add(bonus);
+        }
+        
+        int size() {
+            return events.size();
+        }
+        
+        boolean isEmpty() {
+            return events.isEmpty();
+        }
+        
+        int tickets() {
+            return bonuses.stream().mapToInt(Bonus::tickets).sum();
+        }
+        
+        String reason() {
+            Map<String, Integer> reasonCounts = new LinkedHashMap<>();
+            bonuses.forEach(bonus -> reasonCounts.merge(bonus.reason(), 1, Integer::sum));
+            String reason = reasonCounts.entrySet().stream()
+                .map(entry -> entry.getValue() > 1 ? entry.getKey() + " x" + entry.getValue() : entry.getKey())
+                .collect(Collectors.joining(", "));
+            return reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+        }
+        
+        List<String> eventIds() {
+            return events.stream().map(ExternalEvent::getEventId).filter(Objects::nonNull).toList();
+        }
+        
+        Map<String, String> eventTypesById() {
+            Map<String, String> eventTypesById = new LinkedHashMap<>();
+            events.stream()
+                .filter(event -> event.getEventId() != null)
+                .forEach(event -> eventTypesById.put(event.getEventId(), event.getEventType()));
+            return eventTypesById;
+        }
+        
+        List<String> eventTypesFor(Set<String> eventIds) {
+            return events.stream()
+                .filter(event -> eventIds.contains(event.getEventId()))
+                .map(ExternalEvent::getEventType)
+                .toList();
+        }
+        
+        UserBonus without(Set<String> eventIds) {
+            UserBonus remaining = new UserBonus();
+            for (int i = 0; i < events.size(); i++) {
+                if (!eventIds.contains(events.get(i).getEventId())) {
+                    remaining.add(events.get(i), bonuses.get(i));
+                }
+            }
+            return remaining;
+        }
+    }
+}
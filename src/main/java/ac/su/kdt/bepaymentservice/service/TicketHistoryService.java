@@ -0,0 +1,300 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionPage;
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 사용자 티켓 거래 내역 조회/내보내기
+ *
+ * - 조회: (created_at, id) 키셋 페이지네이션. 커서는 마지막 행의 created_at 과 id 를 담은 불투명 문자열이다
+ *   모든 페이지 조회에 page-window-days 폭의 created_at 하한/상한을 걸어 PostgreSQL 이 그 기간의 월 파티션만 읽게 한다
+ *   (기본 파티션이 있으면 범위 조건 없는 ORDER BY ... LIMIT 는 MergeAppend 로 모든 파티션을 연다)
+ *   창 안의 행으로 페이지를 못 채우면 그보다 오래된 가장 최근 행을 찾아 그 시각에서 다음 창을 연다
+ * - 내보내기: 전진 전용 JDBC 커서를 fetch-size 단위로 읽으며 행마다 응답에 바로 쓰므로, 내역 크기와 관계없이 메모리가 일정하다
+ *
+ * 두 경로 모두 idx_ticket_transaction_user_created (user_id, created_at DESC, id DESC) 인덱스 순서대로 읽는다
+ * PostgreSQL 은 트랜잭션 안에서만 fetch-size 로 끊어 읽으므로 내보내기는 읽기 전용 트랜잭션에서 실행한다
+ * (MySQL 은 fetch-size 를 Integer.MIN_VALUE 로 두어야 행 단위로 스트리밍한다)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketHistoryService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    // 첫 페이지 상한: 인스턴스 간 시계 차이로 조금 앞선 시각에 기록된 행까지만 포함한다
+    private static final Duration FUTURE_TOLERANCE = Duration.ofDays(1);
+
+    private static final String COLUMNS =
+        "id, user_id, transaction_type, ticket_amount, balance_before, balance_after, related_attempt_id, reason, created_at";
+
+    // 첫 페이지와 이어지는 창: [하한, 상한) 범위 안에서 최신순
+    static final String WINDOW_SQL =
+        "SELECT " + COLUMNS + " FROM ticket_transaction WHERE user_id = ? " +
+        "AND created_at >= ? AND created_at < ? " +
+        "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    // 커서 다음 페이지: 하한 이상이면서 커서보다 앞선 행
+    static final String NEXT_PAGE_SQL =
+        "SELECT " + COLUMNS + " FROM ticket_transaction WHERE user_id = ? " +
+        "AND created_at >= ? AND (created_at < ? OR (created_at = ? AND id < ?)) " +
+        "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    // 창 아래에 남은 가장 최근 행의 시각 (창을 못 채웠을 때만 실행하며, 이 조회는 하한 아래의 파티션을 모두 확인한다)
+    private static final String OLDER_SQL =
+        "SELECT MAX(created_at) FROM ticket_transaction WHERE user_id = ? AND created_at < ?";
+
+    private static final String EXPORT_SQL =
+        "SELECT " + COLUMNS + " FROM ticket_transaction WHERE user_id = ? ORDER BY created_at DESC, id DESC";
+
+    private static final String CSV_HEADER =
+        "id,transactionType,ticketAmount,balanceBefore,balanceAfter,relatedAttemptId,reason,createdAt";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final RowMapper<TicketTransactionDto> ROW_MAPPER = (rs, rowNum) -> toDto(rs);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ticket.history.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    // 페이지 조회 한 번이 읽는 created_at 기간
+    @Value("${ticket.history.page-window-days:31}")
+    private int pageWindowDays;
+
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * 최신순으로 limit 건(최대 100건)을 돌려준다 (after 는 이전 페이지의 nextCursor)
+     *
+     * @throws IllegalArgumentException 커서 형식이 잘못된 경우
+     */
+    public TicketTransactionPage getTransactions(Long userId, String after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int wanted = pageSize + 1;
+        Duration window = Duration.ofDays(Math.max(1, pageWindowDays));
+        List<TicketTransactionDto> rows = new ArrayList<>(wanted);
+        LocalDateTime lowerBound;
+        if (after == null || after.isBlank()) {
+            LocalDateTime now = LocalDateTime.now();
+            lowerBound = now.minus(window);
+            rows.addAll(jdbcTemplate.query(WINDOW_SQL, ROW_MAPPER, userId,
+                Timestamp.valueOf(lowerBound), Timestamp.valueOf(now.plus(FUTURE_TOLERANCE)), wanted));
+        } else {
+            Cursor cursor = Cursor.decode(after);
+            Timestamp createdAt = Timestamp.valueOf(cursor.createdAt());
+            lowerBound = cursor.createdAt().minus(window);
+            rows.addAll(jdbcTemplate.query(NEXT_PAGE_SQL, ROW_MAPPER, userId,
+                Timestamp.valueOf(lowerBound), createdAt, createdAt, cursor.id(), wanted));
+        }
+
+        while (rows.size() < wanted) {
+            Timestamp older = jdbcTemplate.queryForObject(OLDER_SQL, Timestamp.class, userId, Timestamp.valueOf(lowerBound));
+            if (older == null) {
+                break;
+            }
+            // 하한 아래의 행은 모두 커서보다 오래되었으므로 id 조건 없이 다음 창을 읽는다
+            LocalDateTime upperBound = lowerBound;
+            lowerBound = older.toLocalDateTime().minus(window);
+            rows.addAll(jdbcTemplate.query(WINDOW_SQL, ROW_MAPPER, userId,
+                Timestamp.valueOf(lowerBound), Timestamp.valueOf(upperBound), wanted - rows.size()));
+        }
+
+        if (rows.size() <= pageSize) {
+            return new TicketTransactionPage(rows, null);
+        }
+        List<TicketTransactionDto> page = rows.subList(0, pageSize);
+        TicketTransactionDto last = page.get(pageSize - 1);
+        return new TicketTransactionPage(List.copyOf(page), new Cursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    /**
+     * 사용자의 전체 거래 내역을 최신순으로 out 에 쓴다 (out 은 닫지 않는다)
+     *
+     * @return 쓴 행 수
+     */
+    public int export(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // NDJSON 줄바꿈은 행마다 직접 쓴다 (기본 루트 구분자인 공백이 줄 앞에 붙지 않도록)
+        JsonGenerator json = format == ExportFormat.NDJSON
+            ? JSON_FACTORY.createGenerator(writer).setRootValueSeparator(null)
+            : null;
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        try {
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(exportFetchSize);
+                ps.setLong(1, userId);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    TicketTransactionDto row = toDto(rs);
+                    if (json != null) {
+                        writeJson(json, row);
+                    } else {
+                        writeCsv(writer, row);
+                    }
+                    count.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // 클라이언트가 연결을 끊은 경우 등
+            throw e.getCause();
+        }
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        log.info("Exported {} ticket transactions for user {} as {}", count.get(), userId, format);
+        return count.get();
+    }
+
+    private static void writeJson(JsonGenerator json, TicketTransactionDto row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", row.getId());
+        json.writeStringField("transactionType", row.getTransactionType().name());
+        json.writeNumberField("ticketAmount", row.getTicketAmount());
+        json.writeNumberField("balanceBefore", row.getBalanceBefore());
+        json.writeNumberField("balanceAfter", row.getBalanceAfter());
+        if (row.getRelatedAttemptId() != null) {
+            json.writeNumberField("relatedAttemptId", row.getRelatedAttemptId());
+        } else {
+            json.writeNullField("relatedAttemptId");
+        }
+        json.writeStringField("reason", row.getReason());
+        json.writeStringField("createdAt", row.getCreatedAt().toString());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeCsv(Writer writer, TicketTransactionDto row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(row.getTransactionType().name());
+        writer.write(',');
+        writer.write(String.valueOf(row.getTicketAmount()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getBalanceBefore()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getBalanceAfter()));
+        writer.write(',');
+        writer.write(row.getRelatedAttemptId() != null ? String.valueOf(row.getRelatedAttemptId()) : "");
+        writer.write(',');
+        writer.write(csvField(row.getReason()));
+        writer.write(',');
+        writer.write(row.getCreatedAt().toString());
+        writer.write('\n');
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static TicketTransactionDto toDto(ResultSet rs) throws SQLException {
+        return TicketTransactionDto.builder()
+            .id(rs.getLong("id"))
+            .userId(rs.getLong("user_id"))
+            .transactionType(TicketTransaction.TicketTransactionType.valueOf(rs.getString("transaction_type")))
+            .ticketAmount(rs.getInt("ticket_amount"))
+            .balanceBefore(rs.getInt("balance_before"))
+            .balanceAfter(rs.getInt("balance_after"))
+            .relatedAttemptId(rs.getObject("related_attempt_id", Long.class))
+            .reason(rs.getString("reason"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .build();
+    }
+
+    /**
+     * 페이지 커서: "created_at|id" 를 base64url 로 인코딩한다
+     */
+    record Cursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid ticket history cursor");
+                }
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid ticket history cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.TicketRefillShard;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.TicketRefillShardRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 티켓 충전 실행을 user_id 구간 샤드로 나누어 제한된 워커 풀에서 병렬 처리한다
+ * 샤드별 진행 커서는 ticket_refill_shard 테이블에 청크마다 기록되어 재시작 시 이어서 처리되며,
+ * 샤드 점유는 DB 리스(lease_owner/lease_expires_at)로 한 파드만 갖는다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketRefillCoordinator {
+
+    private static final String DUE_USER_BOUNDS_SQL =
+        "SELECT MIN(user_id) AS min_user_id, MAX(user_id) AS max_user_id FROM user_ticket WHERE next_refill_at <= ?";
+
+    private final TicketRefillShardRepository shardRepository;
+    private final TicketRefillService ticketRefillService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${ticket.refill.shard-count:8}")
+    private int shardCount;
+
+    @Value("${ticket.refill.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${ticket.refill.lease-seconds:60}")
+    private long leaseSeconds;
+
+    // 쿠버네티스에서는 파드 이름이 HOSTNAME 으로 주입된다
+    @Value("${HOSTNAME:payment-service}")
+    private String hostName;
+
+    private String ownerId;
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        ownerId = hostName + "-" + UUID.randomUUID().toString().substring(0, 8);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setThreadNamePrefix("ticket-refill-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 진행 중인 실행이 없으면 새로 계획하고, 완료되지 않은 샤드를 모두 처리한다
+     * 이전 실행이 중단된 경우에는 그 실행의 남은 샤드를 먼저 마치고, 새 실행은 다음 호출에서 계획된다
+     * @return 이 호출에서 실제로 티켓이 지급된 사용자 수
+     */
+    public int runRefill() {
+        planRunIfIdle(LocalDateTime.now());
+
+        List<CompletableFuture<Integer>> shards = shardRepository
+            .findByStatusNotOrderByShardId(TicketRefillShard.ShardStatus.COMPLETED).stream()
+            .map(shard -> CompletableFuture.supplyAsync(() -> processShard(shard.getShardId()), executor))
+            .toList();
+
+        int refilled = shards.stream().mapToInt(CompletableFuture::join).sum();
+        log.info("Ticket refill run processed {} shards on {} ({} users refilled)", shards.size(), ownerId, refilled);
+        return refilled;
+    }
+
+    private void planRunIfIdle(LocalDateTime now) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<TicketRefillShard> existing = shardRepository.findAllForUpdate();
+                boolean inProgress = existing.stream()
+                    .anyMatch(shard -> shard.getStatus() != TicketRefillShard.ShardStatus.COMPLETED);
+                if (inProgress) {
+                    return;
+                }
+
+                List<long[]> bounds = jdbcTemplate.query(DUE_USER_BOUNDS_SQL,
+                    (rs, rowNum) -> rs.getObject("min_user_id") == null
+                        ? null
+                        : new long[]{rs.getLong("min_user_id"), rs.getLong("max_user_id")},
+                    Timestamp.valueOf(now));
+                if (bounds.isEmpty() || bounds.get(0) == null) {
+                    return;
+                }
+
+                List<TicketRefillShard> planned = planShards(bounds.get(0)[0], bounds.get(0)[1], now, existing);
+                shardRepository.saveAllAndFlush(planned);
+                existing.stream()
+                    .filter(shard -> shard.getShardId() >= shardCount)
+                    .forEach(shardRepository::delete);
+                log.info("Planned ticket refill run at {} with {} shards", now, planned.size());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 샤드 행이 처음 생성될 때 다른 파드가 먼저 계획한 경우
+            log.debug("Ticket refill run was planned concurrently by another instance: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 기한이 지난 사용자의 최소/최대 user_id 사이를 균등하게 나누고,
+     * 계획 이후 추가된 사용자도 포함되도록 양 끝 샤드는 long 범위 끝까지 확장한다
+     */
+    private List<TicketRefillShard> planShards(long minUserId, long maxUserId, LocalDateTime now,
+                                               List<TicketRefillShard> existing) {
+        Map<Integer, TicketRefillShard> byId = existing.stream()
+            .collect(Collectors.toMap(TicketRefillShard::getShardId, Function.identity()));
+        BigInteger min = BigInteger.valueOf(minUserId);
+        BigInteger span = BigInteger.valueOf(maxUserId).subtract(min);
+
+        List<TicketRefillShard> shards = new ArrayList<>(shardCount);
+        long rangeStart = Long.MIN_VALUE;
+        for (int shardId = 0; shardId < shardCount; shardId++) {
+            long rangeEnd = shardId == shardCount - 1
+                ? Long.MAX_VALUE
+                : min.add(span.multiply(BigInteger.valueOf(shardId + 1)).divide(BigInteger.valueOf(shardCount)))
+                    .longValueExact();
+
+            TicketRefillShard shard = byId.getOrDefault(shardId, new TicketRefillShard());
+            shard.setShardId(shardId);
+            shard.setRangeStart(rangeStart);
+            shard.setRangeEnd(rangeEnd);
+            shard.setCursorUserId(rangeStart);
+            shard.setRunStartedAt(now);
+            shard.setStatus(TicketRefillShard.ShardStatus.PENDING);
+            shard.setLeaseOwner(null);
+            shard.setLeaseExpiresAt(null);
+            shard.setProcessedCount(0L);
+            shard.setRefilledCount(0L);
+            shard.setUpdatedAt(now);
+            shards.add(shard);
+
+            rangeStart = rangeEnd;
+        }
+        return shards;
+    }
+
+    /**
+     * 리스를 얻은 경우에만 샤드를 커서부터 끝까지 청크 단위로 처리한다
+     * 청크 커밋과 체크포인트는 별도 트랜잭션이지만, 충전된 사용자는 next_refill_at 이 미래로 이동하므로
+     * 체크포인트 전에 중단되어 같은 청크를 다시 읽어도 중복 지급되지 않는다
+     */
+    private int processShard(Integer shardId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer acquired = transactionTemplate.execute(status -> shardRepository.acquireLease(
+            shardId, ownerId, now, now.plusSeconds(leaseSeconds),
+            TicketRefillShard.ShardStatus.RUNNING, TicketRefillShard.ShardStatus.COMPLETED));
+        if (acquired == null || acquired == 0) {
+            log.debug("Refill shard {} is owned by another instance or already completed", shardId);
+            return 0;
+        }
+
+        TicketRefillShard shard = shardRepository.findById(shardId).orElseThrow();
+        Timer.Sample sample = paymentMetrics.startTicketTimer();
+        long cursor = shard.getCursorUserId();
+        int refilled = 0;
+
+        try {
+            while (true) {
+                TicketRefillService.ChunkResult chunk =
+                    ticketRefillService.refillChunk(shard.getRunStartedAt(), cursor, shard.getRangeEnd());
+                paymentMetrics.incrementTicketRefillShardProgress(shardId, chunk.processed(), chunk.refilled());
+
+                if (chunk.processed() == 0) {
+                    transactionTemplate.execute(status -> shardRepository.complete(
+                        shardId, ownerId, LocalDateTime.now(), TicketRefillShard.ShardStatus.COMPLETED));
+                    break;
+                }
+
+                cursor = chunk.lastUserId();
+                refilled += chunk.refilled();
+                if (!checkpoint(shardId, chunk)) {
+                    log.warn("Lost lease on refill shard {} at user {}; stopping", shardId, cursor);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // 리스가 만료되면 다른 인스턴스(또는 다음 실행)가 마지막 체크포인트부터 이어서 처리한다
+            log.error("Refill shard {} failed at user {}", shardId, cursor, e);
+        } finally {
+            paymentMetrics.recordTicketRefillShardTime(shardId, sample);
+        }
+        return refilled;
+    }
+
+    private boolean checkpoint(Integer shardId, TicketRefillService.ChunkResult chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status -> shardRepository.checkpoint(
+            shardId, ownerId, chunk.lastUserId(), chunk.processed(), chunk.refilled(),
+            now, now.plusSeconds(leaseSeconds)));
+        return updated != null && updated > 0;
+    }
+}
@@ -0,0 +1,320 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.TicketDto;
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.ticket.TicketBalanceEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 티켓 자동 충전 배치
+ * 충전 대상 사용자를 user_id 순으로 청크 단위 페이징하며, 청크마다 활성 구독/플랜을 한 번의 조인 쿼리로 읽고
+ * JDBC 배치로 잔액 갱신과 거래 내역 삽입을 처리한 뒤 청크 단위로 커밋한다
+ * 메모리에는 한 청크만 올라오므로 사용자 수가 늘어도 힙 사용량은 일정하다
+ * 지연 충전 모드(ticket.refill.mode=lazy)에서는 배치 대신 잔액 조회/변경 시점에 누적된 충전분을 계산/반영한다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketRefillService {
+
+    // 사용자별 가장 최근의 ACTIVE/TRIAL 구독 플랜을 함께 조회
+    private static final String ACCOUNT_WITH_PLAN_SQL =
+        "SELECT ut.id, ut.user_id, ut.current_tickets, ut.next_refill_at, " +
+        "       sp.ticket_refill_amount, sp.ticket_limit, sp.ticket_refill_interval_hours " +
+        "FROM user_ticket ut " +
+        "JOIN subscription s ON s.user_id = ut.user_id AND s.status IN ('ACTIVE', 'TRIAL') " +
+        "JOIN subscription_plan sp ON sp.id = s.plan_id " +
+        "WHERE NOT EXISTS (SELECT 1 FROM subscription s2 " +
+        "                  WHERE s2.user_id = s.user_id AND s2.status IN ('ACTIVE', 'TRIAL') " +
+        "                  AND (s2.created_at > s.created_at OR (s2.created_at = s.created_at AND s2.id > s.id))) ";
+
+    private static final String ELIGIBLE_CHUNK_SQL = ACCOUNT_WITH_PLAN_SQL +
+        "AND ut.next_refill_at <= ? AND ut.user_id > ? AND ut.user_id <= ? " +
+        "ORDER BY ut.user_id " +
+        "LIMIT ?";
+
+    private static final String ACCOUNT_SQL = ACCOUNT_WITH_PLAN_SQL + "AND ut.user_id = ?";
+
+    // 읽은 시점 이후 잔액이 바뀐 행(동시 사용/환불)은 갱신하지 않고 다음 실행에서 다시 처리한다
+    private static final String REFILL_SQL =
+        "UPDATE user_ticket SET current_tickets = current_tickets + ?, last_ticket_refill = ?, " +
+        "next_refill_at = ?, updated_at = ? WHERE id = ? AND current_tickets = ?";
+
+    // 지연 충전: 계산에 사용한 충전 일정이 그대로일 때만 반영 (동시 반영 시 한 번만 지급)
+    private static final String LAZY_REFILL_SQL = REFILL_SQL + " AND next_refill_at = ?";
+
+    private static final String RESCHEDULE_SQL =
+        "UPDATE user_ticket SET next_refill_at = ?, updated_at = ? WHERE id = ?";
+
+    private static final String INSERT_TRANSACTION_SQL =
+        "INSERT INTO ticket_transaction (user_id, transaction_type, ticket_amount, balance_before, balance_after, " +
+        "reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String REFILL_REASON = "Automatic ticket refill";
+
+    private static final int MAX_LAZY_REFILL_ATTEMPTS = 3;
+
+    private static final RowMapper<RefillCandidate> CANDIDATE_MAPPER = (rs, rowNum) -> new RefillCandidate(
+        rs.getLong("id"),
+        rs.getLong("user_id"),
+        rs.getInt("current_tickets"),
+        toLocalDateTime(rs.getTimestamp("next_refill_at")),
+        rs.getInt("ticket_refill_amount"),
+        rs.getInt("ticket_limit"),
+        rs.getInt("ticket_refill_interval_hours"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentEventService paymentEventService;
+    private final PaymentMetrics paymentMetrics;
+
+    @Autowired(required = false)
+    private TicketBalanceEngine ticketBalanceEngine;
+
+    @Value("${ticket.refill.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 현재 시각 기준으로 충전 시각이 지난 모든 사용자를 처리한다
+     * @return 실제로 티켓이 지급된 사용자 수
+     */
+    public int refillEligibleUsers() {
+        LocalDateTime now = LocalDateTime.now();
+        long cursor = Long.MIN_VALUE;
+        int processed = 0;
+        int refilled = 0;
+
+        while (true) {
+            ChunkResult chunk = refillChunk(now, cursor, Long.MAX_VALUE);
+            if (chunk.processed() == 0) {
+                break;
+            }
+            processed += chunk.processed();
+            refilled += chunk.refilled();
+            cursor = chunk.lastUserId();
+        }
+
+        log.info("Processed ticket refills for {} users ({} refilled)", processed, refilled);
+        return refilled;
+    }
+
+    /**
+     * (afterUserId, maxUserId] 구간에서 충전 대상 한 청크를 처리하고 커밋한다
+     * 충전 이벤트는 잔액 변경과 같은 트랜잭션에서 아웃박스에 기록된다
+     */
+    public ChunkResult refillChunk(LocalDateTime now, long afterUserId, long maxUserId) {
+        List<RefillCandidate> candidates = jdbcTemplate.query(
+            ELIGIBLE_CHUNK_SQL, CANDIDATE_MAPPER, Timestamp.valueOf(now), afterUserId, maxUserId, chunkSize);
+        if (candidates.isEmpty()) {
+            return new ChunkResult(afterUserId, 0, 0);
+        }
+
+        // 충전 예정 시각 대비 실제 처리 시각의 지연
+        LocalDateTime pickedUpAt = LocalDateTime.now();
+        for (RefillCandidate candidate : candidates) {
+            paymentMetrics.recordTicketRefillLag(Duration.between(candidate.nextRefillAt(), pickedUpAt));
+        }
+
+        List<RefilledUser> refilledUsers = transactionTemplate.execute(status -> {
+            List<RefilledUser> users = ticketBalanceEngine != null
+                ? refillInMemory(candidates)
+                : refillInDatabase(candidates);
+            for (RefilledUser user : users) {
+                paymentEventService.publishTicketsRefilled(user.userId(), user.ticketsAdded(), user.newBalance());
+            }
+            return users;
+        });
+
+        long lastUserId = candidates.get(candidates.size() - 1).userId();
+        log.debug("Refill chunk up to user {}: {} candidates, {} refilled", lastUserId, candidates.size(), refilledUsers.size());
+        return new ChunkResult(lastUserId, candidates.size(), refilledUsers.size());
+    }
+
+    /**
+     * 지연 충전 모드의 조회용: 마지막 충전 이후 누적된 충전분을 계산만 하고 DB는 변경하지 않는다
+     * @return 충전 시각이 지났으면 반영될 결과, 아니면 empty (활성 구독이 없는 경우 포함)
+     */
+    public Optional<PendingRefill> findPendingRefill(long userId, LocalDateTime now) {
+        return findAccount(userId).map(account -> account.accrue(now));
+    }
+
+    /**
+     * 지연 충전 모드에서 잔액을 변경하기 직전에 호출하여 누적된 충전분을 DB에 반영한다
+     * 호출자의 트랜잭션에 참여하며, 동시에 잔액이 바뀌면 다시 읽어 계산한다
+     */
+    public void applyPendingRefill(long userId) {
+        for (int attempt = 0; attempt < MAX_LAZY_REFILL_ATTEMPTS; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<RefillCandidate> found = findAccount(userId);
+            PendingRefill pending = found.map(account -> account.accrue(now)).orElse(null);
+            if (pending == null) {
+                return;
+            }
+
+            RefillCandidate account = found.get();
+            Timestamp refillTimestamp = Timestamp.valueOf(now);
+            int updated = jdbcTemplate.update(LAZY_REFILL_SQL,
+                pending.ticketsAdded(), Timestamp.valueOf(pending.lastTicketRefill()),
+                Timestamp.valueOf(pending.nextRefillAt()), refillTimestamp,
+                account.id(), account.currentTickets(), Timestamp.valueOf(account.nextRefillAt()));
+            if (updated == 0) {
+                continue;
+            }
+
+            if (pending.ticketsAdded() > 0) {
+                jdbcTemplate.update(INSERT_TRANSACTION_SQL, userId,
+                    TicketTransaction.TicketTransactionType.EARNED.name(), pending.ticketsAdded(),
+                    account.currentTickets(), pending.balanceAfter(), REFILL_REASON, refillTimestamp);
+                paymentEventService.publishTicketsRefilled(userId, pending.ticketsAdded(), pending.balanceAfter());
+            }
+            return;
+        }
+        log.warn("Could not apply pending ticket refill for user {} after {} attempts", userId, MAX_LAZY_REFILL_ATTEMPTS);
+    }
+
+    private Optional<RefillCandidate> findAccount(long userId) {
+        return jdbcTemplate.query(ACCOUNT_SQL, CANDIDATE_MAPPER, userId).stream().findFirst();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private List<RefilledUser> refillInDatabase(List<RefillCandidate> candidates) {
+        LocalDateTime refillTime = LocalDateTime.now();
+        Timestamp refillTimestamp = Timestamp.valueOf(refillTime);
+
+        List<RefillCandidate> toRefill = new ArrayList<>();
+        List<RefillCandidate> toReschedule = new ArrayList<>();
+        for (RefillCandidate candidate : candidates) {
+            if (candidate.ticketsToAdd() > 0) {
+                toRefill.add(candidate);
+            } else {
+                // 이미 한도에 도달한 경우 다음 충전 시각만 갱신
+                toReschedule.add(candidate);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(RESCHEDULE_SQL, toReschedule, chunkSize, (ps, candidate) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(refillTime.plusHours(candidate.refillIntervalHours())));
+            ps.setTimestamp(2, refillTimestamp);
+            ps.setLong(3, candidate.id());
+        });
+
+        int[][] counts = jdbcTemplate.batchUpdate(REFILL_SQL, toRefill, chunkSize, (ps, candidate) -> {
+            ps.setInt(1, candidate.ticketsToAdd());
+            ps.setTimestamp(2, refillTimestamp);
+            ps.setTimestamp(3, Timestamp.valueOf(refillTime.plusHours(candidate.refillIntervalHours())));
+            ps.setTimestamp(4, refillTimestamp);
+            ps.setLong(5, candidate.id());
+            ps.setInt(6, candidate.currentTickets());
+        });
+
+        List<RefilledUser> refilled = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                RefillCandidate candidate = toRefill.get(index++);
+                if (count != 0) {
+                    refilled.add(new RefilledUser(candidate.userId(), candidate.ticketsToAdd(),
+                        candidate.currentTickets(), candidate.currentTickets() + candidate.ticketsToAdd()));
+                }
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, refilled, chunkSize, (ps, user) -> {
+            ps.setLong(1, user.userId());
+            ps.setString(2, TicketTransaction.TicketTransactionType.EARNED.name());
+            ps.setInt(3, user.ticketsAdded());
+            ps.setInt(4, user.balanceBefore());
+            ps.setInt(5, user.newBalance());
+            ps.setString(6, REFILL_REASON);
+            ps.setTimestamp(7, refillTimestamp);
+        });
+
+        return refilled;
+    }
+
+    /**
+     * 인메모리 엔진 경로: 잔액은 엔진이 소유하므로 조인 쿼리의 플랜 정보만 사용하고 지급은 엔진에 위임한다
+     */
+    private List<RefilledUser> refillInMemory(List<RefillCandidate> candidates) {
+        LocalDateTime refillTime = LocalDateTime.now();
+        List<RefilledUser> refilled = new ArrayList<>();
+        for (RefillCandidate candidate : candidates) {
+            // 엔진은 청크 트랜잭션이 커밋된 뒤에 지급을 반영하므로 지급 전 잔액을 기준으로 계산한다
+            int balanceBefore = ticketBalanceEngine.findTickets(candidate.userId())
+                .map(TicketDto::getCurrentTickets)
+                .orElse(0);
+            int ticketsAdded = ticketBalanceEngine.refill(candidate.userId(), candidate.refillAmount(),
+                candidate.ticketLimit(), refillTime, refillTime.plusHours(candidate.refillIntervalHours()));
+            if (ticketsAdded > 0) {
+                refilled.add(new RefilledUser(candidate.userId(), ticketsAdded, balanceBefore, balanceBefore + ticketsAdded));
+            }
+        }
+        return refilled;
+    }
+
+    record RefillCandidate(long id, long userId, int currentTickets, LocalDateTime nextRefillAt,
+                           int refillAmount, int ticketLimit, int refillIntervalHours) {
+
+        int ticketsToAdd() {
+            return Math.max(0, Math.min(refillAmount, ticketLimit - currentTickets));
+        }
+
+        /**
+         * next_refill_at 이후 경과한 충전 주기를 한 번에 계산한다
+         * 주기마다 refillAmount 씩 한도까지 지급하고, 다음 충전 시각은 원래 일정에 맞춰 주기 수만큼 이동한다
+         * @return 충전 시각이 지나지 않았으면 null
+         */
+        PendingRefill accrue(LocalDateTime now) {
+            if (nextRefillAt == null || now.isBefore(nextRefillAt)) {
+                return null;
+            }
+            Duration interval = Duration.ofHours(Math.max(1, refillIntervalHours));
+            long periods = 1 + Duration.between(nextRefillAt, now).toMillis() / interval.toMillis();
+            long accrued = Math.min((long) ticketLimit - currentTickets, periods * refillAmount);
+            int ticketsAdded = (int) Math.max(0, accrued);
+            return new PendingRefill(ticketsAdded, currentTickets + ticketsAdded,
+                nextRefillAt.plus(interval.multipliedBy(periods - 1)),
+                nextRefillAt.plus(interval.multipliedBy(periods)));
+        }
+    }
+
+    /**
+     * 지연 충전 계산 결과
+     * @param ticketsAdded 지급될 티켓 수 (이미 한도이면 0이고 일정만 이동)
+     * @param balanceAfter 지급 후 잔액
+     * @param lastTicketRefill 마지막으로 도래한 충전 시각
+     * @param nextRefillAt 다음 충전 시각
+     */
+    public record PendingRefill(int ticketsAdded, int balanceAfter,
+                                LocalDateTime lastTicketRefill, LocalDateTime nextRefillAt) {
+    }
+
+    record RefilledUser(long userId, int ticketsAdded, int balanceBefore, int newBalance) {
+    }
+
+    /**
+     * @param lastUserId 이 청크에서 마지막으로 읽은 user_id (다음 청크의 커서)
+     * @param processed 읽은 충전 대상 수
+     * @param refilled 실제로 티켓이 지급된 사용자 수
+     */
+    public record ChunkResult(long lastUserId, int processed, int refilled) {
+    }
+}
@@ -1,21 +1,22 @@
 package ac.su.kdt.bepaymentservice.service;
 
 import ac.su.kdt.bepaymentservice.dto.TicketDto;
-import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
 import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
 import ac.su.kdt.bepaymentservice.entity.UserTicket;
-import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
 import ac.su.kdt.bepaymentservice.repository.TicketTransactionRepository;
 import ac.su.kdt.bepaymentservice.repository.UserTicketRepository;
 import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.ticket.TicketBalanceEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -25,50 +26,72 @@ public class TicketService {
     
     private final UserTicketRepository userTicketRepository;
     private final TicketTransactionRepository ticketTransactionRepository;
-    private final SubscriptionRepository subscriptionRepository;
+    private final ActiveSubscriptionCache activeSubscriptionCache;
+    private final SubscriptionPlanCache subscriptionPlanCache;
     private final PaymentEventService paymentEventService;
+    private final TicketRefillService ticketRefillService;
+    private final TicketRefillCoordinator ticketRefillCoordinator;
     private final PaymentMetrics paymentMetrics;
     
+    // ticket.balance-engine.enabled=true 인 프로파일에서만 주입된다 (없으면 JPA 경로 사용)
+    @Autowired(required = false)
+    private TicketBalanceEngine ticketBalanceEngine;
+    
+    // sweep: 주기 배치로 충전, lazy: 조회 시 계산하고 잔액 변경 시에만 반영
+    @Value("${ticket.refill.mode:sweep}")
+    private String refillMode;
+    
     public TicketDto getUserTickets(Long userId) {
+        if (ticketBalanceEngine != null) {
+            return ticketBalanceEngine.findTickets(userId)
+                .orElseGet(() -> TicketDto.fromEntity(createUserTicket(userId)));
+        }
+        
         UserTicket userTicket = userTicketRepository.findByUserId(userId)
             .orElseGet(() -> createUserTicket(userId));
         
-        return TicketDto.fromEntity(userTicket);
+        TicketDto tickets = TicketDto.fromEntity(userTicket);
+        if (isLazyRefill()) {
+            // 조회만으로는 DB를 변경하지 않고 누적된 충전분을 응답에만 반영
+            ticketRefillService.findPendingRefill(userId, LocalDateTime.now()).ifPresent(pending -> {
+                tickets.setCurrentTickets(pending.balanceAfter());
+                tickets.setLastTicketRefill(pending.lastTicketRefill());
+                tickets.setNextRefillAt(pending.nextRefillAt());
+            });
+        }
+        return tickets;
+    }
+    
+    /**
+     * 인메모리 엔진은 자체적으로 충전을 반영하므로 지연 충전은 DB 경로에서만 사용한다
+     */
+    private boolean isLazyRefill() {
+        return ticketBalanceEngine == null && "lazy".equalsIgnoreCase(refillMode);
+    }
+    
+    private void applyPendingRefill(Long userId) {
+        if (isLazyRefill()) {
+            ticketRefillService.applyPendingRefill(userId);
+        }
     }
     
     public boolean useTickets(Long userId, int ticketsToUse, Long attemptId, String reason) {
         var timer = paymentMetrics.startTicketTimer();
-        UserTicket userTicket = userTicketRepository.findByUserId(userId)
-            .orElseGet(() -> createUserTicket(userId));
+        String spendReason = reason != null ? reason : "Mission attempt";
         
-        if (!userTicket.hasEnoughTickets(ticketsToUse)) {
-            log.warn("User {} does not have enough tickets. Required: {}, Available: {}", 
-                    userId, ticketsToUse, userTicket.getCurrentTickets());
+        int balanceAfter = ticketBalanceEngine != null
+            ? spendInMemory(userId, ticketsToUse, attemptId, spendReason)
+            : spendInDatabase(userId, ticketsToUse, attemptId, spendReason);
+        if (balanceAfter < 0) {
             return false;
         }
-        
-        int balanceBefore = userTicket.getCurrentTickets();
-        userTicket.useTickets(ticketsToUse);
-        userTicket = userTicketRepository.save(userTicket);
-        
-        // Record transaction
-        TicketTransaction transaction = TicketTransaction.builder()
-            .userId(userId)
-            .transactionType(TicketTransaction.TicketTransactionType.SPENT)
-            .ticketAmount(-ticketsToUse)
-            .balanceBefore(balanceBefore)
-            .balanceAfter(userTicket.getCurrentTickets())
-            .relatedAttemptId(attemptId)
-            .reason(reason != null ? reason : "Mission attempt")
-            .build();
-        
-        ticketTransactionRepository.save(transaction);
+        int balanceBefore = balanceAfter + ticketsToUse;
         
         // Publish ticket used event
-        paymentEventService.publishTicketsUsed(userId, ticketsToUse, userTicket.getCurrentTickets());
+        paymentEventService.publishTicketsUsed(userId, ticketsToUse, balanceAfter);
         
         log.info("User {} used {} tickets. Balance: {} -> {}", 
-                userId, ticketsToUse, balanceBefore, userTicket.getCurrentTickets());
+                userId, ticketsToUse, balanceBefore, balanceAfter);
         
         paymentMetrics.incrementTicketUsed(ticketsToUse);
         paymentMetrics.recordTicketProcessingTime(timer);
@@ -76,128 +99,150 @@ public class TicketService {
         return true;
     }
     
-    public void refundTickets(Long userId, int ticketsToRefund, Long attemptId, String reason) {
-        UserTicket userTicket = userTicketRepository.findByUserId(userId)
-            .orElseGet(() -> createUserTicket(userId));
+    /**
+     * @return 차감 후 잔액, 잔액 부족 시 -1
+     */
+    private int spendInDatabase(Long userId, int ticketsToUse, Long attemptId, String reason) {
+        applyPendingRefill(userId);
+        
+        // 잔액 확인과 차감을 조건부 UPDATE 한 번으로 처리 (동시 차감 시 갱신 유실 방지)
+        if (userTicketRepository.decrementTicketsIfSufficient(userId, ticketsToUse, LocalDateTime.now()) == 0
+                && !retryDecrementForNewOrRefilledAccount(userId, ticketsToUse)) {
+            return -1;
+        }
         
-        int balanceBefore = userTicket.getCurrentTickets();
-        userTicket.addTickets(ticketsToRefund);
-        userTicket = userTicketRepository.save(userTicket);
+        int balanceAfter = currentTicketsOf(userId);
         
-        // Record transaction
+        // Record transaction (UPDATE가 반영된 경우에만 기록)
         TicketTransaction transaction = TicketTransaction.builder()
             .userId(userId)
-            .transactionType(TicketTransaction.TicketTransactionType.REFUND)
-            .ticketAmount(ticketsToRefund)
-            .balanceBefore(balanceBefore)
-            .balanceAfter(userTicket.getCurrentTickets())
+            .transactionType(TicketTransaction.TicketTransactionType.SPENT)
+            .ticketAmount(-ticketsToUse)
+            .balanceBefore(balanceAfter + ticketsToUse)
+            .balanceAfter(balanceAfter)
             .relatedAttemptId(attemptId)
-            .reason(reason != null ? reason : "Ticket refund")
+            .reason(reason)
             .build();
         
         ticketTransactionRepository.save(transaction);
+        return balanceAfter;
+    }
+    
+    /**
+     * 인메모리 엔진 경로: 잔액 변경과 거래 내역은 엔진 저널에 기록되고 flusher가 DB에 반영한다
+     * 엔진은 이 트랜잭션이 커밋된 뒤에 변경을 적용하고, 롤백되면 잡아둔 차감을 푼다
+     * @return 차감 후 잔액, 잔액 부족 시 -1
+     */
+    private int spendInMemory(Long userId, int ticketsToUse, Long attemptId, String reason) {
+        ensureEngineAccount(userId);
+        int balanceAfter = ticketBalanceEngine.trySpend(userId, ticketsToUse,
+            TicketTransaction.TicketTransactionType.SPENT, attemptId, reason);
+        
+        if (balanceAfter == TicketBalanceEngine.INSUFFICIENT) {
+            log.warn("User {} does not have enough tickets. Required: {}", userId, ticketsToUse);
+            return -1;
+        }
+        return balanceAfter;
+    }
+    
+    private void ensureEngineAccount(Long userId) {
+        if (!ticketBalanceEngine.loadIfAbsent(userId)) {
+            createUserTicket(userId);
+        }
+    }
+    
+    /**
+     * 조건부 차감이 실패한 경우에만 타는 경로
+     * 계정이 없으면 생성하고, 잔액이 충분해 보이면 (그 사이 충전된 경우) 한 번 더 차감을 시도한다
+     */
+    private boolean retryDecrementForNewOrRefilledAccount(Long userId, int ticketsToUse) {
+        int available = userTicketRepository.findCurrentTicketsByUserId(userId)
+            .orElseGet(() -> createUserTicket(userId).getCurrentTickets());
+        
+        if (available < ticketsToUse
+                || userTicketRepository.decrementTicketsIfSufficient(userId, ticketsToUse, LocalDateTime.now()) == 0) {
+            log.warn("User {} does not have enough tickets. Required: {}, Available: {}", 
+                    userId, ticketsToUse, available);
+            return false;
+        }
+        return true;
+    }
+    
+    public void refundTickets(Long userId, int ticketsToRefund, Long attemptId, String reason) {
+        String refundReason = reason != null ? reason : "Ticket refund";
+        
+        int balanceAfter;
+        if (ticketBalanceEngine != null) {
+            ensureEngineAccount(userId);
+            balanceAfter = ticketBalanceEngine.credit(userId, ticketsToRefund,
+                TicketTransaction.TicketTransactionType.REFUND, attemptId, refundReason);
+        } else {
+            balanceAfter = refundInDatabase(userId, ticketsToRefund, attemptId, refundReason);
+        }
+        int balanceBefore = balanceAfter - ticketsToRefund;
         
         // Publish ticket refunded event
-        paymentEventService.publishTicketsRefunded(userId, ticketsToRefund, userTicket.getCurrentTickets());
+        paymentEventService.publishTicketsRefunded(userId, ticketsToRefund, balanceAfter);
         
         log.info("Refunded {} tickets to user {}. Balance: {} -> {}", 
-                ticketsToRefund, userId, balanceBefore, userTicket.getCurrentTickets());
+                ticketsToRefund, userId, balanceBefore, balanceAfter);
         
         paymentMetrics.incrementTicketRefunded(ticketsToRefund);
     }
     
-    public void processTicketRefills() {
-        LocalDateTime now = LocalDateTime.now();
-        List<UserTicket> eligibleUsers = userTicketRepository.findUsersEligibleForRefill(now);
-        
-        for (UserTicket userTicket : eligibleUsers) {
-            refillUserTickets(userTicket);
-        }
+    private int refundInDatabase(Long userId, int ticketsToRefund, Long attemptId, String reason) {
+        applyPendingRefill(userId);
         
-        log.info("Processed ticket refills for {} users", eligibleUsers.size());
-    }
-    
-    private void refillUserTickets(UserTicket userTicket) {
-        // Get user's active subscription to determine refill amount
-        List<Subscription.SubscriptionStatus> activeStatuses = List.of(
-            Subscription.SubscriptionStatus.ACTIVE,
-            Subscription.SubscriptionStatus.TRIAL
-        );
-        
-        List<Subscription> activeSubscriptions = subscriptionRepository
-            .findByUserIdAndStatusInOrderByCreatedAtDesc(userTicket.getUserId(), activeStatuses);
-        Subscription activeSubscription = activeSubscriptions.isEmpty() ? null : activeSubscriptions.get(0);
-        
-        if (activeSubscription == null) {
-            log.warn("No active subscription found for user: {}, skipping ticket refill", userTicket.getUserId());
-            return;
+        if (userTicketRepository.incrementTickets(userId, ticketsToRefund, LocalDateTime.now()) == 0) {
+            createUserTicket(userId);
+            userTicketRepository.incrementTickets(userId, ticketsToRefund, LocalDateTime.now());
         }
         
-        SubscriptionPlan plan = activeSubscription.getPlan();
-        int refillAmount = plan.getTicketRefillAmount();
-        int ticketLimit = plan.getTicketLimit();
+        int balanceAfter = currentTicketsOf(userId);
         
-        // Don't refill if already at limit
-        if (userTicket.getCurrentTickets() >= ticketLimit) {
-            // Update next refill time anyway
-            updateNextRefillTime(userTicket, plan.getTicketRefillIntervalHours());
-            userTicketRepository.save(userTicket);
-            return;
-        }
-        
-        // Calculate how many tickets to add (don't exceed limit)
-        int ticketsToAdd = Math.min(refillAmount, ticketLimit - userTicket.getCurrentTickets());
+        // Record transaction
+        TicketTransaction transaction = TicketTransaction.builder()
+            .userId(userId)
+            .transactionType(TicketTransaction.TicketTransactionType.REFUND)
+            .ticketAmount(ticketsToRefund)
+            .balanceBefore(balanceAfter - ticketsToRefund)
+            .balanceAfter(balanceAfter)
+            .relatedAttemptId(attemptId)
+            .reason(reason)
+            .build();
         
-        if (ticketsToAdd > 0) {
-            int balanceBefore = userTicket.getCurrentTickets();
-            userTicket.addTickets(ticketsToAdd);
-            userTicket.setLastTicketRefill(LocalDateTime.now());
-            updateNextRefillTime(userTicket, plan.getTicketRefillIntervalHours());
-            userTicket = userTicketRepository.save(userTicket);
-            
-            // Record transaction
-            TicketTransaction transaction = TicketTransaction.builder()
-                .userId(userTicket.getUserId())
-                .transactionType(TicketTransaction.TicketTransactionType.EARNED)
-                .ticketAmount(ticketsToAdd)
-                .balanceBefore(balanceBefore)
-                .balanceAfter(userTicket.getCurrentTickets())
-                .reason("Automatic ticket refill")
-                .build();
-            
-            ticketTransactionRepository.save(transaction);
-            
-            // Publish ticket refilled event
-            paymentEventService.publishTicketsRefilled(userTicket.getUserId(), ticketsToAdd, userTicket.getCurrentTickets());
-            
-            log.info("Refilled {} tickets for user {}. Balance: {} -> {}", 
-                    ticketsToAdd, userTicket.getUserId(), balanceBefore, userTicket.getCurrentTickets());
-        } else {
-            updateNextRefillTime(userTicket, plan.getTicketRefillIntervalHours());
-            userTicketRepository.save(userTicket);
-        }
+        ticketTransactionRepository.save(transaction);
+        return balanceAfter;
     }
     
-    private void updateNextRefillTime(UserTicket userTicket, int intervalHours) {
-        userTicket.setNextRefillAt(LocalDateTime.now().plusHours(intervalHours));
+    private int currentTicketsOf(Long userId) {
+        return userTicketRepository.findCurrentTicketsByUserId(userId)
+            .orElseThrow(() -> new IllegalStateException("Ticket account not found for user: " + userId));
+    }
+    
+    /**
+     * 충전 배치는 샤드/청크 단위로 커밋하므로 서비스 공통 트랜잭션 밖에서 실행한다
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void processTicketRefills() {
+        if (isLazyRefill()) {
+            log.info("Ticket refill mode is lazy; refills are applied when balances are touched");
+            return;
+        }
+        ticketRefillCoordinator.runRefill();
     }
     
     private UserTicket createUserTicket(Long userId) {
         // Get user's subscription plan to set initial tickets
-        List<Subscription.SubscriptionStatus> activeStatuses = List.of(
-            Subscription.SubscriptionStatus.ACTIVE,
-            Subscription.SubscriptionStatus.TRIAL
-        );
-        
-        List<Subscription> activeSubscriptions = subscriptionRepository
-            .findByUserIdAndStatusInOrderByCreatedAtDesc(userId, activeStatuses);
-        Subscription activeSubscription = activeSubscriptions.isEmpty() ? null : activeSubscriptions.get(0);
+        // 구독 엔티티는 읽지 않고, 활성 구독 요약의 planId 로 플랜 캐시를 조회한다
+        SubscriptionPlan plan = activeSubscriptionCache.findActiveSubscription(userId)
+            .flatMap(activeSubscription -> subscriptionPlanCache.findById(activeSubscription.planId()))
+            .orElse(null);
         
         int initialTickets = 0;
         LocalDateTime nextRefillAt = null;
         
-        if (activeSubscription != null) {
-            SubscriptionPlan plan = activeSubscription.getPlan();
+        if (plan != null) {
             initialTickets = plan.getTicketRefillAmount();
             nextRefillAt = LocalDateTime.now().plusHours(plan.getTicketRefillIntervalHours());
         }
@@ -211,6 +256,10 @@ public class TicketService {
         
         userTicket = userTicketRepository.save(userTicket);
         
+        if (ticketBalanceEngine != null) {
+            ticketBalanceEngine.register(userTicket);
+        }
+        
         if (initialTickets > 0) {
             // Record initial ticket grant
             TicketTransaction transaction = TicketTransaction.builder()
@@ -230,6 +279,26 @@ public class TicketService {
     }
     
     public void adjustTickets(Long userId, int adjustment, String reason) {
+        String adjustReason = reason != null ? reason : "Admin adjustment";
+        
+        int balanceAfter = ticketBalanceEngine != null
+            ? adjustInMemory(userId, adjustment, adjustReason)
+            : adjustInDatabase(userId, adjustment, adjustReason);
+        int balanceBefore = balanceAfter - adjustment;
+        
+        log.info("Admin adjusted tickets for user {} by {}. Balance: {} -> {}", 
+                userId, adjustment, balanceBefore, balanceAfter);
+        
+        if (adjustment > 0) {
+            paymentMetrics.incrementTicketGranted(adjustment);
+        } else {
+            paymentMetrics.incrementTicketUsed(Math.abs(adjustment));
+        }
+    }
+    
+    private int adjustInDatabase(Long userId, int adjustment, String reason) {
+        applyPendingRefill(userId);
+        
         UserTicket userTicket = userTicketRepository.findByUserId(userId)
             .orElseGet(() -> createUserTicket(userId));
         
@@ -250,18 +319,26 @@ public class TicketService {
             .ticketAmount(adjustment)
             .balanceBefore(balanceBefore)
             .balanceAfter(userTicket.getCurrentTickets())
-            .reason(reason != null ? reason : "Admin adjustment")
+            .reason(reason)
             .build();
         
         ticketTransactionRepository.save(transaction);
-        
-        log.info("Admin adjusted tickets for user {} by {}. Balance: {} -> {}", 
-                userId, adjustment, balanceBefore, userTicket.getCurrentTickets());
+        return userTicket.getCurrentTickets();
+    }
+    
+    private int adjustInMemory(Long userId, int adjustment, String reason) {
+        ensureEngineAccount(userId);
         
         if (adjustment > 0) {
-            paymentMetrics.incrementTicketGranted(adjustment);
-        } else {
-            paymentMetrics.incrementTicketUsed(Math.abs(adjustment));
+            return ticketBalanceEngine.credit(userId, adjustment,
+                TicketTransaction.TicketTransactionType.ADMIN_ADJUST, null, reason);
+        }
+        
+        int balanceAfter = ticketBalanceEngine.trySpend(userId, Math.abs(adjustment),
+            TicketTransaction.TicketTransactionType.ADMIN_ADJUST, null, reason);
+        if (balanceAfter == TicketBalanceEngine.INSUFFICIENT) {
+            throw new IllegalStateException("Not enough tickets available");
         }
+        return balanceAfter;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,303 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ticket_transaction 월별 범위 파티션 관리 (PostgreSQL 전용)
+ * ticket_transaction 은 created_at 으로 RANGE 파티셔닝된 테이블이며(schema-postgresql.sql), 파티션 이름은 ticket_transaction_pYYYYMM 이다
+ *
+ * - 이번 달부터 months-ahead 개월 뒤까지의 파티션을 미리 만든다 (범위 밖의 행은 ticket_transaction_default 에 들어간다)
+ *   기본 파티션에 이미 그 달의 행이 있으면 새 테이블로 옮긴 뒤 ATTACH 한다
+ * - retention-months 보다 오래된 파티션은 archive-dir 에 gzip CSV 로 보관한 뒤 DETACH 한다 (drop-after-archive 면 DROP 까지 한다)
+ *
+ * created_at 범위 조건이 있는 조회만 해당 월 파티션으로 좁혀진다 (범위가 만들어 둔 월 파티션 안에 있으면 기본 파티션도 제외된다)
+ * 기본 파티션은 어떤 시각의 행이든 담을 수 있어 범위 조건 없이 created_at DESC 정렬 + LIMIT 로 조회하면
+ * 정렬된 Append 대신 MergeAppend 가 되어 모든 파티션을 연다. 그래서 거래 내역 페이지 조회(TicketHistoryService)는
+ * 항상 page-window-days 폭의 created_at 범위를 함께 건다
+ *
+ * 시작 직후 첫 실행 후 interval-ms 마다 실행되며, 여러 파드가 동시에 실행해도 advisory lock 을 잡은 한 파드만 작업한다
+ * (여러 파드를 띄우면 archive-dir 은 공유 볼륨이어야 한다)
+ * 테이블이 아직 파티셔닝되지 않았으면 경고만 남기고 아무것도 하지 않는다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "ticket.transaction.partitioning.enabled", havingValue = "true")
+public class TicketTransactionPartitionManager {
+
+    static final String PARENT_TABLE = "ticket_transaction";
+    static final String DEFAULT_PARTITION = "ticket_transaction_default";
+
+    private static final String PARTITION_PREFIX = "ticket_transaction_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("ticket_transaction_p(\\d{6})");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss");
+
+    // 파티션 유지보수를 한 파드만 실행하도록 거는 트랜잭션 advisory lock 키 (임의의 고정값)
+    private static final long MAINTENANCE_LOCK_KEY = 7_310_512_025L;
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?)";
+
+    private static final String IS_PARTITIONED_SQL =
+        "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)";
+
+    private static final String ATTACHED_PARTITIONS_SQL =
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ticket.transaction.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    // 이번 달과 그 이전 retention-months 개월을 남긴다 (0 이하이면 보관/분리하지 않는다)
+    @Value("${ticket.transaction.partitioning.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${ticket.transaction.partitioning.archive-dir:/var/lib/payment-service/ticket-archive}")
+    private String archiveDir;
+
+    @Value("${ticket.transaction.partitioning.drop-after-archive:false}")
+    private boolean dropAfterArchive;
+
+    @Value("${ticket.transaction.partitioning.archive-fetch-size:1000}")
+    private int archiveFetchSize;
+
+    // DETACH 는 부모 테이블 잠금이 필요하므로 오래 기다리지 않고 다음 실행에서 다시 시도한다
+    @Value("${ticket.transaction.partitioning.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${ticket.transaction.partitioning.interval-ms:21600000}")
+    public void maintainPartitions() {
+        maintainPartitions(YearMonth.now());
+    }
+
+    /**
+     * current 기준으로 미래 파티션을 만들고, 보관 기간이 지난 파티션을 보관 후 분리한다
+     */
+    public void maintainPartitions(YearMonth current) {
+        Plan plan = transactionTemplate.execute(status -> {
+            if (!tryLock()) {
+                log.debug("Ticket transaction partition maintenance is running on another instance");
+                return null;
+            }
+            if (!isPartitioned()) {
+                log.warn("{} is not a partitioned table; skipping partition maintenance", PARENT_TABLE);
+                return null;
+            }
+            Plan planned = plan(current, attachedMonths(), monthsAhead, retentionMonths);
+            planned.toCreate().forEach(this::createPartition);
+            return planned;
+        });
+        if (plan == null) {
+            return;
+        }
+
+        for (YearMonth month : plan.toArchive()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (tryLock()) {
+                        archiveAndDetach(month);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 보관 파일은 다음 실행에서 다시 쓴다
+                log.error("Failed to archive ticket transaction partition {}: {}", partitionName(month), e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 만들 파티션(이번 달 ~ monthsAhead 개월 뒤 중 없는 달)과 보관할 파티션(current - retentionMonths 보다 이전 달)을 정한다
+     */
+    static Plan plan(YearMonth current, Set<YearMonth> attached, int monthsAhead, int retentionMonths) {
+        List<YearMonth> toCreate = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!attached.contains(month)) {
+                toCreate.add(month);
+            }
+        }
+
+        List<YearMonth> toArchive = new ArrayList<>();
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            new TreeSet<>(attached).stream()
+                .filter(month -> month.isBefore(oldestKept))
+                .forEach(toArchive::add);
+        }
+        return new Plan(toCreate, toArchive);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * table 의 모든 행을 created_at, id 순으로 target 에 gzip CSV(헤더 포함)로 쓴다
+     * 임시 파일에 다 쓴 뒤 target 으로 옮기므로 중간에 실패해도 불완전한 보관 파일이 남지 않는다
+     *
+     * @return 쓴 행 수
+     */
+    long archive(String table, Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        Long rows;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp), 65536), StandardCharsets.UTF_8))) {
+            // table 은 이 클래스가 만든 파티션 이름이므로 그대로 SQL 에 넣는다
+            rows = jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM " + table + " ORDER BY created_at, id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(archiveFetchSize);
+                return ps;
+            }, (ResultSetExtractor<Long>) rs -> writeCsv(rs, writer));
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows != null ? rows : 0L;
+    }
+
+    private void archiveAndDetach(YearMonth month) {
+        String partition = partitionName(month);
+        Path target = Paths.get(archiveDir, partition + ".csv.gz");
+        long rows;
+        try {
+            rows = archive(partition, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + target, e);
+        }
+
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+        jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+        if (dropAfterArchive) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        log.info("Archived {} rows of {} to {} and {} it", rows, partition, target,
+            dropAfterArchive ? "dropped" : "detached");
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String from = month.atDay(1).atStartOfDay().format(BOUND_FORMAT);
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().format(BOUND_FORMAT);
+        String bounds = "FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+
+        if (!hasDefaultRows(from, to)) {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + PARENT_TABLE + " " + bounds);
+            log.info("Created ticket transaction partition {}", partition);
+            return;
+        }
+
+        // 기본 파티션에 그 달의 행이 있으면 PARTITION OF 로 만들 수 없으므로, 행을 새 테이블로 옮긴 뒤 붙인다
+        String range = "created_at >= '" + from + "' AND created_at < '" + to + "'";
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + PARENT_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range);
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+        jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + partition + " " + bounds);
+        log.info("Created ticket transaction partition {} with {} rows moved from {}", partition, moved, DEFAULT_PARTITION);
+    }
+
+    private boolean hasDefaultRows(String from, String to) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION))) {
+            return false;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE created_at >= CAST(? AS timestamp) AND created_at < CAST(? AS timestamp))",
+            Boolean.class, from, to));
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, MAINTENANCE_LOCK_KEY));
+    }
+
+    private boolean isPartitioned() {
+        Long count = jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Long.class, PARENT_TABLE);
+        return count != null && count > 0;
+    }
+
+    private Set<YearMonth> attachedMonths() {
+        Set<YearMonth> months = new TreeSet<>();
+        for (String name : jdbcTemplate.queryForList(ATTACHED_PARTITIONS_SQL, String.class, PARENT_TABLE)) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), PARTITION_SUFFIX));
+            }
+        }
+        return months;
+    }
+
+    private static Long writeCsv(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writer.write(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+            }
+            writer.write('\n');
+
+            long rows = 0;
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+                    writer.write(TicketHistoryService.csvField(rs.getString(i)));
+                }
+                writer.write('\n');
+                rows++;
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record Plan(List<YearMonth> toCreate, List<YearMonth> toArchive) {
+    }
+}
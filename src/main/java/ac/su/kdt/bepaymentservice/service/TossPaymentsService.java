@@ -2,52 +2,56 @@ package ac.su.kdt.bepaymentservice.service;
 
 import ac.su.kdt.bepaymentservice.entity.BillingKey;
 import ac.su.kdt.bepaymentservice.repository.BillingKeyRepository;
+import ac.su.kdt.bepaymentservice.toss.TossCallGuard;
+import ac.su.kdt.bepaymentservice.toss.TossCallPriority;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
 import ac.su.kdt.bepaymentservice.toss.dto.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TossPaymentsService {
     
-    @Value("${toss.payments.secret.key}")
-    private String secretKey;
+    private final BillingKeyRepository billingKeyRepository;
     
-    @Value("${toss.payments.api.url}")
-    private String apiUrl;
+    // 기본 URL 과 인증 헤더가 설정된 공용 클라이언트 (WebClientConfig.tossWebClient)
+    private final WebClient tossWebClient;
     
-    private final BillingKeyRepository billingKeyRepository;
-    private final WebClient.Builder webClientBuilder;
+    // 작업별 호출 한도/서킷 브레이커/벌크헤드 (거절 시 TossUnavailableException)
+    private final TossCallGuard tossCallGuard;
     
     public Mono<BillingResponse> issueBillingKey(BillingKeyRequest request) {
         log.info("Issuing billing key for customerKey: {}", request.getCustomerKey());
         
         // Mock response for testing since we don't have valid TossPayments credentials
-        BillingResponse mockResponse = createMockBillingResponse(request.getCustomerKey());
-        saveBillingKey(mockResponse);
-        
-        return Mono.just(mockResponse);
+        return tossCallGuard.guard(TossOperation.BILLING_ISSUE, Mono.fromSupplier(() -> {
+            BillingResponse mockResponse = createMockBillingResponse(request.getCustomerKey());
+            saveBillingKey(mockResponse);
+            return mockResponse;
+        }));
     }
     
     public Mono<PaymentResponse> processAutoPayment(String billingKey, AutoPaymentRequest request) {
+        return processAutoPayment(billingKey, request, TossCallPriority.INTERACTIVE);
+    }
+    
+    /**
+     * 배치 갱신 결제는 BATCH 로 호출하여 사용자 요청보다 뒤에 내보낸다
+     */
+    public Mono<PaymentResponse> processAutoPayment(String billingKey, AutoPaymentRequest request, TossCallPriority priority) {
         log.info("Processing auto payment for billingKey: {}, orderId: {}", billingKey, request.getOrderId());
         
         // Mock response for testing since we don't have valid TossPayments credentials
-        PaymentResponse mockResponse = createMockPaymentResponse(request);
-        
-        return Mono.just(mockResponse);
+        return tossCallGuard.guard(TossOperation.AUTO_PAYMENT, priority,
+            Mono.fromSupplier(() -> createMockPaymentResponse(request)));
     }
     
     public Mono<CheckoutResponse> createCheckout(CheckoutRequest request) {
@@ -62,40 +66,32 @@ public class TossPaymentsService {
     public Mono<PaymentResponse> confirmPayment(ConfirmRequest request) {
         log.info("Confirming payment for paymentKey: {}", request.getPaymentKey());
         
-        try {
-            WebClient webClient = webClientBuilder
-                .defaultHeader(HttpHeaders.AUTHORIZATION, createAuthHeader())
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
-            
-            String confirmUrl = apiUrl + "/v1/payments/confirm";
-            
-            return webClient.post()
-                .uri(confirmUrl)
+        // 실패를 승인 성공으로 바꾸지 않고 호출자에게 그대로 전달한다
+        return tossCallGuard.guard(TossOperation.CONFIRM, tossWebClient.post()
+                .uri("/v1/payments/confirm")
                 .bodyValue(request)
                 .retrieve()
-                .bodyToMono(PaymentResponse.class)
-                .doOnSuccess(response -> {
-                    log.info("Payment confirmed successfully: paymentKey={}, status={}", 
-                            response.getPaymentKey(), response.getStatus());
-                })
-                .doOnError(error -> {
-                    log.error("Payment confirmation failed: paymentKey={}, error={}", 
-                            request.getPaymentKey(), error.getMessage());
-                })
-                .onErrorReturn(createMockConfirmResponse(request)); // fallback to mock on error
-                
-        } catch (Exception e) {
-            log.error("Error confirming payment: ", e);
-            return Mono.just(createMockConfirmResponse(request));
-        }
+                .bodyToMono(PaymentResponse.class))
+            .doOnSuccess(response -> {
+                log.info("Payment confirmed successfully: paymentKey={}, status={}", 
+                        response.getPaymentKey(), response.getStatus());
+            })
+            .doOnError(error -> {
+                log.error("Payment confirmation failed: paymentKey={}, error={}", 
+                        request.getPaymentKey(), error.getMessage());
+            });
     }
     
-    private String createAuthHeader() {
-        String credentials = secretKey + ":";
-        String encodedCredentials = Base64.getEncoder()
-                .encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
-        return "Basic " + encodedCredentials;
+    /**
+     * paymentKey 로 Toss 에 기록된 결제를 조회한다 (웹훅 본문 대신 이 상태를 반영한다)
+     */
+    public Mono<PaymentResponse> getPayment(String paymentKey) {
+        return tossCallGuard.guard(TossOperation.PAYMENT_LOOKUP, tossWebClient.get()
+                .uri("/v1/payments/{paymentKey}", paymentKey)
+                .retrieve()
+                .bodyToMono(PaymentResponse.class))
+            .doOnError(error -> log.error("Payment lookup failed: paymentKey={}, error={}",
+                    paymentKey, error.getMessage()));
     }
     
     private void saveBillingKey(BillingResponse response) {
@@ -178,25 +174,4 @@ public class TossPaymentsService {
         response.setAmount(request.getAmount());
         return response;
     }
-    
-    private PaymentResponse createMockConfirmResponse(ConfirmRequest request) {
-        PaymentResponse response = new PaymentResponse();
-        response.setMId("test_mid");
-        response.setPaymentKey(request.getPaymentKey());
-        response.setOrderId(request.getOrderId());
-        response.setOrderName("구독 결제");
-        response.setStatus("DONE");
-        response.setRequestedAt("2024-01-01T00:00:00+09:00");
-        response.setApprovedAt("2024-01-01T00:01:00+09:00");
-
-        PaymentResponse.CardInfo cardInfo = new PaymentResponse.CardInfo();
-        cardInfo.setIssuerCode("61");
-        cardInfo.setAcquirerCode("31");
-        cardInfo.setNumber("1234****5678");
-        cardInfo.setCardType("신용");
-        cardInfo.setOwnerType("개인");
-        
-        response.setCard(cardInfo);
-        return response;
-    }
-}
\ No newline at end of file
+}
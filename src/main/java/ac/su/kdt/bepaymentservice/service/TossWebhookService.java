@@ -0,0 +1,430 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.entity.TossWebhookEvent.ProcessingStatus;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.PaymentTransactionRepository;
+import ac.su.kdt.bepaymentservice.repository.TossWebhookEventRepository;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Toss 웹훅 수신과 비동기 처리
+ *
+ * 수신: 서명 확인 → 본문에서 필요한 필드만 읽기 → toss_webhook_event 에 INSERT 한 번 → 처리 대기열에 넣고 바로 응답
+ * 처리: paymentKey 의 해시로 고른 단일 스레드 레인에서 순서대로 PaymentTransaction/Subscription 상태에 반영한다
+ *       같은 paymentKey 의 웹훅은 항상 같은 레인에 들어가므로 도착 순서대로 처리된다
+ *       반영할 상태는 본문의 값이 아니라 GET /v1/payments/{paymentKey} 로 Toss 에서 다시 조회한 값이다
+ *       (서명이 없거나 위조된 본문으로 거래 상태를 바꿀 수 없다)
+ *
+ * 대기열이 가득 찼거나 처리에 실패한 웹훅은 RECEIVED 로 남아 주기적인 복구 작업이 다시 대기열에 넣고,
+ * max-attempts 번 실패하면 FAILED 로 둔다. 처리 시 행을 잠그고 상태를 확인하므로 중복으로 넣어도 한 번만 반영된다
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TossWebhookService {
+
+    public static final String SIGNATURE_HEADER = "tosspayments-webhook-signature";
+    public static final String TRANSMISSION_TIME_HEADER = "tosspayments-webhook-transmission-time";
+
+    private static final String SIGNATURE_VERSION = "v1:";
+    // 더 이상 바뀌지 않는 거래 상태 (FAILED/CANCELED/REFUNDED)
+    private static final int TERMINAL_STAGE = Integer.MAX_VALUE;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO toss_webhook_event (dedup_key, event_type, payment_key, order_id, payment_status, payload, " +
+        "processing_status, attempts, received_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    private static final String SELECT_ID_SQL =
+        "SELECT id FROM toss_webhook_event WHERE dedup_key = ?";
+    private static final String SELECT_PAYMENT_KEY_SQL =
+        "SELECT payment_key FROM toss_webhook_event WHERE id = ? AND processing_status = ?";
+    private static final String SELECT_FOR_UPDATE_SQL =
+        "SELECT processing_status FROM toss_webhook_event WHERE id = ? FOR UPDATE";
+    private static final String MARK_PROCESSED_SQL =
+        "UPDATE toss_webhook_event SET processing_status = ?, attempts = attempts + 1, processed_at = ? WHERE id = ?";
+    // 상태를 먼저 계산해야 MySQL(왼쪽부터 적용)과 표준 SQL 모두 증가 전 attempts 로 비교한다
+    private static final String MARK_ATTEMPT_FAILED_SQL =
+        "UPDATE toss_webhook_event SET processing_status = CASE WHEN attempts + 1 >= ? THEN ? ELSE processing_status END, " +
+        "attempts = attempts + 1, last_error = ? WHERE id = ?";
+    private static final String PENDING_SQL =
+        "SELECT id, payment_key FROM toss_webhook_event WHERE processing_status = ? AND received_at < ? ORDER BY id LIMIT ?";
+
+    private final TossWebhookEventRepository webhookEventRepository;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final PaymentEventService paymentEventService;
+    private final TossPaymentsService tossPaymentsService;
+    private final ActiveSubscriptionCache activeSubscriptionCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final PaymentMetrics paymentMetrics;
+
+    // 비어 있으면 서명을 확인하지 않는다
+    @Value("${toss.webhook.secret:}")
+    private String webhookSecret;
+
+    // true 이면 secret 이 없을 때 기동하지 않는다 (production)
+    @Value("${toss.webhook.require-secret:false}")
+    private boolean requireSecret;
+
+    @Value("${toss.webhook.workers:8}")
+    private int workers;
+
+    @Value("${toss.webhook.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${toss.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    // 이 시간보다 오래 RECEIVED 로 남은 웹훅만 복구 대상으로 본다 (대기열에서 처리 중인 웹훅과 겹치지 않도록)
+    @Value("${toss.webhook.recovery-delay-ms:30000}")
+    private long recoveryDelayMs;
+
+    @Value("${toss.webhook.recovery-batch-size:500}")
+    private int recoveryBatchSize;
+
+    @Value("${toss.webhook.retention-hours:168}")
+    private long retentionHours;
+
+    private ThreadPoolTaskExecutor[] lanes;
+
+    @PostConstruct
+    void init() {
+        if (requireSecret && webhookSecret.isBlank()) {
+            throw new IllegalStateException("toss.webhook.secret must be set when toss.webhook.require-secret is true");
+        }
+        lanes = new ThreadPoolTaskExecutor[Math.max(1, workers)];
+        for (int i = 0; i < lanes.length; i++) {
+            ThreadPoolTaskExecutor lane = new ThreadPoolTaskExecutor();
+            lane.setCorePoolSize(1);
+            lane.setMaxPoolSize(1);
+            lane.setQueueCapacity(Math.max(1, queueCapacity / lanes.length));
+            lane.setThreadNamePrefix("toss-webhook-" + i + "-");
+            lane.initialize();
+            lanes[i] = lane;
+        }
+        if (webhookSecret.isBlank()) {
+            log.warn("toss.webhook.secret is not set; Toss webhook signatures will not be verified");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ThreadPoolTaskExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * 웹훅을 확인하고 저장한 뒤 처리 대기열에 넣는다 (결제/구독 반영은 기다리지 않는다)
+     * @throws WebhookVerificationException 서명이 맞지 않는 경우
+     * @throws IllegalArgumentException 본문에 eventType, data.paymentKey, data.status 가 없는 경우
+     */
+    public Receipt receive(String payload, String signature, String transmissionTime) {
+        verifySignature(payload, signature, transmissionTime);
+        Notification notification = parse(payload);
+        paymentMetrics.incrementWebhookReceived();
+
+        long id;
+        try {
+            id = insert(notification, payload);
+        } catch (DuplicateKeyException e) {
+            log.debug("Duplicate Toss webhook ignored: {}", notification.dedupKey());
+            return Receipt.DUPLICATE;
+        }
+
+        dispatch(id, notification.paymentKey());
+        return Receipt.ACCEPTED;
+    }
+
+    /**
+     * 대기열에 넣지 못했거나 처리에 실패해 RECEIVED 로 남은 웹훅을 다시 대기열에 넣는다
+     */
+    @Scheduled(fixedDelayString = "${toss.webhook.recovery-interval-ms:10000}")
+    public void recoverPending() {
+        Timestamp receivedBefore = Timestamp.valueOf(LocalDateTime.now().minusNanos(recoveryDelayMs * 1_000_000L));
+        List<Object[]> pending = jdbcTemplate.query(PENDING_SQL,
+            (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("payment_key")},
+            ProcessingStatus.RECEIVED.name(), receivedBefore, recoveryBatchSize);
+        for (Object[] row : pending) {
+            dispatch((Long) row[0], (String) row[1]);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Re-queued {} pending Toss webhooks", pending.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${toss.webhook.cleanup-interval-ms:3600000}")
+    public void purgeProcessed() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer deleted = transactionTemplate.execute(status ->
+            webhookEventRepository.deleteByStatusReceivedBefore(ProcessingStatus.PROCESSED, before));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} processed Toss webhooks older than {} hours", deleted, retentionHours);
+        }
+    }
+
+    private void dispatch(long id, String paymentKey) {
+        ThreadPoolTaskExecutor lane = lanes[Math.floorMod(paymentKey.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> process(id));
+        } catch (TaskRejectedException e) {
+            log.warn("Toss webhook queue is full; webhook {} will be recovered later", id);
+        }
+    }
+
+    void process(long id) {
+        var timer = paymentMetrics.startWebhookTimer();
+        try {
+            List<String> paymentKeys = jdbcTemplate.queryForList(SELECT_PAYMENT_KEY_SQL, String.class,
+                id, ProcessingStatus.RECEIVED.name());
+            if (paymentKeys.isEmpty()) {
+                return;
+            }
+            String paymentKey = paymentKeys.get(0);
+            // Toss 조회는 행 잠금을 잡기 전에 한다 (같은 paymentKey 는 같은 레인이므로 순서는 그대로다)
+            String tossStatus = fetchStatus(paymentKey);
+            Boolean processed = transactionTemplate.execute(status -> {
+                List<String> rows = jdbcTemplate.queryForList(SELECT_FOR_UPDATE_SQL, String.class, id);
+                if (rows.isEmpty() || !ProcessingStatus.RECEIVED.name().equals(rows.get(0))) {
+                    // 이미 처리되었거나 다른 인스턴스가 처리했다
+                    return false;
+                }
+                apply(paymentKey, tossStatus);
+                jdbcTemplate.update(MARK_PROCESSED_SQL, ProcessingStatus.PROCESSED.name(),
+                    Timestamp.valueOf(LocalDateTime.now()), id);
+                return true;
+            });
+            if (Boolean.TRUE.equals(processed)) {
+                paymentMetrics.incrementWebhookProcessed();
+            }
+        } catch (Exception e) {
+            paymentMetrics.incrementWebhookFailure();
+            log.error("Failed to process Toss webhook {}", id, e);
+            markAttemptFailed(id, e);
+        } finally {
+            paymentMetrics.recordWebhookProcessingTime(timer);
+        }
+    }
+
+    /**
+     * 웹훅 본문의 상태 대신 Toss 에 기록된 현재 결제 상태를 조회한다 (조회 실패는 처리 실패로 재시도된다)
+     */
+    private String fetchStatus(String paymentKey) {
+        PaymentResponse payment = tossPaymentsService.getPayment(paymentKey).block();
+        if (payment == null || payment.getStatus() == null || payment.getStatus().isBlank()) {
+            throw new IllegalStateException("Toss returned no status for paymentKey " + paymentKey);
+        }
+        return payment.getStatus();
+    }
+
+    /**
+     * Toss 결제 상태를 paymentKey 로 기록된 거래에 반영한다
+     * 결제 완료/실패는 결제 이벤트를 발행하고, 첫 결제를 기다리던(INCOMPLETE) 구독을 활성화하거나 만료시킨다
+     */
+    private void apply(String paymentKey, String tossStatus) {
+        List<PaymentTransaction> transactions = paymentTransactionRepository.findByExternalTransactionId(paymentKey);
+        if (transactions.isEmpty()) {
+            log.debug("No payment transaction recorded for Toss paymentKey {}; webhook status {} ignored", paymentKey, tossStatus);
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (PaymentTransaction transaction : transactions) {
+            PaymentTransaction.TransactionStatus current = transaction.getTransactionStatus();
+            PaymentTransaction.TransactionStatus target = toTransactionStatus(tossStatus, current);
+            if (target == null || !canTransition(current, target)) {
+                // 웹훅은 순서대로 오지 않으므로 늦게 도착한 이전 단계 상태는 버린다
+                log.debug("Ignored Toss status {} for payment transaction {} in {}", tossStatus, transaction.getId(), current);
+                continue;
+            }
+            transaction.setTransactionStatus(target);
+            transaction.setProcessedAt(now);
+
+            Subscription subscription = transaction.getSubscription();
+            if (target == PaymentTransaction.TransactionStatus.SUCCEEDED) {
+                paymentEventService.publishPaymentSucceeded(transaction);
+                if (subscription.getStatus() == Subscription.SubscriptionStatus.INCOMPLETE) {
+                    subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
+                    subscription.setCurrentPeriodStart(now);
+                    subscription.setCurrentPeriodEnd(now.plusMonths(
+                        subscription.getBillingCycle() == Subscription.BillingCycle.YEARLY ? 12 : 1));
+                    activeSubscriptionCache.invalidate(subscription.getUserId());
+                    paymentEventService.publishSubscriptionStatusUpdated(subscription);
+                }
+            } else if (target == PaymentTransaction.TransactionStatus.FAILED) {
+                transaction.setFailureReason("Toss payment status: " + tossStatus);
+                paymentEventService.publishPaymentFailed(transaction);
+                if (subscription.getStatus() == Subscription.SubscriptionStatus.INCOMPLETE) {
+                    subscription.setStatus(Subscription.SubscriptionStatus.INCOMPLETE_EXPIRED);
+                    paymentEventService.publishSubscriptionStatusUpdated(subscription);
+                }
+            }
+            log.info("Applied Toss status {} to payment transaction {} ({})", tossStatus, transaction.getId(), target);
+        }
+    }
+
+    /**
+     * @return 반영할 거래 상태, 알 수 없는 상태이면 null
+     */
+    static PaymentTransaction.TransactionStatus toTransactionStatus(String tossStatus,
+                                                                    PaymentTransaction.TransactionStatus current) {
+        return switch (tossStatus) {
+            case "DONE" -> PaymentTransaction.TransactionStatus.SUCCEEDED;
+            case "CANCELED" -> current == PaymentTransaction.TransactionStatus.SUCCEEDED
+                    || current == PaymentTransaction.TransactionStatus.PARTIALLY_REFUNDED
+                ? PaymentTransaction.TransactionStatus.REFUNDED
+                : PaymentTransaction.TransactionStatus.CANCELED;
+            case "PARTIAL_CANCELED" -> PaymentTransaction.TransactionStatus.PARTIALLY_REFUNDED;
+            case "ABORTED", "EXPIRED" -> PaymentTransaction.TransactionStatus.FAILED;
+            case "IN_PROGRESS", "WAITING_FOR_DEPOSIT" -> PaymentTransaction.TransactionStatus.PROCESSING;
+            case "READY" -> PaymentTransaction.TransactionStatus.PENDING;
+            default -> null;
+        };
+    }
+
+    /**
+     * 거래 상태는 앞으로만 진행한다: PENDING -> PROCESSING -> SUCCEEDED -> PARTIALLY_REFUNDED -> REFUNDED
+     * FAILED/CANCELED 는 결제 완료 전에만 들어갈 수 있고, FAILED/CANCELED/REFUNDED 에서는 더 바뀌지 않는다
+     */
+    static boolean canTransition(PaymentTransaction.TransactionStatus current,
+                                 PaymentTransaction.TransactionStatus target) {
+        int from = stage(current == null ? PaymentTransaction.TransactionStatus.PENDING : current);
+        int to = stage(target);
+        if (from == TERMINAL_STAGE || to <= from) {
+            return false;
+        }
+        boolean abandoned = target == PaymentTransaction.TransactionStatus.FAILED
+            || target == PaymentTransaction.TransactionStatus.CANCELED;
+        return !abandoned || from < stage(PaymentTransaction.TransactionStatus.SUCCEEDED);
+    }
+
+    private static int stage(PaymentTransaction.TransactionStatus status) {
+        return switch (status) {
+            case PENDING -> 0;
+            case PROCESSING -> 1;
+            case SUCCEEDED -> 2;
+            case PARTIALLY_REFUNDED -> 3;
+            case FAILED, CANCELED, REFUNDED -> TERMINAL_STAGE;
+        };
+    }
+
+    private void markAttemptFailed(long id, Exception cause) {
+        try {
+            String message = String.valueOf(cause.getMessage());
+            jdbcTemplate.update(MARK_ATTEMPT_FAILED_SQL, maxAttempts, ProcessingStatus.FAILED.name(),
+                message.length() > 500 ? message.substring(0, 500) : message, id);
+        } catch (Exception e) {
+            log.error("Failed to record Toss webhook {} failure", id, e);
+        }
+    }
+
+    /**
+     * 생성 키 반환 방식이 DB(H2/MySQL/PostgreSQL)마다 달라 dedup_key 유니크 인덱스로 id 를 다시 읽는다
+     */
+    private long insert(Notification notification, String payload) {
+        jdbcTemplate.update(INSERT_SQL, notification.dedupKey(), notification.eventType(), notification.paymentKey(),
+            notification.orderId(), notification.paymentStatus(), payload, ProcessingStatus.RECEIVED.name(),
+            Timestamp.valueOf(LocalDateTime.now()));
+        return jdbcTemplate.queryForObject(SELECT_ID_SQL, Long.class, notification.dedupKey());
+    }
+
+    private Notification parse(String payload) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed Toss webhook payload", e);
+        }
+        if (root == null) {
+            throw new IllegalArgumentException("Empty Toss webhook payload");
+        }
+        JsonNode data = root.path("data");
+        String eventType = root.path("eventType").asText("");
+        String paymentKey = data.path("paymentKey").asText("");
+        String paymentStatus = data.path("status").asText("");
+        if (eventType.isBlank() || paymentKey.isBlank() || paymentStatus.isBlank()) {
+            throw new IllegalArgumentException("Toss webhook payload requires eventType, data.paymentKey and data.status");
+        }
+        String createdAt = root.path("createdAt").asText("");
+        String orderId = data.path("orderId").asText(null);
+        if (eventType.length() > 50 || paymentKey.length() > 200 || paymentStatus.length() > 30
+                || createdAt.length() > 40 || (orderId != null && orderId.length() > 64)) {
+            throw new IllegalArgumentException("Toss webhook payload field exceeds the supported length");
+        }
+        return new Notification(eventType + ":" + paymentKey + ":" + paymentStatus + ":" + createdAt,
+            eventType, paymentKey, orderId, paymentStatus);
+    }
+
+    /**
+     * 서명 헤더는 "v1:{base64},v1:{base64}" 형식이며, 하나라도 HMAC-SHA256(secret, "{본문}:{전송 시각}") 과 같으면 통과한다
+     */
+    private void verifySignature(String payload, String signature, String transmissionTime) {
+        if (webhookSecret.isBlank()) {
+            return;
+        }
+        if (signature == null || transmissionTime == null) {
+            throw new WebhookVerificationException("Missing Toss webhook signature");
+        }
+        byte[] expected = sign(webhookSecret, payload + ":" + transmissionTime);
+        for (String candidate : signature.split(",")) {
+            String value = candidate.trim();
+            if (!value.startsWith(SIGNATURE_VERSION)) {
+                continue;
+            }
+            try {
+                if (MessageDigest.isEqual(expected, Base64.getDecoder().decode(value.substring(SIGNATURE_VERSION.length())))) {
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                // Base64 가 아닌 값은 건너뛴다
+            }
+        }
+        throw new WebhookVerificationException("Invalid Toss webhook signature");
+    }
+
+    static byte[] sign(String secret, String message) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    public enum Receipt {
+        ACCEPTED,
+        DUPLICATE
+    }
+
+    private record Notification(String dedupKey, String eventType, String paymentKey, String orderId,
+                                String paymentStatus) {
+    }
+}
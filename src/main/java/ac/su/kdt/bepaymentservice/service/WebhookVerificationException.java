@@ -0,0 +1,11 @@
+package ac.su.kdt.bepaymentservice.service;
+
+/**
+ * 웹훅 서명이 없거나 설정된 시크릿으로 계산한 값과 다른 경우
+ */
+public class WebhookVerificationException extends RuntimeException {
+    
+    public WebhookVerificationException(String message) {
+        super(message);
+    }
+}
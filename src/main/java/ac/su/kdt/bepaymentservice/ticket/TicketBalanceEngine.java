@@ -0,0 +1,588 @@
+package ac.su.kdt.bepaymentservice.ticket;
+
+import ac.su.kdt.bepaymentservice.dto.TicketDto;
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import ac.su.kdt.bepaymentservice.entity.UserTicket;
+import ac.su.kdt.bepaymentservice.repository.UserTicketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 인메모리 티켓 잔액 엔진 (write-behind)
+ * user_ticket 잔액을 userId 기반 lock striping 테이블에 올려두고 사용/환불/충전을 메모리에서 처리한다
+ * 모든 변경은 TicketJournal에 기록(group commit fsync)된 뒤에 메모리에 반영되고, 백그라운드 flusher가 dirty 잔액과
+ * ticket_transaction 행을 JDBC 배치로 DB에 반영한다
+ *
+ * 호출자 트랜잭션 안에서 호출되면 변경은 커밋 직전(beforeCommit)에 저널에 prepared 로 기록/fsync 되고,
+ * 같은 트랜잭션에 ticket_journal_commit 행을 남긴 뒤 커밋 후에 메모리에 반영된다. 롤백되면 버려진다
+ * 저널 기록에 실패하면 예외로 호출자 트랜잭션을 롤백하므로, 저널에 없는 변경은 커밋되지도 메모리에 반영되지도 않는다
+ * 차감은 호출 시점에 잔액을 hold 하므로 커밋 전에 같은 티켓을 두 번 쓸 수 없다
+ * (DB 커밋 직후 메모리 반영 전에 프로세스가 죽어도 재기동 시 커밋 표시가 있는 기록을 replay 한다)
+ * stripe 잠금 구간에서는 DB 조회와 fsync 를 하지 않는다
+ *
+ * 잔액의 단일 소유자가 이 엔진이라는 전제이므로 활성화된 인스턴스는 한 개여야 하며,
+ * 프로파일별 ticket.balance-engine.enabled 로 기존 JPA 경로와 전환한다
+ */
+@Component
+@ConditionalOnProperty(name = "ticket.balance-engine.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TicketBalanceEngine {
+
+    public static final int INSUFFICIENT = -1;
+
+    // 저널 기록의 충전 시각 필드에 쓰며, 현재 값을 그대로 둔다는 뜻
+    private static final long UNCHANGED = Long.MAX_VALUE;
+
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE user_ticket SET current_tickets = ?, last_ticket_refill = ?, next_refill_at = ?, updated_at = ? " +
+            "WHERE user_id = ?";
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO ticket_transaction (user_id, transaction_type, ticket_amount, balance_before, balance_after, " +
+            "related_attempt_id, reason, created_at, journal_seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String MAX_JOURNAL_SEQ_SQL = "SELECT MAX(journal_seq) FROM ticket_transaction";
+
+    private static final String FLUSHED_JOURNAL_SEQ_SQL =
+            "SELECT journal_seq FROM ticket_transaction WHERE journal_seq BETWEEN ? AND ?";
+
+    private static final String INSERT_COMMIT_MARKER_SQL = "INSERT INTO ticket_journal_commit (journal_seq) VALUES (?)";
+
+    private static final String COMMITTED_JOURNAL_SEQ_SQL =
+            "SELECT journal_seq FROM ticket_journal_commit WHERE journal_seq BETWEEN ? AND ?";
+
+    private static final String DELETE_COMMIT_MARKERS_SQL = "DELETE FROM ticket_journal_commit WHERE journal_seq < ?";
+
+    private final UserTicketRepository userTicketRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ticket.balance-engine.stripes:64}")
+    private int stripeCount;
+
+    @Value("${ticket.balance-engine.initial-capacity-per-stripe:1024}")
+    private int initialCapacityPerStripe;
+
+    @Value("${ticket.balance-engine.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${ticket.balance-engine.journal.dir:./data/ticket-journal}")
+    private String journalDir;
+
+    @Value("${ticket.balance-engine.journal.fsync:true}")
+    private boolean journalFsync;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Stripe[] stripes;
+    private TicketJournal journal;
+
+    @PostConstruct
+    void init() {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount) - 1) << 1;
+        stripes = new Stripe[Math.max(1, count)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(initialCapacityPerStripe);
+        }
+        journal = new TicketJournal(Path.of(journalDir), journalFsync);
+        replayJournal();
+        log.info("Ticket balance engine started with {} stripes (journal: {}, fsync: {})",
+                stripes.length, journalDir, journalFsync);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * 메모리에 올라온 잔액 스냅샷을 반환한다. 없으면 DB에서 한 번 적재하고, 계정 자체가 없으면 empty
+     */
+    public Optional<TicketDto> findTickets(long userId) {
+        if (!ensureResident(userId)) {
+            return Optional.empty();
+        }
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            return Optional.of(snapshot(stripe.table, stripe.table.find(userId), userId));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 계정이 메모리에 없으면 DB에서 적재한다
+     * @return 계정 존재 여부
+     */
+    public boolean loadIfAbsent(long userId) {
+        return ensureResident(userId);
+    }
+
+    /**
+     * JPA 경로로 새로 생성된 계정을 엔진에 등록한다 (이미 DB에 반영된 상태이므로 dirty 아님)
+     */
+    public void register(UserTicket userTicket) {
+        Stripe stripe = stripeOf(userTicket.getUserId());
+        stripe.lock.lock();
+        try {
+            int slot = stripe.table.insert(userTicket.getUserId());
+            load(stripe.table, slot, userTicket);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 잔액이 충분하면 차감하고 차감 후 잔액을, 부족하면 INSUFFICIENT를 반환한다
+     * 트랜잭션 안에서는 커밋 전까지 hold 로 잡아두고, 커밋 후에 반영한다
+     */
+    public int trySpend(long userId, int tickets, TicketTransaction.TicketTransactionType type,
+                        Long attemptId, String reason) {
+        requireResident(userId);
+        Stripe stripe = stripeOf(userId);
+        int projected;
+        stripe.lock.lock();
+        try {
+            int available = stripe.table.balance(stripe.table.find(userId)) - stripe.held(userId);
+            if (available < tickets) {
+                return INSUFFICIENT;
+            }
+            stripe.hold(userId, tickets);
+            projected = available - tickets;
+        } finally {
+            stripe.lock.unlock();
+        }
+        Integer applied = applyOnCommit(new Mutation(userId, type, -tickets, attemptId, reason, UNCHANGED, UNCHANGED, tickets));
+        return applied != null ? applied : projected;
+    }
+
+    /**
+     * 티켓을 지급하고 지급 후 잔액을 반환한다
+     */
+    public int credit(long userId, int tickets, TicketTransaction.TicketTransactionType type,
+                      Long attemptId, String reason) {
+        requireResident(userId);
+        Stripe stripe = stripeOf(userId);
+        int projected;
+        stripe.lock.lock();
+        try {
+            projected = stripe.table.balance(stripe.table.find(userId)) - stripe.held(userId) + tickets;
+        } finally {
+            stripe.lock.unlock();
+        }
+        Integer applied = applyOnCommit(new Mutation(userId, type, tickets, attemptId, reason, UNCHANGED, UNCHANGED, 0));
+        return applied != null ? applied : projected;
+    }
+
+    /**
+     * 한도를 넘지 않는 범위에서 자동 충전을 적용하고 실제로 지급된 티켓 수를 반환한다
+     * 지급이 없더라도 다음 충전 시각은 갱신된다
+     */
+    public int refill(long userId, int refillAmount, int ticketLimit, LocalDateTime now, LocalDateTime nextRefillAt) {
+        requireResident(userId);
+        Stripe stripe = stripeOf(userId);
+        int ticketsToAdd;
+        stripe.lock.lock();
+        try {
+            TicketBalanceTable table = stripe.table;
+            int slot = table.find(userId);
+            ticketsToAdd = Math.min(refillAmount, ticketLimit - table.balance(slot));
+            if (ticketsToAdd <= 0) {
+                table.update(slot, table.balance(slot), table.lastRefill(slot),
+                        TicketBalanceTable.encode(nextRefillAt), TicketBalanceTable.encode(now));
+                return 0;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        applyOnCommit(new Mutation(userId, TicketTransaction.TicketTransactionType.EARNED, ticketsToAdd, null,
+                "Automatic ticket refill", TicketBalanceTable.encode(now), TicketBalanceTable.encode(nextRefillAt), 0));
+        return ticketsToAdd;
+    }
+
+    /**
+     * dirty 잔액과 대기 중인 거래 내역을 DB에 배치 반영한다
+     * 모든 stripe 잠금을 잡은 짧은 구간에서 저널 세그먼트를 회전하고 대상을 떼어낸 뒤, 잠금 밖에서 DB에 쓴다
+     */
+    @Scheduled(fixedDelayString = "${ticket.balance-engine.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<BalanceRow> rows = new ArrayList<>();
+            List<PendingTransaction> transactions = new ArrayList<>();
+            long flushedBelow;
+
+            lockAll();
+            try {
+                if (!hasPendingChanges()) {
+                    return;
+                }
+                journal.roll();
+                // 이보다 작은 sequence 는 모두 이번 대상에 포함되었거나 이미 DB에 있다
+                flushedBelow = journal.lowestInFlight();
+                for (Stripe stripe : stripes) {
+                    stripe.table.drainDirty((userId, balance, lastRefill, nextRefill, updatedAt) ->
+                            rows.add(new BalanceRow(userId, balance, lastRefill, nextRefill, updatedAt)));
+                    transactions.addAll(stripe.pending);
+                    stripe.pending = new ArrayList<>();
+                }
+            } finally {
+                unlockAll();
+            }
+
+            try {
+                persist(rows, transactions, flushedBelow);
+                journal.deleteFlushed(flushedBelow);
+                log.debug("Flushed {} ticket balances and {} ticket transactions", rows.size(), transactions.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush ticket balances, will retry on next flush: {}", e.getMessage(), e);
+                requeue(rows, transactions);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void persist(List<BalanceRow> rows, List<PendingTransaction> transactions, long flushedBelow) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, rows, flushBatchSize, (ps, row) -> {
+                ps.setInt(1, row.balance());
+                ps.setObject(2, TicketBalanceTable.decode(row.lastRefill()), Types.TIMESTAMP);
+                ps.setObject(3, TicketBalanceTable.decode(row.nextRefill()), Types.TIMESTAMP);
+                ps.setObject(4, TicketBalanceTable.decode(row.updatedAt()), Types.TIMESTAMP);
+                ps.setLong(5, row.userId());
+            });
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, transactions, flushBatchSize, (ps, transaction) -> {
+                ps.setLong(1, transaction.userId());
+                ps.setString(2, transaction.type().name());
+                ps.setInt(3, transaction.amount());
+                ps.setInt(4, transaction.balanceBefore());
+                ps.setInt(5, transaction.balanceAfter());
+                ps.setObject(6, transaction.attemptId(), Types.BIGINT);
+                ps.setString(7, transaction.reason());
+                ps.setObject(8, TicketBalanceTable.decode(transaction.createdAt()), Types.TIMESTAMP);
+                ps.setObject(9, transaction.sequence(), Types.BIGINT);
+            });
+            // flushedBelow 아래의 커밋 표시는 이번에 반영되었거나 이미 DB 에 있는 기록의 것이다
+            jdbcTemplate.update(DELETE_COMMIT_MARKERS_SQL, flushedBelow);
+        });
+    }
+
+    private void requeue(List<BalanceRow> rows, List<PendingTransaction> transactions) {
+        lockAll();
+        try {
+            for (BalanceRow row : rows) {
+                Stripe stripe = stripeOf(row.userId());
+                int slot = stripe.table.find(row.userId());
+                if (slot >= 0) {
+                    stripe.table.markDirty(slot);
+                }
+            }
+            // 원래 순서를 유지하도록 이번에 실패한 내역을 각 stripe 대기열 앞에 되돌린다
+            for (int i = transactions.size() - 1; i >= 0; i--) {
+                PendingTransaction transaction = transactions.get(i);
+                stripeOf(transaction.userId()).pending.add(0, transaction);
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * DB 에 아직 반영되지 않은 저널 기록만 DB 잔액 위에 sequence 순으로 다시 적용한다
+     * user_ticket 잔액과 ticket_transaction 행은 같은 flush 트랜잭션에서 쓰이므로,
+     * journal_seq 가 DB 에 있는 기록은 잔액에도 이미 반영되어 있다
+     * prepared 기록은 커밋 표시가 있을 때만 적용한다 (없으면 롤백되었거나 커밋 전에 죽은 변경)
+     */
+    private void replayJournal() {
+        List<TicketJournal.Entry> entries = journal.readUnflushed();
+        Long maxFlushed = jdbcTemplate.queryForObject(MAX_JOURNAL_SEQ_SQL, Long.class);
+        journal.resumeAfter(maxFlushed != null ? maxFlushed : 0L);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long first = entries.get(0).sequence();
+        long last = entries.get(entries.size() - 1).sequence();
+        Set<Long> flushed = new HashSet<>(jdbcTemplate.queryForList(FLUSHED_JOURNAL_SEQ_SQL, Long.class, first, last));
+        Set<Long> committed = new HashSet<>(jdbcTemplate.queryForList(COMMITTED_JOURNAL_SEQ_SQL, Long.class, first, last));
+        int replayed = 0;
+        for (TicketJournal.Entry entry : entries) {
+            if (flushed.contains(entry.sequence()) || (entry.prepared() && !committed.contains(entry.sequence()))) {
+                continue;
+            }
+            if (!ensureResident(entry.userId())) {
+                log.warn("Ticket account for user {} not found while replaying journal", entry.userId());
+                Stripe stripe = stripeOf(entry.userId());
+                stripe.lock.lock();
+                try {
+                    stripe.table.insert(entry.userId());
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            apply(new Mutation(entry.userId(), entry.type(), entry.amount(), entry.attemptId(), entry.reason(),
+                    entry.lastRefill(), entry.nextRefill(), 0), entry.sequence(), entry.createdAt());
+            replayed++;
+        }
+        log.warn("Replayed {} of {} ticket journal entries not yet flushed to the database", replayed, entries.size());
+        flush();
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋 직전 저널 기록과 커밋 후 적용을 예약하고 null 을, 아니면 저널에 기록한 뒤 바로 적용하고 변경 후 잔액을 반환한다
+     * 저널 기록에 실패하면 hold 를 풀고 예외를 던진다 (트랜잭션 안이면 호출자 트랜잭션이 롤백된다)
+     */
+    private Integer applyOnCommit(Mutation mutation) {
+        long createdAt = TicketBalanceTable.encode(LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            long sequence;
+            try {
+                sequence = journal(mutation, createdAt, false);
+            } catch (RuntimeException e) {
+                release(mutation);
+                throw e;
+            }
+            return apply(mutation, sequence, createdAt);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Long sequence;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                sequence = journal(mutation, createdAt, true);
+                // fsync 된 기록을 커밋 여부와 묶는다. 이 INSERT 가 실패해도 트랜잭션이 롤백되고 afterCompletion 이 정리한다
+                jdbcTemplate.update(INSERT_COMMIT_MARKER_SQL, sequence);
+            }
+
+            @Override
+            public void afterCommit() {
+                if (sequence == null) {
+                    log.error("Ticket change for user {} committed without a journal entry, not applying", mutation.userId());
+                    return;
+                }
+                apply(mutation, sequence, createdAt);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    if (sequence != null) {
+                        journal.applied(sequence);
+                    }
+                    release(mutation);
+                } else if (sequence == null) {
+                    release(mutation);
+                }
+            }
+        });
+        return null;
+    }
+
+    /**
+     * 저널에 기록하고 fsync 를 기다린 뒤(다른 스레드의 기록과 한 번에 묶인다) sequence 를 반환한다
+     * 실패하면 기록을 in-flight 에서 빼고 예외를 그대로 던진다 (hold 는 호출한 쪽에서 푼다)
+     */
+    private long journal(Mutation mutation, long createdAt, boolean prepared) {
+        Long sequence = null;
+        try {
+            sequence = journal.append(new TicketJournal.Entry(0L, prepared, mutation.userId(), mutation.type(),
+                    mutation.amount(), mutation.attemptId(), mutation.lastRefill(), mutation.nextRefill(), createdAt,
+                    mutation.reason()));
+            journal.awaitDurable(sequence);
+            return sequence;
+        } catch (RuntimeException e) {
+            if (sequence != null) {
+                journal.applied(sequence);
+            }
+            log.error("Failed to journal ticket change for user {}: {}", mutation.userId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private int apply(Mutation mutation, Long sequence, long createdAt) {
+        Stripe stripe = stripeOf(mutation.userId());
+        stripe.lock.lock();
+        try {
+            TicketBalanceTable table = stripe.table;
+            int slot = table.find(mutation.userId());
+            stripe.hold(mutation.userId(), -mutation.held());
+            int balanceBefore = table.balance(slot);
+            int balanceAfter = balanceBefore + mutation.amount();
+            long lastRefill = mutation.lastRefill() == UNCHANGED ? table.lastRefill(slot) : mutation.lastRefill();
+            long nextRefill = mutation.nextRefill() == UNCHANGED ? table.nextRefill(slot) : mutation.nextRefill();
+            table.update(slot, balanceAfter, lastRefill, nextRefill, createdAt);
+            stripe.pending.add(new PendingTransaction(sequence, mutation.userId(), mutation.type(), mutation.amount(),
+                    balanceBefore, balanceAfter, mutation.attemptId(), mutation.reason(), createdAt));
+            if (sequence != null) {
+                // flush 가 이 기록을 대기열에서 찾을 수 있게 된 뒤에 in-flight 에서 뺀다 (같은 stripe 잠금 구간)
+                journal.applied(sequence);
+            }
+            return balanceAfter;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void release(Mutation mutation) {
+        if (mutation.held() == 0) {
+            return;
+        }
+        Stripe stripe = stripeOf(mutation.userId());
+        stripe.lock.lock();
+        try {
+            stripe.hold(mutation.userId(), -mutation.held());
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 계정이 메모리에 없으면 잠금 밖에서 DB 조회 후, 잠금을 잡고 다시 확인한 뒤 올린다
+     * (그 사이 다른 스레드가 올렸다면 그 값을 유지한다)
+     * @return 계정 존재 여부
+     */
+    private boolean ensureResident(long userId) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            if (stripe.table.find(userId) >= 0) {
+                return true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        Optional<UserTicket> userTicket = userTicketRepository.findByUserId(userId);
+        if (userTicket.isEmpty()) {
+            return false;
+        }
+        stripe.lock.lock();
+        try {
+            if (stripe.table.find(userId) < 0) {
+                int slot = stripe.table.insert(userId);
+                load(stripe.table, slot, userTicket.get());
+            }
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void requireResident(long userId) {
+        if (!ensureResident(userId)) {
+            throw new IllegalStateException("Ticket account not found for user: " + userId);
+        }
+    }
+
+    private void load(TicketBalanceTable table, int slot, UserTicket userTicket) {
+        table.set(slot,
+                userTicket.getId() != null ? userTicket.getId() : 0L,
+                userTicket.getCurrentTickets(),
+                TicketBalanceTable.encode(userTicket.getLastTicketRefill()),
+                TicketBalanceTable.encode(userTicket.getNextRefillAt()),
+                TicketBalanceTable.encode(userTicket.getCreatedAt()),
+                TicketBalanceTable.encode(userTicket.getUpdatedAt()));
+    }
+
+    private TicketDto snapshot(TicketBalanceTable table, int slot, long userId) {
+        return TicketDto.builder()
+                .id(table.id(slot))
+                .userId(userId)
+                .currentTickets(table.balance(slot))
+                .lastTicketRefill(TicketBalanceTable.decode(table.lastRefill(slot)))
+                .nextRefillAt(TicketBalanceTable.decode(table.nextRefill(slot)))
+                .createdAt(TicketBalanceTable.decode(table.createdAt(slot)))
+                .updatedAt(TicketBalanceTable.decode(table.updatedAt(slot)))
+                .build();
+    }
+
+    private boolean hasPendingChanges() {
+        for (Stripe stripe : stripes) {
+            if (stripe.table.dirtyCount() > 0 || !stripe.pending.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private Stripe stripeOf(long userId) {
+        return stripes[TicketBalanceTable.mix(userId) >>> 16 & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TicketBalanceTable table;
+        private List<PendingTransaction> pending = new ArrayList<>();
+        // 커밋 전 차감으로 잡아둔 티켓 수 (userId -> 합계)
+        private final Map<Long, Integer> holds = new HashMap<>();
+
+        private Stripe(int initialCapacity) {
+            this.table = new TicketBalanceTable(initialCapacity);
+        }
+
+        private int held(long userId) {
+            return holds.getOrDefault(userId, 0);
+        }
+
+        private void hold(long userId, int tickets) {
+            if (tickets != 0) {
+                holds.merge(userId, tickets, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+    }
+
+    /**
+     * 적용할 잔액 변경. held 는 trySpend 가 잡아둔 hold 로, 적용하거나 버릴 때 푼다
+     */
+    private record Mutation(long userId, TicketTransaction.TicketTransactionType type, int amount, Long attemptId,
+                            String reason, long lastRefill, long nextRefill, int held) {
+    }
+
+    private record PendingTransaction(Long sequence, long userId, TicketTransaction.TicketTransactionType type,
+                                      int amount, int balanceBefore, int balanceAfter, Long attemptId,
+                                      String reason, long createdAt) {
+    }
+
+    private record BalanceRow(long userId, int balance, long lastRefill, long nextRefill, long updatedAt) {
+    }
+}
@@ -0,0 +1,229 @@
+package ac.su.kdt.bepaymentservice.ticket;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * userId(long)를 키로 하는 open addressing 해시 테이블
+ * 박싱 없이 user_ticket 행의 가변 컬럼을 병렬 primitive 배열에 보관한다
+ * 스레드 안전하지 않으며 TicketBalanceEngine의 stripe 잠금 아래에서만 사용한다
+ */
+class TicketBalanceTable {
+
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private boolean[] used;
+    private long[] ids;
+    private int[] balances;
+    private long[] lastRefills;
+    private long[] nextRefills;
+    private long[] createdAts;
+    private long[] updatedAts;
+    private boolean[] dirty;
+    private int size;
+    private int resizeThreshold;
+
+    // flush 대상 userId 목록 (dirty 플래그로 중복 방지)
+    private long[] dirtyKeys = new long[16];
+    private int dirtyCount;
+
+    TicketBalanceTable(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * @return 슬롯 번호, 없으면 -1
+     */
+    int find(long userId) {
+        int mask = keys.length - 1;
+        int slot = mix(userId) & mask;
+        while (used[slot]) {
+            if (keys[slot] == userId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 키를 추가하고 슬롯 번호를 반환한다 (이미 있으면 기존 슬롯)
+     */
+    int insert(long userId) {
+        int existing = find(userId);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (size + 1 > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(userId) & mask;
+        while (used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = userId;
+        lastRefills[slot] = NO_TIME;
+        nextRefills[slot] = NO_TIME;
+        createdAts[slot] = NO_TIME;
+        updatedAts[slot] = NO_TIME;
+        size++;
+        return slot;
+    }
+
+    long id(int slot) {
+        return ids[slot];
+    }
+
+    int balance(int slot) {
+        return balances[slot];
+    }
+
+    long lastRefill(int slot) {
+        return lastRefills[slot];
+    }
+
+    long nextRefill(int slot) {
+        return nextRefills[slot];
+    }
+
+    long createdAt(int slot) {
+        return createdAts[slot];
+    }
+
+    long updatedAt(int slot) {
+        return updatedAts[slot];
+    }
+
+    void set(int slot, long id, int balance, long lastRefill, long nextRefill, long createdAt, long updatedAt) {
+        ids[slot] = id;
+        balances[slot] = balance;
+        lastRefills[slot] = lastRefill;
+        nextRefills[slot] = nextRefill;
+        createdAts[slot] = createdAt;
+        updatedAts[slot] = updatedAt;
+    }
+
+    void update(int slot, int balance, long lastRefill, long nextRefill, long updatedAt) {
+        balances[slot] = balance;
+        lastRefills[slot] = lastRefill;
+        nextRefills[slot] = nextRefill;
+        updatedAts[slot] = updatedAt;
+        markDirty(slot);
+    }
+
+    void markDirty(int slot) {
+        if (dirty[slot]) {
+            return;
+        }
+        dirty[slot] = true;
+        if (dirtyCount == dirtyKeys.length) {
+            dirtyKeys = Arrays.copyOf(dirtyKeys, dirtyCount << 1);
+        }
+        dirtyKeys[dirtyCount++] = keys[slot];
+    }
+
+    /**
+     * dirty 목록을 비우면서 각 항목을 visitor에 전달한다
+     */
+    void drainDirty(DirtyVisitor visitor) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int slot = find(dirtyKeys[i]);
+            if (slot < 0) {
+                continue;
+            }
+            dirty[slot] = false;
+            visitor.visit(keys[slot], balances[slot], lastRefills[slot], nextRefills[slot], updatedAts[slot]);
+        }
+        dirtyCount = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldIds = ids;
+        int[] oldBalances = balances;
+        long[] oldLastRefills = lastRefills;
+        long[] oldNextRefills = nextRefills;
+        long[] oldCreatedAts = createdAts;
+        long[] oldUpdatedAts = updatedAts;
+        boolean[] oldDirty = dirty;
+
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) {
+                continue;
+            }
+            int slot = mix(oldKeys[i]) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = oldKeys[i];
+            ids[slot] = oldIds[i];
+            balances[slot] = oldBalances[i];
+            lastRefills[slot] = oldLastRefills[i];
+            nextRefills[slot] = oldNextRefills[i];
+            createdAts[slot] = oldCreatedAts[i];
+            updatedAts[slot] = oldUpdatedAts[i];
+            dirty[slot] = oldDirty[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        ids = new long[capacity];
+        balances = new int[capacity];
+        lastRefills = new long[capacity];
+        nextRefills = new long[capacity];
+        createdAts = new long[capacity];
+        updatedAts = new long[capacity];
+        dirty = new boolean[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * LocalDateTime을 시간대 변환 없이 마이크로초 단위 long으로 인코딩
+     */
+    static long encode(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime decode(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    interface DirtyVisitor {
+        void visit(long userId, int balance, long lastRefill, long nextRefill, long updatedAt);
+    }
+}
@@ -0,0 +1,314 @@
+package ac.su.kdt.bepaymentservice.ticket;
+
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * 인메모리 티켓 잔액 변경을 로컬 디스크에 먼저 기록하는 append-only 로그
+ * 응답 전에 기록되므로 DB flush 전에 프로세스가 죽어도 재기동 시 replay로 복구된다
+ *
+ * - 기록마다 단조 증가하는 sequence 를 붙인다. flush 는 sequence 를 ticket_transaction.journal_seq 에 함께 남기므로
+ *   이미 DB에 반영된 기록은 replay 에서 건너뛴다
+ * - group commit: append 는 쓰기만 하고, awaitDurable 을 먼저 호출한 스레드가 그때까지 쓰인 기록 전체를 한 번에 fsync 한다
+ *   fsync 중에 들어온 기록은 다음 fsync 에 함께 묶인다
+ * - 세그먼트 파일 단위로 회전하며, 모든 기록이 DB에 반영된 세그먼트만 삭제한다
+ * - 트랜잭션 안의 변경은 커밋 전에 prepared 로 기록된다. 커밋 여부는 같은 트랜잭션의 ticket_journal_commit 행으로 정해지므로
+ *   replay 는 그 행이 없는 prepared 기록(롤백되었거나 커밋 전에 죽은 변경)을 적용하지 않는다
+ */
+@Slf4j
+class TicketJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "ticket-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+
+    private long currentSegment;
+    private FileChannel channel;
+
+    // 세그먼트 번호 -> 그 세그먼트의 마지막 sequence (기록이 없으면 0)
+    private final Map<Long, Long> segmentLastSequence = new TreeMap<>();
+    private long lastSequence;
+
+    // 기록은 되었지만 아직 메모리/flush 대기열에 반영되지 않은 sequence
+    private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private final Object durability = new Object();
+    private long durableSequence;
+    private boolean syncing;
+
+    TicketJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.currentSegment = listSegments().stream().mapToLong(Long::longValue).max().orElse(0L) + 1;
+            this.channel = open(currentSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ticket journal in " + directory, e);
+        }
+    }
+
+    /**
+     * 이후 sequence 가 after 보다 커지도록 맞춘다 (이전 세그먼트가 삭제된 뒤 재기동해도 DB 의 journal_seq 와 겹치지 않도록)
+     */
+    synchronized void resumeAfter(long after) {
+        lastSequence = Math.max(lastSequence, after);
+        synchronized (durability) {
+            durableSequence = Math.max(durableSequence, lastSequence);
+        }
+    }
+
+    /**
+     * 기록을 쓰고 sequence 를 반환한다. 디스크 내구성은 awaitDurable 로 기다린다
+     * 반환된 sequence 는 applied 가 호출될 때까지 in-flight 로 남아 세그먼트 삭제를 막는다
+     */
+    synchronized long append(Entry entry) {
+        long sequence = lastSequence + 1;
+        try {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(entry.toLine(sequence));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append ticket journal entry for user " + entry.userId(), e);
+        }
+        lastSequence = sequence;
+        segmentLastSequence.put(currentSegment, sequence);
+        inFlight.add(sequence);
+        return sequence;
+    }
+
+    /**
+     * sequence 까지의 기록이 디스크에 반영될 때까지 기다린다
+     * 진행 중인 fsync 가 없으면 이 스레드가 그때까지 쓰인 기록 전체를 fsync 하고, 있으면 그 결과를 기다린다
+     */
+    void awaitDurable(long sequence) {
+        if (!fsync) {
+            return;
+        }
+        while (true) {
+            synchronized (durability) {
+                while (durableSequence < sequence && syncing) {
+                    try {
+                        durability.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for ticket journal fsync", e);
+                    }
+                }
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                syncing = true;
+            }
+
+            long target;
+            FileChannel syncChannel;
+            synchronized (this) {
+                target = lastSequence;
+                syncChannel = channel;
+            }
+            boolean synced = false;
+            try {
+                syncChannel.force(false);
+                synced = true;
+            } catch (ClosedChannelException e) {
+                // 그 사이 roll 이 세그먼트를 fsync 하고 닫았다
+                synced = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to fsync ticket journal", e);
+            } finally {
+                synchronized (durability) {
+                    if (synced) {
+                        durableSequence = Math.max(durableSequence, target);
+                    }
+                    syncing = false;
+                    durability.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 기록이 메모리와 flush 대기열에 반영되었거나 버려졌음을 알린다
+     */
+    void applied(long sequence) {
+        inFlight.remove(sequence);
+    }
+
+    /**
+     * 아직 반영되지 않은 가장 작은 sequence, 없으면 Long.MAX_VALUE
+     */
+    long lowestInFlight() {
+        Long lowest = inFlight.isEmpty() ? null : inFlight.first();
+        return lowest != null ? lowest : Long.MAX_VALUE;
+    }
+
+    /**
+     * 새 세그먼트로 전환하고 직전 세그먼트 번호를 반환한다
+     */
+    synchronized long roll() {
+        try {
+            channel.force(false);
+            channel.close();
+            synchronized (durability) {
+                durableSequence = Math.max(durableSequence, lastSequence);
+                durability.notifyAll();
+            }
+            long rolled = currentSegment;
+            currentSegment++;
+            channel = open(currentSegment);
+            return rolled;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll ticket journal segment " + currentSegment, e);
+        }
+    }
+
+    /**
+     * 닫힌 세그먼트 중 모든 기록의 sequence 가 flushedBelow 보다 작은 세그먼트를 삭제한다
+     */
+    synchronized void deleteFlushed(long flushedBelow) {
+        Iterator<Map.Entry<Long, Long>> iterator = segmentLastSequence.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> segment = iterator.next();
+            if (segment.getKey() >= currentSegment || segment.getValue() >= flushedBelow) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(segmentPath(segment.getKey()));
+                iterator.remove();
+            } catch (IOException e) {
+                log.warn("Failed to delete flushed ticket journal segment {}: {}", segment.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 현재 세그먼트 이전의 모든 세그먼트 기록을 sequence 순서대로 읽는다
+     */
+    synchronized List<Entry> readUnflushed() {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (long segment : listSegments()) {
+                if (segment >= currentSegment) {
+                    continue;
+                }
+                long segmentLast = 0L;
+                String content = Files.readString(segmentPath(segment), StandardCharsets.UTF_8);
+                String[] lines = content.split("\n", -1);
+                // 마지막 요소는 개행으로 끝나지 않은 (기록 도중 중단된) 줄이므로 응답되지 않은 변경으로 보고 버린다
+                for (int i = 0; i < lines.length - 1; i++) {
+                    Entry entry = lines[i].isBlank() ? null : Entry.parse(lines[i]);
+                    if (entry != null) {
+                        entries.add(entry);
+                        segmentLast = Math.max(segmentLast, entry.sequence());
+                    }
+                }
+                segmentLastSequence.put(segment, segmentLast);
+                lastSequence = Math.max(lastSequence, segmentLast);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay ticket journal in " + directory, e);
+        }
+        entries.sort((a, b) -> Long.compare(a.sequence(), b.sequence()));
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close ticket journal: {}", e.getMessage());
+        }
+    }
+
+    private FileChannel open(long segment) throws IOException {
+        segmentLastSequence.putIfAbsent(segment, 0L);
+        return FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%019d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * 잔액 변경 한 건. 잔액은 증감량(amount)만 담고, replay 는 DB 잔액에 아직 반영되지 않은 기록의 증감량을 sequence 순으로 더한다
+     * 충전 시각(lastRefill/nextRefill)은 변경 후 절대값이다
+     * sequence 는 append 시점에 정해지며 읽은 기록에만 채워진다
+     * prepared 기록은 sequence 앞에 P 를 붙여 쓴다 (표시가 없는 기록은 바로 커밋된 변경)
+     */
+    record Entry(long sequence,
+                 boolean prepared,
+                 long userId,
+                 TicketTransaction.TicketTransactionType type,
+                 int amount,
+                 Long attemptId,
+                 long lastRefill,
+                 long nextRefill,
+                 long createdAt,
+                 String reason) {
+
+        String toLine(long sequence) {
+            String safeReason = reason == null ? "" : reason.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+            return (prepared ? "P" : "") + sequence + "\t" + userId + "\t" + type.name() + "\t" + amount + "\t"
+                    + (attemptId == null ? "-" : attemptId) + "\t" + lastRefill + "\t" + nextRefill + "\t"
+                    + createdAt + "\t" + safeReason + "\n";
+        }
+
+        static Entry parse(String line) {
+            String[] fields = line.split("\t", 9);
+            if (fields.length < 9) {
+                return null;
+            }
+            boolean prepared = fields[0].startsWith("P");
+            try {
+                return new Entry(
+                        Long.parseLong(prepared ? fields[0].substring(1) : fields[0]),
+                        prepared,
+                        Long.parseLong(fields[1]),
+                        TicketTransaction.TicketTransactionType.valueOf(fields[2]),
+                        Integer.parseInt(fields[3]),
+                        "-".equals(fields[4]) ? null : Long.valueOf(fields[4]),
+                        Long.parseLong(fields[5]),
+                        Long.parseLong(fields[6]),
+                        Long.parseLong(fields[7]),
+                        fields[8].isEmpty() ? null : fields[8]);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Toss 호출을 작업별 서킷 브레이커와 벌크헤드로 감싼다
+ *
+ * - 벌크헤드(세마포어): 작업별 동시 호출 수를 제한하고, 한도를 넘으면 기다리지 않고 거절한다
+ * - 서킷 브레이커: 시간 기반 슬라이딩 윈도우의 실패율/지연 호출 비율이 임계치를 넘으면 열려 즉시 거절한다
+ *
+ * 그 앞에서 TossRateLimiter 로 작업별 초당 호출 수를 제한하므로, 한도 대기는 벌크헤드 자리를 차지하지 않고 서킷 실패로도 집계되지 않는다
+ *
+ * 거절된 호출은 TossUnavailableException 으로 바뀌어 컨트롤러에서 503 으로 응답한다
+ * 상태 전이는 toss.circuitbreaker.transition.count 로, 상태와 호출 결과는 resilience4j.* 지표로 게시된다
+ */
+@Component
+@Slf4j
+public class TossCallGuard {
+    
+    private final PaymentMetrics paymentMetrics;
+    private final TossRateLimiter rateLimiter;
+    private final Map<TossOperation, CircuitBreaker> circuitBreakers = new EnumMap<>(TossOperation.class);
+    private final Map<TossOperation, Bulkhead> bulkheads = new EnumMap<>(TossOperation.class);
+    
+    public TossCallGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+                         BulkheadRegistry bulkheadRegistry,
+                         TossRateLimiter rateLimiter,
+                         PaymentMetrics paymentMetrics) {
+        this.paymentMetrics = paymentMetrics;
+        this.rateLimiter = rateLimiter;
+        for (TossOperation operation : TossOperation.values()) {
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(operation.getInstanceName());
+            circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                CircuitBreaker.StateTransition transition = event.getStateTransition();
+                log.warn("Toss {} circuit breaker transitioned {} -> {}", 
+                        operation.getInstanceName(), transition.getFromState(), transition.getToState());
+                paymentMetrics.incrementTossCircuitTransition(operation.getInstanceName(),
+                        transition.getFromState().name(), transition.getToState().name());
+            });
+            circuitBreakers.put(operation, circuitBreaker);
+            bulkheads.put(operation, bulkheadRegistry.bulkhead(operation.getInstanceName()));
+        }
+    }
+    
+    public <T> Mono<T> guard(TossOperation operation, Mono<T> call) {
+        return guard(operation, TossCallPriority.INTERACTIVE, call);
+    }
+    
+    /**
+     * 호출 한도 허가를 받은 뒤, 서킷과 벌크헤드 허가를 확인하고 call 을 실행한다
+     * 서킷이 바깥쪽이므로 열린 상태에서는 벌크헤드 자리를 차지하지 않는다
+     */
+    public <T> Mono<T> guard(TossOperation operation, TossCallPriority priority, Mono<T> call) {
+        Mono<T> guarded = call
+            .transformDeferred(BulkheadOperator.of(bulkheads.get(operation)))
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.get(operation)))
+            .onErrorMap(CallNotPermittedException.class, e -> reject(operation, "circuit_open", e))
+            .onErrorMap(BulkheadFullException.class, e -> reject(operation, "bulkhead_full", e));
+        return rateLimiter.acquire(operation, priority).then(guarded);
+    }
+    
+    public CircuitBreaker.State state(TossOperation operation) {
+        return circuitBreakers.get(operation).getState();
+    }
+    
+    private TossUnavailableException reject(TossOperation operation, String reason, Throwable cause) {
+        paymentMetrics.incrementTossCallRejected(operation.getInstanceName(), reason);
+        return new TossUnavailableException(operation, reason, cause);
+    }
+}
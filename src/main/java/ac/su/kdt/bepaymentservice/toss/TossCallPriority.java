@@ -0,0 +1,10 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+/**
+ * Toss 호출 대기열의 우선순위
+ * 사용자가 응답을 기다리는 호출(INTERACTIVE)을 배치 갱신 결제(BATCH)보다 먼저 내보낸다
+ */
+public enum TossCallPriority {
+    INTERACTIVE,
+    BATCH
+}
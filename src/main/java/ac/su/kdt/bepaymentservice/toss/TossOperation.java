@@ -0,0 +1,22 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+/**
+ * 서킷 브레이커/벌크헤드를 따로 두는 Toss 호출 단위
+ * instanceName 은 resilience4j.circuitbreaker.instances / resilience4j.bulkhead.instances 의 키와 같다
+ */
+public enum TossOperation {
+    CONFIRM("toss-confirm"),
+    BILLING_ISSUE("toss-billing-issue"),
+    AUTO_PAYMENT("toss-auto-payment"),
+    PAYMENT_LOOKUP("toss-payment-lookup");
+    
+    private final String instanceName;
+    
+    TossOperation(String instanceName) {
+        this.instanceName = instanceName;
+    }
+    
+    public String getInstanceName() {
+        return instanceName;
+    }
+}
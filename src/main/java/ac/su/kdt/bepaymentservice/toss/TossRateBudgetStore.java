@@ -0,0 +1,96 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * toss_rate_budget 테이블로 인스턴스 간 Toss 호출 예산을 나눈다 (공유 캐시 대신 쓰는 DB 기반 구현)
+ * 예산은 현재 사용량을 조건으로 건 UPDATE 로 여러 건을 한 번에 예약하므로 여러 인스턴스가 동시에 예약해도 구간당 한도를 넘지 않는다
+ * JDBC 를 호출하므로 TossRateLimiter 는 dispatcher 스레드가 아닌 작업 스레드에서 호출한다
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "toss.rate-limit.shared.enabled", havingValue = "true")
+public class TossRateBudgetStore {
+
+    private static final String USED_SQL =
+        "SELECT window_start, used FROM toss_rate_budget WHERE operation = ?";
+    private static final String TAKE_SQL =
+        "UPDATE toss_rate_budget SET used = used + ? WHERE operation = ? AND window_start = ? AND used = ?";
+    private static final String ROLL_WINDOW_SQL =
+        "UPDATE toss_rate_budget SET window_start = ?, used = ? WHERE operation = ? AND window_start < ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO toss_rate_budget (operation, window_start, used) VALUES (?, ?, ?)";
+    // 다른 인스턴스와 경합해 조건부 UPDATE 가 계속 실패하면 이번에는 예약하지 않는다
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 현재 1초 구간의 예산에서 최대 permits 건을 예약한다
+     * @return 예약한 건수 (이번 구간의 예산을 모두 썼으면 0)
+     */
+    public int reserve(String operation, int permitsPerSecond, int permits) {
+        return reserve(operation, permitsPerSecond, permits, currentWindow());
+    }
+
+    int reserve(String operation, int permitsPerSecond, int permits, long window) {
+        int wanted = Math.min(permits, permitsPerSecond);
+        if (wanted <= 0) {
+            return 0;
+        }
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            List<long[]> rows = jdbcTemplate.query(USED_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong("window_start"), rs.getLong("used")}, operation);
+            if (rows.isEmpty()) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, operation, window, wanted);
+                    return wanted;
+                } catch (DuplicateKeyException e) {
+                    // 다른 인스턴스가 방금 행을 만들었다
+                    continue;
+                }
+            }
+            long rowWindow = rows.get(0)[0];
+            long used = rows.get(0)[1];
+            if (rowWindow < window) {
+                if (jdbcTemplate.update(ROLL_WINDOW_SQL, window, wanted, operation, window) == 1) {
+                    return wanted;
+                }
+                continue;
+            }
+            if (rowWindow > window) {
+                // 다른 인스턴스가 이미 다음 구간을 쓰고 있다
+                return 0;
+            }
+            int granted = (int) Math.min(wanted, permitsPerSecond - used);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (jdbcTemplate.update(TAKE_SQL, granted, operation, window, used) == 1) {
+                return granted;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 예산 구간 번호 (epoch 초)
+     */
+    public long currentWindow() {
+        return Instant.now().getEpochSecond();
+    }
+
+    /**
+     * 다음 1초 구간이 시작될 때까지 남은 시간 (나노초)
+     */
+    public long nanosUntilNextWindow() {
+        return (1000L - System.currentTimeMillis() % 1000L) * 1_000_000L;
+    }
+}
@@ -0,0 +1,250 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Toss 호출 전 작업별 토큰 버킷에서 허가를 받는다 (Toss 요청 한도 보호)
+ *
+ * - 작업마다 초당 허가 수(permits-per-second)와 순간 허용량(burst)을 따로 둔다
+ * - 토큰이 없으면 대기열에서 기다리며, INTERACTIVE 를 우선하되 BATCH 도 interactive-weight 건마다 한 건씩 내보내 굶지 않게 한다
+ * - 대기열이 가득 차거나 max-wait-ms 안에 허가를 받지 못하면 TossUnavailableException 으로 거절한다
+ * - toss.rate-limit.shared.enabled=true 이면 TossRateBudgetStore 의 인스턴스 간 초당 예산도 함께 차감한다
+ *   공유 예산은 대기 중인 건수만큼 작업 스레드에서 한 번에 예약해 두고 dispatcher 는 예약분만 꺼내 쓴다
+ *
+ * 대기열과 버킷 상태는 전용 단일 스레드에서만 변경하므로 잠금이 없다
+ * 허가 이후의 후속 작업(블로킹 JPA 호출 포함)은 boundedElastic 에서 이어지므로 dispatcher 스레드를 붙잡지 않는다
+ * 대기열 길이는 toss.ratelimit.queue.depth, 허가까지 기다린 시간은 toss.ratelimit.wait.time 으로 게시된다
+ */
+@Component
+@Slf4j
+public class TossRateLimiter {
+
+    private static final String PREFIX = "toss.rate-limit.";
+    private static final long MIN_DRAIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PaymentMetrics paymentMetrics;
+    private final TossRateBudgetStore sharedBudget;
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final int interactiveWeight;
+    private final Scheduler dispatcher = Schedulers.newSingle("toss-rate-limiter", true);
+    private final Map<TossOperation, Lane> lanes = new EnumMap<>(TossOperation.class);
+
+    public TossRateLimiter(Environment environment,
+                           PaymentMetrics paymentMetrics,
+                           Optional<TossRateBudgetStore> sharedBudget) {
+        this.paymentMetrics = paymentMetrics;
+        this.sharedBudget = sharedBudget.orElse(null);
+        this.enabled = environment.getProperty(PREFIX + "enabled", Boolean.class, true);
+        this.maxWait = Duration.ofMillis(environment.getProperty(PREFIX + "max-wait-ms", Long.class, 5000L));
+        this.interactiveWeight = Math.max(1, environment.getProperty(PREFIX + "interactive-weight", Integer.class, 4));
+
+        for (TossOperation operation : TossOperation.values()) {
+            String base = PREFIX + operation.getInstanceName() + ".";
+            double permitsPerSecond = environment.getProperty(base + "permits-per-second", Double.class, 20.0);
+            int burst = environment.getProperty(base + "burst", Integer.class, (int) Math.ceil(permitsPerSecond));
+            int maxQueueSize = environment.getProperty(base + "max-queue-size", Integer.class, 1000);
+            Lane lane = new Lane(operation, permitsPerSecond, burst, maxQueueSize);
+            lanes.put(operation, lane);
+            paymentMetrics.registerTossRateLimitQueue(operation.getInstanceName(), lane.depth);
+        }
+    }
+
+    /**
+     * 허가를 받으면 값 없이 완료된다
+     * 구독을 취소하면(타임아웃 포함) 대기열에서 빠진다
+     */
+    public Mono<Void> acquire(TossOperation operation, TossCallPriority priority) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        Lane lane = lanes.get(operation);
+        return Mono.<Void>create(sink -> {
+                Waiter waiter = new Waiter(priority, sink, System.nanoTime());
+                sink.onCancel(() -> dispatcher.schedule(() -> lane.remove(waiter)));
+                dispatcher.schedule(() -> lane.offer(waiter));
+            })
+            .publishOn(Schedulers.boundedElastic())
+            .timeout(maxWait)
+            .onErrorMap(TimeoutException.class, e -> reject(operation, "rate_limit_timeout", e));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.dispose();
+    }
+
+    private TossUnavailableException reject(TossOperation operation, String reason, Throwable cause) {
+        paymentMetrics.incrementTossCallRejected(operation.getInstanceName(), reason);
+        return new TossUnavailableException(operation, reason, cause);
+    }
+
+    private record Waiter(TossCallPriority priority, MonoSink<Void> sink, long enqueuedAtNanos) {
+    }
+
+    /**
+     * 작업 하나의 토큰 버킷과 대기열 (dispatcher 스레드 전용)
+     */
+    private final class Lane {
+
+        private final TossOperation operation;
+        private final int sharedPermitsPerSecond;
+        private final double permitsPerNano;
+        private final double burst;
+        private final int maxQueueSize;
+        private final Deque<Waiter> interactive = new ArrayDeque<>();
+        private final Deque<Waiter> batch = new ArrayDeque<>();
+        private final AtomicInteger depth = new AtomicInteger();
+
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+        private int interactiveStreak;
+        private boolean drainScheduled;
+        private long sharedWindow;
+        private int sharedTokens;
+        private boolean reserving;
+
+        Lane(TossOperation operation, double permitsPerSecond, int burst, int maxQueueSize) {
+            this.operation = operation;
+            this.sharedPermitsPerSecond = (int) Math.ceil(permitsPerSecond);
+            this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+            this.burst = Math.max(1, burst);
+            this.maxQueueSize = maxQueueSize;
+            this.tokens = this.burst;
+        }
+
+        void offer(Waiter waiter) {
+            if (depth.get() >= maxQueueSize) {
+                waiter.sink().error(reject(operation, "rate_limit_queue_full", null));
+                return;
+            }
+            queue(waiter.priority()).addLast(waiter);
+            depth.incrementAndGet();
+            drain();
+        }
+
+        void remove(Waiter waiter) {
+            if (queue(waiter.priority()).remove(waiter)) {
+                depth.decrementAndGet();
+            }
+        }
+
+        void drain() {
+            refill();
+            while (depth.get() > 0 && tokens >= 1) {
+                if (sharedBudget != null && !takeShared()) {
+                    // 예약이 끝나면 onReserved 가 다시 drain 한다
+                    return;
+                }
+                Waiter waiter = next();
+                tokens -= 1;
+                depth.decrementAndGet();
+                paymentMetrics.recordTossRateLimitWait(operation.getInstanceName(), waiter.priority().name(),
+                    Duration.ofNanos(System.nanoTime() - waiter.enqueuedAtNanos()));
+                waiter.sink().success();
+            }
+            if (depth.get() > 0) {
+                scheduleDrain((long) Math.ceil((1 - tokens) / permitsPerNano));
+            }
+        }
+
+        /**
+         * 이번 구간에 예약해 둔 공유 예산에서 한 건을 꺼낸다. 없으면 예약을 시작하고 false
+         * 예약분은 예약한 구간 안에서만 쓴다 (다음 구간에 쓰면 그 구간의 한도를 넘을 수 있다)
+         */
+        private boolean takeShared() {
+            long window = sharedBudget.currentWindow();
+            if (window != sharedWindow) {
+                sharedWindow = window;
+                sharedTokens = 0;
+            }
+            if (sharedTokens > 0) {
+                sharedTokens--;
+                return true;
+            }
+            reserveShared(window);
+            return false;
+        }
+
+        private void reserveShared(long window) {
+            if (reserving) {
+                return;
+            }
+            reserving = true;
+            int wanted = Math.min(depth.get(), sharedPermitsPerSecond);
+            Schedulers.boundedElastic().schedule(() -> {
+                int granted;
+                try {
+                    granted = sharedBudget.reserve(operation.getInstanceName(), sharedPermitsPerSecond, wanted, window);
+                } catch (Exception e) {
+                    // 공유 예산을 확인할 수 없으면 인스턴스별 버킷만으로 제한한다
+                    log.warn("Shared Toss rate budget unavailable for {}: {}", operation.getInstanceName(), e.getMessage());
+                    granted = wanted;
+                }
+                int reserved = granted;
+                dispatcher.schedule(() -> onReserved(window, reserved));
+            });
+        }
+
+        private void onReserved(long window, int granted) {
+            reserving = false;
+            if (granted == 0) {
+                scheduleDrain(sharedBudget.nanosUntilNextWindow());
+                return;
+            }
+            if (window == sharedWindow) {
+                sharedTokens += granted;
+            }
+            drain();
+        }
+
+        private Waiter next() {
+            boolean takeBatch = !batch.isEmpty() && (interactive.isEmpty() || interactiveStreak >= interactiveWeight);
+            if (takeBatch) {
+                interactiveStreak = 0;
+                return batch.pollFirst();
+            }
+            interactiveStreak++;
+            return interactive.pollFirst();
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+        }
+
+        private void scheduleDrain(long delayNanos) {
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+            dispatcher.schedule(() -> {
+                drainScheduled = false;
+                drain();
+            }, Math.max(MIN_DRAIN_DELAY_NANOS, delayNanos), TimeUnit.NANOSECONDS);
+        }
+
+        private Deque<Waiter> queue(TossCallPriority priority) {
+            return priority == TossCallPriority.BATCH ? batch : interactive;
+        }
+    }
+}
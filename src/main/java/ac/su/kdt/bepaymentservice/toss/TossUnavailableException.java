@@ -0,0 +1,18 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+/**
+ * 서킷이 열려 있거나 동시 호출 한도를 넘어 Toss 를 호출하지 않고 바로 거절한 경우
+ */
+public class TossUnavailableException extends RuntimeException {
+    
+    private final TossOperation operation;
+    
+    public TossUnavailableException(TossOperation operation, String reason, Throwable cause) {
+        super("Toss " + operation.getInstanceName() + " rejected: " + reason, cause);
+        this.operation = operation;
+    }
+    
+    public TossOperation getOperation() {
+        return operation;
+    }
+}
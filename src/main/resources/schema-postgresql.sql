@@ -0,0 +1,44 @@
+-- ticket_transaction: monthly RANGE partitions on created_at (PostgreSQL only)
+-- Runs before Hibernate when spring.sql.init.mode=always and spring.sql.init.platform=postgresql (dev profile).
+-- Monthly partitions (ticket_transaction_pYYYYMM) are created and retired by TicketTransactionPartitionManager;
+-- rows outside every monthly range land in ticket_transaction_default.
+-- The primary key of a partitioned table must include the partition key, so it is (id, created_at).
+CREATE TABLE IF NOT EXISTS ticket_transaction (
+    id                 BIGSERIAL    NOT NULL,
+    user_id            BIGINT       NOT NULL,
+    transaction_type   VARCHAR(255) NOT NULL,
+    ticket_amount      INTEGER      NOT NULL,
+    balance_before     INTEGER      NOT NULL,
+    balance_after      INTEGER      NOT NULL,
+    related_attempt_id BIGINT,
+    reason             VARCHAR(500),
+    created_at         TIMESTAMP(6) NOT NULL,
+    journal_seq        BIGINT,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS ticket_transaction_default PARTITION OF ticket_transaction DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_ticket_transaction_user_created
+    ON ticket_transaction (user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_ticket_transaction_journal_seq
+    ON ticket_transaction (journal_seq);
+
+-- payment_event_outbox: Kafka events written in the same transaction as the business change (PostgreSQL only)
+-- Production runs ddl-auto=validate, so apply this DDL before deploying the outbox relay.
+-- The relay reads unsent rows (sent_at IS NULL) in id order and stamps sent_at after publishing.
+CREATE TABLE IF NOT EXISTS payment_event_outbox (
+    id          BIGINT       GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    topic       VARCHAR(100) NOT NULL,
+    event_id    VARCHAR(36)  NOT NULL,
+    event_type  VARCHAR(50)  NOT NULL,
+    user_id     BIGINT,
+    message_key VARCHAR(100),
+    payload     TEXT         NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    sent_at     TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_event_outbox_unsent
+    ON payment_event_outbox (sent_at, id);
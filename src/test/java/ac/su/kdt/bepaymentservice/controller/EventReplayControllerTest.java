@@ -0,0 +1,110 @@
+package ac.su.kdt.bepaymentservice.controller;
+
+import ac.su.kdt.bepaymentservice.kafka.ExternalEventDeadLetterReplayer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EventReplayController.class)
+@TestPropertySource(properties = {
+        "kafka.dlt.replay.api-enabled=true",
+        "kafka.dlt.replay.admin-user-ids=admin-1, admin-2"
+})
+@DisplayName("EventReplayController 통합 테스트")
+class EventReplayControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EventReplayController eventReplayController;
+    
+    @MockBean
+    private ExternalEventDeadLetterReplayer deadLetterReplayer;
+    
+    @Test
+    @DisplayName("DLT 재처리 API가 재발행한 건수를 반환한다")
+    void replayDeadLetters_Success() throws Exception {
+        // Given
+        given(deadLetterReplayer.replay("mission-events", 100)).willReturn(42);
+        
+        // When & Then
+        mockMvc.perform(post("/api/v1/events/dead-letters/replay")
+                        .param("topic", "mission-events")
+                        .param("maxRecords", "100")
+                        .requestAttr("gateway.user.id", "admin-2")
+                        .requestAttr("gateway.user.email", "admin-2@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.topic").value("mission-events"))
+                .andExpect(jsonPath("$.replayed").value(42));
+    }
+    
+    @Test
+    @DisplayName("재처리할 수 없는 토픽이면 400을 반환한다")
+    void replayDeadLetters_UnknownTopic_BadRequest() throws Exception {
+        // Given
+        given(deadLetterReplayer.replay("payment-events", 500))
+                .willThrow(new IllegalArgumentException("Not a replayable topic: payment-events"));
+        
+        // When & Then
+        mockMvc.perform(post("/api/v1/events/dead-letters/replay")
+                        .param("topic", "payment-events")
+                        .requestAttr("gateway.user.id", "admin-1")
+                        .requestAttr("gateway.user.email", "admin-1@example.com"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+    
+    @Test
+    @DisplayName("Gateway 인증 정보가 없으면 401을 반환하고 재처리하지 않는다")
+    void replayDeadLetters_Unauthenticated_Unauthorized() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/events/dead-letters/replay")
+                        .param("topic", "mission-events"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.success").value(false));
+        verifyNoInteractions(deadLetterReplayer);
+    }
+    
+    @Test
+    @DisplayName("운영자로 등록되지 않은 사용자면 403을 반환하고 재처리하지 않는다")
+    void replayDeadLetters_NotAdmin_Forbidden() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/events/dead-letters/replay")
+                        .param("topic", "mission-events")
+                        .requestAttr("gateway.user.id", "user-1")
+                        .requestAttr("gateway.user.email", "user-1@example.com"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.success").value(false));
+        verifyNoInteractions(deadLetterReplayer);
+    }
+    
+    @Test
+    @DisplayName("재처리 API 가 꺼져 있으면 운영자 요청도 404를 반환한다")
+    void replayDeadLetters_Disabled_NotFound() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(eventReplayController, "apiEnabled", false);
+        
+        try {
+            // When & Then
+            mockMvc.perform(post("/api/v1/events/dead-letters/replay")
+                            .param("topic", "mission-events")
+                            .requestAttr("gateway.user.id", "admin-1")
+                            .requestAttr("gateway.user.email", "admin-1@example.com"))
+                    .andExpect(status().isNotFound());
+            verifyNoInteractions(deadLetterReplayer);
+        } finally {
+            ReflectionTestUtils.setField(eventReplayController, "apiEnabled", true);
+        }
+    }
+}
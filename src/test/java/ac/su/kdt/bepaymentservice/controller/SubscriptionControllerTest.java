@@ -2,6 +2,7 @@ package ac.su.kdt.bepaymentservice.controller;
 
 import ac.su.kdt.bepaymentservice.dto.CreateSubscriptionRequest;
 import ac.su.kdt.bepaymentservice.dto.SubscriptionDto;
+import ac.su.kdt.bepaymentservice.dto.SubscriptionHistoryPage;
 import ac.su.kdt.bepaymentservice.dto.SubscriptionPlanDto;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
@@ -173,9 +174,9 @@ class SubscriptionControllerTest {
     @DisplayName("사용자 구독 목록 조회 API가 정상적으로 동작한다")
     void getUserSubscriptions_Success() throws Exception {
         // Given
-        List<SubscriptionDto> subscriptions = List.of(testSubscriptionDto);
-        given(subscriptionService.getUserSubscriptions(1L))
-                .willReturn(subscriptions);
+        SubscriptionHistoryPage page = new SubscriptionHistoryPage(List.of(testSubscriptionDto), null);
+        given(subscriptionService.getUserSubscriptions(1L, null, 20))
+                .willReturn(page);
         
         // When & Then
         mockMvc.perform(get("/api/v1/subscriptions/users/1"))
@@ -185,7 +186,7 @@ class SubscriptionControllerTest {
                 .andExpect(jsonPath("$[0].userId").value(1L))
                 .andExpect(jsonPath("$[0].status").value("ACTIVE"));
         
-        verify(subscriptionService).getUserSubscriptions(1L);
+        verify(subscriptionService).getUserSubscriptions(1L, null, 20);
     }
     
     @Test
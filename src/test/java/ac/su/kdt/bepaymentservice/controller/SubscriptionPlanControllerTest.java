@@ -0,0 +1,80 @@
+package ac.su.kdt.bepaymentservice.controller;
+
+import ac.su.kdt.bepaymentservice.dto.SubscriptionPlanDto;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.service.SubscriptionPlanCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SubscriptionPlanController.class)
+@DisplayName("SubscriptionPlanController 통합 테스트")
+class SubscriptionPlanControllerTest {
+
+    private static final String ETAG = "\"5d41402abc4b2a76b9719d911017c592\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SubscriptionPlanCache subscriptionPlanCache;
+
+    @Test
+    @DisplayName("활성 플랜 목록을 ETag 와 함께 반환한다")
+    void getAllActivePlans_ReturnsPlansWithETag() throws Exception {
+        // Given
+        given(subscriptionPlanCache.getActivePlans()).willReturn(List.of(economyPlan()));
+        given(subscriptionPlanCache.getActivePlansETag()).willReturn(ETAG);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/subscription-plans"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(jsonPath("$[0].planType").value("ECONOMY_CLASS"));
+    }
+
+    @Test
+    @DisplayName("If-None-Match 가 현재 ETag 와 같으면 본문 없이 304를 반환한다")
+    void getAllActivePlans_MatchingETag_NotModified() throws Exception {
+        // Given
+        given(subscriptionPlanCache.getActivePlans()).willReturn(List.of(economyPlan()));
+        given(subscriptionPlanCache.getActivePlansETag()).willReturn(ETAG);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/subscription-plans")
+                        .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("활성 플랜이 아니면 404를 반환한다")
+    void getPlan_NotActive_NotFound() throws Exception {
+        // Given
+        given(subscriptionPlanCache.findActivePlan(3L)).willReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/subscription-plans/3"))
+                .andExpect(status().isNotFound());
+    }
+
+    private SubscriptionPlanDto economyPlan() {
+        return SubscriptionPlanDto.builder()
+                .id(1L)
+                .planName("Economy Class")
+                .planType(SubscriptionPlan.PlanType.ECONOMY_CLASS)
+                .isActive(true)
+                .build();
+    }
+}
@@ -1,6 +1,10 @@
 package ac.su.kdt.bepaymentservice.controller;
 
 import ac.su.kdt.bepaymentservice.dto.TicketDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionPage;
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import ac.su.kdt.bepaymentservice.service.TicketHistoryService;
 import ac.su.kdt.bepaymentservice.service.TicketService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +16,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.*;
@@ -31,6 +36,9 @@ class TicketControllerTest {
     @MockBean
     private TicketService ticketService;
     
+    @MockBean
+    private TicketHistoryService ticketHistoryService;
+    
     private TicketDto testTicketDto;
     
     @BeforeEach
@@ -276,4 +284,42 @@ class TicketControllerTest {
         verify(ticketService).useTickets(1L, 1, null, null);
         verify(ticketService).getUserTickets(1L);
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("티켓 거래 내역 API는 다음 페이지 커서를 헤더로 돌려준다")
+    void getTicketTransactions_ReturnsNextCursorHeader() throws Exception {
+        // Given
+        TicketTransactionDto transaction = TicketTransactionDto.builder()
+                .id(10L)
+                .userId(1L)
+                .transactionType(TicketTransaction.TicketTransactionType.SPENT)
+                .ticketAmount(-1)
+                .createdAt(LocalDateTime.now())
+                .build();
+        given(ticketHistoryService.getTransactions(anyLong(), eq("cursor-1"), eq(1)))
+                .willReturn(new TicketTransactionPage(List.of(transaction), "cursor-2"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/v1/tickets/users/user-1/transactions")
+                        .param("after", "cursor-1")
+                        .param("limit", "1")
+                        .requestAttr("gateway.user.id", "user-1")
+                        .requestAttr("gateway.user.email", "user-1@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "cursor-2"))
+                .andExpect(jsonPath("$[0].id").value(10L))
+                .andExpect(jsonPath("$[0].transactionType").value("SPENT"));
+    }
+    
+    @Test
+    @DisplayName("다른 사용자의 거래 내역은 내보낼 수 없다")
+    void exportTicketTransactions_OtherUser_Forbidden() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/tickets/users/user-2/transactions/export")
+                        .requestAttr("gateway.user.id", "user-1")
+                        .requestAttr("gateway.user.email", "user-1@example.com"))
+                .andExpect(status().isForbidden());
+        
+        verifyNoInteractions(ticketHistoryService);
+    }
+}
@@ -1,19 +1,30 @@
 package ac.su.kdt.bepaymentservice.controller;
 
+import ac.su.kdt.bepaymentservice.service.IdempotencyConflictException;
+import ac.su.kdt.bepaymentservice.service.PaymentIdempotencyService;
+import ac.su.kdt.bepaymentservice.service.PaymentRecordingService;
 import ac.su.kdt.bepaymentservice.service.TossPaymentsService;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
 import ac.su.kdt.bepaymentservice.toss.dto.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import reactor.core.publisher.Mono;
 
+import java.util.function.Supplier;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,6 +40,22 @@ class TossPaymentsControllerTest {
     @MockBean
     private TossPaymentsService tossPaymentsService;
 
+    @MockBean
+    private PaymentIdempotencyService paymentIdempotencyService;
+
+    @MockBean
+    private PaymentRecordingService paymentRecordingService;
+
+    @BeforeEach
+    void setUp() {
+        // 멱등성 처리는 PaymentIdempotencyServiceTest 에서 검증하고, 여기서는 호출을 그대로 통과시킨다
+        when(paymentIdempotencyService.execute(any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<Mono<?>>>getArgument(4).get());
+        // 거래 기록은 PaymentRecordingServiceTest 에서 검증한다
+        when(paymentRecordingService.recordPayment(any(), any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(2));
+    }
+
     @Test
     void issueBillingKey_Success() throws Exception {
         // Given
@@ -42,9 +69,13 @@ class TossPaymentsControllerTest {
             .thenReturn(Mono.just(response));
 
         // When & Then
-        mockMvc.perform(post("/api/toss/billing/issue")
+        MvcResult result = mockMvc.perform(post("/api/toss/billing/issue")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.customerKey").value("test_customer_key"))
                 .andExpect(jsonPath("$.billingKey").value("test_billing_key"))
@@ -62,9 +93,13 @@ class TossPaymentsControllerTest {
             .thenReturn(Mono.error(new RuntimeException("API Error")));
 
         // When & Then
-        mockMvc.perform(post("/api/toss/billing/issue")
+        MvcResult result = mockMvc.perform(post("/api/toss/billing/issue")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest());
     }
 
@@ -85,9 +120,13 @@ class TossPaymentsControllerTest {
             .thenReturn(Mono.just(response));
 
         // When & Then
-        mockMvc.perform(post("/api/toss/billing/test_billing_key/payment")
+        MvcResult result = mockMvc.perform(post("/api/toss/billing/test_billing_key/payment")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.orderId").value("test_order_id"))
                 .andExpect(jsonPath("$.orderName").value("Test Order"))
@@ -107,12 +146,172 @@ class TossPaymentsControllerTest {
             .thenReturn(Mono.error(new RuntimeException("Payment Error")));
 
         // When & Then
-        mockMvc.perform(post("/api/toss/billing/test_billing_key/payment")
+        MvcResult result = mockMvc.perform(post("/api/toss/billing/test_billing_key/payment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void issueBillingKey_ServiceThrows_ReturnsBadRequest() throws Exception {
+        // Given
+        BillingKeyRequest request = new BillingKeyRequest();
+        request.setAuthKey("test_auth_key");
+        request.setCustomerKey("test_customer_key");
+
+        when(tossPaymentsService.issueBillingKey(any(BillingKeyRequest.class)))
+            .thenThrow(new IllegalStateException("Billing key store unavailable"));
+
+        // When & Then
+        MvcResult result = mockMvc.perform(post("/api/toss/billing/issue")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void confirmPayment_TossUnavailable_ReturnsServiceUnavailable() throws Exception {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+
+        when(tossPaymentsService.confirmPayment(any(ConfirmRequest.class)))
+            .thenReturn(Mono.error(new TossUnavailableException(TossOperation.CONFIRM, "circuit_open", null)));
+
+        // When & Then
+        MvcResult result = mockMvc.perform(post("/api/toss/payments/confirm")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void confirmPayment_Success() throws Exception {
+        // Given
+        ConfirmRequest request = new ConfirmRequest();
+        request.setPaymentKey("test_payment_key");
+        request.setOrderId("test_order_id");
+        request.setAmount(10000L);
+
+        when(tossPaymentsService.confirmPayment(any(ConfirmRequest.class)))
+            .thenReturn(Mono.just(createMockPaymentResponse()));
+
+        // When & Then
+        MvcResult result = mockMvc.perform(post("/api/toss/payments/confirm")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentKey").value("test_payment_key"))
+                .andExpect(jsonPath("$.status").value("DONE"));
+    }
+
+    @Test
+    void confirmPayment_PassesIdempotencyKeyHeader() throws Exception {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+
+        when(tossPaymentsService.confirmPayment(any(ConfirmRequest.class)))
+            .thenReturn(Mono.just(createMockPaymentResponse()));
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/toss/payments/confirm")
+                .header(TossPaymentsController.IDEMPOTENCY_KEY_HEADER, "idem-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // Then
+        verify(paymentIdempotencyService).execute(eq(TossOperation.CONFIRM), eq("idem-1"), eq(PaymentResponse.class), any());
+    }
+
+    @Test
+    void processAutoPayment_WithoutHeader_UsesOrderIdAsIdempotencyKey() throws Exception {
+        // Given
+        AutoPaymentRequest request = new AutoPaymentRequest();
+        request.setAmount(10000L);
+        request.setCustomerKey("test_customer_key");
+        request.setOrderId("test_order_id");
+        request.setOrderName("Test Order");
+
+        when(tossPaymentsService.processAutoPayment(eq("test_billing_key"), any(AutoPaymentRequest.class)))
+            .thenReturn(Mono.just(createMockPaymentResponse()));
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/toss/billing/test_billing_key/payment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // Then
+        verify(paymentIdempotencyService).execute(eq(TossOperation.AUTO_PAYMENT), eq("test_order_id"), eq(PaymentResponse.class), any());
+    }
+
+    @Test
+    void confirmPayment_RecordsResultForSubscription() throws Exception {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+
+        when(tossPaymentsService.confirmPayment(any(ConfirmRequest.class)))
+            .thenReturn(Mono.just(createMockPaymentResponse()));
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/toss/payments/confirm")
+                .param("subscriptionId", "7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // Then
+        verify(paymentRecordingService).recordPayment(eq(7L), eq(10000L), any());
+    }
+
+    @Test
+    void confirmPayment_DuplicateInProgress_ReturnsConflict() throws Exception {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+
+        when(paymentIdempotencyService.execute(eq(TossOperation.CONFIRM), any(), any(), any(), any()))
+            .thenReturn(Mono.error(new IdempotencyConflictException("toss-confirm:idem-2")));
+
+        // When & Then
+        MvcResult result = mockMvc.perform(post("/api/toss/payments/confirm")
+                .header(TossPaymentsController.IDEMPOTENCY_KEY_HEADER, "idem-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict());
+    }
+
     private BillingResponse createMockBillingResponse() {
         BillingResponse response = new BillingResponse();
         response.setMId("test_mid");
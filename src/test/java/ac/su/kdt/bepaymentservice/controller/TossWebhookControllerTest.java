@@ -0,0 +1,93 @@
+package ac.su.kdt.bepaymentservice.controller;
+
+import ac.su.kdt.bepaymentservice.service.TossWebhookService;
+import ac.su.kdt.bepaymentservice.service.WebhookVerificationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TossWebhookController.class)
+@DisplayName("TossWebhookController 통합 테스트")
+class TossWebhookControllerTest {
+
+    private static final String PAYLOAD =
+            "{\"eventType\":\"PAYMENT_STATUS_CHANGED\",\"data\":{\"paymentKey\":\"pk-1\",\"status\":\"DONE\"}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TossWebhookService tossWebhookService;
+
+    @Test
+    @DisplayName("웹훅을 저장하면 서명 헤더와 함께 전달하고 200을 반환한다")
+    void receive_Accepted() throws Exception {
+        // Given
+        given(tossWebhookService.receive(PAYLOAD, "v1:abc", "2024-01-01T00:00:00+09:00"))
+                .willReturn(TossWebhookService.Receipt.ACCEPTED);
+
+        // When & Then
+        mockMvc.perform(post("/api/toss/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(TossWebhookService.SIGNATURE_HEADER, "v1:abc")
+                        .header(TossWebhookService.TRANSMISSION_TIME_HEADER, "2024-01-01T00:00:00+09:00")
+                        .content(PAYLOAD))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.duplicate").value(false));
+    }
+
+    @Test
+    @DisplayName("이미 받은 웹훅도 200을 반환해 재전송을 멈춘다")
+    void receive_Duplicate_Ok() throws Exception {
+        // Given
+        given(tossWebhookService.receive(eq(PAYLOAD), isNull(), isNull()))
+                .willReturn(TossWebhookService.Receipt.DUPLICATE);
+
+        // When & Then
+        mockMvc.perform(post("/api/toss/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(PAYLOAD))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duplicate").value(true));
+    }
+
+    @Test
+    @DisplayName("서명이 맞지 않으면 401을 반환한다")
+    void receive_InvalidSignature_Unauthorized() throws Exception {
+        // Given
+        given(tossWebhookService.receive(any(), any(), any()))
+                .willThrow(new WebhookVerificationException("Invalid Toss webhook signature"));
+
+        // When & Then
+        mockMvc.perform(post("/api/toss/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(PAYLOAD))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    @DisplayName("필수 필드가 없는 본문이면 400을 반환한다")
+    void receive_InvalidPayload_BadRequest() throws Exception {
+        // Given
+        given(tossWebhookService.receive(any(), any(), any()))
+                .willThrow(new IllegalArgumentException("Toss webhook payload requires eventType, data.paymentKey and data.status"));
+
+        // When & Then
+        mockMvc.perform(post("/api/toss/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+}
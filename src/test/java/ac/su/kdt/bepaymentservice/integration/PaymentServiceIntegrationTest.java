@@ -6,6 +6,7 @@ import ac.su.kdt.bepaymentservice.dto.TicketDto;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
 import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import ac.su.kdt.bepaymentservice.service.SubscriptionPlanCache;
 import ac.su.kdt.bepaymentservice.service.SubscriptionService;
 import ac.su.kdt.bepaymentservice.service.TicketService;
 import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
@@ -40,6 +41,9 @@ class PaymentServiceIntegrationTest {
     @Autowired
     private SubscriptionPlanRepository subscriptionPlanRepository;
     
+    @Autowired
+    private SubscriptionPlanCache subscriptionPlanCache;
+    
     private SubscriptionPlan testPlan;
     
     @BeforeEach
@@ -58,6 +62,7 @@ class PaymentServiceIntegrationTest {
                 .build();
         
         testPlan = subscriptionPlanRepository.save(testPlan);
+        subscriptionPlanCache.invalidate();
     }
     
     @Test
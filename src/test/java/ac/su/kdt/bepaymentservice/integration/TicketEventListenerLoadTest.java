@@ -0,0 +1,146 @@
+package ac.su.kdt.bepaymentservice.integration;
+
+import ac.su.kdt.bepaymentservice.kafka.ExternalEvent;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.service.TicketService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * 기본 test 태스크에서는 제외되는 부하 테스트 (./gradlew loadTest 로 실행)
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest
+@EmbeddedKafka(
+        partitions = 4,
+        topics = {"load-user-events", "load-mission-events"},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers"
+)
+@TestPropertySource(properties = {
+        "kafka.topic.user-events=load-user-events",
+        "kafka.topic.mission-events=load-mission-events",
+        "spring.kafka.consumer.group-id=ticket-event-load-test",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "kafka.listener.mission-events.concurrency=4",
+        "kafka.listener.mission-events.max-poll-records=500"
+})
+@DisplayName("TicketEventListener 배치 처리 부하 테스트")
+class TicketEventListenerLoadTest {
+    
+    private static final String MISSION_TOPIC = "load-mission-events";
+    private static final int EVENT_COUNT = 5_000;
+    private static final int USER_COUNT = 50;
+    
+    @MockBean
+    private TicketService ticketService;
+    
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+    
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+    
+    @Test
+    @DisplayName("미션 완료 이벤트 폭주를 사용자별 합산 지급으로 처리하고 lag 을 모두 소진한다")
+    void missionCompletedBurst_DrainsLagWithNetAdjustments() throws Exception {
+        // Given
+        AtomicInteger grantedTickets = new AtomicInteger();
+        AtomicInteger adjustCalls = new AtomicInteger();
+        willAnswer(invocation -> {
+            grantedTickets.addAndGet(invocation.getArgument(1));
+            adjustCalls.incrementAndGet();
+            return null;
+        }).given(ticketService).adjustTickets(anyLong(), anyInt(), anyString());
+        
+        // When - 사용자 키로 파티셔닝된 미션 완료 이벤트를 한꺼번에 발행 (EASY = 1 티켓)
+        long startedAt = System.nanoTime();
+        try (Producer<String, ExternalEvent> producer = createProducer()) {
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                long userId = i % USER_COUNT + 1;
+                producer.send(new ProducerRecord<>(MISSION_TOPIC, String.valueOf(userId), missionCompleted(i, userId)));
+            }
+            producer.flush();
+        }
+        
+        // Then
+        await().atMost(Duration.ofSeconds(60)).untilAsserted(() ->
+                assertThat(grantedTickets.get()).isEqualTo(EVENT_COUNT));
+        Duration drainTime = Duration.ofNanos(System.nanoTime() - startedAt);
+        
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(consumerLag()).isZero());
+        assertThat(adjustCalls.get()).isLessThan(EVENT_COUNT);
+        
+        log.info("Drained {} mission events in {} ms with {} ticket adjustments",
+                EVENT_COUNT, drainTime.toMillis(), adjustCalls.get());
+    }
+    
+    private Producer<String, ExternalEvent> createProducer() {
+        Map<String, Object> props = KafkaTestUtils.producerProps(embeddedKafkaBroker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return new DefaultKafkaProducerFactory<String, ExternalEvent>(props).createProducer();
+    }
+    
+    private long consumerLag() throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString()))) {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin
+                    .listConsumerGroupOffsets("ticket-event-load-test")
+                    .partitionsToOffsetAndMetadata().get();
+            Map<TopicPartition, OffsetSpec> latestSpec = committed.keySet().stream()
+                    .filter(partition -> partition.topic().equals(MISSION_TOPIC))
+                    .collect(Collectors.toMap(Function.identity(), partition -> OffsetSpec.latest()));
+            if (latestSpec.size() < embeddedKafkaBroker.getPartitionsPerTopic()) {
+                return Long.MAX_VALUE;
+            }
+            return admin.listOffsets(latestSpec).all().get().entrySet().stream()
+                    .mapToLong(entry -> entry.getValue().offset() - committed.get(entry.getKey()).offset())
+                    .sum();
+        }
+    }
+    
+    private ExternalEvent missionCompleted(int sequence, long userId) {
+        return ExternalEvent.builder()
+                .eventId("load-" + sequence)
+                .eventType("mission.completed")
+                .userId(userId)
+                .timestamp(LocalDateTime.now())
+                .data(Map.of("difficulty", "EASY"))
+                .build();
+    }
+}
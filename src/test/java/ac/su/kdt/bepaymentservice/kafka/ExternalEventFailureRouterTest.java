@@ -0,0 +1,136 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.DeserializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExternalEventFailureRouter 테스트")
+class ExternalEventFailureRouterTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    private ExternalEventFailureRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new ExternalEventFailureRouter(kafkaTemplate, paymentMetrics);
+        lenient().when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    @DisplayName("일시적인 처리 실패는 재시도 토픽으로 보낸다")
+    void route_ProcessingFailure_SendsToRetryTopic() {
+        // Given
+        ConsumerRecord<String, ExternalEvent> record = record(event("mission.completed"));
+
+        // When
+        router.route(record, new RuntimeException("db timeout"));
+
+        // Then
+        ProducerRecord<String, Object> sent = captureSent();
+        assertThat(sent.topic()).isEqualTo("mission-events.retry");
+        assertThat(sent.key()).isEqualTo("1");
+        assertThat(sent.value()).isSameAs(record.value());
+        assertThat(new String(sent.headers().lastHeader(ExternalEventFailureRouter.FAILURE_CAUSE_HEADER).value(),
+                StandardCharsets.UTF_8)).isEqualTo("PROCESSING");
+        verify(paymentMetrics).incrementKafkaEventFailure("mission.completed", "PROCESSING");
+    }
+
+    @Test
+    @DisplayName("알 수 없는 이벤트 타입은 재시도 없이 DLT 로 보낸다")
+    void route_UnknownEventType_SendsToDeadLetterTopic() {
+        // Given
+        ConsumerRecord<String, ExternalEvent> record = record(event("mission.abandoned"));
+
+        // When
+        router.route(record, new UnknownEventTypeException("mission.abandoned"));
+
+        // Then
+        assertThat(captureSent().topic()).isEqualTo("mission-events.retry-dlt");
+        verify(paymentMetrics).incrementKafkaEventFailure("mission.abandoned", "UNKNOWN_EVENT_TYPE");
+    }
+
+    @Test
+    @DisplayName("역직렬화에 실패한 레코드는 원본 바이트를 DLT 로 보낸다")
+    void routeUndeserializable_SendsRawBytes() {
+        // Given
+        byte[] payload = "{broken".getBytes(StandardCharsets.UTF_8);
+        ConsumerRecord<String, ExternalEvent> record = new ConsumerRecord<>("user-events", 0, 3L, "1", null);
+
+        // When
+        router.routeUndeserializable(record, new DeserializationException("bad", payload, false, new RuntimeException()));
+
+        // Then
+        ProducerRecord<String, Object> sent = captureSent();
+        assertThat(sent.topic()).isEqualTo("user-events.retry-dlt");
+        assertThat(sent.value()).isEqualTo(payload);
+        verify(paymentMetrics).incrementKafkaEventFailure("unknown", "DESERIALIZATION");
+    }
+
+    @Test
+    @DisplayName("전송에 실패하면 예외를 던져 배치가 커밋되지 않게 한다")
+    void route_SendFails_Throws() {
+        // Given
+        given(kafkaTemplate.send(any(ProducerRecord.class)))
+                .willReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        // When & Then
+        assertThatThrownBy(() -> router.route(record(event("user.registered")), new RuntimeException("boom")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("원인 체인을 따라 실패 원인을 분류한다")
+    void classify_WalksCauseChain() {
+        assertThat(EventFailureCause.classify(new RuntimeException(new UnknownEventTypeException("x"))))
+                .isEqualTo(EventFailureCause.UNKNOWN_EVENT_TYPE);
+        assertThat(EventFailureCause.classify(new NullPointerException()))
+                .isEqualTo(EventFailureCause.INVALID_EVENT);
+        assertThat(EventFailureCause.classify(new IllegalStateException("lock timeout")))
+                .isEqualTo(EventFailureCause.PROCESSING);
+        assertThat(EventFailureCause.PROCESSING.isRetryable()).isTrue();
+        assertThat(EventFailureCause.INVALID_EVENT.isRetryable()).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, Object> captureSent() {
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private ExternalEvent event(String eventType) {
+        return ExternalEvent.builder()
+                .eventId("evt-1")
+                .eventType(eventType)
+                .userId(1L)
+                .data(new HashMap<>())
+                .build();
+    }
+
+    private ConsumerRecord<String, ExternalEvent> record(ExternalEvent event) {
+        String topic = event.getEventType().startsWith("mission") ? "mission-events" : "user-events";
+        return new ConsumerRecord<>(topic, 0, 5L, "1", event);
+    }
+}
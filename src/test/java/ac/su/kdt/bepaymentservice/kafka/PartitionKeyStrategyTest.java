@@ -0,0 +1,44 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PartitionKeyStrategy 테스트")
+class PartitionKeyStrategyTest {
+
+    @Test
+    @DisplayName("선택한 식별자를 메시지 키로 사용한다")
+    void keyFor_UsesConfiguredId() {
+        // Given
+        PaymentEvent event = PaymentEvent.builder()
+                .userId(1L)
+                .teamId(100L)
+                .data(Map.of("subscriptionId", 10L))
+                .build();
+
+        // When & Then
+        assertThat(PartitionKeyStrategy.USER_ID.keyFor(event)).isEqualTo("1");
+        assertThat(PartitionKeyStrategy.TEAM_ID.keyFor(event)).isEqualTo("100");
+        assertThat(PartitionKeyStrategy.SUBSCRIPTION_ID.keyFor(event)).isEqualTo("10");
+        assertThat(PartitionKeyStrategy.NONE.keyFor(event)).isNull();
+    }
+
+    @Test
+    @DisplayName("선택한 식별자가 없는 이벤트는 userId 로 대체하여 사용자 단위 순서를 유지한다")
+    void keyFor_MissingId_FallsBackToUserId() {
+        // Given
+        PaymentEvent ticketsUsed = PaymentEvent.builder()
+                .eventType(PaymentEvent.EventType.TICKETS_USED.name())
+                .userId(7L)
+                .data(Map.of("ticketsUsed", 1, "remainingBalance", 2))
+                .build();
+
+        // When & Then
+        assertThat(PartitionKeyStrategy.TEAM_ID.keyFor(ticketsUsed)).isEqualTo("7");
+        assertThat(PartitionKeyStrategy.SUBSCRIPTION_ID.keyFor(ticketsUsed)).isEqualTo("7");
+    }
+}
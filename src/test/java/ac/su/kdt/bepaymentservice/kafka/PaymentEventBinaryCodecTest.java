@@ -0,0 +1,162 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PaymentEvent 바이너리 인코딩 테스트")
+class PaymentEventBinaryCodecTest {
+
+    @Test
+    @DisplayName("스키마에 등록된 이벤트를 손실 없이 인코딩/디코딩한다")
+    void encodeDecode_SchemaEvent_RoundTrips() {
+        // Given
+        PaymentEvent event = event("SUBSCRIPTION_CREATED", Map.of(
+                "subscriptionId", 3001L, "planId", 2L, "planType", "PRO", "billingCycle", "MONTHLY",
+                "amount", new BigDecimal("29900.00"), "currency", "KRW", "status", "ACTIVE"));
+
+        // When
+        PaymentEvent decoded = PaymentEventBinaryCodec.decode(PaymentEventBinaryCodec.encode(event));
+
+        // Then
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("스키마에 없는 키, 타입이 다른 값, null 값과 알 수 없는 이벤트 타입도 보존한다")
+    void encodeDecode_ExtrasAndUnknownType_Preserved() {
+        // Given
+        Map<String, Object> data = new HashMap<>();
+        data.put("ticketsUsed", 2L);
+        data.put("remainingBalance", 3);
+        data.put("reason", null);
+        data.put("ratio", 0.5);
+        PaymentEvent ticketsUsed = event("TICKETS_USED", data);
+        PaymentEvent custom = event("CUSTOM_EVENT", Map.of("note", "hello", "flag", true));
+        custom.setEventId("not-a-uuid");
+        custom.setTeamId(null);
+
+        // When & Then
+        assertThat(PaymentEventBinaryCodec.decode(PaymentEventBinaryCodec.encode(ticketsUsed))).isEqualTo(ticketsUsed);
+        assertThat(PaymentEventBinaryCodec.decode(PaymentEventBinaryCodec.encode(custom))).isEqualTo(custom);
+    }
+
+    @Test
+    @DisplayName("아웃박스 JSON 에서 복원된 이벤트도 Long/날짜/금액 필드를 스키마 필드로 인코딩한다")
+    void encodeDecode_OutboxJsonRestoredEvent_UsesSchemaFields() {
+        // Given - Map 으로 복원되면 작은 Long 은 Integer, 날짜는 문자열/배열, 정수 금액은 Integer 가 된다
+        PaymentEvent original = event("PAYMENT_SUCCEEDED", Map.of(
+                "transactionId", 42L, "subscriptionId", 3001L, "amount", new BigDecimal("29900"),
+                "currency", "KRW", "paymentMethod", "CARD", "stripePaymentIntentId", "pi_123"));
+        PaymentEvent cancelled = event("SUBSCRIPTION_CANCELLED", Map.of(
+                "subscriptionId", 3001L, "cancelAtPeriodEnd", true,
+                "canceledAt", LocalDateTime.of(2024, 5, 1, 9, 0, 30)));
+        PaymentEvent restored = PaymentEventJson.read(PaymentEventJson.write(original));
+        PaymentEvent restoredCancelled = PaymentEventJson.read(PaymentEventJson.write(cancelled));
+        assertThat(restored.getData().get("transactionId")).isInstanceOf(Integer.class);
+
+        // When
+        byte[] encoded = PaymentEventBinaryCodec.encode(restored);
+        PaymentEvent decoded = PaymentEventBinaryCodec.decode(encoded);
+        PaymentEvent decodedCancelled = PaymentEventBinaryCodec.decode(PaymentEventBinaryCodec.encode(restoredCancelled));
+
+        // Then - extras 없이 원래 이벤트와 같은 바이트로 인코딩되고 타입도 복원된다
+        assertThat(encoded).isEqualTo(PaymentEventBinaryCodec.encode(original));
+        assertThat(decoded).isEqualTo(original);
+        assertThat(decoded.getData().get("transactionId")).isEqualTo(42L);
+        assertThat(decoded.getData().get("amount")).isEqualTo(new BigDecimal("29900"));
+        assertThat(decodedCancelled).isEqualTo(cancelled);
+        assertThat(decodedCancelled.getData().get("canceledAt")).isEqualTo(LocalDateTime.of(2024, 5, 1, 9, 0, 30));
+    }
+
+    @Test
+    @DisplayName("바이너리 페이로드는 JSON 보다 작다")
+    void encode_SmallerThanJson() {
+        // Given
+        PaymentEvent event = event("TICKETS_USED", Map.of("ticketsUsed", 1, "remainingBalance", 4));
+
+        // When
+        byte[] binary = PaymentEventBinaryCodec.encode(event);
+        byte[] json = PaymentEventJson.write(event).getBytes(StandardCharsets.UTF_8);
+
+        // Then
+        assertThat(binary.length).isLessThan(json.length / 3);
+    }
+
+    @Test
+    @DisplayName("지원하지 않는 버전이나 잘린 페이로드는 거부한다")
+    void decode_InvalidPayload_Rejected() {
+        // Given
+        byte[] encoded = PaymentEventBinaryCodec.encode(event("TICKETS_USED", Map.of("ticketsUsed", 1)));
+        byte[] newerVersion = encoded.clone();
+        newerVersion[0] = (byte) (PaymentEventBinaryCodec.VERSION + 1);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 2);
+
+        // When & Then
+        assertThatThrownBy(() -> PaymentEventBinaryCodec.decode(newerVersion))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+        assertThatThrownBy(() -> PaymentEventBinaryCodec.decode(truncated))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("설정된 토픽만 바이너리로 보내고 헤더로 인코딩을 알린다")
+    void serializer_BinaryOnlyForConfiguredTopics() {
+        // Given
+        PaymentEventSerializer serializer = new PaymentEventSerializer();
+        serializer.configure(Map.of(PaymentEventSerializer.BINARY_TOPICS_CONFIG, "payment-events, user-events"), false);
+        PaymentEventDeserializer deserializer = new PaymentEventDeserializer();
+        PaymentEvent event = event("TICKETS_REFILLED", Map.of("ticketsAdded", 1, "newBalance", 5));
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        RecordHeaders jsonHeaders = new RecordHeaders();
+
+        // When
+        byte[] binary = serializer.serialize("payment-events", binaryHeaders, event);
+        byte[] json = serializer.serialize("subscription-events", jsonHeaders, event);
+
+        // Then
+        assertThat(binaryHeaders.lastHeader(PaymentEventSerializer.ENCODING_HEADER).value())
+                .isEqualTo(PaymentEventSerializer.ENCODING_BINARY.getBytes(StandardCharsets.UTF_8));
+        assertThat(jsonHeaders.lastHeader(PaymentEventSerializer.ENCODING_HEADER)).isNull();
+        assertThat(new String(json, StandardCharsets.UTF_8)).contains("\"eventType\":\"TICKETS_REFILLED\"");
+        assertThat(deserializer.deserialize("payment-events", binaryHeaders, binary)).isEqualTo(event);
+        assertThat(deserializer.deserialize("subscription-events", jsonHeaders, json)).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("소비자가 모르는 스키마 버전 헤더는 역직렬화 오류로 처리한다")
+    void deserializer_UnknownSchemaVersion_Throws() {
+        // Given
+        PaymentEventDeserializer deserializer = new PaymentEventDeserializer();
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(PaymentEventSerializer.ENCODING_HEADER, PaymentEventSerializer.ENCODING_BINARY.getBytes(StandardCharsets.UTF_8));
+        headers.add(PaymentEventSerializer.VERSION_HEADER, "99".getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        assertThatThrownBy(() -> deserializer.deserialize("payment-events", headers, new byte[]{99}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private PaymentEvent event(String eventType, Map<String, Object> data) {
+        return PaymentEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(eventType)
+                .timestamp(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_789))
+                .userId(1001L)
+                .teamId(2001L)
+                .data(data)
+                .build();
+    }
+}
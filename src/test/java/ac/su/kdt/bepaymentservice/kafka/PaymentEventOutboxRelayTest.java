@@ -0,0 +1,134 @@
+package ac.su.kdt.bepaymentservice.kafka;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentEventOutbox;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.PaymentEventOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentEventOutboxRelay 단위 테스트")
+class PaymentEventOutboxRelayTest {
+
+    @Mock
+    private PaymentEventOutboxRepository outboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, PaymentEvent> kafkaTemplate;
+
+    @Mock
+    private PaymentEventKafkaTemplates kafkaTemplates;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    @InjectMocks
+    private PaymentEventOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "batchSize", 500);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+    }
+
+    @Test
+    @DisplayName("배치 전체를 순서대로 전송하고 전송 완료를 한 번에 기록한다")
+    void relayBatch_AllSent_MarksSentInBulk() {
+        // Given
+        given(outboxRepository.findBySentAtIsNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(outboxRow(1L), outboxRow(2L), outboxRow(3L)));
+        given(kafkaTemplates.forTopic("payment-events")).willReturn(kafkaTemplate);
+        given(kafkaTemplate.send(eq("payment-events"), eq("1"), any(PaymentEvent.class)))
+                .willReturn(acked());
+
+        // When
+        int sent = relay.relayBatch();
+
+        // Then
+        assertThat(sent).isEqualTo(3);
+        verify(kafkaTemplate, times(3)).send(eq("payment-events"), eq("1"), any(PaymentEvent.class));
+        verify(outboxRepository).markSent(eq(List.of(1L, 2L, 3L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("전송에 실패하면 그 앞까지만 전송 완료로 기록하여 순서를 유지한다")
+    void relayBatch_SendFails_MarksOnlyContiguousPrefix() {
+        // Given
+        given(outboxRepository.findBySentAtIsNullOrderByIdAsc(any(Pageable.class)))
+                .willReturn(List.of(outboxRow(1L), outboxRow(2L), outboxRow(3L)));
+        given(kafkaTemplates.forTopic("payment-events")).willReturn(kafkaTemplate);
+        given(kafkaTemplate.send(eq("payment-events"), eq("1"), any(PaymentEvent.class)))
+                .willReturn(acked())
+                .willReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")))
+                .willReturn(acked());
+
+        // When
+        int sent = relay.relayBatch();
+
+        // Then
+        assertThat(sent).isEqualTo(1);
+        verify(outboxRepository).markSent(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(paymentMetrics).incrementKafkaEventFailure(PaymentEvent.EventType.TICKETS_USED.name());
+    }
+
+    @Test
+    @DisplayName("미전송 이벤트가 없으면 Kafka를 호출하지 않는다")
+    void relayBatch_Empty_DoesNothing() {
+        // Given
+        given(outboxRepository.findBySentAtIsNullOrderByIdAsc(any(Pageable.class))).willReturn(List.of());
+
+        // When
+        int sent = relay.relayBatch();
+
+        // Then
+        assertThat(sent).isZero();
+        verifyNoInteractions(kafkaTemplates);
+        verify(outboxRepository, never()).markSent(anyCollection(), any(LocalDateTime.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<SendResult<String, PaymentEvent>> acked() {
+        return CompletableFuture.completedFuture((SendResult<String, PaymentEvent>) mock(SendResult.class));
+    }
+
+    private PaymentEventOutbox outboxRow(Long id) {
+        PaymentEvent event = PaymentEvent.builder()
+                .eventId("event-" + id)
+                .eventType(PaymentEvent.EventType.TICKETS_USED.name())
+                .timestamp(LocalDateTime.now())
+                .userId(1L)
+                .data(Map.of("ticketsUsed", 1, "remainingBalance", 2))
+                .build();
+        return PaymentEventOutbox.builder()
+                .id(id)
+                .topic("payment-events")
+                .eventId(event.getEventId())
+                .eventType(event.getEventType())
+                .userId(event.getUserId())
+                .messageKey(String.valueOf(event.getUserId()))
+                .payload(PaymentEventJson.write(event))
+                .build();
+    }
+}
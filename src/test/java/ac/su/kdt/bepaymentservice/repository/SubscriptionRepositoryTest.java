@@ -1,5 +1,6 @@
 package ac.su.kdt.bepaymentservice.repository;
 
+import ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -95,6 +97,48 @@ class SubscriptionRepositoryTest {
         assertThat(result.get(0).getStatus()).isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
     }
     
+    @Test
+    @DisplayName("최신 활성 구독 한 건을 요약 프로젝션으로 조회할 수 있다")
+    void findLatestActiveViews_ReturnsLatestOnly() {
+        // Given - 같은 사용자의 이전 활성 구독과 취소된 구독
+        Subscription trial = entityManager.persistAndFlush(Subscription.builder()
+                .userId(1L)
+                .plan(testPlan)
+                .status(Subscription.SubscriptionStatus.TRIAL)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29.00"))
+                .currency("KRW")
+                .currentPeriodEnd(LocalDateTime.now().plusDays(7))
+                .build());
+        entityManager.persistAndFlush(Subscription.builder()
+                .userId(1L)
+                .plan(testPlan)
+                .status(Subscription.SubscriptionStatus.CANCELED)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29.00"))
+                .currency("KRW")
+                .build());
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE subscription SET created_at = ? WHERE id = ?")
+                .setParameter(1, LocalDateTime.now().plusMinutes(1))
+                .setParameter(2, trial.getId())
+                .executeUpdate();
+        entityManager.clear();
+        
+        // When
+        List<ActiveSubscriptionView> result = subscriptionRepository.findLatestActiveViews(1L,
+                List.of(Subscription.SubscriptionStatus.ACTIVE, Subscription.SubscriptionStatus.TRIAL),
+                PageRequest.of(0, 1));
+        
+        // Then
+        assertThat(result).singleElement().satisfies(view -> {
+            assertThat(view.id()).isEqualTo(trial.getId());
+            assertThat(view.planId()).isEqualTo(testPlan.getId());
+            assertThat(view.status()).isEqualTo(Subscription.SubscriptionStatus.TRIAL);
+            assertThat(view.currentPeriodEnd()).isNotNull();
+        });
+    }
+    
     @Test
     @DisplayName("Stripe 구독 ID로 구독을 조회할 수 있다")
     void findByStripeSubscriptionId_Success() {
@@ -262,4 +306,54 @@ class SubscriptionRepositoryTest {
         // Then
         assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("갱신 대상은 자동 갱신이 켜져 있고 빌링 고객 키가 있으며 재시도 시각이 지난 구독만 id 순으로 조회한다")
+    void findDueForRenewal_Success() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Subscription due = entityManager.persist(renewalSubscription(10L, Subscription.SubscriptionStatus.ACTIVE, now.minusHours(1), null));
+        Subscription retryDue = entityManager.persist(renewalSubscription(11L, Subscription.SubscriptionStatus.PAST_DUE, now.minusDays(2), now.minusMinutes(1)));
+        entityManager.persist(renewalSubscription(12L, Subscription.SubscriptionStatus.PAST_DUE, now.minusDays(2), now.plusHours(1)));
+        Subscription canceling = renewalSubscription(13L, Subscription.SubscriptionStatus.ACTIVE, now.minusHours(1), null);
+        canceling.setCancelAtPeriodEnd(true);
+        entityManager.persist(canceling);
+        entityManager.persist(renewalSubscription(14L, Subscription.SubscriptionStatus.EXPIRED, now.minusHours(1), null));
+        Subscription withoutBillingKey = renewalSubscription(15L, Subscription.SubscriptionStatus.ACTIVE, now.minusHours(1), null);
+        withoutBillingKey.setBillingCustomerKey(null);
+        entityManager.persist(withoutBillingKey);
+        entityManager.flush();
+        entityManager.clear();
+        
+        List<Subscription.SubscriptionStatus> statuses = List.of(
+                Subscription.SubscriptionStatus.ACTIVE,
+                Subscription.SubscriptionStatus.PAST_DUE
+        );
+        
+        // When
+        List<Subscription> firstPage = subscriptionRepository.findDueForRenewal(statuses, now, 0L, PageRequest.of(0, 1));
+        List<Subscription> secondPage = subscriptionRepository.findDueForRenewal(statuses, now, firstPage.get(0).getId(), PageRequest.of(0, 1));
+        
+        // Then
+        assertThat(firstPage).extracting(Subscription::getId).containsExactly(due.getId());
+        assertThat(secondPage).extracting(Subscription::getId).containsExactly(retryDue.getId());
+        assertThat(secondPage.get(0).getPlan().getPlanName()).isEqualTo("Economy Class");
+    }
+    
+    private Subscription renewalSubscription(Long userId, Subscription.SubscriptionStatus status,
+                                             LocalDateTime periodEnd, LocalDateTime nextAttemptAt) {
+        return Subscription.builder()
+                .userId(userId)
+                .plan(testPlan)
+                .status(status)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29.00"))
+                .currency("KRW")
+                .currentPeriodStart(periodEnd.minusMonths(1))
+                .currentPeriodEnd(periodEnd)
+                .nextRenewalAttemptAt(nextAttemptAt)
+                .autoRenewal(true)
+                .billingCustomerKey("customer-" + userId)
+                .build();
+    }
+}
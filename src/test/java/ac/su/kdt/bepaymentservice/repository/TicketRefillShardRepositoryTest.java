@@ -0,0 +1,92 @@
+package ac.su.kdt.bepaymentservice.repository;
+
+import ac.su.kdt.bepaymentservice.entity.TicketRefillShard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("TicketRefillShardRepository 리스 테스트")
+class TicketRefillShardRepositoryTest {
+
+    private static final TicketRefillShard.ShardStatus RUNNING = TicketRefillShard.ShardStatus.RUNNING;
+    private static final TicketRefillShard.ShardStatus COMPLETED = TicketRefillShard.ShardStatus.COMPLETED;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TicketRefillShardRepository shardRepository;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        entityManager.persistAndFlush(TicketRefillShard.builder()
+                .shardId(0)
+                .rangeStart(Long.MIN_VALUE)
+                .rangeEnd(1000L)
+                .cursorUserId(Long.MIN_VALUE)
+                .runStartedAt(now)
+                .updatedAt(now)
+                .build());
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("다른 인스턴스가 유효한 리스를 보유 중이면 점유할 수 없다")
+    void acquireLease_HeldByOtherOwner_Fails() {
+        // Given
+        shardRepository.acquireLease(0, "pod-a", now, now.plusSeconds(60), RUNNING, COMPLETED);
+
+        // When
+        int acquired = shardRepository.acquireLease(0, "pod-b", now, now.plusSeconds(60), RUNNING, COMPLETED);
+
+        // Then
+        assertThat(acquired).isZero();
+    }
+
+    @Test
+    @DisplayName("리스가 만료되면 다른 인스턴스가 이어받고 이전 소유자의 체크포인트는 거부된다")
+    void acquireLease_Expired_TakenOverByOtherOwner() {
+        // Given
+        shardRepository.acquireLease(0, "pod-a", now.minusSeconds(120), now.minusSeconds(60), RUNNING, COMPLETED);
+
+        // When
+        int acquired = shardRepository.acquireLease(0, "pod-b", now, now.plusSeconds(60), RUNNING, COMPLETED);
+        int staleCheckpoint = shardRepository.checkpoint(0, "pod-a", 500L, 10, 5, now, now.plusSeconds(60));
+
+        // Then
+        assertThat(acquired).isEqualTo(1);
+        assertThat(staleCheckpoint).isZero();
+    }
+
+    @Test
+    @DisplayName("체크포인트는 커서를 전진시키고 완료된 샤드는 다시 점유되지 않는다")
+    void checkpointAndComplete_AdvancesCursorAndReleasesLease() {
+        // Given
+        shardRepository.acquireLease(0, "pod-a", now, now.plusSeconds(60), RUNNING, COMPLETED);
+
+        // When
+        shardRepository.checkpoint(0, "pod-a", 500L, 10, 5, now, now.plusSeconds(60));
+        shardRepository.complete(0, "pod-a", now, COMPLETED);
+        entityManager.clear();
+
+        // Then
+        TicketRefillShard shard = shardRepository.findById(0).orElseThrow();
+        assertThat(shard.getCursorUserId()).isEqualTo(500L);
+        assertThat(shard.getProcessedCount()).isEqualTo(10L);
+        assertThat(shard.getRefilledCount()).isEqualTo(5L);
+        assertThat(shard.getStatus()).isEqualTo(COMPLETED);
+        assertThat(shard.getLeaseOwner()).isNull();
+        assertThat(shardRepository.acquireLease(0, "pod-b", now, now.plusSeconds(60), RUNNING, COMPLETED)).isZero();
+    }
+}
@@ -234,4 +234,37 @@ class UserTicketRepositoryTest {
         // Then
         assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("잔액이 충분하면 조건부 UPDATE로 티켓을 차감한다")
+    void decrementTicketsIfSufficient_SufficientBalance_Decrements() {
+        // When
+        int updated = userTicketRepository.decrementTicketsIfSufficient(1L, 3, LocalDateTime.now());
+        
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(userTicketRepository.findCurrentTicketsByUserId(1L)).contains(2);
+    }
+    
+    @Test
+    @DisplayName("잔액이 부족하면 조건부 UPDATE가 아무 행도 갱신하지 않는다")
+    void decrementTicketsIfSufficient_InsufficientBalance_NoUpdate() {
+        // When
+        int updated = userTicketRepository.decrementTicketsIfSufficient(1L, 6, LocalDateTime.now());
+        
+        // Then
+        assertThat(updated).isZero();
+        assertThat(userTicketRepository.findCurrentTicketsByUserId(1L)).contains(5);
+    }
+    
+    @Test
+    @DisplayName("티켓 계정이 없으면 조건부 UPDATE가 아무 행도 갱신하지 않는다")
+    void decrementTicketsIfSufficient_NoAccount_NoUpdate() {
+        // When
+        int updated = userTicketRepository.decrementTicketsIfSufficient(999L, 1, LocalDateTime.now());
+        
+        // Then
+        assertThat(updated).isZero();
+        assertThat(userTicketRepository.findCurrentTicketsByUserId(999L)).isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ActiveSubscriptionCache 단위 테스트")
+class ActiveSubscriptionCacheTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @InjectMocks
+    private ActiveSubscriptionCache activeSubscriptionCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(activeSubscriptionCache, "maxEntries", 2);
+        ReflectionTestUtils.setField(activeSubscriptionCache, "ttlSeconds", 300L);
+    }
+
+    @Test
+    @DisplayName("활성 구독은 한 번만 한 건짜리 프로젝션으로 조회하고 이후에는 캐시에서 돌려준다")
+    void findActiveSubscription_CachesView() {
+        // Given
+        ActiveSubscriptionView active = view(10L, Subscription.SubscriptionStatus.ACTIVE);
+        given(subscriptionRepository.findLatestActiveViews(eq(1L), anyList(), any(Pageable.class)))
+                .willReturn(List.of(active));
+
+        // When
+        Optional<ActiveSubscriptionView> first = activeSubscriptionCache.findActiveSubscription(1L);
+        Optional<ActiveSubscriptionView> second = activeSubscriptionCache.findActiveSubscription(1L);
+
+        // Then
+        assertThat(first).contains(active);
+        assertThat(second).contains(active);
+        verify(subscriptionRepository, times(1)).findLatestActiveViews(eq(1L), anyList(), any(Pageable.class));
+        verify(subscriptionRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("활성 구독이 없다는 결과도 캐시하고, 무효화하면 다시 조회한다")
+    void invalidate_ReloadsAfterNegativeHit() {
+        // Given
+        ActiveSubscriptionView created = view(11L, Subscription.SubscriptionStatus.TRIAL);
+        given(subscriptionRepository.findLatestActiveViews(eq(1L), anyList(), any(Pageable.class)))
+                .willReturn(List.of())
+                .willReturn(List.of(created));
+        assertThat(activeSubscriptionCache.findActiveSubscription(1L)).isEmpty();
+        assertThat(activeSubscriptionCache.findActiveSubscription(1L)).isEmpty();
+
+        // When
+        activeSubscriptionCache.invalidate(1L);
+
+        // Then
+        assertThat(activeSubscriptionCache.findActiveSubscription(1L)).contains(created);
+        verify(subscriptionRepository, times(2)).findLatestActiveViews(eq(1L), anyList(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("엔티티를 읽을 때 캐시된 구독이 더 이상 활성이 아니면 다시 조회한다")
+    void loadActiveSubscription_StaleEntry_Reloads() {
+        // Given - 다른 인스턴스에서 취소되어 무효화 신호가 아직 오지 않은 경우
+        given(subscriptionRepository.findLatestActiveViews(eq(1L), anyList(), any(Pageable.class)))
+                .willReturn(List.of(view(10L, Subscription.SubscriptionStatus.ACTIVE)))
+                .willReturn(List.of());
+        activeSubscriptionCache.findActiveSubscription(1L);
+        given(subscriptionRepository.findById(10L))
+                .willReturn(Optional.of(subscription(10L, 1L, Subscription.SubscriptionStatus.CANCELED)));
+
+        // When
+        Optional<Subscription> result = activeSubscriptionCache.loadActiveSubscription(1L);
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(activeSubscriptionCache.findActiveSubscription(1L)).isEmpty();
+        verify(subscriptionRepository, times(2)).findLatestActiveViews(eq(1L), anyList(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("max-entries 를 넘지 않도록 항목을 지운다")
+    void findActiveSubscription_BoundedByMaxEntries() {
+        // Given
+        given(subscriptionRepository.findLatestActiveViews(anyLong(), anyList(), any(Pageable.class)))
+                .willReturn(List.of());
+
+        // When
+        for (long userId = 1; userId <= 5; userId++) {
+            activeSubscriptionCache.findActiveSubscription(userId);
+        }
+
+        // Then
+        assertThat(activeSubscriptionCache.size()).isLessThanOrEqualTo(2);
+    }
+
+    private ActiveSubscriptionView view(Long id, Subscription.SubscriptionStatus status) {
+        return new ActiveSubscriptionView(id, 1L, status, null, null);
+    }
+
+    private Subscription subscription(Long id, Long userId, Subscription.SubscriptionStatus status) {
+        return Subscription.builder()
+                .id(id)
+                .userId(userId)
+                .status(status)
+                .build();
+    }
+}
@@ -117,6 +117,7 @@ class PaymentEventServiceTest {
             ConsumerRecord<String, PaymentEvent> record = records.iterator().next();
             PaymentEvent event = record.value();
             
+            assertThat(record.key()).isEqualTo("1");
             assertThat(event.getEventType()).isEqualTo(PaymentEvent.EventType.SUBSCRIPTION_CREATED.name());
             assertThat(event.getUserId()).isEqualTo(1L);
             assertThat(event.getTeamId()).isEqualTo(100L);
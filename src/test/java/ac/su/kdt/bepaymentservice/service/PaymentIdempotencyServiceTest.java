@@ -0,0 +1,187 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.service.PaymentIdempotencyStore.Claim;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentIdempotencyService 단위 테스트")
+class PaymentIdempotencyServiceTest {
+
+    private static final String FINGERPRINT = "fingerprint-1";
+
+    @Mock
+    private PaymentIdempotencyStore idempotencyStore;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PaymentIdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new PaymentIdempotencyService(idempotencyStore, objectMapper, paymentMetrics);
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(idempotencyService, "pollIntervalMs", 10L);
+    }
+
+    @Test
+    @DisplayName("동시에 들어온 같은 키의 요청은 Toss 를 한 번만 호출하고 같은 응답을 받는다")
+    void execute_ConcurrentDuplicates_CallOnce() {
+        // Given
+        given(idempotencyStore.claim("toss-confirm:order-1", "toss-confirm", FINGERPRINT)).willReturn(Claim.ACQUIRED);
+        Sinks.One<PaymentResponse> tossResponse = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        Mono<PaymentResponse> first = idempotencyService.execute(TossOperation.CONFIRM, "order-1", FINGERPRINT, PaymentResponse.class,
+                () -> { calls.incrementAndGet(); return tossResponse.asMono(); });
+        Mono<PaymentResponse> second = idempotencyService.execute(TossOperation.CONFIRM, "order-1", FINGERPRINT, PaymentResponse.class,
+                () -> { calls.incrementAndGet(); return tossResponse.asMono(); });
+        Mono<PaymentResponse> both = Mono.zip(first, second, (a, b) -> {
+            assertThat(b).isSameAs(a);
+            return a;
+        });
+
+        // Then
+        StepVerifier.create(both)
+                .then(() -> tossResponse.tryEmitValue(response("pk-1")))
+                .expectNextMatches(response -> "pk-1".equals(response.getPaymentKey()))
+                .verifyComplete();
+        assertThat(calls).hasValue(1);
+        verify(idempotencyStore).complete(eq("toss-confirm:order-1"), contains("pk-1"));
+    }
+
+    @Test
+    @DisplayName("완료된 요청을 다시 보내면 Toss 호출 없이 메모리의 응답을 돌려준다")
+    void execute_Retry_ReturnsCachedResponse() {
+        // Given
+        given(idempotencyStore.claim("toss-confirm:order-2", "toss-confirm", FINGERPRINT)).willReturn(Claim.ACQUIRED);
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute(TossOperation.CONFIRM, "order-2", FINGERPRINT, PaymentResponse.class,
+                () -> { calls.incrementAndGet(); return Mono.just(response("pk-2")); }).block();
+
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(TossOperation.CONFIRM, "order-2", FINGERPRINT, PaymentResponse.class,
+                        () -> { calls.incrementAndGet(); return Mono.just(response("other")); }))
+                .expectNextMatches(response -> "pk-2".equals(response.getPaymentKey()))
+                .verifyComplete();
+        assertThat(calls).hasValue(1);
+        verify(idempotencyStore, times(1)).claim(anyString(), anyString(), anyString());
+        verify(paymentMetrics).incrementPaymentIdempotentReplay("toss-confirm", "memory");
+    }
+
+    @Test
+    @DisplayName("다른 인스턴스가 완료한 요청은 DB 에 저장된 응답을 돌려준다")
+    void execute_CompletedElsewhere_ReturnsStoredResponse() throws Exception {
+        // Given
+        given(idempotencyStore.claim("toss-auto-payment:order-3", "toss-auto-payment", FINGERPRINT))
+                .willReturn(Claim.IN_PROGRESS)
+                .willReturn(new Claim(Claim.State.COMPLETED, objectMapper.writeValueAsString(response("pk-3"))));
+
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(TossOperation.AUTO_PAYMENT, "order-3", FINGERPRINT, PaymentResponse.class,
+                        () -> Mono.error(new AssertionError("must not call Toss"))))
+                .expectNextMatches(response -> "pk-3".equals(response.getPaymentKey()))
+                .verifyComplete();
+        verify(paymentMetrics).incrementPaymentIdempotentReplay("toss-auto-payment", "database");
+    }
+
+    @Test
+    @DisplayName("다른 요청이 기다리는 시간 안에 끝나지 않으면 충돌로 응답한다")
+    void execute_StillInProgress_Conflict() {
+        // Given
+        given(idempotencyStore.claim("toss-confirm:order-4", "toss-confirm", FINGERPRINT)).willReturn(Claim.IN_PROGRESS);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 100L);
+
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(TossOperation.CONFIRM, "order-4", FINGERPRINT, PaymentResponse.class,
+                        () -> Mono.just(response("pk-4"))))
+                .expectError(IdempotencyConflictException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("호출이 실패하면 선점을 풀어 같은 키로 다시 시도할 수 있다")
+    void execute_CallFails_ReleasesKey() {
+        // Given
+        given(idempotencyStore.claim("toss-confirm:order-5", "toss-confirm", FINGERPRINT)).willReturn(Claim.ACQUIRED);
+
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(TossOperation.CONFIRM, "order-5", FINGERPRINT, PaymentResponse.class,
+                        () -> Mono.error(new IllegalStateException("Toss error"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(idempotencyStore).release("toss-confirm:order-5");
+        verify(idempotencyStore, never()).complete(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("멱등성 키가 없으면 기록 없이 그대로 호출한다")
+    void execute_NoKey_PassesThrough() {
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(TossOperation.CONFIRM, null, FINGERPRINT, PaymentResponse.class,
+                        () -> Mono.just(response("pk-6"))))
+                .expectNextCount(1)
+                .verifyComplete();
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    @Test
+    @DisplayName("완료된 키를 다른 요청으로 다시 쓰면 이전 응답을 돌려주지 않고 충돌로 응답한다")
+    void execute_SameKeyDifferentRequest_Conflict() {
+        // Given
+        given(idempotencyStore.claim("toss-confirm:order-7", "toss-confirm", FINGERPRINT)).willReturn(Claim.ACQUIRED);
+        idempotencyService.execute(TossOperation.CONFIRM, "order-7", FINGERPRINT, PaymentResponse.class,
+                () -> Mono.just(response("pk-7"))).block();
+
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(TossOperation.CONFIRM, "order-7", "fingerprint-2",
+                        PaymentResponse.class, () -> Mono.error(new AssertionError("must not call Toss"))))
+                .expectErrorMatches(e -> e instanceof IdempotencyConflictException conflict
+                        && conflict.isFingerprintMismatch())
+                .verify();
+    }
+
+    @Test
+    @DisplayName("fingerprint 는 사용자와 요청 값이 같으면 같고, 하나라도 다르면 달라진다")
+    void fingerprint_DependsOnUserAndRequest() {
+        // When
+        String fingerprint = idempotencyService.fingerprint("user-1", "billing-key", response("pk-8"));
+
+        // Then
+        assertThat(fingerprint).hasSize(64)
+                .isEqualTo(idempotencyService.fingerprint("user-1", "billing-key", response("pk-8")))
+                .isNotEqualTo(idempotencyService.fingerprint("user-2", "billing-key", response("pk-8")))
+                .isNotEqualTo(idempotencyService.fingerprint("user-1", "billing-key", response("pk-9")));
+    }
+
+    private PaymentResponse response(String paymentKey) {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentKey(paymentKey);
+        response.setStatus("DONE");
+        return response;
+    }
+}
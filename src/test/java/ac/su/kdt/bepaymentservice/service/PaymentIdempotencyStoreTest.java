@@ -0,0 +1,136 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.service.PaymentIdempotencyStore.Claim;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@Import(PaymentIdempotencyStore.class)
+@TestPropertySource(properties = {
+        "payment.idempotency.ttl-hours=24",
+        "payment.idempotency.lease-seconds=60"
+})
+@DisplayName("PaymentIdempotencyStore 멱등성 기록 테스트")
+class PaymentIdempotencyStoreTest {
+
+    private static final String FINGERPRINT = "fingerprint-1";
+
+    @Autowired
+    private PaymentIdempotencyStore idempotencyStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("처음 들어온 키는 선점하고, 같은 키의 다음 요청은 처리 중으로 판단한다")
+    void claim_FirstRequestAcquires_DuplicateSeesInProgress() {
+        // When
+        Claim first = idempotencyStore.claim("toss-confirm:order-1", "toss-confirm", FINGERPRINT);
+        Claim second = idempotencyStore.claim("toss-confirm:order-1", "toss-confirm", FINGERPRINT);
+
+        // Then
+        assertThat(first.state()).isEqualTo(Claim.State.ACQUIRED);
+        assertThat(second.state()).isEqualTo(Claim.State.IN_PROGRESS);
+    }
+
+    @Test
+    @DisplayName("완료된 키는 저장된 응답을 돌려준다")
+    void claim_AfterComplete_ReturnsStoredResponse() {
+        // Given
+        idempotencyStore.claim("toss-confirm:order-2", "toss-confirm", FINGERPRINT);
+        idempotencyStore.complete("toss-confirm:order-2", "{\"paymentKey\":\"pk-2\"}");
+
+        // When
+        Claim claim = idempotencyStore.claim("toss-confirm:order-2", "toss-confirm", FINGERPRINT);
+
+        // Then
+        assertThat(claim.state()).isEqualTo(Claim.State.COMPLETED);
+        assertThat(claim.responsePayload()).isEqualTo("{\"paymentKey\":\"pk-2\"}");
+    }
+
+    @Test
+    @DisplayName("실패로 선점을 풀면 같은 키로 다시 선점할 수 있다")
+    void release_AllowsRetryWithSameKey() {
+        // Given
+        idempotencyStore.claim("toss-auto-payment:order-3", "toss-auto-payment", FINGERPRINT);
+
+        // When
+        idempotencyStore.release("toss-auto-payment:order-3");
+
+        // Then
+        assertThat(idempotencyStore.claim("toss-auto-payment:order-3", "toss-auto-payment", FINGERPRINT).state())
+                .isEqualTo(Claim.State.ACQUIRED);
+    }
+
+    @Test
+    @DisplayName("완료된 기록은 release 로 지워지지 않는다")
+    void release_CompletedRecord_IsKept() {
+        // Given
+        idempotencyStore.claim("toss-confirm:order-4", "toss-confirm", FINGERPRINT);
+        idempotencyStore.complete("toss-confirm:order-4", "{}");
+
+        // When
+        idempotencyStore.release("toss-confirm:order-4");
+
+        // Then
+        assertThat(idempotencyStore.claim("toss-confirm:order-4", "toss-confirm", FINGERPRINT).state())
+                .isEqualTo(Claim.State.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("선점 기한이 지난 처리 중 기록은 다음 요청이 이어받는다")
+    void claim_ExpiredLease_TakesOver() {
+        // Given
+        idempotencyStore.claim("toss-confirm:order-5", "toss-confirm", FINGERPRINT);
+        jdbcTemplate.update("UPDATE payment_idempotency SET locked_until = ? WHERE idempotency_key = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), "toss-confirm:order-5");
+
+        // When
+        Claim takeOver = idempotencyStore.claim("toss-confirm:order-5", "toss-confirm", FINGERPRINT);
+        Claim next = idempotencyStore.claim("toss-confirm:order-5", "toss-confirm", FINGERPRINT);
+
+        // Then
+        assertThat(takeOver.state()).isEqualTo(Claim.State.ACQUIRED);
+        assertThat(next.state()).isEqualTo(Claim.State.IN_PROGRESS);
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지난 기록을 정리한다")
+    void purgeExpired_DeletesOldRecords() {
+        // Given
+        idempotencyStore.claim("toss-confirm:old", "toss-confirm", FINGERPRINT);
+        idempotencyStore.claim("toss-confirm:recent", "toss-confirm", FINGERPRINT);
+        jdbcTemplate.update("UPDATE payment_idempotency SET created_at = ? WHERE idempotency_key = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(25)), "toss-confirm:old");
+
+        // When
+        idempotencyStore.purgeExpired();
+
+        // Then
+        assertThat(jdbcTemplate.queryForList("SELECT idempotency_key FROM payment_idempotency", String.class))
+                .containsExactly("toss-confirm:recent");
+    }
+
+    @Test
+    @DisplayName("같은 키를 다른 fingerprint 의 요청으로 선점하려 하면 충돌로 거절한다")
+    void claim_DifferentFingerprint_Conflict() {
+        // Given
+        idempotencyStore.claim("toss-confirm:order-6", "toss-confirm", FINGERPRINT);
+        idempotencyStore.complete("toss-confirm:order-6", "{\"paymentKey\":\"pk-6\"}");
+
+        // When & Then
+        assertThatThrownBy(() -> idempotencyStore.claim("toss-confirm:order-6", "toss-confirm", "fingerprint-2"))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .matches(e -> ((IdempotencyConflictException) e).isFingerprintMismatch());
+    }
+}
@@ -0,0 +1,189 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.PaymentTransactionRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * 사용자 결제 기록은 boundedElastic 스레드의 별도 트랜잭션에서 수행되므로 테스트 트랜잭션 없이 실제로 커밋하며 검증한다
+ */
+@DataJpaTest
+@Import(PaymentRecordingService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "payment.recording.batch-size=2")
+@DisplayName("PaymentRecordingService 결제 거래 기록 테스트")
+class PaymentRecordingServiceTest {
+
+    @Autowired
+    private PaymentRecordingService paymentRecordingService;
+
+    @Autowired
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionPlanRepository subscriptionPlanRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private PaymentEventService paymentEventService;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    private Subscription subscription;
+
+    @BeforeEach
+    void setUp() {
+        SubscriptionPlan plan = subscriptionPlanRepository.save(SubscriptionPlan.builder()
+                .planName("Economy Class")
+                .planType(SubscriptionPlan.PlanType.ECONOMY_CLASS)
+                .monthlyPrice(new BigDecimal("29000.00"))
+                .maxMonthlyAttempts(10)
+                .ticketLimit(3)
+                .ticketRefillAmount(3)
+                .ticketRefillIntervalHours(24)
+                .isActive(true)
+                .build());
+        subscription = subscriptionRepository.save(Subscription.builder()
+                .userId(1L)
+                .plan(plan)
+                .status(Subscription.SubscriptionStatus.INCOMPLETE)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29000.00"))
+                .currency("KRW")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentTransactionRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        subscriptionPlanRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("승인된 결제는 구독에 연결한 성공 거래로 기록하고 성공 이벤트와 메트릭을 남긴다")
+    void recordPayment_Done_RecordsSucceededTransaction() {
+        // When
+        StepVerifier.create(paymentRecordingService.recordPayment(subscription.getId(), 10000L,
+                        Mono.just(paymentResponse("pk-1", "DONE"))))
+                .assertNext(response -> assertThat(response.getPaymentKey()).isEqualTo("pk-1"))
+                .verifyComplete();
+
+        // Then
+        List<PaymentTransaction> transactions = paymentTransactionRepository.findByExternalTransactionId("pk-1");
+        assertThat(transactions).singleElement().satisfies(transaction -> {
+            assertThat(transaction.getTransactionStatus()).isEqualTo(PaymentTransaction.TransactionStatus.SUCCEEDED);
+            assertThat(transaction.getAmount()).isEqualByComparingTo("10000");
+        });
+        verify(paymentEventService).publishPaymentSucceeded(any(PaymentTransaction.class));
+        verify(paymentMetrics).incrementPaymentSuccess();
+        verify(paymentMetrics).recordPaymentProcessingTime(any());
+    }
+
+    @Test
+    @DisplayName("결제가 실패하면 실패 거래를 기록하고 오류는 그대로 전달한다")
+    void recordPayment_Error_RecordsFailedTransactionAndPropagates() {
+        // When
+        StepVerifier.create(paymentRecordingService.recordPayment(subscription.getId(), 10000L,
+                        Mono.error(new IllegalStateException("REJECT_CARD_PAYMENT"))))
+                .expectErrorMessage("REJECT_CARD_PAYMENT")
+                .verify();
+
+        // Then
+        assertThat(paymentTransactionRepository.findAll()).singleElement().satisfies(transaction -> {
+            assertThat(transaction.getTransactionStatus()).isEqualTo(PaymentTransaction.TransactionStatus.FAILED);
+            assertThat(transaction.getFailureReason()).isEqualTo("REJECT_CARD_PAYMENT");
+        });
+        verify(paymentEventService).publishPaymentFailed(any(PaymentTransaction.class));
+        verify(paymentMetrics).incrementPaymentFailure();
+    }
+
+    @Test
+    @DisplayName("Toss 호출이 거절되면 결제를 시도하지 않았으므로 기록하지 않는다")
+    void recordPayment_TossUnavailable_NotRecorded() {
+        // When
+        StepVerifier.create(paymentRecordingService.recordPayment(subscription.getId(), 10000L,
+                        Mono.error(new TossUnavailableException(TossOperation.CONFIRM, "circuit_open", null))))
+                .expectError(TossUnavailableException.class)
+                .verify();
+
+        // Then
+        assertThat(paymentTransactionRepository.count()).isZero();
+        verifyNoInteractions(paymentEventService);
+    }
+
+    @Test
+    @DisplayName("여러 거래를 batch-size 단위로 저장하고 생성된 id 로 이벤트를 발행한다")
+    void recordAll_InsertsInBatchesAndAssignsIds() {
+        // Given - batch-size(2)보다 많은 3건
+        List<PaymentTransaction> transactions = IntStream.rangeClosed(1, 3)
+                .mapToObj(i -> PaymentTransaction.builder()
+                        .subscription(subscription)
+                        .amount(new BigDecimal("29000.00"))
+                        .paymentMethod(PaymentTransaction.PaymentMethod.CARD)
+                        .transactionType(PaymentTransaction.TransactionType.SUBSCRIPTION_PAYMENT)
+                        .transactionStatus(i < 3
+                                ? PaymentTransaction.TransactionStatus.SUCCEEDED
+                                : PaymentTransaction.TransactionStatus.FAILED)
+                        .externalTransactionId(i < 3 ? "pk-batch-" + i : null)
+                        .processedAt(LocalDateTime.now())
+                        .build())
+                .toList();
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> paymentRecordingService.recordAll(transactions));
+
+        // Then
+        assertThat(transactions).extracting(PaymentTransaction::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(paymentTransactionRepository.findAllById(transactions.stream().map(PaymentTransaction::getId).toList()))
+                .hasSize(3);
+        verify(paymentEventService, times(2)).publishPaymentSucceeded(any(PaymentTransaction.class));
+        verify(paymentEventService).publishPaymentFailed(any(PaymentTransaction.class));
+        verify(paymentMetrics, times(2)).incrementPaymentSuccess();
+        verify(paymentMetrics).incrementPaymentFailure();
+    }
+
+    private PaymentResponse paymentResponse(String paymentKey, String status) {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentKey(paymentKey);
+        response.setOrderId("order-1");
+        response.setStatus(status);
+        return response;
+    }
+}
@@ -0,0 +1,99 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.ProcessedEvent;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.ProcessedEventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@DataJpaTest
+@Import(ProcessedEventStore.class)
+@TestPropertySource(properties = {
+        "event.dedup.ttl-hours=72",
+        "event.dedup.expected-events=1000"
+})
+@DisplayName("ProcessedEventStore 중복 처리 방지 테스트")
+class ProcessedEventStoreTest {
+
+    @Autowired
+    private ProcessedEventStore processedEventStore;
+
+    @Autowired
+    private ProcessedEventRepository processedEventRepository;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    @Test
+    @DisplayName("처음 보는 이벤트는 DB 조회 없이 미처리로 판단한다")
+    void findProcessed_NewEvents_NoDatabaseLookup() {
+        // When
+        var processed = processedEventStore.findProcessed(List.of("evt-1", "evt-2", "evt-3"));
+
+        // Then
+        assertThat(processed).isEmpty();
+        verify(paymentMetrics, never()).incrementEventDedupLookup();
+    }
+
+    @Test
+    @DisplayName("처리 완료로 기록한 이벤트는 중복으로 판단한다")
+    void findProcessed_AfterMarkProcessed_ReturnsProcessedIds() {
+        // Given
+        processedEventStore.markProcessed(Map.of("evt-1", "mission.completed"));
+
+        // When
+        var processed = processedEventStore.findProcessed(List.of("evt-1", "evt-2"));
+
+        // Then
+        assertThat(processed).containsExactly("evt-1");
+        assertThat(processedEventRepository.findById("evt-1")).isPresent();
+    }
+
+    @Test
+    @DisplayName("필터에 없더라도 이미 기록된 이벤트를 다시 기록하면 PK 충돌로 거부한다")
+    void markProcessed_AlreadyRecorded_ThrowsDuplicateKey() {
+        // Given - 재시작 등으로 필터에는 없고 DB 에만 남아 있는 이벤트
+        processedEventRepository.saveAndFlush(processedEvent("evt-1", LocalDateTime.now()));
+
+        // When & Then
+        assertThat(processedEventStore.findProcessed(List.of("evt-1"))).isEmpty();
+        assertThatThrownBy(() -> processedEventStore.markProcessed(Map.of("evt-1", "mission.completed")))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지난 처리 기록을 삭제한다")
+    void purgeExpired_DeletesOldRecords() {
+        // Given
+        processedEventRepository.saveAndFlush(processedEvent("evt-old", LocalDateTime.now().minusHours(100)));
+        processedEventRepository.saveAndFlush(processedEvent("evt-new", LocalDateTime.now().minusHours(1)));
+
+        // When
+        processedEventStore.purgeExpired();
+
+        // Then
+        assertThat(processedEventRepository.findProcessedIds(List.of("evt-old", "evt-new")))
+                .containsExactly("evt-new");
+    }
+
+    private ProcessedEvent processedEvent(String eventId, LocalDateTime processedAt) {
+        return ProcessedEvent.builder()
+                .eventId(eventId)
+                .eventType("mission.completed")
+                .processedAt(processedAt)
+                .build();
+    }
+}
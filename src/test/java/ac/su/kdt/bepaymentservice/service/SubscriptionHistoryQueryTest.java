@@ -0,0 +1,125 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.SubscriptionDto;
+import ac.su.kdt.bepaymentservice.dto.SubscriptionHistoryPage;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 구독 이력 조회가 구독 수와 관계없이 SELECT 한 번으로 끝나는지 Hibernate 통계로 확인한다
+ */
+@DataJpaTest
+@Import(SubscriptionService.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("SubscriptionService 구독 이력 조회 테스트")
+class SubscriptionHistoryQueryTest {
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private SubscriptionPlanCache subscriptionPlanCache;
+
+    @MockBean
+    private ActiveSubscriptionCache activeSubscriptionCache;
+
+    @MockBean
+    private PaymentEventService paymentEventService;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SubscriptionPlan economy = entityManager.persist(plan("Economy Class", SubscriptionPlan.PlanType.ECONOMY_CLASS));
+        SubscriptionPlan business = entityManager.persist(plan("Business Class", SubscriptionPlan.PlanType.BUSINESS_CLASS));
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(subscription(1L, i % 2 == 0 ? economy : business));
+        }
+        entityManager.persist(subscription(2L, economy));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("한 페이지의 구독과 플랜을 SELECT 한 번으로 읽는다")
+    void getUserSubscriptions_SingleStatementPerPage() {
+        // When
+        SubscriptionHistoryPage page = subscriptionService.getUserSubscriptions(1L, null, 3);
+
+        // Then
+        assertThat(page.subscriptions()).hasSize(3)
+                .allSatisfy(dto -> assertThat(dto.getPlan().getPlanName()).isNotBlank());
+        assertThat(page.nextCursor()).isEqualTo(page.subscriptions().get(2).getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("커서로 다음 페이지를 이어 읽고, 마지막 페이지에서는 커서가 없다")
+    void getUserSubscriptions_FollowsCursor() {
+        // Given
+        SubscriptionHistoryPage first = subscriptionService.getUserSubscriptions(1L, null, 3);
+
+        // When
+        SubscriptionHistoryPage second = subscriptionService.getUserSubscriptions(1L, first.nextCursor(), 3);
+
+        // Then
+        assertThat(second.subscriptions()).hasSize(2)
+                .extracting(SubscriptionDto::getUserId).containsOnly(1L);
+        assertThat(second.subscriptions().get(0).getId()).isLessThan(first.nextCursor());
+        assertThat(second.nextCursor()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private SubscriptionPlan plan(String name, SubscriptionPlan.PlanType planType) {
+        return SubscriptionPlan.builder()
+                .planName(name)
+                .planType(planType)
+                .monthlyPrice(new BigDecimal("29000.00"))
+                .maxMonthlyAttempts(10)
+                .ticketLimit(3)
+                .ticketRefillAmount(3)
+                .ticketRefillIntervalHours(24)
+                .isActive(true)
+                .build();
+    }
+
+    private Subscription subscription(Long userId, SubscriptionPlan plan) {
+        return Subscription.builder()
+                .userId(userId)
+                .plan(plan)
+                .status(Subscription.SubscriptionStatus.CANCELED)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29000.00"))
+                .currency("KRW")
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.SubscriptionPlanDto;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SubscriptionPlanCache 단위 테스트")
+class SubscriptionPlanCacheTest {
+
+    @Mock
+    private SubscriptionPlanRepository subscriptionPlanRepository;
+
+    @InjectMocks
+    private SubscriptionPlanCache subscriptionPlanCache;
+
+    @Test
+    @DisplayName("플랜은 한 번만 읽고 이후 조회는 DB 를 거치지 않는다")
+    void lookups_LoadPlansOnce() {
+        // Given
+        given(subscriptionPlanRepository.findAll()).willReturn(List.of(
+                plan(1L, SubscriptionPlan.PlanType.ECONOMY_CLASS, true),
+                plan(2L, SubscriptionPlan.PlanType.BUSINESS_CLASS, true),
+                plan(3L, SubscriptionPlan.PlanType.FIRST_CLASS, false)));
+
+        // When
+        List<SubscriptionPlanDto> activePlans = subscriptionPlanCache.getActivePlans();
+
+        // Then
+        assertThat(activePlans).extracting(SubscriptionPlanDto::getId).containsExactly(1L, 2L);
+        assertThat(subscriptionPlanCache.findActivePlan(2L)).isPresent();
+        assertThat(subscriptionPlanCache.findActivePlan(3L)).isEmpty();
+        assertThat(subscriptionPlanCache.findActivePlanByType(SubscriptionPlan.PlanType.ECONOMY_CLASS))
+                .hasValueSatisfying(dto -> assertThat(dto.getId()).isEqualTo(1L));
+        assertThat(subscriptionPlanCache.findById(3L))
+                .hasValueSatisfying(plan -> assertThat(plan.getIsActive()).isFalse());
+        verify(subscriptionPlanRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("무효화하면 다음 조회에서 다시 읽고, 목록이 바뀌면 ETag 도 바뀐다")
+    void invalidate_ReloadsAndChangesETag() {
+        // Given
+        given(subscriptionPlanRepository.findAll())
+                .willReturn(List.of(plan(1L, SubscriptionPlan.PlanType.ECONOMY_CLASS, true)))
+                .willReturn(List.of(plan(1L, SubscriptionPlan.PlanType.ECONOMY_CLASS, true),
+                        plan(2L, SubscriptionPlan.PlanType.BUSINESS_CLASS, true)));
+        String before = subscriptionPlanCache.getActivePlansETag();
+
+        // When
+        subscriptionPlanCache.invalidate();
+
+        // Then
+        assertThat(subscriptionPlanCache.getActivePlans()).hasSize(2);
+        assertThat(subscriptionPlanCache.getActivePlansETag()).isNotEqualTo(before).startsWith("\"");
+        verify(subscriptionPlanRepository, times(2)).findAll();
+    }
+
+    private SubscriptionPlan plan(Long id, SubscriptionPlan.PlanType planType, boolean active) {
+        return SubscriptionPlan.builder()
+                .id(id)
+                .planName(planType.name())
+                .planType(planType)
+                .monthlyPrice(new BigDecimal("29000.00"))
+                .maxMonthlyAttempts(10)
+                .ticketLimit(3)
+                .ticketRefillAmount(3)
+                .ticketRefillIntervalHours(24)
+                .isActive(active)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+    }
+}
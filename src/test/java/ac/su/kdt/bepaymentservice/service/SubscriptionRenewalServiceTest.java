@@ -0,0 +1,254 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.BillingKey;
+import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.BillingKeyRepository;
+import ac.su.kdt.bepaymentservice.repository.PaymentTransactionRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import ac.su.kdt.bepaymentservice.service.SubscriptionRenewalService.RenewalOutcome;
+import ac.su.kdt.bepaymentservice.toss.TossCallPriority;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
+import ac.su.kdt.bepaymentservice.toss.dto.AutoPaymentRequest;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * 결과 반영은 boundedElastic 스레드의 별도 트랜잭션에서 수행되므로 테스트 트랜잭션 없이 실제로 커밋하며 검증한다
+ */
+@DataJpaTest
+@Import({SubscriptionRenewalService.class, PaymentRecordingService.class, ActiveSubscriptionCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "subscription.renewal.enabled=true",
+        "subscription.renewal.page-size=2",
+        "subscription.renewal.dunning-schedule=1h,1d",
+        "subscription.renewal.retry-jitter=0s"
+})
+@DisplayName("SubscriptionRenewalService 갱신 결제 테스트")
+class SubscriptionRenewalServiceTest {
+
+    @Autowired
+    private SubscriptionRenewalService renewalService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionPlanRepository subscriptionPlanRepository;
+
+    @Autowired
+    private BillingKeyRepository billingKeyRepository;
+
+    @Autowired
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @MockBean
+    private TossPaymentsService tossPaymentsService;
+
+    @MockBean
+    private PaymentIdempotencyService paymentIdempotencyService;
+
+    @MockBean
+    private PaymentEventService paymentEventService;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    private SubscriptionPlan plan;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        plan = subscriptionPlanRepository.save(SubscriptionPlan.builder()
+                .planName("Economy Class")
+                .planType(SubscriptionPlan.PlanType.ECONOMY_CLASS)
+                .monthlyPrice(new BigDecimal("29000.00"))
+                .maxMonthlyAttempts(10)
+                .ticketLimit(3)
+                .ticketRefillAmount(3)
+                .ticketRefillIntervalHours(24)
+                .isActive(true)
+                .build());
+
+        given(paymentIdempotencyService.execute(any(), any(), any(), any(), any()))
+                .willAnswer(invocation -> invocation.<Supplier<Mono<?>>>getArgument(4).get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentTransactionRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        billingKeyRepository.deleteAll();
+        subscriptionPlanRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("기간이 끝난 구독을 페이지 단위로 모두 결제하고 기간을 한 달 연장한다")
+    void renewDueSubscriptions_ChargesAndExtendsPeriod() {
+        // Given - 페이지 크기(2)보다 많은 3건의 갱신 대상과 기간 종료 시 해지 예정인 1건
+        for (long userId = 1; userId <= 3; userId++) {
+            saveBillingKey("customer-" + userId);
+            saveSubscription(userId, "customer-" + userId, now.minusHours(1));
+        }
+        Subscription canceling = saveSubscription(4L, "customer-4", now.minusHours(1));
+        canceling.setCancelAtPeriodEnd(true);
+        subscriptionRepository.save(canceling);
+
+        given(tossPaymentsService.processAutoPayment(anyString(), any(AutoPaymentRequest.class), eq(TossCallPriority.BATCH)))
+                .willAnswer(invocation -> Mono.just(paymentResponse(invocation.getArgument(1), "DONE")));
+
+        // When
+        Map<RenewalOutcome, Integer> outcomes = renewalService.renewDueSubscriptions(now);
+
+        // Then
+        assertThat(outcomes).containsExactly(entry(RenewalOutcome.RENEWED, 3));
+        assertThat(subscriptionRepository.findAll())
+                .filteredOn(subscription -> !subscription.getCancelAtPeriodEnd())
+                .allSatisfy(subscription -> {
+                    assertThat(subscription.getStatus()).isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
+                    assertThat(subscription.getCurrentPeriodStart()).isEqualTo(now.minusHours(1));
+                    assertThat(subscription.getCurrentPeriodEnd()).isEqualTo(now.minusHours(1).plusMonths(1));
+                });
+        assertThat(paymentTransactionRepository.findAll())
+                .hasSize(3)
+                .allSatisfy(transaction -> {
+                    assertThat(transaction.getTransactionStatus()).isEqualTo(PaymentTransaction.TransactionStatus.SUCCEEDED);
+                    assertThat(transaction.getTransactionType()).isEqualTo(PaymentTransaction.TransactionType.SUBSCRIPTION_PAYMENT);
+                    assertThat(transaction.getExternalTransactionId()).startsWith("pk-renewal-");
+                });
+        verify(paymentIdempotencyService, times(3))
+                .execute(eq(TossOperation.AUTO_PAYMENT), startsWith("renewal-"), eq(PaymentResponse.class), any());
+        verify(paymentEventService, times(3)).publishPaymentSucceeded(any(PaymentTransaction.class));
+    }
+
+    @Test
+    @DisplayName("결제에 실패하면 PAST_DUE 로 바꾸고 dunning 일정에 따라 재시도 시각을 정한다")
+    void renewDueSubscriptions_Failure_SchedulesRetry() {
+        // Given
+        saveBillingKey("customer-1");
+        Subscription subscription = saveSubscription(1L, "customer-1", now.minusHours(1));
+        given(tossPaymentsService.processAutoPayment(anyString(), any(AutoPaymentRequest.class), eq(TossCallPriority.BATCH)))
+                .willReturn(Mono.error(new IllegalStateException("Card declined")));
+
+        // When
+        Map<RenewalOutcome, Integer> outcomes = renewalService.renewDueSubscriptions(now);
+        Map<RenewalOutcome, Integer> beforeRetry = renewalService.renewDueSubscriptions(now.plusMinutes(30));
+
+        // Then
+        assertThat(outcomes).containsExactly(entry(RenewalOutcome.RETRY_SCHEDULED, 1));
+        assertThat(beforeRetry).isEmpty();
+
+        Subscription updated = subscriptionRepository.findById(subscription.getId()).orElseThrow();
+        assertThat(updated.getStatus()).isEqualTo(Subscription.SubscriptionStatus.PAST_DUE);
+        assertThat(updated.getRenewalAttempts()).isEqualTo(1);
+        assertThat(updated.getNextRenewalAttemptAt()).isEqualTo(now.plusHours(1));
+        assertThat(updated.getCurrentPeriodEnd()).isEqualTo(now.minusHours(1));
+        assertThat(paymentTransactionRepository.findAll())
+                .singleElement()
+                .satisfies(transaction -> {
+                    assertThat(transaction.getTransactionStatus()).isEqualTo(PaymentTransaction.TransactionStatus.FAILED);
+                    assertThat(transaction.getFailureReason()).isEqualTo("Card declined");
+                });
+        verify(paymentEventService).publishPaymentFailed(any(PaymentTransaction.class));
+        verify(paymentEventService).publishSubscriptionStatusUpdated(any(Subscription.class));
+    }
+
+    @Test
+    @DisplayName("dunning 일정을 모두 소진하면 구독을 만료시킨다")
+    void renewDueSubscriptions_RetriesExhausted_Expires() {
+        // Given - 빌링키가 없고 이미 두 번(일정 길이) 실패한 구독
+        Subscription subscription = saveSubscription(1L, "customer-without-key", now.minusDays(2));
+        subscription.setStatus(Subscription.SubscriptionStatus.PAST_DUE);
+        subscription.setRenewalAttempts(2);
+        subscription.setNextRenewalAttemptAt(now.minusMinutes(1));
+        subscriptionRepository.save(subscription);
+
+        // When
+        Map<RenewalOutcome, Integer> outcomes = renewalService.renewDueSubscriptions(now);
+
+        // Then
+        assertThat(outcomes).containsExactly(entry(RenewalOutcome.EXPIRED, 1));
+        Subscription updated = subscriptionRepository.findById(subscription.getId()).orElseThrow();
+        assertThat(updated.getStatus()).isEqualTo(Subscription.SubscriptionStatus.EXPIRED);
+        assertThat(updated.getNextRenewalAttemptAt()).isNull();
+        verifyNoInteractions(tossPaymentsService);
+        verify(paymentEventService).publishSubscriptionExpired(any(Subscription.class));
+    }
+
+    @Test
+    @DisplayName("Toss 호출이 거절되면 실패로 기록하지 않고 다음 실행으로 미룬다")
+    void renewDueSubscriptions_TossUnavailable_Deferred() {
+        // Given
+        saveBillingKey("customer-1");
+        Subscription subscription = saveSubscription(1L, "customer-1", now.minusHours(1));
+        given(tossPaymentsService.processAutoPayment(anyString(), any(AutoPaymentRequest.class), eq(TossCallPriority.BATCH)))
+                .willReturn(Mono.error(new TossUnavailableException(TossOperation.AUTO_PAYMENT, "circuit_open", null)));
+
+        // When
+        Map<RenewalOutcome, Integer> outcomes = renewalService.renewDueSubscriptions(now);
+
+        // Then
+        assertThat(outcomes).containsExactly(entry(RenewalOutcome.DEFERRED, 1));
+        Subscription updated = subscriptionRepository.findById(subscription.getId()).orElseThrow();
+        assertThat(updated.getStatus()).isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
+        assertThat(updated.getRenewalAttempts()).isZero();
+        assertThat(paymentTransactionRepository.count()).isZero();
+    }
+
+    private Subscription saveSubscription(Long userId, String customerKey, LocalDateTime periodEnd) {
+        return subscriptionRepository.save(Subscription.builder()
+                .userId(userId)
+                .plan(plan)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29000.00"))
+                .currency("KRW")
+                .currentPeriodStart(periodEnd.minusMonths(1))
+                .currentPeriodEnd(periodEnd)
+                .billingCustomerKey(customerKey)
+                .autoRenewal(true)
+                .build());
+    }
+
+    private void saveBillingKey(String customerKey) {
+        BillingKey billingKey = new BillingKey();
+        billingKey.setCustomerKey(customerKey);
+        billingKey.setBillingKey("billing-" + customerKey);
+        billingKeyRepository.save(billingKey);
+    }
+
+    private PaymentResponse paymentResponse(AutoPaymentRequest request, String status) {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentKey("pk-" + request.getOrderId());
+        response.setOrderId(request.getOrderId());
+        response.setStatus(status);
+        return response;
+    }
+}
@@ -1,10 +1,10 @@
 package ac.su.kdt.bepaymentservice.service;
 
+import ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView;
 import ac.su.kdt.bepaymentservice.dto.CreateSubscriptionRequest;
 import ac.su.kdt.bepaymentservice.dto.SubscriptionDto;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
-import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
 import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,7 +32,10 @@ class SubscriptionServiceTest {
     private SubscriptionRepository subscriptionRepository;
     
     @Mock
-    private SubscriptionPlanRepository subscriptionPlanRepository;
+    private SubscriptionPlanCache subscriptionPlanCache;
+    
+    @Mock
+    private ActiveSubscriptionCache activeSubscriptionCache;
     
     
     @Mock
@@ -40,6 +44,9 @@ class SubscriptionServiceTest {
     @Mock
     private ac.su.kdt.bepaymentservice.metrics.PaymentMetrics paymentMetrics;
     
+    @Mock
+    private ObjectProvider<SubscriptionRenewalService> subscriptionRenewalService;
+    
     @InjectMocks
     private SubscriptionService subscriptionService;
     
@@ -73,9 +80,9 @@ class SubscriptionServiceTest {
     @DisplayName("새로운 구독을 성공적으로 생성한다")
     void createSubscription_Success() {
         // Given
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.findActiveSubscription(1L))
                 .willReturn(Optional.empty());
-        given(subscriptionPlanRepository.findById(1L))
+        given(subscriptionPlanCache.findById(1L))
                 .willReturn(Optional.of(testPlan));
         given(subscriptionRepository.save(any(Subscription.class)))
                 .willAnswer(invocation -> {
@@ -99,19 +106,17 @@ class SubscriptionServiceTest {
         
         verify(subscriptionRepository).save(any(Subscription.class));
         verify(paymentEventService).publishSubscriptionCreated(any(Subscription.class));
+        verify(activeSubscriptionCache).invalidate(1L);
     }
     
     @Test
     @DisplayName("이미 활성 구독이 있는 경우 예외를 발생시킨다")
     void createSubscription_AlreadyHasActiveSubscription_ThrowsException() {
         // Given
-        Subscription existingSubscription = Subscription.builder()
-                .id(1L)
-                .userId(1L)
-                .status(Subscription.SubscriptionStatus.ACTIVE)
-                .build();
+        ActiveSubscriptionView existingSubscription = new ActiveSubscriptionView(
+                1L, 1L, Subscription.SubscriptionStatus.ACTIVE, null, null);
         
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.findActiveSubscription(1L))
                 .willReturn(Optional.of(existingSubscription));
         
         // When & Then
@@ -127,9 +132,9 @@ class SubscriptionServiceTest {
     @DisplayName("존재하지 않는 플랜 ID로 구독 생성 시 예외를 발생시킨다")
     void createSubscription_PlanNotFound_ThrowsException() {
         // Given
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.findActiveSubscription(1L))
                 .willReturn(Optional.empty());
-        given(subscriptionPlanRepository.findById(1L))
+        given(subscriptionPlanCache.findById(1L))
                 .willReturn(Optional.empty());
         
         // When & Then
@@ -144,9 +149,9 @@ class SubscriptionServiceTest {
         // Given
         testPlan.setIsActive(false);
         
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.findActiveSubscription(1L))
                 .willReturn(Optional.empty());
-        given(subscriptionPlanRepository.findById(1L))
+        given(subscriptionPlanCache.findById(1L))
                 .willReturn(Optional.of(testPlan));
         
         // When & Then
@@ -161,9 +166,9 @@ class SubscriptionServiceTest {
         // Given
         createRequest.setBillingCycle(Subscription.BillingCycle.YEARLY);
         
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.findActiveSubscription(1L))
                 .willReturn(Optional.empty());
-        given(subscriptionPlanRepository.findById(1L))
+        given(subscriptionPlanCache.findById(1L))
                 .willReturn(Optional.of(testPlan));
         given(subscriptionRepository.save(any(Subscription.class)))
                 .willAnswer(invocation -> {
@@ -189,9 +194,9 @@ class SubscriptionServiceTest {
         createRequest.setStartTrial(true);
         createRequest.setTrialDays(7);
         
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.findActiveSubscription(1L))
                 .willReturn(Optional.empty());
-        given(subscriptionPlanRepository.findById(1L))
+        given(subscriptionPlanCache.findById(1L))
                 .willReturn(Optional.of(testPlan));
         given(subscriptionRepository.save(any(Subscription.class)))
                 .willAnswer(invocation -> {
@@ -226,7 +231,7 @@ class SubscriptionServiceTest {
                 .currency("KRW")
                 .build();
         
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.loadActiveSubscription(1L))
                 .willReturn(Optional.of(activeSubscription));
         
         // When
@@ -242,7 +247,7 @@ class SubscriptionServiceTest {
     @DisplayName("활성 구독이 없는 경우 null을 반환한다")
     void getUserActiveSubscription_NoActiveSubscription_ReturnsNull() {
         // Given
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
+        given(activeSubscriptionCache.loadActiveSubscription(1L))
                 .willReturn(Optional.empty());
         
         // When
@@ -303,6 +308,7 @@ class SubscriptionServiceTest {
         assertThat(result.getCanceledAt()).isNotNull();
         
         verify(paymentEventService).publishSubscriptionCancelled(any(Subscription.class));
+        verify(activeSubscriptionCache).invalidate(1L);
     }
     
     @Test
@@ -327,6 +333,7 @@ class SubscriptionServiceTest {
                 .userId(1L)
                 .status(Subscription.SubscriptionStatus.ACTIVE)
                 .currentPeriodEnd(LocalDateTime.now().minusDays(1))
+                .autoRenewal(false)
                 .build();
         
         given(subscriptionRepository.findExpiredSubscriptions(
@@ -342,5 +349,88 @@ class SubscriptionServiceTest {
         verify(subscriptionRepository).save(argThat(subscription -> 
                 subscription.getStatus() == Subscription.SubscriptionStatus.EXPIRED));
         verify(paymentEventService).publishSubscriptionExpired(any(Subscription.class));
+        verify(activeSubscriptionCache).invalidate(1L);
+    }
+    
+    @Test
+    @DisplayName("자동 갱신 대상 구독은 만료 처리하지 않는다")
+    void processExpiredSubscriptions_SkipsRenewable() {
+        // Given - 자동 갱신은 SubscriptionRenewalService 가 결제 후 기간을 연장한다
+        Subscription renewableSubscription = Subscription.builder()
+                .id(2L)
+                .userId(2L)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .currentPeriodEnd(LocalDateTime.now().minusDays(1))
+                .autoRenewal(true)
+                .billingCustomerKey("customer-2")
+                .build();
+        
+        given(subscriptionRenewalService.getIfAvailable()).willReturn(mock(SubscriptionRenewalService.class));
+        given(subscriptionRepository.findExpiredSubscriptions(
+                eq(Subscription.SubscriptionStatus.ACTIVE), any(LocalDateTime.class)))
+                .willReturn(List.of(renewableSubscription));
+        
+        // When
+        subscriptionService.processExpiredSubscriptions();
+        
+        // Then
+        assertThat(renewableSubscription.getStatus()).isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
+        verify(subscriptionRepository, never()).save(any(Subscription.class));
+        verify(paymentEventService, never()).publishSubscriptionExpired(any(Subscription.class));
+    }
+    
+    @Test
+    @DisplayName("빌링 고객 키가 없는 자동 갱신 구독은 갱신 엔진이 켜져 있어도 만료 처리한다")
+    void processExpiredSubscriptions_NoBillingKey_Expires() {
+        // Given - 자동결제 도입 전에 만들어진 구독은 billing_customer_key 가 없어 갱신 결제 대상이 아니다
+        Subscription legacySubscription = Subscription.builder()
+                .id(4L)
+                .userId(4L)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .currentPeriodEnd(LocalDateTime.now().minusDays(1))
+                .autoRenewal(true)
+                .build();
+        
+        given(subscriptionRenewalService.getIfAvailable()).willReturn(mock(SubscriptionRenewalService.class));
+        given(subscriptionRepository.findExpiredSubscriptions(
+                eq(Subscription.SubscriptionStatus.ACTIVE), any(LocalDateTime.class)))
+                .willReturn(List.of(legacySubscription));
+        given(subscriptionRepository.save(any(Subscription.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        subscriptionService.processExpiredSubscriptions();
+        
+        // Then
+        assertThat(legacySubscription.getStatus()).isEqualTo(Subscription.SubscriptionStatus.EXPIRED);
+        verify(paymentEventService).publishSubscriptionExpired(legacySubscription);
+    }
+    
+    @Test
+    @DisplayName("자동 갱신이 꺼져 있으면 자동 갱신 대상 구독도 만료 처리한다")
+    void processExpiredSubscriptions_RenewalDisabled_ExpiresRenewable() {
+        // Given - subscription.renewal.enabled 가 없으면 SubscriptionRenewalService 빈이 없다
+        Subscription renewableSubscription = Subscription.builder()
+                .id(3L)
+                .userId(3L)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .currentPeriodEnd(LocalDateTime.now().minusDays(1))
+                .autoRenewal(true)
+                .build();
+        
+        given(subscriptionRenewalService.getIfAvailable()).willReturn(null);
+        given(subscriptionRepository.findExpiredSubscriptions(
+                eq(Subscription.SubscriptionStatus.ACTIVE), any(LocalDateTime.class)))
+                .willReturn(List.of(renewableSubscription));
+        given(subscriptionRepository.save(any(Subscription.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        subscriptionService.processExpiredSubscriptions();
+        
+        // Then
+        assertThat(renewableSubscription.getStatus()).isEqualTo(Subscription.SubscriptionStatus.EXPIRED);
+        verify(paymentEventService).publishSubscriptionExpired(renewableSubscription);
+        verify(activeSubscriptionCache).invalidate(3L);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,10 @@
 package ac.su.kdt.bepaymentservice.service;
 
 import ac.su.kdt.bepaymentservice.kafka.ExternalEvent;
+import ac.su.kdt.bepaymentservice.kafka.ExternalEventFailureRouter;
+import ac.su.kdt.bepaymentservice.kafka.UnknownEventTypeException;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,12 +12,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.DeserializationExceptionHeader;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,12 +44,32 @@ class TicketEventListenerTest {
     @Mock
     private PaymentEventService paymentEventService;
     
+    @Mock
+    private PaymentMetrics paymentMetrics;
+    
+    @Mock
+    private ProcessedEventStore processedEventStore;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private ExternalEventFailureRouter failureRouter;
+    
     @Mock
     private Acknowledgment acknowledgment;
     
     @InjectMocks
     private TicketEventListener ticketEventListener;
     
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
     @Test
     @DisplayName("사용자 등록 이벤트 처리 시 환영 티켓을 지급한다")
     void handleUserRegistered_GrantsWelcomeTickets() {
@@ -45,7 +83,7 @@ class TicketEventListenerTest {
                 .build();
         
         // When
-        ticketEventListener.handleUserEvents(event, "user-events", 0, 1L, acknowledgment);
+        ticketEventListener.handleUserEvents(List.of(record("user-events", event)), acknowledgment);
         
         // Then
         verify(ticketService).adjustTickets(1L, 1, "Welcome bonus for new user");
@@ -66,7 +104,7 @@ class TicketEventListenerTest {
                 .build();
         
         // When
-        ticketEventListener.handleUserEvents(event, "user-events", 0, 1L, acknowledgment);
+        ticketEventListener.handleUserEvents(List.of(record("user-events", event)), acknowledgment);
         
         // Then
         verify(ticketService).adjustTickets(1L, 2, "Team creation bonus");
@@ -89,7 +127,7 @@ class TicketEventListenerTest {
                 .build();
         
         // When
-        ticketEventListener.handleUserEvents(event, "user-events", 0, 1L, acknowledgment);
+        ticketEventListener.handleUserEvents(List.of(record("user-events", event)), acknowledgment);
         
         // Then
         verify(ticketService).adjustTickets(1L, 2, "Achievement unlock bonus (FIRST_MISSION)");
@@ -113,7 +151,7 @@ class TicketEventListenerTest {
                 .build();
         
         // When
-        ticketEventListener.handleMissionEvents(event, "mission-events", 0, 1L, acknowledgment);
+        ticketEventListener.handleMissionEvents(List.of(record("mission-events", event)), acknowledgment);
         
         // Then
         verify(ticketService).adjustTickets(1L, 3, "Mission completion bonus (HARD)");
@@ -121,7 +159,7 @@ class TicketEventListenerTest {
     }
     
     @Test
-    @DisplayName("이벤트 처리 중 예외 발생시 acknowledge 처리한다")
+    @DisplayName("이벤트 처리 중 예외 발생시에도 배치를 acknowledge 처리한다")
     void handleEvent_ExceptionOccurred_StillAcknowledges() {
         // Given
         ExternalEvent event = ExternalEvent.builder()
@@ -136,15 +174,17 @@ class TicketEventListenerTest {
                 .when(ticketService).adjustTickets(anyLong(), anyInt(), anyString());
         
         // When
-        ticketEventListener.handleUserEvents(event, "user-events", 0, 1L, acknowledgment);
+        ConsumerRecord<String, ExternalEvent> record = record("user-events", event);
+        ticketEventListener.handleUserEvents(List.of(record), acknowledgment);
         
         // Then
+        verify(failureRouter).route(eq(record), any(RuntimeException.class));
         verify(acknowledgment).acknowledge();
     }
     
     @Test
-    @DisplayName("알려지지 않은 이벤트 타입은 무시한다")
-    void handleUnknownEventType_IgnoresEvent() {
+    @DisplayName("알려지지 않은 이벤트 타입은 지급하지 않고 실패 경로로 보낸다")
+    void handleUnknownEventType_RoutesToFailurePath() {
         // Given
         ExternalEvent event = ExternalEvent.builder()
                 .eventId("evt-006")
@@ -155,10 +195,179 @@ class TicketEventListenerTest {
                 .build();
         
         // When
-        ticketEventListener.handleUserEvents(event, "user-events", 0, 1L, acknowledgment);
+        ConsumerRecord<String, ExternalEvent> record = record("user-events", event);
+        ticketEventListener.handleUserEvents(List.of(record), acknowledgment);
         
         // Then
         verify(ticketService, never()).adjustTickets(anyLong(), anyInt(), anyString());
+        verify(failureRouter).route(eq(record), any(UnknownEventTypeException.class));
+        verify(acknowledgment).acknowledge();
+    }
+    
+    @Test
+    @DisplayName("역직렬화에 실패한 레코드는 원본 바이트 그대로 DLT 로 보낸다")
+    void handleUserEvents_Undeserializable_RoutesRawRecord() throws Exception {
+        // Given
+        DeserializationException error = new DeserializationException(
+                "bad payload", "{not-json".getBytes(StandardCharsets.UTF_8), false, new IllegalStateException("parse"));
+        ConsumerRecord<String, ExternalEvent> record = new ConsumerRecord<>("user-events", 0, 7L, "1", null);
+        record.headers().add(new DeserializationExceptionHeader(
+                SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, serialize(error)));
+        
+        // When
+        ticketEventListener.handleUserEvents(List.of(record), acknowledgment);
+        
+        // Then
+        verify(failureRouter).routeUndeserializable(eq(record), any(DeserializationException.class));
+        verify(ticketService, never()).adjustTickets(anyLong(), anyInt(), anyString());
+        verify(acknowledgment).acknowledge();
+    }
+    
+    @Test
+    @DisplayName("배치 안의 미션 완료 보너스는 사용자별로 합산하여 한 번만 지급한다")
+    void handleMissionEvents_Batch_GrantsNetBonusPerUser() {
+        // Given
+        List<ConsumerRecord<String, ExternalEvent>> records = new ArrayList<>();
+        records.add(record("mission-events", missionCompleted("evt-101", 1L, "HARD")));
+        records.add(record("mission-events", missionCompleted("evt-102", 2L, "EASY")));
+        records.add(record("mission-events", missionCompleted("evt-103", 1L, "HARD")));
+        records.add(record("mission-events", missionCompleted("evt-104", 1L, "EXPERT")));
+        
+        // When
+        ticketEventListener.handleMissionEvents(records, acknowledgment);
+        
+        // Then
+        verify(ticketService).adjustTickets(1L, 11,
+                "Mission completion bonus (HARD) x2, Mission completion bonus (EXPERT)");
+        verify(ticketService).adjustTickets(2L, 1, "Mission completion bonus (EASY)");
+        verifyNoMoreInteractions(ticketService);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+    
+    @Test
+    @DisplayName("한 사용자의 지급이 실패해도 배치의 다른 사용자는 지급된다")
+    void handleMissionEvents_OneUserFails_OthersStillGranted() {
+        // Given
+        doThrow(new RuntimeException("Ticket service error"))
+                .when(ticketService).adjustTickets(eq(1L), anyInt(), anyString());
+        List<ConsumerRecord<String, ExternalEvent>> records = List.of(
+                record("mission-events", missionCompleted("evt-201", 1L, "MEDIUM")),
+                record("mission-events", missionCompleted("evt-202", 2L, "MEDIUM")));
+        
+        // When
+        ticketEventListener.handleMissionEvents(records, acknowledgment);
+        
+        // Then
+        verify(ticketService).adjustTickets(2L, 2, "Mission completion bonus (MEDIUM)");
+        verify(failureRouter).route(eq(records.get(0)), any(RuntimeException.class));
+        verify(failureRouter, never()).route(eq(records.get(1)), any());
+        verify(acknowledgment).acknowledge();
+    }
+    
+    @Test
+    @DisplayName("이미 처리된 이벤트와 배치 안에서 중복된 이벤트는 지급하지 않는다")
+    void handleMissionEvents_Redelivered_SkipsDuplicates() {
+        // Given
+        given(processedEventStore.findProcessed(anyCollection())).willReturn(Set.of("evt-301"));
+        List<ConsumerRecord<String, ExternalEvent>> records = List.of(
+                record("mission-events", missionCompleted("evt-301", 1L, "HARD")),
+                record("mission-events", missionCompleted("evt-302", 1L, "EASY")),
+                record("mission-events", missionCompleted("evt-302", 1L, "EASY")));
+        
+        // When
+        ticketEventListener.handleMissionEvents(records, acknowledgment);
+        
+        // Then
+        verify(processedEventStore).markProcessed(Map.of("evt-302", "mission.completed"));
+        verify(ticketService).adjustTickets(1L, 1, "Mission completion bonus (EASY)");
+        verify(paymentMetrics, times(2)).incrementKafkaEventDuplicate("mission.completed");
         verify(acknowledgment).acknowledge();
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("필터가 놓친 중복은 기록 충돌 후 처리된 이벤트를 빼고 다시 지급한다")
+    void handleMissionEvents_DuplicateKeyOnRecord_RetriesWithoutProcessed() {
+        // Given
+        willThrow(new DuplicateKeyException("duplicate event"))
+                .willDoNothing()
+                .given(processedEventStore).markProcessed(anyMap());
+        given(processedEventStore.findProcessedInDatabase(anyCollection())).willReturn(Set.of("evt-401"));
+        List<ConsumerRecord<String, ExternalEvent>> records = List.of(
+                record("mission-events", missionCompleted("evt-401", 1L, "HARD")),
+                record("mission-events", missionCompleted("evt-402", 1L, "MEDIUM")));
+        
+        // When
+        ticketEventListener.handleMissionEvents(records, acknowledgment);
+        
+        // Then
+        verify(ticketService).adjustTickets(1L, 2, "Mission completion bonus (MEDIUM)");
+        verify(ticketService, never()).adjustTickets(1L, 5, "Mission completion bonus (HARD), Mission completion bonus (MEDIUM)");
+        verify(paymentMetrics).incrementKafkaEventDuplicate("mission.completed");
+    }
+    
+    @Test
+    @DisplayName("재시도 토픽의 이벤트는 한 건씩 지급한다")
+    void handleRetry_GrantsSingleEvent() {
+        // Given
+        ExternalEvent event = missionCompleted("evt-501", 1L, "EXPERT");
+        
+        // When
+        ticketEventListener.handleRetry(event, "mission-events.retry");
+        
+        // Then
+        verify(processedEventStore).markProcessed(Map.of("evt-501", "mission.completed"));
+        verify(ticketService).adjustTickets(1L, 5, "Mission completion bonus (EXPERT)");
+    }
+    
+    @Test
+    @DisplayName("재시도 중 다시 실패하면 원인별 메트릭을 남기고 예외를 던져 다음 백오프 단계로 넘긴다")
+    void handleRetry_Fails_RecordsCauseAndRethrows() {
+        // Given
+        ExternalEvent event = missionCompleted("evt-502", 1L, "EASY");
+        doThrow(new RuntimeException("Ticket service error"))
+                .when(ticketService).adjustTickets(anyLong(), anyInt(), anyString());
+        
+        // When & Then
+        assertThatThrownBy(() -> ticketEventListener.handleRetry(event, "mission-events.retry"))
+                .isInstanceOf(RuntimeException.class);
+        verify(paymentMetrics).incrementKafkaEventFailure("mission.completed", "PROCESSING");
+    }
+    
+    @Test
+    @DisplayName("이미 처리된 이벤트가 재시도 토픽으로 들어오면 지급하지 않는다")
+    void handleRetry_AlreadyProcessed_Skips() {
+        // Given
+        given(processedEventStore.findProcessed(anyCollection())).willReturn(Set.of("evt-503"));
+        
+        // When
+        ticketEventListener.handleRetry(missionCompleted("evt-503", 1L, "HARD"), "mission-events.retry");
+        
+        // Then
+        verify(ticketService, never()).adjustTickets(anyLong(), anyInt(), anyString());
+        verify(paymentMetrics).incrementKafkaEventDuplicate("mission.completed");
+    }
+    
+    private ExternalEvent missionCompleted(String eventId, Long userId, String difficulty) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("difficulty", difficulty);
+        return ExternalEvent.builder()
+                .eventId(eventId)
+                .eventType("mission.completed")
+                .userId(userId)
+                .timestamp(LocalDateTime.now())
+                .data(data)
+                .build();
+    }
+    
+    private byte[] serialize(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private ConsumerRecord<String, ExternalEvent> record(String topic, ExternalEvent event) {
+        return new ConsumerRecord<>(topic, 0, 1L, String.valueOf(event.getUserId()), event);
+    }
+}
@@ -0,0 +1,171 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@Import(TicketHistoryService.class)
+@DisplayName("TicketHistoryService 티켓 거래 내역 테스트")
+class TicketHistoryServiceTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Autowired
+    private TicketHistoryService ticketHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 사용자 1: 5건 (마지막 세 건은 같은 시각), 사용자 2: 1건
+        insert(1L, "EARNED", 3, BASE_TIME, "Initial ticket grant");
+        insert(1L, "SPENT", -1, BASE_TIME.plusMinutes(1), "Mission attempt");
+        insert(1L, "REFUND", 1, BASE_TIME.plusMinutes(2), "Refund, \"mission\" failed");
+        insert(1L, "SPENT", -1, BASE_TIME.plusMinutes(2), "Mission attempt");
+        insert(1L, "SPENT", -1, BASE_TIME.plusMinutes(2), null);
+        insert(2L, "EARNED", 3, BASE_TIME, "Initial ticket grant");
+    }
+
+    @Test
+    @DisplayName("커서를 따라가면 같은 시각의 거래도 빠짐없이 최신순으로 한 번씩 읽는다")
+    void getTransactions_FollowsCursorAcrossTies() {
+        // When
+        List<TicketTransactionDto> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TicketTransactionPage page = ticketHistoryService.getTransactions(1L, cursor, 2);
+            all.addAll(page.transactions());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Then
+        assertThat(pages).isEqualTo(3);
+        assertThat(all).hasSize(5)
+                .extracting(TicketTransactionDto::getUserId).containsOnly(1L);
+        assertThat(all).extracting(TicketTransactionDto::getId).doesNotHaveDuplicates();
+        for (int i = 1; i < all.size(); i++) {
+            TicketTransactionDto newer = all.get(i - 1);
+            TicketTransactionDto older = all.get(i);
+            assertThat(newer.getCreatedAt()).isAfterOrEqualTo(older.getCreatedAt());
+            if (newer.getCreatedAt().equals(older.getCreatedAt())) {
+                assertThat(newer.getId()).isGreaterThan(older.getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("조회 기간보다 멀리 떨어진 거래도 다음 기간으로 넘어가며 빠짐없이 읽는다")
+    void getTransactions_SparseHistory_CrossesWindows() {
+        // Given - 사용자 4: 최근 1건과 100일, 200일, 400일 전 거래
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        insert(4L, "SPENT", -1, now.minusHours(1), "Recent");
+        insert(4L, "SPENT", -1, now.minusDays(100), "100 days ago");
+        insert(4L, "SPENT", -1, now.minusDays(200), "200 days ago");
+        insert(4L, "EARNED", 3, now.minusDays(400), "400 days ago");
+
+        // When
+        TicketTransactionPage first = ticketHistoryService.getTransactions(4L, null, 2);
+        TicketTransactionPage second = ticketHistoryService.getTransactions(4L, first.nextCursor(), 2);
+
+        // Then
+        assertThat(first.transactions()).extracting(TicketTransactionDto::getReason)
+                .containsExactly("Recent", "100 days ago");
+        assertThat(second.transactions()).extracting(TicketTransactionDto::getReason)
+                .containsExactly("200 days ago", "400 days ago");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("형식이 잘못된 커서는 IllegalArgumentException 으로 거절한다")
+    void getTransactions_InvalidCursor_Throws() {
+        assertThatThrownBy(() -> ticketHistoryService.getTransactions(1L, "not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("NDJSON 으로 한 줄에 한 건씩 내보낸다")
+    void export_Ndjson_WritesOneLinePerRow() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        int count = ticketHistoryService.export(1L, TicketHistoryService.ExportFormat.NDJSON, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(5);
+        assertThat(lines).hasSize(5).allSatisfy(line -> assertThat(line).startsWith("{\"id\":").endsWith("}"));
+        assertThat(lines[4]).contains("\"transactionType\":\"EARNED\"", "\"createdAt\":\"2024-03-01T12:00\"");
+    }
+
+    @Test
+    @DisplayName("CSV 는 헤더를 쓰고 쉼표와 따옴표가 있는 사유를 따옴표로 감싼다")
+    void export_Csv_EscapesReason() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        ticketHistoryService.export(1L, TicketHistoryService.ExportFormat.CSV, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(6);
+        assertThat(lines[0]).isEqualTo("id,transactionType,ticketAmount,balanceBefore,balanceAfter,relatedAttemptId,reason,createdAt");
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains(",\"Refund, \"\"mission\"\" failed\","));
+    }
+
+    @Test
+    @DisplayName("관련 시도 id 가 없으면 0 이 아닌 null 로, 있으면 그 값으로 읽고 내보낸다")
+    void relatedAttemptId_NullAndPresent_Preserved() throws Exception {
+        // Given - 사용자 3: 시도 없는 지급(먼저)과 시도 42 차감(나중)
+        insert(3L, "EARNED", 3, BASE_TIME, "Initial ticket grant", null);
+        insert(3L, "SPENT", -1, BASE_TIME.plusMinutes(1), "Mission attempt", 42L);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        // When
+        TicketTransactionPage page = ticketHistoryService.getTransactions(3L, null, 20);
+        ticketHistoryService.export(3L, TicketHistoryService.ExportFormat.NDJSON, ndjson);
+        ticketHistoryService.export(3L, TicketHistoryService.ExportFormat.CSV, csv);
+
+        // Then
+        assertThat(page.transactions()).extracting(TicketTransactionDto::getRelatedAttemptId)
+                .containsExactly(42L, null);
+        String[] jsonLines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(jsonLines[0]).contains("\"relatedAttemptId\":42");
+        assertThat(jsonLines[1]).contains("\"relatedAttemptId\":null");
+        String[] csvLines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(csvLines[1]).contains(",42,Mission attempt,");
+        assertThat(csvLines[2]).contains(",,Initial ticket grant,").doesNotContain(",0,Initial ticket grant,");
+    }
+
+    private void insert(Long userId, String type, int amount, LocalDateTime createdAt, String reason) {
+        insert(userId, type, amount, createdAt, reason, null);
+    }
+
+    private void insert(Long userId, String type, int amount, LocalDateTime createdAt, String reason, Long attemptId) {
+        jdbcTemplate.update(
+                "INSERT INTO ticket_transaction (user_id, transaction_type, ticket_amount, balance_before, balance_after, " +
+                "related_attempt_id, reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                userId, type, amount, 0, amount, attemptId, reason, Timestamp.valueOf(createdAt));
+    }
+}
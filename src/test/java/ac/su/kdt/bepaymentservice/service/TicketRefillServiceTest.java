@@ -0,0 +1,175 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.entity.UserTicket;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@DataJpaTest
+@Import(TicketRefillService.class)
+@TestPropertySource(properties = "ticket.refill.chunk-size=2")
+@DisplayName("TicketRefillService 충전 테스트")
+class TicketRefillServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TicketRefillService ticketRefillService;
+
+    @MockBean
+    private PaymentEventService paymentEventService;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    private SubscriptionPlan economyPlan;
+
+    @BeforeEach
+    void setUp() {
+        economyPlan = entityManager.persistAndFlush(SubscriptionPlan.builder()
+                .planName("Economy Class")
+                .planType(SubscriptionPlan.PlanType.ECONOMY_CLASS)
+                .monthlyPrice(new BigDecimal("29.00"))
+                .maxMonthlyAttempts(10)
+                .ticketLimit(3)
+                .ticketRefillAmount(3)
+                .ticketRefillIntervalHours(24)
+                .isActive(true)
+                .build());
+    }
+
+    @Test
+    @DisplayName("청크 크기보다 많은 대상도 user_id 순으로 모두 충전한다")
+    void refillEligibleUsers_PagesThroughAllChunks() {
+        // Given - 청크 크기(2)보다 많은 5명의 충전 대상
+        for (long userId = 1; userId <= 5; userId++) {
+            persistSubscriber(userId, 1, LocalDateTime.now().minusHours(1));
+        }
+
+        // When
+        int refilled = ticketRefillService.refillEligibleUsers();
+
+        // Then
+        assertThat(refilled).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_ticket WHERE current_tickets = 3", Integer.class)).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ticket_transaction WHERE transaction_type = 'EARNED' AND ticket_amount = 2",
+                Integer.class)).isEqualTo(5);
+        verify(paymentEventService, times(5)).publishTicketsRefilled(anyLong(), eq(2), eq(3));
+    }
+
+    @Test
+    @DisplayName("이미 한도에 도달한 사용자는 다음 충전 시각만 갱신한다")
+    void refillEligibleUsers_AtLimit_OnlyReschedules() {
+        // Given
+        persistSubscriber(1L, 3, LocalDateTime.now().minusHours(1));
+
+        // When
+        int refilled = ticketRefillService.refillEligibleUsers();
+
+        // Then
+        assertThat(refilled).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_ticket WHERE next_refill_at > CURRENT_TIMESTAMP", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ticket_transaction", Integer.class)).isZero();
+        verify(paymentEventService, never()).publishTicketsRefilled(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("활성 구독이 없거나 충전 시각이 지나지 않은 사용자는 건너뛴다")
+    void refillEligibleUsers_SkipsIneligibleUsers() {
+        // Given
+        persistSubscriber(1L, 1, LocalDateTime.now().plusHours(5));
+        entityManager.persistAndFlush(UserTicket.builder()
+                .userId(2L)
+                .currentTickets(0)
+                .nextRefillAt(LocalDateTime.now().minusHours(1))
+                .build());
+
+        // When
+        int refilled = ticketRefillService.refillEligibleUsers();
+
+        // Then
+        assertThat(refilled).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT current_tickets FROM user_ticket WHERE user_id = 2", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("지연 충전 계산은 경과한 주기만큼 한도까지 지급하고 DB는 변경하지 않는다")
+    void findPendingRefill_AccruesElapsedPeriodsWithoutWriting() {
+        // Given - 충전 시각이 49시간 지남 (24시간 주기 3회 도래)
+        LocalDateTime nextRefillAt = LocalDateTime.now().minusHours(49);
+        persistSubscriber(1L, 0, nextRefillAt);
+
+        // When
+        Optional<TicketRefillService.PendingRefill> pending =
+                ticketRefillService.findPendingRefill(1L, LocalDateTime.now());
+
+        // Then
+        assertThat(pending).isPresent();
+        assertThat(pending.get().ticketsAdded()).isEqualTo(3); // 한도 3
+        assertThat(pending.get().nextRefillAt()).isCloseTo(nextRefillAt.plusHours(72), within(1, ChronoUnit.MILLIS));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT current_tickets FROM user_ticket WHERE user_id = 1", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("누적 충전분 반영은 한 번만 지급하고 거래 내역과 이벤트를 남긴다")
+    void applyPendingRefill_PersistsOnce() {
+        // Given
+        persistSubscriber(1L, 1, LocalDateTime.now().minusHours(1));
+
+        // When
+        ticketRefillService.applyPendingRefill(1L);
+        ticketRefillService.applyPendingRefill(1L);
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT current_tickets FROM user_ticket WHERE user_id = 1", Integer.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ticket_transaction WHERE user_id = 1", Integer.class)).isEqualTo(1);
+        verify(paymentEventService, times(1)).publishTicketsRefilled(1L, 2, 3);
+    }
+
+        private void persistSubscriber(long userId, int currentTickets, LocalDateTime nextRefillAt) {
+        entityManager.persist(Subscription.builder()
+                .userId(userId)
+                .plan(economyPlan)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29.00"))
+                .build());
+        entityManager.persist(UserTicket.builder()
+                .userId(userId)
+                .currentTickets(currentTickets)
+                .lastTicketRefill(LocalDateTime.now().minusHours(25))
+                .nextRefillAt(nextRefillAt)
+                .build());
+        entityManager.flush();
+    }
+}
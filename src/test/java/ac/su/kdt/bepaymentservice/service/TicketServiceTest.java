@@ -1,11 +1,12 @@
 package ac.su.kdt.bepaymentservice.service;
 
+import ac.su.kdt.bepaymentservice.dto.ActiveSubscriptionView;
 import ac.su.kdt.bepaymentservice.dto.TicketDto;
 import ac.su.kdt.bepaymentservice.entity.Subscription;
 import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
 import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
 import ac.su.kdt.bepaymentservice.entity.UserTicket;
-import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
 import ac.su.kdt.bepaymentservice.repository.TicketTransactionRepository;
 import ac.su.kdt.bepaymentservice.repository.UserTicketRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,10 +16,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -36,17 +36,29 @@ class TicketServiceTest {
     private TicketTransactionRepository ticketTransactionRepository;
     
     @Mock
-    private SubscriptionRepository subscriptionRepository;
+    private ActiveSubscriptionCache activeSubscriptionCache;
+    
+    @Mock
+    private SubscriptionPlanCache subscriptionPlanCache;
     
     @Mock
     private PaymentEventService paymentEventService;
     
+    @Mock
+    private TicketRefillService ticketRefillService;
+    
+    @Mock
+    private TicketRefillCoordinator ticketRefillCoordinator;
+    
+    @Mock
+    private PaymentMetrics paymentMetrics;
+    
     @InjectMocks
     private TicketService ticketService;
     
     private UserTicket testUserTicket;
     private SubscriptionPlan testPlan;
-    private Subscription testSubscription;
+    private ActiveSubscriptionView testActiveSubscription;
     
     @BeforeEach
     void setUp() {
@@ -67,14 +79,8 @@ class TicketServiceTest {
                 .ticketRefillIntervalHours(24)
                 .build();
         
-        testSubscription = Subscription.builder()
-                .id(1L)
-                .userId(1L)
-                .plan(testPlan)
-                .status(Subscription.SubscriptionStatus.ACTIVE)
-                .billingCycle(Subscription.BillingCycle.MONTHLY)
-                .amount(new BigDecimal("29.00"))
-                .build();
+        testActiveSubscription = new ActiveSubscriptionView(
+                1L, 1L, Subscription.SubscriptionStatus.ACTIVE, null, null);
     }
     
     @Test
@@ -93,14 +99,38 @@ class TicketServiceTest {
         assertThat(result.getCurrentTickets()).isEqualTo(5);
     }
     
+    @Test
+    @DisplayName("지연 충전 모드에서는 누적된 충전분을 응답에만 반영하고 저장하지 않는다")
+    void getUserTickets_LazyRefill_ReturnsAccruedBalanceWithoutWriting() {
+        // Given
+        ReflectionTestUtils.setField(ticketService, "refillMode", "lazy");
+        LocalDateTime nextRefillAt = LocalDateTime.now().plusHours(20);
+        given(userTicketRepository.findByUserId(1L))
+                .willReturn(Optional.of(testUserTicket));
+        given(ticketRefillService.findPendingRefill(eq(1L), any(LocalDateTime.class)))
+                .willReturn(Optional.of(new TicketRefillService.PendingRefill(
+                        2, 7, nextRefillAt.minusHours(24), nextRefillAt)));
+        
+        // When
+        TicketDto result = ticketService.getUserTickets(1L);
+        
+        // Then
+        assertThat(result.getCurrentTickets()).isEqualTo(7);
+        assertThat(result.getNextRefillAt()).isEqualTo(nextRefillAt);
+        verify(ticketRefillService, never()).applyPendingRefill(anyLong());
+        verify(userTicketRepository, never()).save(any(UserTicket.class));
+    }
+    
     @Test
     @DisplayName("존재하지 않는 사용자의 경우 새로운 티켓 계정을 생성한다")
     void getUserTickets_NewUser_CreatesNewTicketAccount() {
         // Given
         given(userTicketRepository.findByUserId(1L))
                 .willReturn(Optional.empty());
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(1L), anyList()))
-                .willReturn(Optional.of(testSubscription));
+        given(activeSubscriptionCache.findActiveSubscription(1L))
+                .willReturn(Optional.of(testActiveSubscription));
+        given(subscriptionPlanCache.findById(1L))
+                .willReturn(Optional.of(testPlan));
         given(userTicketRepository.save(any(UserTicket.class)))
                 .willAnswer(invocation -> {
                     UserTicket userTicket = invocation.getArgument(0);
@@ -123,13 +153,13 @@ class TicketServiceTest {
     }
     
     @Test
-    @DisplayName("충분한 티켓이 있는 경우 티켓 사용에 성공한다")
+    @DisplayName("충분한 티켓이 있는 경우 조건부 차감 UPDATE로 티켓 사용에 성공한다")
     void useTickets_SufficientTickets_Success() {
         // Given
-        given(userTicketRepository.findByUserId(1L))
-                .willReturn(Optional.of(testUserTicket));
-        given(userTicketRepository.save(any(UserTicket.class)))
-                .willAnswer(invocation -> invocation.getArgument(0));
+        given(userTicketRepository.decrementTicketsIfSufficient(eq(1L), eq(2), any(LocalDateTime.class)))
+                .willReturn(1);
+        given(userTicketRepository.findCurrentTicketsByUserId(1L))
+                .willReturn(Optional.of(3));
         given(ticketTransactionRepository.save(any(TicketTransaction.class)))
                 .willAnswer(invocation -> invocation.getArgument(0));
         
@@ -138,9 +168,9 @@ class TicketServiceTest {
         
         // Then
         assertThat(result).isTrue();
-        assertThat(testUserTicket.getCurrentTickets()).isEqualTo(3); // 5 - 2
         
-        verify(userTicketRepository).save(testUserTicket);
+        verify(userTicketRepository, never()).findByUserId(anyLong());
+        verify(userTicketRepository, never()).save(any(UserTicket.class));
         verify(ticketTransactionRepository).save(argThat(transaction ->
                 transaction.getTransactionType() == TicketTransaction.TicketTransactionType.SPENT &&
                 transaction.getTicketAmount() == -2 &&
@@ -154,30 +184,55 @@ class TicketServiceTest {
     @DisplayName("티켓이 부족한 경우 사용에 실패한다")
     void useTickets_InsufficientTickets_Fails() {
         // Given
-        testUserTicket.setCurrentTickets(1);
-        given(userTicketRepository.findByUserId(1L))
-                .willReturn(Optional.of(testUserTicket));
+        given(userTicketRepository.decrementTicketsIfSufficient(eq(1L), eq(5), any(LocalDateTime.class)))
+                .willReturn(0);
+        given(userTicketRepository.findCurrentTicketsByUserId(1L))
+                .willReturn(Optional.of(1));
         
         // When
         boolean result = ticketService.useTickets(1L, 5, 123L, "Mission attempt");
         
         // Then
         assertThat(result).isFalse();
-        assertThat(testUserTicket.getCurrentTickets()).isEqualTo(1); // 변경되지 않음
         
-        verify(userTicketRepository, never()).save(any(UserTicket.class));
+        verify(userTicketRepository, times(1)).decrementTicketsIfSufficient(eq(1L), eq(5), any(LocalDateTime.class));
         verify(ticketTransactionRepository, never()).save(any(TicketTransaction.class));
         verify(paymentEventService, never()).publishTicketsUsed(anyLong(), anyInt(), anyInt());
     }
     
     @Test
-    @DisplayName("티켓 환불을 정상적으로 처리한다")
-    void refundTickets_Success() {
+    @DisplayName("티켓 계정이 없는 경우 계정을 생성한 뒤 한 번 더 차감을 시도한다")
+    void useTickets_NewUser_CreatesAccountAndRetries() {
         // Given
-        given(userTicketRepository.findByUserId(1L))
-                .willReturn(Optional.of(testUserTicket));
+        given(userTicketRepository.decrementTicketsIfSufficient(eq(1L), eq(2), any(LocalDateTime.class)))
+                .willReturn(0, 1);
+        given(userTicketRepository.findCurrentTicketsByUserId(1L))
+                .willReturn(Optional.empty(), Optional.of(1));
+        given(activeSubscriptionCache.findActiveSubscription(1L))
+                .willReturn(Optional.of(testActiveSubscription));
+        given(subscriptionPlanCache.findById(1L))
+                .willReturn(Optional.of(testPlan));
         given(userTicketRepository.save(any(UserTicket.class)))
                 .willAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        boolean result = ticketService.useTickets(1L, 2, 123L, "Mission attempt");
+        
+        // Then
+        assertThat(result).isTrue();
+        
+        verify(userTicketRepository, times(2)).decrementTicketsIfSufficient(eq(1L), eq(2), any(LocalDateTime.class));
+        verify(paymentEventService).publishTicketsUsed(1L, 2, 1);
+    }
+    
+    @Test
+    @DisplayName("티켓 환불을 증가 UPDATE로 정상적으로 처리한다")
+    void refundTickets_Success() {
+        // Given
+        given(userTicketRepository.incrementTickets(eq(1L), eq(2), any(LocalDateTime.class)))
+                .willReturn(1);
+        given(userTicketRepository.findCurrentTicketsByUserId(1L))
+                .willReturn(Optional.of(7));
         given(ticketTransactionRepository.save(any(TicketTransaction.class)))
                 .willAnswer(invocation -> invocation.getArgument(0));
         
@@ -185,9 +240,7 @@ class TicketServiceTest {
         ticketService.refundTickets(1L, 2, 123L, "Failed mission");
         
         // Then
-        assertThat(testUserTicket.getCurrentTickets()).isEqualTo(7); // 5 + 2
-        
-        verify(userTicketRepository).save(testUserTicket);
+        verify(userTicketRepository, never()).save(any(UserTicket.class));
         verify(ticketTransactionRepository).save(argThat(transaction ->
                 transaction.getTransactionType() == TicketTransaction.TicketTransactionType.REFUND &&
                 transaction.getTicketAmount() == 2 &&
@@ -246,97 +299,49 @@ class TicketServiceTest {
     }
     
     @Test
-    @DisplayName("티켓 자동 충전을 처리한다")
-    void processTicketRefills_Success() {
+    @DisplayName("티켓 자동 충전은 샤드 병렬 충전 실행에 위임한다")
+    void processTicketRefills_DelegatesToShardedRefill() {
         // Given
-        UserTicket userTicketForRefill = UserTicket.builder()
-                .id(2L)
-                .userId(2L)
-                .currentTickets(1)
-                .nextRefillAt(LocalDateTime.now().minusHours(1)) // 충전 시간이 지남
-                .build();
-        
-        given(userTicketRepository.findUsersEligibleForRefill(any(LocalDateTime.class)))
-                .willReturn(List.of(userTicketForRefill));
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(2L), anyList()))
-                .willReturn(Optional.of(testSubscription));
-        given(userTicketRepository.save(any(UserTicket.class)))
-                .willAnswer(invocation -> invocation.getArgument(0));
-        given(ticketTransactionRepository.save(any(TicketTransaction.class)))
-                .willAnswer(invocation -> invocation.getArgument(0));
+        given(ticketRefillCoordinator.runRefill()).willReturn(3);
         
         // When
         ticketService.processTicketRefills();
         
         // Then
-        assertThat(userTicketForRefill.getCurrentTickets()).isEqualTo(3); // 1 + 2 (limit에 맞춰서)
-        assertThat(userTicketForRefill.getLastTicketRefill()).isNotNull();
-        assertThat(userTicketForRefill.getNextRefillAt()).isAfter(LocalDateTime.now());
-        
-        verify(userTicketRepository).save(userTicketForRefill);
-        verify(ticketTransactionRepository).save(argThat(transaction ->
-                transaction.getTransactionType() == TicketTransaction.TicketTransactionType.EARNED &&
-                transaction.getTicketAmount() == 2 &&
-                transaction.getReason().equals("Automatic ticket refill")
-        ));
-        verify(paymentEventService).publishTicketsRefilled(2L, 2, 3);
+        verify(ticketRefillCoordinator).runRefill();
+        verify(userTicketRepository, never()).findUsersEligibleForRefill(any(LocalDateTime.class));
     }
     
     @Test
-    @DisplayName("이미 티켓 한도에 도달한 사용자는 충전되지 않는다")
-    void processTicketRefills_AlreadyAtLimit_SkipsRefill() {
+    @DisplayName("지연 충전 모드에서는 티켓 사용 전에 누적 충전분을 먼저 반영한다")
+    void useTickets_LazyRefill_AppliesPendingRefillBeforeDecrement() {
         // Given
-        UserTicket userTicketAtLimit = UserTicket.builder()
-                .id(2L)
-                .userId(2L)
-                .currentTickets(3) // 이미 한도에 도달
-                .nextRefillAt(LocalDateTime.now().minusHours(1))
-                .build();
-        
-        given(userTicketRepository.findUsersEligibleForRefill(any(LocalDateTime.class)))
-                .willReturn(List.of(userTicketAtLimit));
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(2L), anyList()))
-                .willReturn(Optional.of(testSubscription));
-        given(userTicketRepository.save(any(UserTicket.class)))
-                .willAnswer(invocation -> invocation.getArgument(0));
+        ReflectionTestUtils.setField(ticketService, "refillMode", "lazy");
+        given(userTicketRepository.decrementTicketsIfSufficient(eq(1L), eq(2), any(LocalDateTime.class)))
+                .willReturn(1);
+        given(userTicketRepository.findCurrentTicketsByUserId(1L))
+                .willReturn(Optional.of(1));
         
         // When
-        ticketService.processTicketRefills();
+        boolean result = ticketService.useTickets(1L, 2, 100L, "Mission attempt");
         
         // Then
-        assertThat(userTicketAtLimit.getCurrentTickets()).isEqualTo(3); // 변경 없음
-        assertThat(userTicketAtLimit.getNextRefillAt()).isAfter(LocalDateTime.now()); // 다음 충전 시간만 업데이트
-        
-        // 한도에 도달한 경우 nextRefillAt 업데이트를 위해 save가 호출됨
-        verify(userTicketRepository).save(userTicketAtLimit);
-        verify(ticketTransactionRepository, never()).save(any(TicketTransaction.class));
-        verify(paymentEventService, never()).publishTicketsRefilled(anyLong(), anyInt(), anyInt());
+        assertThat(result).isTrue();
+        var inOrder = inOrder(ticketRefillService, userTicketRepository);
+        inOrder.verify(ticketRefillService).applyPendingRefill(1L);
+        inOrder.verify(userTicketRepository).decrementTicketsIfSufficient(eq(1L), eq(2), any(LocalDateTime.class));
     }
     
     @Test
-    @DisplayName("활성 구독이 없는 사용자는 충전되지 않는다")
-    void processTicketRefills_NoActiveSubscription_SkipsRefill() {
+    @DisplayName("지연 충전 모드에서는 주기 충전 배치를 실행하지 않는다")
+    void processTicketRefills_LazyRefill_SkipsSweep() {
         // Given
-        UserTicket userTicketWithoutSubscription = UserTicket.builder()
-                .id(2L)
-                .userId(2L)
-                .currentTickets(1)
-                .nextRefillAt(LocalDateTime.now().minusHours(1))
-                .build();
-        
-        given(userTicketRepository.findUsersEligibleForRefill(any(LocalDateTime.class)))
-                .willReturn(List.of(userTicketWithoutSubscription));
-        given(subscriptionRepository.findByUserIdAndStatusIn(eq(2L), anyList()))
-                .willReturn(Optional.empty());
+        ReflectionTestUtils.setField(ticketService, "refillMode", "lazy");
         
         // When
         ticketService.processTicketRefills();
         
         // Then
-        assertThat(userTicketWithoutSubscription.getCurrentTickets()).isEqualTo(1); // 변경 없음
-        
-        verify(userTicketRepository, never()).save(any(UserTicket.class));
-        verify(ticketTransactionRepository, never()).save(any(TicketTransaction.class));
-        verify(paymentEventService, never()).publishTicketsRefilled(anyLong(), anyInt(), anyInt());
+        verify(ticketRefillCoordinator, never()).runRefill();
     }
-}
\ No newline at end of file
+}
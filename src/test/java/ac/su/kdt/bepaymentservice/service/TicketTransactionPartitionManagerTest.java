@@ -0,0 +1,112 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 파티션 계획과 보관 파일 쓰기를 확인한다 (파티션 DDL 자체는 PostgreSQL 전용이라 H2 에서는 다루지 않는다)
+ */
+@DataJpaTest
+@Import(TicketTransactionPartitionManager.class)
+@TestPropertySource(properties = "ticket.transaction.partitioning.enabled=true")
+@DisplayName("TicketTransactionPartitionManager 파티션 관리 테스트")
+class TicketTransactionPartitionManagerTest {
+
+    @Autowired
+    private TicketTransactionPartitionManager partitionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path archiveDir;
+
+    @Test
+    @DisplayName("이번 달부터 months-ahead 개월 뒤까지 없는 파티션만 만든다")
+    void plan_CreatesMissingFuturePartitions() {
+        // Given
+        YearMonth current = YearMonth.of(2024, 12);
+        Set<YearMonth> attached = Set.of(YearMonth.of(2024, 12), YearMonth.of(2025, 1));
+
+        // When
+        TicketTransactionPartitionManager.Plan plan = TicketTransactionPartitionManager.plan(current, attached, 3, 12);
+
+        // Then
+        assertThat(plan.toCreate()).containsExactly(YearMonth.of(2025, 2), YearMonth.of(2025, 3));
+        assertThat(plan.toArchive()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("보관 기간보다 오래된 파티션만 오래된 순으로 보관 대상이 된다")
+    void plan_ArchivesPartitionsOlderThanRetention() {
+        // Given
+        YearMonth current = YearMonth.of(2025, 3);
+        Set<YearMonth> attached = Set.of(
+                YearMonth.of(2024, 3), YearMonth.of(2024, 1), YearMonth.of(2024, 2),
+                YearMonth.of(2025, 3), YearMonth.of(2025, 4));
+
+        // When
+        TicketTransactionPartitionManager.Plan plan = TicketTransactionPartitionManager.plan(current, attached, 1, 12);
+        TicketTransactionPartitionManager.Plan noRetention = TicketTransactionPartitionManager.plan(current, attached, 1, 0);
+
+        // Then
+        assertThat(plan.toArchive()).containsExactly(YearMonth.of(2024, 1), YearMonth.of(2024, 2));
+        assertThat(noRetention.toArchive()).isEmpty();
+        assertThat(TicketTransactionPartitionManager.partitionName(YearMonth.of(2024, 2)))
+                .isEqualTo("ticket_transaction_p202402");
+    }
+
+    @Test
+    @DisplayName("테이블의 모든 행을 created_at 순서의 gzip CSV 로 보관한다")
+    void archive_WritesGzippedCsv() throws Exception {
+        // Given
+        insert(1L, "SPENT", -1, LocalDateTime.of(2024, 1, 20, 9, 0), "Mission attempt");
+        insert(2L, "EARNED", 3, LocalDateTime.of(2024, 1, 5, 9, 0), "Refund, \"mission\" failed");
+        insert(1L, "EARNED", 3, LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        Path target = archiveDir.resolve("ticket_transaction_p202401.csv.gz");
+
+        // When
+        long rows = partitionManager.archive(TicketTransactionPartitionManager.PARENT_TABLE, target);
+
+        // Then
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(target)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().toList();
+        }
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).contains("id", "user_id", "transaction_type", "reason", "created_at");
+        assertThat(lines.get(1)).contains("2024-01-01");
+        assertThat(lines.get(2)).contains("\"Refund, \"\"mission\"\" failed\"");
+        assertThat(lines.get(3)).contains("2024-01-20");
+        assertThat(archiveDir.resolve("ticket_transaction_p202401.csv.gz.tmp")).doesNotExist();
+    }
+
+    private void insert(Long userId, String type, int amount, LocalDateTime createdAt, String reason) {
+        jdbcTemplate.update(
+                "INSERT INTO ticket_transaction (user_id, transaction_type, ticket_amount, balance_before, balance_after, " +
+                "related_attempt_id, reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                userId, type, amount, 0, amount, null, reason, Timestamp.valueOf(createdAt));
+    }
+}
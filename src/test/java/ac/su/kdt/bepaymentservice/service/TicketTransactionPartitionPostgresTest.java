@@ -0,0 +1,211 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionDto;
+import ac.su.kdt.bepaymentservice.dto.TicketTransactionPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 파티션 DDL(생성, 기본 파티션에서 옮기기, 보관 후 분리/삭제)과 거래 내역 조회의 파티션 제외를 실제 PostgreSQL 에서 확인한다
+ * Docker 가 없는 환경에서는 건너뛴다
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("TicketTransactionPartitionManager PostgreSQL 파티션 테스트")
+class TicketTransactionPartitionPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path archiveDir;
+
+    private TicketTransactionPartitionManager partitionManager;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 이전 테스트가 분리해 둔 파티션 테이블까지 지운다
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA public");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-postgresql.sql"))
+                .execute(jdbcTemplate.getDataSource());
+        partitionManager = newPartitionManager(0, false);
+    }
+
+    @Test
+    @DisplayName("이번 달부터 months-ahead 개월 뒤까지 월 파티션을 만든다")
+    void maintainPartitions_CreatesMonthlyPartitions() {
+        // When
+        partitionManager.maintainPartitions(YearMonth.of(2025, 3));
+
+        // Then
+        assertThat(attachedPartitions()).contains(
+                "ticket_transaction_p202503", "ticket_transaction_p202504", "ticket_transaction_p202505");
+        insert(1L, LocalDateTime.of(2025, 4, 10, 9, 0));
+        assertThat(count("ticket_transaction_p202504")).isEqualTo(1);
+        assertThat(count(TicketTransactionPartitionManager.DEFAULT_PARTITION)).isZero();
+    }
+
+    @Test
+    @DisplayName("기본 파티션에 그 달의 행이 있으면 새 파티션으로 옮긴 뒤 붙인다")
+    void maintainPartitions_MovesRowsOutOfDefaultPartition() {
+        // Given - 파티션이 없는 달의 행은 기본 파티션에 들어간다
+        insert(1L, LocalDateTime.of(2025, 3, 5, 9, 0));
+        insert(2L, LocalDateTime.of(2025, 3, 31, 23, 59));
+        insert(3L, LocalDateTime.of(2025, 6, 1, 0, 0));
+        assertThat(count(TicketTransactionPartitionManager.DEFAULT_PARTITION)).isEqualTo(3);
+
+        // When
+        partitionManager.maintainPartitions(YearMonth.of(2025, 3));
+
+        // Then
+        assertThat(count("ticket_transaction_p202503")).isEqualTo(2);
+        assertThat(count(TicketTransactionPartitionManager.DEFAULT_PARTITION)).isEqualTo(1);
+        assertThat(count(TicketTransactionPartitionManager.PARENT_TABLE)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지난 파티션은 gzip CSV 로 보관한 뒤 분리한다")
+    void maintainPartitions_ArchivesAndDetachesExpiredPartition() {
+        // Given
+        partitionManager.maintainPartitions(YearMonth.of(2024, 1));
+        insert(1L, LocalDateTime.of(2024, 1, 15, 9, 0));
+        partitionManager = newPartitionManager(12, false);
+
+        // When
+        partitionManager.maintainPartitions(YearMonth.of(2025, 3));
+
+        // Then - 부모 테이블에서는 빠지지만 테이블은 남는다
+        assertThat(archiveDir.resolve("ticket_transaction_p202401.csv.gz")).exists();
+        assertThat(attachedPartitions()).doesNotContain("ticket_transaction_p202401");
+        assertThat(count("ticket_transaction_p202401")).isEqualTo(1);
+        assertThat(count(TicketTransactionPartitionManager.PARENT_TABLE)).isZero();
+    }
+
+    @Test
+    @DisplayName("drop-after-archive 이면 보관한 파티션을 삭제한다")
+    void maintainPartitions_DropsArchivedPartition() {
+        // Given
+        partitionManager.maintainPartitions(YearMonth.of(2024, 1));
+        insert(1L, LocalDateTime.of(2024, 1, 15, 9, 0));
+        partitionManager = newPartitionManager(12, true);
+
+        // When
+        partitionManager.maintainPartitions(YearMonth.of(2025, 3));
+
+        // Then
+        assertThat(archiveDir.resolve("ticket_transaction_p202401.csv.gz")).exists();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT to_regclass('ticket_transaction_p202401') IS NULL", Boolean.class)).isTrue();
+    }
+
+    @Test
+    @DisplayName("거래 내역 첫 페이지 조회는 기본 파티션과 조회 기간 밖의 월 파티션을 읽지 않는다")
+    void historyPage_PrunesDefaultAndOldPartitions() {
+        // Given - 1년 전 달과 두 달 전 ~ 다음 달 파티션 (31일 조회 기간은 두 달 전까지 걸칠 수 있다)
+        YearMonth current = YearMonth.now();
+        partitionManager.maintainPartitions(current.minusMonths(12));
+        ReflectionTestUtils.setField(partitionManager, "monthsAhead", 3);
+        partitionManager.maintainPartitions(current.minusMonths(2));
+        LocalDateTime now = LocalDateTime.now();
+        insert(1L, now.minusHours(1));
+        insert(1L, now.minusMonths(12).withDayOfMonth(1));
+        jdbcTemplate.execute("ANALYZE ticket_transaction");
+
+        // When
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + TicketHistoryService.WINDOW_SQL,
+                String.class, 1L, Timestamp.valueOf(now.minusDays(31)), Timestamp.valueOf(now.plusDays(1)), 21));
+
+        // Then
+        assertThat(plan)
+                .contains(TicketTransactionPartitionManager.partitionName(current))
+                .doesNotContain(TicketTransactionPartitionManager.DEFAULT_PARTITION)
+                .doesNotContain(TicketTransactionPartitionManager.partitionName(current.minusMonths(12)));
+    }
+
+    @Test
+    @DisplayName("파티션 테이블에서도 거래 내역 페이지를 최신순으로 빠짐없이 읽는다")
+    void historyPage_ReadsAcrossPartitions() {
+        // Given
+        YearMonth current = YearMonth.now();
+        ReflectionTestUtils.setField(partitionManager, "monthsAhead", 3);
+        partitionManager.maintainPartitions(current.minusMonths(2));
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        insert(1L, now.minusMinutes(5));
+        insert(1L, now.minusDays(45));
+        insert(1L, now.minusYears(3));
+        TicketHistoryService historyService = new TicketHistoryService(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(historyService, "pageWindowDays", 31);
+
+        // When
+        TicketTransactionPage first = historyService.getTransactions(1L, null, 2);
+        TicketTransactionPage second = historyService.getTransactions(1L, first.nextCursor(), 2);
+
+        // Then
+        assertThat(first.transactions()).extracting(TicketTransactionDto::getCreatedAt)
+                .containsExactly(now.minusMinutes(5), now.minusDays(45));
+        assertThat(second.transactions()).extracting(TicketTransactionDto::getCreatedAt)
+                .containsExactly(now.minusYears(3));
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    private TicketTransactionPartitionManager newPartitionManager(int retentionMonths, boolean dropAfterArchive) {
+        TicketTransactionPartitionManager manager = new TicketTransactionPartitionManager(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(manager, "monthsAhead", 2);
+        ReflectionTestUtils.setField(manager, "retentionMonths", retentionMonths);
+        ReflectionTestUtils.setField(manager, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(manager, "dropAfterArchive", dropAfterArchive);
+        ReflectionTestUtils.setField(manager, "archiveFetchSize", 100);
+        ReflectionTestUtils.setField(manager, "lockTimeoutMs", 5000L);
+        return manager;
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'ticket_transaction'::regclass", String.class);
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    private void insert(Long userId, LocalDateTime createdAt) {
+        jdbcTemplate.update(
+                "INSERT INTO ticket_transaction (user_id, transaction_type, ticket_amount, balance_before, balance_after, " +
+                "related_attempt_id, reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                userId, "SPENT", -1, 1, 0, null, "Mission attempt", Timestamp.valueOf(createdAt));
+    }
+}
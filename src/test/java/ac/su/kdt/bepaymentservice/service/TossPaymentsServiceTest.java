@@ -1,10 +1,19 @@
 package ac.su.kdt.bepaymentservice.service;
 
+import ac.su.kdt.bepaymentservice.config.WebClientConfig;
 import ac.su.kdt.bepaymentservice.entity.BillingKey;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
 import ac.su.kdt.bepaymentservice.repository.BillingKeyRepository;
+import ac.su.kdt.bepaymentservice.toss.TossCallGuard;
+import ac.su.kdt.bepaymentservice.toss.TossOperation;
+import ac.su.kdt.bepaymentservice.toss.TossRateLimiter;
+import ac.su.kdt.bepaymentservice.toss.TossUnavailableException;
 import ac.su.kdt.bepaymentservice.toss.dto.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -14,12 +23,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,6 +44,7 @@ class TossPaymentsServiceTest {
     private BillingKeyRepository billingKeyRepository;
 
     private TossPaymentsService tossPaymentsService;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
     private MockWebServer mockWebServer;
     private ObjectMapper objectMapper;
 
@@ -41,17 +54,26 @@ class TossPaymentsServiceTest {
         mockWebServer.start();
         
         String baseUrl = mockWebServer.url("/").toString();
-        WebClient.Builder webClientBuilder = WebClient.builder();
+        WebClient tossWebClient = WebClient.builder()
+            .baseUrl(baseUrl)
+            .defaultHeader("Authorization", WebClientConfig.basicAuthHeader("test_sk_test_key"))
+            .build();
+        
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+        TossCallGuard tossCallGuard = new TossCallGuard(
+            circuitBreakerRegistry,
+            BulkheadRegistry.ofDefaults(),
+            new TossRateLimiter(new MockEnvironment(), paymentMetrics, Optional.empty()),
+            paymentMetrics
+        );
         
         tossPaymentsService = new TossPaymentsService(
             billingKeyRepository,
-            webClientBuilder
+            tossWebClient,
+            tossCallGuard
         );
         
-        // Use reflection to set the required fields
-        setField(tossPaymentsService, "secretKey", "test_sk_test_key");
-        setField(tossPaymentsService, "apiUrl", baseUrl);
-        
         objectMapper = new ObjectMapper();
     }
 
@@ -143,6 +165,63 @@ class TossPaymentsServiceTest {
             .verify();
     }
 
+    @Test
+    void confirmPayment_UsesSharedClientWithAuthHeader() throws JsonProcessingException, InterruptedException {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+
+        mockWebServer.enqueue(new MockResponse()
+            .setBody(objectMapper.writeValueAsString(createMockPaymentResponse()))
+            .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+            .setBody(objectMapper.writeValueAsString(createMockPaymentResponse()))
+            .addHeader("Content-Type", "application/json"));
+
+        // When & Then
+        StepVerifier.create(tossPaymentsService.confirmPayment(request))
+            .expectNextMatches(response -> "test_payment_key".equals(response.getPaymentKey()))
+            .verifyComplete();
+        StepVerifier.create(tossPaymentsService.confirmPayment(request))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        // 두 번째 요청에도 인증 헤더가 중복 없이 한 번만 붙는다
+        for (int i = 0; i < 2; i++) {
+            RecordedRequest recordedRequest = mockWebServer.takeRequest();
+            assertThat(recordedRequest.getPath()).isEqualTo("/v1/payments/confirm");
+            assertThat(recordedRequest.getHeaders().values("Authorization"))
+                .containsExactly("Basic dGVzdF9za190ZXN0X2tleTo=");
+        }
+    }
+
+    @Test
+    void confirmPayment_ServerError_PropagatesInsteadOfMockApproval() {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+
+        mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(500)
+            .setBody("{\"code\":\"FAILED_INTERNAL_SYSTEM_PROCESSING\"}"));
+
+        // When & Then
+        StepVerifier.create(tossPaymentsService.confirmPayment(request))
+            .expectError(WebClientResponseException.InternalServerError.class)
+            .verify();
+    }
+
+    @Test
+    void confirmPayment_CircuitOpen_FailsFastWithoutCallingToss() {
+        // Given
+        ConfirmRequest request = new ConfirmRequest("test_payment_key", "test_order_id", 10000L);
+        circuitBreakerRegistry.circuitBreaker(TossOperation.CONFIRM.getInstanceName()).transitionToOpenState();
+
+        // When & Then
+        StepVerifier.create(tossPaymentsService.confirmPayment(request))
+            .expectError(TossUnavailableException.class)
+            .verify();
+        assertThat(mockWebServer.getRequestCount()).isZero();
+    }
+
     private BillingResponse createMockBillingResponse() {
         BillingResponse response = new BillingResponse();
         response.setMId("test_mid");
@@ -184,14 +263,4 @@ class TossPaymentsServiceTest {
         response.setCard(cardInfo);
         return response;
     }
-
-    private void setField(Object target, String fieldName, Object value) {
-        try {
-            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            field.set(target, value);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,350 @@
+package ac.su.kdt.bepaymentservice.service;
+
+import ac.su.kdt.bepaymentservice.config.TestConfig;
+import ac.su.kdt.bepaymentservice.entity.PaymentTransaction;
+import ac.su.kdt.bepaymentservice.entity.Subscription;
+import ac.su.kdt.bepaymentservice.entity.SubscriptionPlan;
+import ac.su.kdt.bepaymentservice.entity.TossWebhookEvent;
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import ac.su.kdt.bepaymentservice.repository.PaymentTransactionRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionPlanRepository;
+import ac.su.kdt.bepaymentservice.repository.SubscriptionRepository;
+import ac.su.kdt.bepaymentservice.repository.TossWebhookEventRepository;
+import ac.su.kdt.bepaymentservice.toss.dto.PaymentResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * 웹훅은 레인 스레드의 별도 트랜잭션에서 반영되므로 테스트 트랜잭션 없이 실제로 커밋하며 검증한다
+ */
+@DataJpaTest
+@Import({TossWebhookService.class, ActiveSubscriptionCache.class, TestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "toss.webhook.secret=test-webhook-secret",
+        "toss.webhook.workers=2",
+        "toss.webhook.max-attempts=1"
+})
+@DisplayName("TossWebhookService 웹훅 수신/처리 테스트")
+class TossWebhookServiceTest {
+
+    private static final String TRANSMISSION_TIME = "2024-01-01T00:00:00.000000+09:00";
+
+    @Autowired
+    private TossWebhookService tossWebhookService;
+
+    @Autowired
+    private TossWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionPlanRepository subscriptionPlanRepository;
+
+    @MockBean
+    private PaymentEventService paymentEventService;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    @MockBean
+    private TossPaymentsService tossPaymentsService;
+
+    private Subscription subscription;
+
+    // GET /v1/payments/{paymentKey} 가 돌려줄 Toss 결제 상태
+    private volatile String tossStatus = "DONE";
+
+    @BeforeEach
+    void setUp() {
+        given(tossPaymentsService.getPayment(anyString())).willAnswer(invocation -> {
+            PaymentResponse payment = new PaymentResponse();
+            payment.setPaymentKey(invocation.getArgument(0));
+            payment.setStatus(tossStatus);
+            return Mono.just(payment);
+        });
+        SubscriptionPlan plan = subscriptionPlanRepository.save(SubscriptionPlan.builder()
+                .planName("Economy Class")
+                .planType(SubscriptionPlan.PlanType.ECONOMY_CLASS)
+                .monthlyPrice(new BigDecimal("29000.00"))
+                .maxMonthlyAttempts(10)
+                .ticketLimit(3)
+                .ticketRefillAmount(3)
+                .ticketRefillIntervalHours(24)
+                .isActive(true)
+                .build());
+        subscription = subscriptionRepository.save(Subscription.builder()
+                .userId(1L)
+                .plan(plan)
+                .status(Subscription.SubscriptionStatus.INCOMPLETE)
+                .billingCycle(Subscription.BillingCycle.MONTHLY)
+                .amount(new BigDecimal("29000.00"))
+                .currency("KRW")
+                .build());
+        paymentTransactionRepository.save(PaymentTransaction.builder()
+                .subscription(subscription)
+                .amount(new BigDecimal("29000.00"))
+                .paymentMethod(PaymentTransaction.PaymentMethod.CARD)
+                .transactionStatus(PaymentTransaction.TransactionStatus.PROCESSING)
+                .transactionType(PaymentTransaction.TransactionType.SUBSCRIPTION_PAYMENT)
+                .externalTransactionId("pk-1")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        webhookEventRepository.deleteAll();
+        paymentTransactionRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        subscriptionPlanRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("결제 완료 웹훅은 거래를 성공으로 바꾸고 첫 결제를 기다리던 구독을 활성화한다")
+    void receive_Done_MarksTransactionSucceededAndActivatesSubscription() {
+        // Given
+        String payload = payload("pk-1", "DONE");
+
+        // When
+        TossWebhookService.Receipt receipt = tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+
+        // Then
+        assertThat(receipt).isEqualTo(TossWebhookService.Receipt.ACCEPTED);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(webhookEventRepository.findAll())
+                        .extracting(TossWebhookEvent::getProcessingStatus)
+                        .containsExactly(TossWebhookEvent.ProcessingStatus.PROCESSED));
+
+        PaymentTransaction transaction = paymentTransactionRepository.findByExternalTransactionId("pk-1").get(0);
+        assertThat(transaction.getTransactionStatus()).isEqualTo(PaymentTransaction.TransactionStatus.SUCCEEDED);
+        Subscription updated = subscriptionRepository.findById(subscription.getId()).orElseThrow();
+        assertThat(updated.getStatus()).isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
+        assertThat(updated.getCurrentPeriodEnd()).isAfter(LocalDateTime.now().plusDays(27));
+        verify(paymentEventService).publishPaymentSucceeded(any(PaymentTransaction.class));
+        verify(paymentEventService).publishSubscriptionStatusUpdated(any(Subscription.class));
+    }
+
+    @Test
+    @DisplayName("같은 웹훅이 다시 오면 저장/처리하지 않고 중복으로 응답한다")
+    void receive_Duplicate_IsAcknowledgedOnce() {
+        // Given
+        String payload = payload("pk-1", "DONE");
+        tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+
+        // When
+        TossWebhookService.Receipt receipt = tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+
+        // Then
+        assertThat(receipt).isEqualTo(TossWebhookService.Receipt.DUPLICATE);
+        assertThat(webhookEventRepository.count()).isEqualTo(1);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                verify(paymentEventService).publishPaymentSucceeded(any(PaymentTransaction.class)));
+    }
+
+    @Test
+    @DisplayName("서명이 맞지 않으면 저장하지 않고 거절한다")
+    void receive_InvalidSignature_Rejected() {
+        // Given
+        String payload = payload("pk-1", "DONE");
+        String forged = "v1:" + Base64.getEncoder().encodeToString("forged".getBytes());
+
+        // When & Then
+        assertThatThrownBy(() -> tossWebhookService.receive(payload, forged, TRANSMISSION_TIME))
+                .isInstanceOf(WebhookVerificationException.class);
+        assertThatThrownBy(() -> tossWebhookService.receive(payload, null, null))
+                .isInstanceOf(WebhookVerificationException.class);
+        assertThat(webhookEventRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("처리가 max-attempts 번 실패하면 반영을 되돌리고 FAILED 로 남긴다")
+    void receive_ProcessingFails_MarkedFailedAfterMaxAttempts() {
+        // Given
+        willThrow(new IllegalStateException("publish failed"))
+                .given(paymentEventService).publishPaymentSucceeded(any(PaymentTransaction.class));
+        String payload = payload("pk-1", "DONE");
+
+        // When
+        tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+
+        // Then
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(webhookEventRepository.findAll()).singleElement().satisfies(event -> {
+                    assertThat(event.getProcessingStatus()).isEqualTo(TossWebhookEvent.ProcessingStatus.FAILED);
+                    assertThat(event.getAttempts()).isEqualTo(1);
+                    assertThat(event.getLastError()).isEqualTo("publish failed");
+                }));
+        assertThat(paymentTransactionRepository.findByExternalTransactionId("pk-1").get(0).getTransactionStatus())
+                .isEqualTo(PaymentTransaction.TransactionStatus.PROCESSING);
+        verify(paymentMetrics).incrementWebhookFailure();
+    }
+
+    @Test
+    @DisplayName("환불된 거래에 늦게 도착한 결제 완료/진행 중 웹훅은 상태를 되돌리지 않고 이벤트도 다시 발행하지 않는다")
+    void receive_LateDoneAfterRefund_Ignored() {
+        // Given - DONE, CANCELED(환불) 순서로 반영된 뒤
+        deliverAndAwait("DONE", "2024-01-01T00:00:00.000000", 1);
+        deliverAndAwait("CANCELED", "2024-01-01T00:05:00.000000", 2);
+
+        // When - 재전송된 이전 단계 웹훅이 늦게 도착
+        deliverAndAwait("DONE", "2024-01-01T00:00:01.000000", 3);
+        deliverAndAwait("IN_PROGRESS", "2023-12-31T23:59:59.000000", 4);
+
+        // Then
+        assertThat(paymentTransactionRepository.findByExternalTransactionId("pk-1").get(0).getTransactionStatus())
+                .isEqualTo(PaymentTransaction.TransactionStatus.REFUNDED);
+        verify(paymentEventService, times(1)).publishPaymentSucceeded(any(PaymentTransaction.class));
+    }
+
+    @Test
+    @DisplayName("결제 완료 뒤에 도착한 진행 중/실패 웹훅은 거래를 되돌리지 않는다")
+    void receive_LateInProgressAfterDone_Ignored() {
+        // Given
+        deliverAndAwait("DONE", "2024-01-01T00:00:00.000000", 1);
+
+        // When
+        deliverAndAwait("IN_PROGRESS", "2023-12-31T23:59:59.000000", 2);
+        deliverAndAwait("ABORTED", "2023-12-31T23:59:58.000000", 3);
+
+        // Then
+        assertThat(paymentTransactionRepository.findByExternalTransactionId("pk-1").get(0).getTransactionStatus())
+                .isEqualTo(PaymentTransaction.TransactionStatus.SUCCEEDED);
+        assertThat(subscriptionRepository.findById(subscription.getId()).orElseThrow().getStatus())
+                .isEqualTo(Subscription.SubscriptionStatus.ACTIVE);
+        verify(paymentEventService, never()).publishPaymentFailed(any(PaymentTransaction.class));
+    }
+
+    @Test
+    @DisplayName("본문의 상태가 아니라 Toss 에서 다시 조회한 결제 상태를 반영한다")
+    void receive_AppliesStatusFetchedFromToss() {
+        // Given - 본문은 결제 완료라고 하지만 Toss 에는 중단된 결제로 남아 있다
+        tossStatus = "ABORTED";
+        String payload = payload("pk-1", "DONE");
+
+        // When
+        tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+
+        // Then
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(webhookEventRepository.findAll())
+                        .extracting(TossWebhookEvent::getProcessingStatus)
+                        .containsExactly(TossWebhookEvent.ProcessingStatus.PROCESSED));
+        assertThat(paymentTransactionRepository.findByExternalTransactionId("pk-1").get(0).getTransactionStatus())
+                .isEqualTo(PaymentTransaction.TransactionStatus.FAILED);
+        verify(tossPaymentsService).getPayment("pk-1");
+        verify(paymentEventService, never()).publishPaymentSucceeded(any(PaymentTransaction.class));
+        verify(paymentEventService).publishPaymentFailed(any(PaymentTransaction.class));
+    }
+
+    @Test
+    @DisplayName("Toss 결제 조회에 실패하면 반영하지 않고 처리 실패로 남긴다")
+    void receive_StatusLookupFails_NotApplied() {
+        // Given
+        given(tossPaymentsService.getPayment("pk-1")).willReturn(Mono.error(new IllegalStateException("lookup failed")));
+        String payload = payload("pk-1", "DONE");
+
+        // When
+        tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+
+        // Then
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(webhookEventRepository.findAll()).singleElement().satisfies(event -> {
+                    assertThat(event.getProcessingStatus()).isEqualTo(TossWebhookEvent.ProcessingStatus.FAILED);
+                    assertThat(event.getLastError()).isEqualTo("lookup failed");
+                }));
+        assertThat(paymentTransactionRepository.findByExternalTransactionId("pk-1").get(0).getTransactionStatus())
+                .isEqualTo(PaymentTransaction.TransactionStatus.PROCESSING);
+    }
+
+    @Test
+    @DisplayName("require-secret 인데 secret 이 없으면 기동하지 않는다")
+    void init_RequireSecretWithoutSecret_Fails() {
+        // Given
+        TossWebhookService service = new TossWebhookService(null, null, null, null, null, null, null, null, null);
+        ReflectionTestUtils.setField(service, "webhookSecret", "");
+        ReflectionTestUtils.setField(service, "requireSecret", true);
+
+        // When & Then
+        assertThatThrownBy(service::init)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("toss.webhook.secret");
+    }
+
+    @Test
+    @DisplayName("거래 상태는 앞으로만 진행하고 종료 상태에서는 바뀌지 않는다")
+    void canTransition_OnlyForward() {
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.PENDING,
+                PaymentTransaction.TransactionStatus.PROCESSING)).isTrue();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.PROCESSING,
+                PaymentTransaction.TransactionStatus.FAILED)).isTrue();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.SUCCEEDED,
+                PaymentTransaction.TransactionStatus.PARTIALLY_REFUNDED)).isTrue();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.PARTIALLY_REFUNDED,
+                PaymentTransaction.TransactionStatus.REFUNDED)).isTrue();
+
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.SUCCEEDED,
+                PaymentTransaction.TransactionStatus.PROCESSING)).isFalse();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.SUCCEEDED,
+                PaymentTransaction.TransactionStatus.FAILED)).isFalse();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.PARTIALLY_REFUNDED,
+                PaymentTransaction.TransactionStatus.SUCCEEDED)).isFalse();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.REFUNDED,
+                PaymentTransaction.TransactionStatus.SUCCEEDED)).isFalse();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.CANCELED,
+                PaymentTransaction.TransactionStatus.SUCCEEDED)).isFalse();
+        assertThat(TossWebhookService.canTransition(PaymentTransaction.TransactionStatus.FAILED,
+                PaymentTransaction.TransactionStatus.PROCESSING)).isFalse();
+    }
+
+    /**
+     * 웹훅 하나를 보내고 처리 완료될 때까지 기다려 도착 순서를 고정한다
+     */
+    private void deliverAndAwait(String status, String createdAt, int expectedProcessed) {
+        tossStatus = status;
+        String payload = payload("pk-1", status, createdAt);
+        tossWebhookService.receive(payload, sign(payload), TRANSMISSION_TIME);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(webhookEventRepository.findAll())
+                        .filteredOn(event -> event.getProcessingStatus() == TossWebhookEvent.ProcessingStatus.PROCESSED)
+                        .hasSize(expectedProcessed));
+    }
+
+    private String payload(String paymentKey, String status) {
+        return payload(paymentKey, status, "2024-01-01T00:00:00.000000");
+    }
+
+    private String payload(String paymentKey, String status, String createdAt) {
+        return "{\"eventType\":\"PAYMENT_STATUS_CHANGED\",\"createdAt\":\"" + createdAt + "\"," +
+                "\"data\":{\"paymentKey\":\"" + paymentKey + "\",\"orderId\":\"order-1\",\"status\":\"" + status + "\"}}";
+    }
+
+    private String sign(String payload) {
+        return "v1:" + Base64.getEncoder().encodeToString(
+                TossWebhookService.sign("test-webhook-secret", payload + ":" + TRANSMISSION_TIME));
+    }
+}
@@ -0,0 +1,334 @@
+package ac.su.kdt.bepaymentservice.ticket;
+
+import ac.su.kdt.bepaymentservice.dto.TicketDto;
+import ac.su.kdt.bepaymentservice.entity.TicketTransaction;
+import ac.su.kdt.bepaymentservice.entity.UserTicket;
+import ac.su.kdt.bepaymentservice.repository.UserTicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TicketBalanceEngine 단위 테스트")
+class TicketBalanceEngineTest {
+
+    @Mock
+    private UserTicketRepository userTicketRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path journalDir;
+
+    private TicketBalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        UserTicket userTicket = UserTicket.builder()
+                .id(10L)
+                .userId(1L)
+                .currentTickets(5)
+                .lastTicketRefill(LocalDateTime.now().minusHours(1))
+                .nextRefillAt(LocalDateTime.now().plusHours(23))
+                .build();
+        lenient().when(userTicketRepository.findByUserId(1L)).thenReturn(Optional.of(userTicket));
+        lenient().when(userTicketRepository.findByUserId(999L)).thenReturn(Optional.empty());
+
+        engine = newEngine();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("잔액이 충분하면 메모리에서 차감하고 저장소를 다시 조회하지 않는다")
+    void trySpend_SufficientBalance_DecrementsInMemory() {
+        // When
+        int first = engine.trySpend(1L, 2, TicketTransaction.TicketTransactionType.SPENT, 100L, "Mission attempt");
+        int second = engine.trySpend(1L, 2, TicketTransaction.TicketTransactionType.SPENT, 101L, "Mission attempt");
+
+        // Then
+        assertThat(first).isEqualTo(3);
+        assertThat(second).isEqualTo(1);
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(1);
+        verify(userTicketRepository, times(1)).findByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("잔액이 부족하면 INSUFFICIENT를 반환하고 잔액은 변하지 않는다")
+    void trySpend_InsufficientBalance_ReturnsInsufficient() {
+        // When
+        int result = engine.trySpend(1L, 6, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+
+        // Then
+        assertThat(result).isEqualTo(TicketBalanceEngine.INSUFFICIENT);
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(5);
+    }
+
+    @Test
+    @DisplayName("계정이 없으면 빈 결과를 반환한다")
+    void findTickets_NoAccount_ReturnsEmpty() {
+        assertThat(engine.findTickets(999L)).isEmpty();
+        assertThat(engine.loadIfAbsent(999L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("충전은 한도를 넘지 않는 만큼만 지급한다")
+    void refill_CapsAtTicketLimit() {
+        // When
+        LocalDateTime now = LocalDateTime.now();
+        int added = engine.refill(1L, 5, 8, now, now.plusHours(24));
+
+        // Then
+        assertThat(added).isEqualTo(3);
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(8);
+    }
+
+    @Test
+    @DisplayName("flush는 dirty 잔액과 거래 내역을 배치로 반영한다")
+    @SuppressWarnings("unchecked")
+    void flush_PersistsDirtyBalancesInBatches() {
+        // Given
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+        engine.trySpend(1L, 1, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+        engine.credit(1L, 2, TicketTransaction.TicketTransactionType.REFUND, null, "Ticket refund");
+
+        // When
+        engine.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE user_ticket"),
+                (Collection<Object>) argThat(rows -> ((Collection<?>) rows).size() == 1),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO ticket_transaction"),
+                (Collection<Object>) argThat(entries -> ((Collection<?>) entries).size() == 2),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("flush 전에 재기동되면 저널을 replay하여 응답한 차감을 복구한다")
+    void restart_ReplaysJournalBeforeFlush() {
+        // Given - DB 반영이 계속 실패하는 상태에서 차감
+        willThrow(new IllegalStateException("database unavailable"))
+                .given(transactionTemplate).executeWithoutResult(any());
+        engine.trySpend(1L, 4, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+        engine.shutdown();
+
+        // When - 새 인스턴스가 같은 저널 디렉터리로 기동
+        engine = newEngine();
+
+        // Then - DB에는 5로 남아 있지만 저널 기준 잔액 1이 복구된다
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(1);
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안의 차감은 커밋 후에 반영되고, 커밋 전에는 hold 로 잡아 같은 티켓을 두 번 쓰지 못한다")
+    void trySpend_InTransaction_AppliesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            int projected = engine.trySpend(1L, 4, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+            int second = engine.trySpend(1L, 2, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+
+            // Then - 커밋 전에는 잔액이 그대로이고, 잡아둔 만큼 추가 차감은 거절된다
+            assertThat(projected).isEqualTo(1);
+            assertThat(second).isEqualTo(TicketBalanceEngine.INSUFFICIENT);
+            assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(5);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(1);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO ticket_journal_commit"), eq(1L));
+    }
+
+    @Test
+    @DisplayName("커밋 전 저널 기록에 실패하면 예외로 트랜잭션을 실패시키고 변경을 반영하지 않는다")
+    void trySpend_JournalFailsBeforeCommit_FailsTransaction() {
+        TicketJournal realJournal = (TicketJournal) ReflectionTestUtils.getField(engine, "journal");
+        TicketJournal failingJournal = mock(TicketJournal.class);
+        given(failingJournal.append(any())).willThrow(new UncheckedIOException(new IOException("disk full")));
+        ReflectionTestUtils.setField(engine, "journal", failingJournal);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.trySpend(1L, 4, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+
+            // When & Then
+            assertThatThrownBy(() -> TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.beforeCommit(false)))
+                    .isInstanceOf(UncheckedIOException.class);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            ReflectionTestUtils.setField(engine, "journal", realJournal);
+        }
+
+        // Then - 커밋 표시를 남기지 않고 hold 도 풀린다
+        verify(jdbcTemplate, never()).update(startsWith("INSERT INTO ticket_journal_commit"), any(Object[].class));
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(5);
+        assertThat(engine.trySpend(1L, 5, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt"))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("재기동 replay 는 커밋 표시가 있는 트랜잭션 기록만 적용한다")
+    void restart_ReplaysOnlyCommittedPreparedEntries() {
+        // Given - 두 트랜잭션 모두 저널 기록 후 메모리 반영 전에 죽었고, 두 번째(sequence 2)만 DB 커밋까지 끝난 상황
+        willThrow(new IllegalStateException("database unavailable"))
+                .given(transactionTemplate).executeWithoutResult(any());
+        journalInTransaction(1);
+        journalInTransaction(2);
+        engine.shutdown();
+        given(jdbcTemplate.queryForList(startsWith("SELECT journal_seq FROM ticket_journal_commit"), eq(Long.class), any(), any()))
+                .willReturn(List.of(2L));
+
+        // When
+        engine = newEngine();
+
+        // Then - 커밋된 두 번째 차감만 복구된다
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(3);
+    }
+
+    @Test
+    @DisplayName("트랜잭션이 롤백되면 차감과 지급을 버리고 hold 를 푼다")
+    void trySpend_RolledBack_DiscardsChange() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.trySpend(1L, 4, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+            engine.credit(1L, 2, TicketTransaction.TicketTransactionType.REFUND, null, "Ticket refund");
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(5);
+        assertThat(engine.trySpend(1L, 5, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt"))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("이미 DB 에 반영된 저널 기록은 재기동 replay 에서 다시 적용하지 않는다")
+    void restart_SkipsEntriesAlreadyFlushed() {
+        // Given - 첫 차감(sequence 1)은 DB 에 반영된 뒤 저널 삭제 전에 죽은 상황
+        willThrow(new IllegalStateException("database unavailable"))
+                .given(transactionTemplate).executeWithoutResult(any());
+        engine.trySpend(1L, 1, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+        engine.trySpend(1L, 2, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+        engine.shutdown();
+        UserTicket flushedOnce = UserTicket.builder().id(10L).userId(1L).currentTickets(4).build();
+        given(userTicketRepository.findByUserId(1L)).willReturn(Optional.of(flushedOnce));
+        given(jdbcTemplate.queryForList(startsWith("SELECT journal_seq FROM ticket_transaction"), eq(Long.class), any(), any()))
+                .willReturn(List.of(1L));
+
+        // When
+        engine = newEngine();
+
+        // Then - DB 잔액 4 에 두 번째 차감만 다시 적용된다
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(2);
+    }
+
+    @Test
+    @DisplayName("fsync 를 켜도 여러 스레드의 차감이 모두 기록되고 재기동 후 복구된다")
+    void trySpend_ConcurrentWithFsync_AllDurable() throws Exception {
+        // Given
+        engine.shutdown();
+        UserTicket rich = UserTicket.builder().id(10L).userId(1L).currentTickets(1000).build();
+        given(userTicketRepository.findByUserId(1L)).willReturn(Optional.of(rich));
+        willThrow(new IllegalStateException("database unavailable"))
+                .given(transactionTemplate).executeWithoutResult(any());
+        engine = newEngine(true);
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() ->
+                        engine.trySpend(1L, 1, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt")));
+            }
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isNotEqualTo(TicketBalanceEngine.INSUFFICIENT);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        engine.shutdown();
+        engine = newEngine(true);
+
+        // Then
+        assertThat(engine.findTickets(1L)).map(TicketDto::getCurrentTickets).contains(800);
+    }
+
+    private void journalInTransaction(int tickets) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.trySpend(1L, tickets, TicketTransaction.TicketTransactionType.SPENT, null, "Mission attempt");
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private TicketBalanceEngine newEngine() {
+        return newEngine(false);
+    }
+
+    private TicketBalanceEngine newEngine(boolean fsync) {
+        TicketBalanceEngine newEngine = new TicketBalanceEngine(userTicketRepository, jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(newEngine, "stripeCount", 4);
+        ReflectionTestUtils.setField(newEngine, "initialCapacityPerStripe", 16);
+        ReflectionTestUtils.setField(newEngine, "flushBatchSize", 100);
+        ReflectionTestUtils.setField(newEngine, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(newEngine, "journalFsync", fsync);
+        newEngine.init();
+        return newEngine;
+    }
+}
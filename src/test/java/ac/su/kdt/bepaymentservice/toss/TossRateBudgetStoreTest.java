@@ -0,0 +1,72 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@Import(TossRateBudgetStore.class)
+@TestPropertySource(properties = "toss.rate-limit.shared.enabled=true")
+@DisplayName("TossRateBudgetStore 공유 예산 테스트")
+class TossRateBudgetStoreTest {
+
+    @Autowired
+    private TossRateBudgetStore budgetStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("한 구간에서는 초당 한도만큼만 예약된다")
+    void reserve_LimitsPerWindow() {
+        // When
+        int first = budgetStore.reserve("toss-confirm", 3, 2, 1000L);
+        int second = budgetStore.reserve("toss-confirm", 3, 2, 1000L);
+        int third = budgetStore.reserve("toss-confirm", 3, 2, 1000L);
+
+        // Then - 남은 예산만큼만 일부 예약된다
+        assertThat(first).isEqualTo(2);
+        assertThat(second).isEqualTo(1);
+        assertThat(third).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT used FROM toss_rate_budget WHERE operation = 'toss-confirm'", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("한 번에 초당 한도보다 많이 예약하지 않는다")
+    void reserve_CapsAtPermitsPerSecond() {
+        // When & Then
+        assertThat(budgetStore.reserve("toss-confirm", 3, 10, 1000L)).isEqualTo(3);
+        assertThat(budgetStore.reserve("toss-confirm", 3, 1, 1000L)).isZero();
+    }
+
+    @Test
+    @DisplayName("다음 구간이 시작되면 예산을 다시 채운다")
+    void reserve_NewWindow_ResetsBudget() {
+        // Given
+        budgetStore.reserve("toss-auto-payment", 1, 1, 1000L);
+        assertThat(budgetStore.reserve("toss-auto-payment", 1, 1, 1000L)).isZero();
+
+        // When & Then
+        assertThat(budgetStore.reserve("toss-auto-payment", 1, 1, 1001L)).isEqualTo(1);
+        assertThat(budgetStore.reserve("toss-auto-payment", 1, 1, 1001L)).isZero();
+        assertThat(budgetStore.reserve("toss-auto-payment", 1, 1, 1000L)).isZero();
+    }
+
+    @Test
+    @DisplayName("작업별 예산은 서로 영향을 주지 않는다")
+    void reserve_SeparateBudgetPerOperation() {
+        // Given
+        budgetStore.reserve("toss-confirm", 1, 1, 1000L);
+
+        // When & Then
+        assertThat(budgetStore.reserve("toss-billing-issue", 1, 1, 1000L)).isEqualTo(1);
+        assertThat(budgetStore.reserve("toss-confirm", 1, 1, 1000L)).isZero();
+    }
+}
@@ -0,0 +1,206 @@
+package ac.su.kdt.bepaymentservice.toss;
+
+import ac.su.kdt.bepaymentservice.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@DisplayName("TossRateLimiter 호출 한도 테스트")
+class TossRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TossRateLimiter rateLimiter;
+
+    @AfterEach
+    void tearDown() {
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    @DisplayName("순간 허용량 안의 호출은 기다리지 않고 허가한다")
+    void acquire_WithinBurst_GrantsImmediately() {
+        // Given
+        rateLimiter = limiter(1, 3, 10, 1000);
+
+        // When & Then
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(rateLimiter.acquire(TossOperation.CONFIRM, TossCallPriority.INTERACTIVE))
+                    .expectComplete()
+                    .verify(Duration.ofMillis(200));
+        }
+    }
+
+    @Test
+    @DisplayName("토큰이 없으면 대기 중인 사용자 호출을 배치 호출보다 먼저 허가한다")
+    void acquire_Queued_InteractiveBeforeBatch() {
+        // Given - 토큰 1개를 먼저 쓰고, 배치 2건 뒤에 사용자 호출 2건이 줄을 선다
+        rateLimiter = limiter(10, 1, 10, 2000);
+        rateLimiter.acquire(TossOperation.AUTO_PAYMENT, TossCallPriority.INTERACTIVE).block(Duration.ofSeconds(1));
+        List<String> grantOrder = new CopyOnWriteArrayList<>();
+
+        // When
+        Mono.when(
+                acquireAndRecord(TossCallPriority.BATCH, "batch-1", grantOrder),
+                acquireAndRecord(TossCallPriority.BATCH, "batch-2", grantOrder),
+                acquireAndRecord(TossCallPriority.INTERACTIVE, "interactive-1", grantOrder),
+                acquireAndRecord(TossCallPriority.INTERACTIVE, "interactive-2", grantOrder)
+        ).block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(grantOrder).containsExactly("interactive-1", "interactive-2", "batch-1", "batch-2");
+        assertThat(meterRegistry.get("toss.ratelimit.wait.time")
+                .tag("operation", "toss-auto-payment")
+                .tag("priority", "BATCH")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 바로 거절한다")
+    void acquire_QueueFull_Rejects() {
+        // Given - 토큰 1개, 대기열 1칸
+        rateLimiter = limiter(0.5, 1, 1, 5000);
+        rateLimiter.acquire(TossOperation.CONFIRM, TossCallPriority.INTERACTIVE).block(Duration.ofSeconds(1));
+        rateLimiter.acquire(TossOperation.CONFIRM, TossCallPriority.INTERACTIVE).subscribe(v -> { }, e -> { });
+
+        // When & Then
+        StepVerifier.create(rateLimiter.acquire(TossOperation.CONFIRM, TossCallPriority.INTERACTIVE))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(TossUnavailableException.class)
+                        .hasMessageContaining("rate_limit_queue_full"))
+                .verify(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("toss.ratelimit.queue.depth")
+                .tag("operation", "toss-confirm")
+                .gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("최대 대기 시간 안에 허가를 받지 못하면 거절하고 대기열에서 뺀다")
+    void acquire_WaitTooLong_Rejects() {
+        // Given
+        rateLimiter = limiter(0.1, 1, 10, 100);
+        rateLimiter.acquire(TossOperation.BILLING_ISSUE, TossCallPriority.INTERACTIVE).block(Duration.ofSeconds(1));
+
+        // When & Then
+        StepVerifier.create(rateLimiter.acquire(TossOperation.BILLING_ISSUE, TossCallPriority.BATCH))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(TossUnavailableException.class)
+                        .hasMessageContaining("rate_limit_timeout"))
+                .verify(Duration.ofSeconds(1));
+        await().atMost(Duration.ofSeconds(1)).untilAsserted(() -> assertThat(meterRegistry.get("toss.ratelimit.queue.depth")
+                .tag("operation", "toss-billing-issue")
+                .gauge().value()).isZero());
+    }
+
+    @Test
+    @DisplayName("공유 예산 예약과 허가 이후 작업은 dispatcher 스레드가 아닌 작업 스레드에서 실행한다")
+    void acquire_SharedBudget_ReservesAndContinuesOffDispatcher() {
+        // Given
+        TossRateBudgetStore budgetStore = mock(TossRateBudgetStore.class);
+        List<String> reserveThreads = new CopyOnWriteArrayList<>();
+        AtomicInteger reserved = new AtomicInteger();
+        given(budgetStore.currentWindow()).willReturn(1000L);
+        given(budgetStore.reserve(eq("toss-billing-issue"), eq(10), anyInt(), eq(1000L))).willAnswer(invocation -> {
+            reserveThreads.add(Thread.currentThread().getName());
+            reserved.addAndGet(invocation.<Integer>getArgument(2));
+            return invocation.<Integer>getArgument(2);
+        });
+        rateLimiter = new TossRateLimiter(environment(10, 10, 100, 2000), new PaymentMetrics(meterRegistry),
+                Optional.of(budgetStore));
+        List<String> grantThreads = new CopyOnWriteArrayList<>();
+
+        // When
+        Mono.when(IntStream.range(0, 5)
+                .mapToObj(i -> rateLimiter.acquire(TossOperation.BILLING_ISSUE, TossCallPriority.INTERACTIVE)
+                        .doOnSuccess(v -> grantThreads.add(Thread.currentThread().getName())))
+                .toList()
+        ).block(Duration.ofSeconds(5));
+
+        // Then - 대기 건수만큼 묶어 예약하므로 예약 호출 수는 허가 수를 넘지 않는다
+        assertThat(grantThreads).hasSize(5).noneMatch(name -> name.startsWith("toss-rate-limiter"));
+        assertThat(reserveThreads).isNotEmpty().noneMatch(name -> name.startsWith("toss-rate-limiter"));
+        assertThat(reserved.get()).isEqualTo(5);
+        verify(budgetStore, atMost(5)).reserve(anyString(), anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    @DisplayName("공유 예산을 모두 쓰면 다음 구간까지 허가를 미룬다")
+    void acquire_SharedBudgetExhausted_WaitsForNextWindow() {
+        // Given
+        TossRateBudgetStore budgetStore = mock(TossRateBudgetStore.class);
+        AtomicLong window = new AtomicLong(1000L);
+        given(budgetStore.currentWindow()).willAnswer(invocation -> window.get());
+        given(budgetStore.nanosUntilNextWindow()).willReturn(Duration.ofMillis(50).toNanos());
+        given(budgetStore.reserve(anyString(), anyInt(), anyInt(), anyLong())).willAnswer(invocation -> {
+            if (invocation.<Long>getArgument(3) == 1000L) {
+                // 이번 구간의 예산은 다른 인스턴스가 모두 썼고, 곧 다음 구간이 시작된다
+                window.set(1001L);
+                return 0;
+            }
+            return 1;
+        });
+        rateLimiter = new TossRateLimiter(environment(10, 10, 100, 2000), new PaymentMetrics(meterRegistry),
+                Optional.of(budgetStore));
+
+        // When & Then
+        StepVerifier.create(rateLimiter.acquire(TossOperation.CONFIRM, TossCallPriority.INTERACTIVE))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        verify(budgetStore).reserve("toss-confirm", 10, 1, 1000L);
+        verify(budgetStore).reserve("toss-confirm", 10, 1, 1001L);
+    }
+
+    @Test
+    @DisplayName("비활성화하면 허가를 기다리지 않는다")
+    void acquire_Disabled_PassesThrough() {
+        // Given
+        MockEnvironment environment = new MockEnvironment().withProperty("toss.rate-limit.enabled", "false");
+        rateLimiter = new TossRateLimiter(environment, new PaymentMetrics(meterRegistry), Optional.empty());
+
+        // When & Then
+        for (int i = 0; i < 100; i++) {
+            StepVerifier.create(rateLimiter.acquire(TossOperation.CONFIRM, TossCallPriority.BATCH))
+                    .verifyComplete();
+        }
+    }
+
+    private Mono<Void> acquireAndRecord(TossCallPriority priority, String name, List<String> grantOrder) {
+        return rateLimiter.acquire(TossOperation.AUTO_PAYMENT, priority)
+                .doOnSuccess(v -> grantOrder.add(name));
+    }
+
+    private TossRateLimiter limiter(double permitsPerSecond, int burst, int maxQueueSize, long maxWaitMs) {
+        return new TossRateLimiter(environment(permitsPerSecond, burst, maxQueueSize, maxWaitMs),
+                new PaymentMetrics(meterRegistry), Optional.empty());
+    }
+
+    private MockEnvironment environment(double permitsPerSecond, int burst, int maxQueueSize, long maxWaitMs) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("toss.rate-limit.max-wait-ms", String.valueOf(maxWaitMs))
+                .withProperty("toss.rate-limit.interactive-weight", "4");
+        for (TossOperation operation : TossOperation.values()) {
+            String base = "toss.rate-limit." + operation.getInstanceName() + ".";
+            environment.withProperty(base + "permits-per-second", String.valueOf(permitsPerSecond))
+                    .withProperty(base + "burst", String.valueOf(burst))
+                    .withProperty(base + "max-queue-size", String.valueOf(maxQueueSize));
+        }
+        return environment;
+    }
+}